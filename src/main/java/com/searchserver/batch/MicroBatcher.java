@@ -0,0 +1,184 @@
+package com.searchserver.batch;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * 跨请求的动态微批：键相同的并发单条请求合并成一次批量调用（如一次多向量检索、一次 embedAll）。
+ * 每批在凑满 maxBatchSize 条时立即发出，否则在第一条到达 maxWait 后由定时线程发出；
+ * 批量调用本身是异步的，调用方拿到的 future 在结果按位置分发后完成，批量调用失败时整批异常完成。
+ * 定时线程只负责封批，耗时的工作应由 handler 交给自己的线程池或异步客户端执行。
+ * @param <K> 合批的键，需实现 equals/hashCode，相等的请求才能合批
+ * @param <I> 单条请求
+ * @param <O> 单条结果
+ */
+public class MicroBatcher<K, I, O> implements Closeable {
+
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final BiFunction<K, List<I>, CompletableFuture<List<O>>> handler;
+    private final ConcurrentHashMap<K, Batch> open = new ConcurrentHashMap<>();
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final DistributionSummary batchSize;
+    private final Timer waitTime;
+
+    /**
+     * @param handler 一次处理一批请求，返回的结果与输入一一对应
+     * @param metricPrefix 指标 {prefix}.batch.size 和 {prefix}.batch.wait 的前缀，同时用于线程名
+     */
+    public MicroBatcher(int maxBatchSize, long maxWaitMicros,
+                        BiFunction<K, List<I>, CompletableFuture<List<O>>> handler,
+                        MeterRegistry meterRegistry, String metricPrefix) {
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxWaitNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(0, maxWaitMicros));
+        this.handler = handler;
+        this.scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, metricPrefix + "-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.setRemoveOnCancelPolicy(true);
+        this.batchSize = DistributionSummary.builder(metricPrefix + ".batch.size")
+                .description("Number of requests per dispatched batch")
+                .publishPercentileHistogram()
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.waitTime = Timer.builder(metricPrefix + ".batch.wait")
+                .description("Time a request waited for its batch to be dispatched")
+                .publishPercentileHistogram()
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    public CompletableFuture<O> submit(K key, I item) {
+        // 不合批或不等待时每条立即发出
+        if (maxBatchSize == 1 || maxWaitNanos == 0) {
+            batchSize.record(1);
+            return apply(key, List.of(item)).thenApply(results -> results.get(0));
+        }
+        while (true) {
+            Batch batch = open.computeIfAbsent(key, k -> new Batch());
+            int slot = batch.add(item);
+            if (slot < 0) {
+                // 该批已发出，换一个新批
+                open.remove(key, batch);
+                continue;
+            }
+            if (slot == 0) {
+                try {
+                    batch.arm(scheduler.schedule(() -> dispatch(key, batch), maxWaitNanos, TimeUnit.NANOSECONDS));
+                } catch (RejectedExecutionException e) {
+                    // 已关闭，不再等待凑批
+                    dispatch(key, batch);
+                }
+            }
+            if (slot == maxBatchSize - 1) {
+                dispatch(key, batch);
+            }
+            return batch.results.thenApply(results -> results.get(slot));
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        // 关闭后不会再有定时封批，已排队的请求立即失败，避免调用方永远等待
+        open.forEach((key, batch) -> {
+            if (batch.seal() != null) {
+                batch.results.completeExceptionally(new IllegalStateException("Batcher is closed"));
+            }
+        });
+    }
+
+    /**
+     * 凑满和超时两条路径都会调用，只有先封批的一方真正发出
+     */
+    private void dispatch(K key, Batch batch) {
+        List<I> items = batch.seal();
+        if (items == null) {
+            return;
+        }
+        open.remove(key, batch);
+
+        long dispatched = System.nanoTime();
+        batchSize.record(items.size());
+        for (long arrived : batch.arrivals) {
+            waitTime.record(dispatched - arrived, TimeUnit.NANOSECONDS);
+        }
+        apply(key, items).whenComplete((results, e) -> {
+            if (e != null) {
+                batch.results.completeExceptionally(e);
+            } else if (results == null || results.size() != items.size()) {
+                batch.results.completeExceptionally(new IllegalStateException("Batch of " + items.size()
+                        + " requests returned " + (results == null ? 0 : results.size()) + " results"));
+            } else {
+                batch.results.complete(results);
+            }
+        });
+    }
+
+    private CompletableFuture<List<O>> apply(K key, List<I> items) {
+        try {
+            return handler.apply(key, items);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private final class Batch {
+        private final List<I> items = new ArrayList<>();
+        private final List<Long> arrivals = new ArrayList<>();
+        private final CompletableFuture<List<O>> results = new CompletableFuture<>();
+        private ScheduledFuture<?> timer;
+        private boolean sealed;
+
+        /**
+         * @return 在批内的位置，已封批或已满时返回 -1
+         */
+        synchronized int add(I item) {
+            if (sealed || items.size() >= maxBatchSize) {
+                return -1;
+            }
+            items.add(item);
+            arrivals.add(System.nanoTime());
+            return items.size() - 1;
+        }
+
+        /**
+         * 记下超时定时器；定时器创建前该批已被凑满发出时直接取消
+         */
+        synchronized void arm(ScheduledFuture<?> scheduled) {
+            if (sealed) {
+                scheduled.cancel(false);
+            } else {
+                timer = scheduled;
+            }
+        }
+
+        /**
+         * @return 本批的请求，已被另一方封批时返回 null
+         */
+        synchronized List<I> seal() {
+            if (sealed) {
+                return null;
+            }
+            sealed = true;
+            if (timer != null) {
+                timer.cancel(false);
+            }
+            return new ArrayList<>(items);
+        }
+    }
+}
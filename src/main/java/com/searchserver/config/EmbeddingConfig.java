@@ -0,0 +1,47 @@
+package com.searchserver.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 文本向量化的批处理参数
+ */
+@Configuration
+public class EmbeddingConfig {
+
+    // 每次 embedAll 的最大文本数：动态微批凑满即发出，批量接口按此分块
+    @Value("${app.embedding.batch-size:32}")
+    private Integer batchSize;
+
+    // 并发的单条调用最多等待该时长凑批，0 表示不等待
+    @Value("${app.embedding.batch-wait-micros:2000}")
+    private Long batchWaitMicros;
+
+    // 执行微批的线程数，各批之间并行
+    @Value("${app.embedding.threads:2}")
+    private Integer threads;
+
+    public Integer getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(Integer batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public Long getBatchWaitMicros() {
+        return batchWaitMicros;
+    }
+
+    public void setBatchWaitMicros(Long batchWaitMicros) {
+        this.batchWaitMicros = batchWaitMicros;
+    }
+
+    public Integer getThreads() {
+        return threads;
+    }
+
+    public void setThreads(Integer threads) {
+        this.threads = threads;
+    }
+}
@@ -0,0 +1,118 @@
+package com.searchserver.config;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import io.milvus.client.MilvusClient;
+import io.milvus.client.MilvusServiceClient;
+import io.milvus.grpc.MutationResult;
+import io.milvus.grpc.SearchResults;
+import io.milvus.param.ConnectParam;
+import io.milvus.param.R;
+import io.milvus.param.dml.InsertParam;
+import io.milvus.param.dml.SearchParam;
+
+import java.io.Closeable;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 全进程共用的 Milvus 客户端池：pool-size 个 MilvusServiceClient 各占一条 gRPC 通道（带 keep-alive），
+ * 调用按轮询分摊到各通道，每次调用都带 rpc-deadline-ms 截止时间。
+ * 异步调用的回调在独立的回调线程池上完成，后续的 thenApply 等（如Redis回表）不会占用 gRPC 的网络线程
+ */
+public class MilvusClientPool implements Closeable {
+
+    private final List<MilvusServiceClient> channels = new ArrayList<>();
+    private final List<MilvusClient> clients = new ArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final ExecutorService callbackExecutor;
+    private final MilvusClient client;
+    private static final org.slf4j.Logger log
+            = org.slf4j.LoggerFactory.getLogger(MilvusClientPool.class);
+
+    public MilvusClientPool(MilvusConfig config) {
+        int size = Math.max(1, config.getPoolSize());
+        for (int i = 0; i < size; i++) {
+            ConnectParam connectParam = ConnectParam.newBuilder()
+                    .withHost(config.getHost())
+                    .withPort(config.getPort())
+                    .withConnectTimeout(config.getConnectTimeoutMs(), TimeUnit.MILLISECONDS)
+                    .withKeepAliveTime(config.getKeepAliveTimeMs(), TimeUnit.MILLISECONDS)
+                    .withKeepAliveTimeout(config.getKeepAliveTimeoutMs(), TimeUnit.MILLISECONDS)
+                    .keepAliveWithoutCalls(true)
+                    .build();
+            MilvusServiceClient channel = new MilvusServiceClient(connectParam);
+            channels.add(channel);
+            clients.add(channel.withTimeout(config.getRpcDeadlineMs(), TimeUnit.MILLISECONDS));
+        }
+
+        AtomicInteger counter = new AtomicInteger();
+        this.callbackExecutor = Executors.newFixedThreadPool(Math.max(1, config.getCallbackThreads()), runnable -> {
+            Thread thread = new Thread(runnable, "milvus-callback-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // 对外暴露一个 MilvusClient 视图，每次方法调用轮询到下一条通道
+        this.client = (MilvusClient) Proxy.newProxyInstance(MilvusClient.class.getClassLoader(),
+                new Class<?>[]{MilvusClient.class}, (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        return "equals".equals(method.getName()) ? proxy == args[0] : method.invoke(this, args);
+                    }
+                    try {
+                        return method.invoke(nextClient(), args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        log.info("Milvus client pool connected to {}:{} with {} channels", config.getHost(), config.getPort(), size);
+    }
+
+    /**
+     * 同步调用入口，可作为普通 MilvusClient 注入使用；不要调用它的 close，由池统一关闭
+     */
+    public MilvusClient client() {
+        return client;
+    }
+
+    public CompletableFuture<R<SearchResults>> searchAsync(SearchParam searchParam) {
+        return toCompletableFuture(nextClient().searchAsync(searchParam));
+    }
+
+    public CompletableFuture<R<MutationResult>> insertAsync(InsertParam insertParam) {
+        return toCompletableFuture(nextClient().insertAsync(insertParam));
+    }
+
+    @Override
+    public void close() {
+        for (MilvusServiceClient channel : channels) {
+            channel.close();
+        }
+        callbackExecutor.shutdownNow();
+    }
+
+    private MilvusClient nextClient() {
+        return clients.get(Math.floorMod(next.getAndIncrement(), clients.size()));
+    }
+
+    private <T> CompletableFuture<T> toCompletableFuture(ListenableFuture<T> future) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        future.addListener(() -> {
+            try {
+                result.complete(future.get());
+            } catch (ExecutionException e) {
+                result.completeExceptionally(e.getCause());
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+        }, callbackExecutor);
+        return result;
+    }
+}
@@ -1,13 +1,12 @@
 package com.searchserver.config;
 
 import io.milvus.client.MilvusClient;
-import io.milvus.client.MilvusServiceClient;
-import io.milvus.param.ConnectParam;
 import io.milvus.param.IndexType;
 import io.milvus.param.MetricType;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 
 @Configuration
 public class MilvusConfig {
@@ -33,13 +32,104 @@ public class MilvusConfig {
     @Value("${spring.milvus.metric-type}")
     private String metricType;
 
-    @Bean
-    public MilvusClient milvusClient() {
-        ConnectParam connectParam = ConnectParam.newBuilder()
-                .withHost(host)
-                .withPort(port)
-                .build();
-        return new MilvusServiceClient(connectParam);
+    // 批量保存时每个 InsertParam 包含的行数
+    @Value("${spring.milvus.insert-batch-size:500}")
+    private Integer insertBatchSize;
+
+    // 大于1时向Milvus多取 limit*factor 个候选，再用Redis中的原始向量精确重排
+    @Value("${spring.milvus.rerank-factor:1}")
+    private Integer rerankFactor;
+
+    // IVF 系列索引的聚类数（建索引参数）
+    @Value("${spring.milvus.nlist:1024}")
+    private Integer nlist;
+
+    // IVF_PQ 的子向量数，需整除向量维度
+    @Value("${spring.milvus.pq-m:48}")
+    private Integer pqM;
+
+    // HNSW 索引的建图参数
+    @Value("${spring.milvus.hnsw-m:16}")
+    private Integer hnswM;
+
+    @Value("${spring.milvus.hnsw-ef-construction:200}")
+    private Integer hnswEfConstruction;
+
+    // IVF 检索的聚类数默认值，标定结果和请求参数优先
+    @Value("${spring.milvus.nprobe:16}")
+    private Integer nprobe;
+
+    // HNSW 检索的候选队列长度默认值（DISKANN 的 search_list 同用此值），标定结果和请求参数优先
+    @Value("${spring.milvus.ef:64}")
+    private Integer ef;
+
+    // 检索微批：参数相同的并发检索最多凑满 search-batch-size 条或等待 search-batch-wait-micros 后合并发出，1 表示不合批
+    @Value("${spring.milvus.search-batch-size:16}")
+    private Integer searchBatchSize;
+
+    @Value("${spring.milvus.search-batch-wait-micros:500}")
+    private Long searchBatchWaitMicros;
+
+    // 向量检索默认的读一致性级别：STRONG、BOUNDED、SESSION 或 EVENTUALLY，可被工具配置和调用参数覆盖
+    @Value("${spring.milvus.consistency-level:BOUNDED}")
+    private String consistencyLevel;
+
+    // 按品牌建立的分区数上限，超出的品牌写入兜底分区
+    @Value("${spring.milvus.max-brand-partitions:64}")
+    private Integer maxBrandPartitions;
+
+    // 集合结构过旧时是否迁移：在新集合中重建并回填后切换别名，只应在一个实例上开启
+    @Value("${spring.milvus.migrate-schema:false}")
+    private Boolean migrateSchema;
+
+    // 客户端池的 gRPC 通道数，调用按轮询分摊
+    @Value("${spring.milvus.pool-size:4}")
+    private Integer poolSize;
+
+    @Value("${spring.milvus.connect-timeout-ms:10000}")
+    private Long connectTimeoutMs;
+
+    // 空闲时也按该间隔发送 keep-alive，避免中间设备回收长连接
+    @Value("${spring.milvus.keep-alive-time-ms:30000}")
+    private Long keepAliveTimeMs;
+
+    @Value("${spring.milvus.keep-alive-timeout-ms:10000}")
+    private Long keepAliveTimeoutMs;
+
+    // 每次 RPC 的截止时间
+    @Value("${spring.milvus.rpc-deadline-ms:5000}")
+    private Long rpcDeadlineMs;
+
+    // 完成异步调用回调的线程数
+    @Value("${spring.milvus.callback-threads:4}")
+    private Integer callbackThreads;
+
+    // 删除（含增量更新时的先删后插）累计达到该行数时后台执行 flush + 手动压缩
+    @Value("${spring.milvus.compaction.enabled:true}")
+    private Boolean compactionEnabled;
+
+    @Value("${spring.milvus.compaction.delete-threshold:10000}")
+    private Long compactionDeleteThreshold;
+
+    // 等待 flush/压缩完成时的轮询间隔和超时
+    @Value("${spring.milvus.compaction.poll-interval-ms:1000}")
+    private Long compactionPollIntervalMs;
+
+    @Value("${spring.milvus.compaction.timeout-ms:600000}")
+    private Long compactionTimeoutMs;
+
+    // embedded 模式不连接Milvus
+    @Bean(destroyMethod = "close")
+    @Profile("!embedded")
+    public MilvusClientPool milvusClientPool() {
+        return new MilvusClientPool(this);
+    }
+
+    // 由客户端池统一关闭，这里不推断 close 方法
+    @Bean(destroyMethod = "")
+    @Profile("!embedded")
+    public MilvusClient milvusClient(MilvusClientPool milvusClientPool) {
+        return milvusClientPool.client();
     }
 
     public String getCollectionName() {
@@ -99,4 +189,188 @@ public class MilvusConfig {
     public void setMetricType(String metricType) {
         this.metricType = metricType;
     }
+
+    public Integer getInsertBatchSize() {
+        return insertBatchSize;
+    }
+
+    public void setInsertBatchSize(Integer insertBatchSize) {
+        this.insertBatchSize = insertBatchSize;
+    }
+
+    public Integer getRerankFactor() {
+        return rerankFactor;
+    }
+
+    public void setRerankFactor(Integer rerankFactor) {
+        this.rerankFactor = rerankFactor;
+    }
+
+    public Boolean getMigrateSchema() {
+        return migrateSchema;
+    }
+
+    public void setMigrateSchema(Boolean migrateSchema) {
+        this.migrateSchema = migrateSchema;
+    }
+
+    public Integer getMaxBrandPartitions() {
+        return maxBrandPartitions;
+    }
+
+    public void setMaxBrandPartitions(Integer maxBrandPartitions) {
+        this.maxBrandPartitions = maxBrandPartitions;
+    }
+
+    public String getConsistencyLevel() {
+        return consistencyLevel;
+    }
+
+    public void setConsistencyLevel(String consistencyLevel) {
+        this.consistencyLevel = consistencyLevel;
+    }
+
+    public Integer getNlist() {
+        return nlist;
+    }
+
+    public void setNlist(Integer nlist) {
+        this.nlist = nlist;
+    }
+
+    public Integer getHnswM() {
+        return hnswM;
+    }
+
+    public void setHnswM(Integer hnswM) {
+        this.hnswM = hnswM;
+    }
+
+    public Integer getHnswEfConstruction() {
+        return hnswEfConstruction;
+    }
+
+    public void setHnswEfConstruction(Integer hnswEfConstruction) {
+        this.hnswEfConstruction = hnswEfConstruction;
+    }
+
+    public Integer getNprobe() {
+        return nprobe;
+    }
+
+    public void setNprobe(Integer nprobe) {
+        this.nprobe = nprobe;
+    }
+
+    public Integer getEf() {
+        return ef;
+    }
+
+    public void setEf(Integer ef) {
+        this.ef = ef;
+    }
+
+    public Integer getPqM() {
+        return pqM;
+    }
+
+    public void setPqM(Integer pqM) {
+        this.pqM = pqM;
+    }
+
+    public Integer getSearchBatchSize() {
+        return searchBatchSize;
+    }
+
+    public void setSearchBatchSize(Integer searchBatchSize) {
+        this.searchBatchSize = searchBatchSize;
+    }
+
+    public Long getSearchBatchWaitMicros() {
+        return searchBatchWaitMicros;
+    }
+
+    public void setSearchBatchWaitMicros(Long searchBatchWaitMicros) {
+        this.searchBatchWaitMicros = searchBatchWaitMicros;
+    }
+
+    public Integer getPoolSize() {
+        return poolSize;
+    }
+
+    public void setPoolSize(Integer poolSize) {
+        this.poolSize = poolSize;
+    }
+
+    public Long getConnectTimeoutMs() {
+        return connectTimeoutMs;
+    }
+
+    public void setConnectTimeoutMs(Long connectTimeoutMs) {
+        this.connectTimeoutMs = connectTimeoutMs;
+    }
+
+    public Long getKeepAliveTimeMs() {
+        return keepAliveTimeMs;
+    }
+
+    public void setKeepAliveTimeMs(Long keepAliveTimeMs) {
+        this.keepAliveTimeMs = keepAliveTimeMs;
+    }
+
+    public Long getKeepAliveTimeoutMs() {
+        return keepAliveTimeoutMs;
+    }
+
+    public void setKeepAliveTimeoutMs(Long keepAliveTimeoutMs) {
+        this.keepAliveTimeoutMs = keepAliveTimeoutMs;
+    }
+
+    public Long getRpcDeadlineMs() {
+        return rpcDeadlineMs;
+    }
+
+    public void setRpcDeadlineMs(Long rpcDeadlineMs) {
+        this.rpcDeadlineMs = rpcDeadlineMs;
+    }
+
+    public Integer getCallbackThreads() {
+        return callbackThreads;
+    }
+
+    public void setCallbackThreads(Integer callbackThreads) {
+        this.callbackThreads = callbackThreads;
+    }
+
+    public Boolean getCompactionEnabled() {
+        return compactionEnabled;
+    }
+
+    public void setCompactionEnabled(Boolean compactionEnabled) {
+        this.compactionEnabled = compactionEnabled;
+    }
+
+    public Long getCompactionDeleteThreshold() {
+        return compactionDeleteThreshold;
+    }
+
+    public void setCompactionDeleteThreshold(Long compactionDeleteThreshold) {
+        this.compactionDeleteThreshold = compactionDeleteThreshold;
+    }
+
+    public Long getCompactionPollIntervalMs() {
+        return compactionPollIntervalMs;
+    }
+
+    public void setCompactionPollIntervalMs(Long compactionPollIntervalMs) {
+        this.compactionPollIntervalMs = compactionPollIntervalMs;
+    }
+
+    public Long getCompactionTimeoutMs() {
+        return compactionTimeoutMs;
+    }
+
+    public void setCompactionTimeoutMs(Long compactionTimeoutMs) {
+        this.compactionTimeoutMs = compactionTimeoutMs;
+    }
 }
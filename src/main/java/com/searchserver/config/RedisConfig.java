@@ -3,32 +3,56 @@ package com.searchserver.config;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.searchserver.model.LaptopInfo;
+import com.searchserver.repository.codec.LaptopInfoBinarySerializer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 @Configuration
 public class RedisConfig {
 
+    // SCAN 每次迭代的 COUNT 以及每批 MGET 的键数
+    @Value("${app.redis.scan-batch-size:500}")
+    private Integer scanBatchSize;
+
+    // 值编码：binary（紧凑二进制，兼容读取旧JSON）或 json
+    @Value("${app.redis.codec:binary}")
+    private String codec;
+
+    @Value("${app.redis.lz4-enabled:false}")
+    private boolean lz4Enabled;
+
+    // 编码后超过该字节数才做LZ4压缩
+    @Value("${app.redis.lz4-threshold:512}")
+    private Integer lz4Threshold;
+
     @Bean
     public RedisTemplate<String, LaptopInfo> redisTemplate(RedisConnectionFactory connectionFactory) {
         RedisTemplate<String, LaptopInfo> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
 
-        // 使用Jackson2JsonRedisSerializer来序列化和反序列化redis的value值
-        Jackson2JsonRedisSerializer<LaptopInfo> serializer = new Jackson2JsonRedisSerializer<>(LaptopInfo.class);
-
         ObjectMapper mapper = new ObjectMapper();
         // 注册JavaTimeModule以支持Java 8日期/时间类型
         mapper.registerModule(new JavaTimeModule());
-        serializer.setObjectMapper(mapper);
+
+        RedisSerializer<LaptopInfo> serializer;
+        if ("json".equalsIgnoreCase(codec)) {
+            // 使用Jackson2JsonRedisSerializer来序列化和反序列化redis的value值
+            Jackson2JsonRedisSerializer<LaptopInfo> jsonSerializer = new Jackson2JsonRedisSerializer<>(LaptopInfo.class);
+            jsonSerializer.setObjectMapper(mapper);
+            serializer = jsonSerializer;
+        } else {
+            // 二进制编码，旧的JSON值由同一个序列化器透明读取
+            serializer = new LaptopInfoBinarySerializer(mapper, lz4Enabled, lz4Threshold);
+        }
 
         // 使用StringRedisSerializer来序列化和反序列化redis的key值
         template.setKeySerializer(new StringRedisSerializer());
-        // 值采用json序列化
         template.setValueSerializer(serializer);
         template.setHashKeySerializer(new StringRedisSerializer());
         template.setHashValueSerializer(serializer);
@@ -36,4 +60,12 @@ public class RedisConfig {
 
         return template;
     }
+
+    public Integer getScanBatchSize() {
+        return scanBatchSize;
+    }
+
+    public void setScanBatchSize(Integer scanBatchSize) {
+        this.scanBatchSize = scanBatchSize;
+    }
 }
@@ -0,0 +1,200 @@
+package com.searchserver.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 检索参数：混合检索（关键词 + 向量）的融合参数与执行线程池（异步相似检索的向量化也在此执行）、各工具的读一致性级别，
+ * 以及 nprobe/ef 自动标定的触发条件
+ */
+@Configuration
+public class SearchConfig {
+
+    // RRF 平滑常数：得分为 weight / (k + rank)，k 越大排名靠后的结果越不吃亏
+    @Value("${app.search.hybrid.rrf-k:60}")
+    private Integer rrfK;
+
+    @Value("${app.search.hybrid.keyword-weight:1.0}")
+    private Double keywordWeight;
+
+    @Value("${app.search.hybrid.vector-weight:1.0}")
+    private Double vectorWeight;
+
+    // 每一路召回 limit * candidateFactor 条参与融合
+    @Value("${app.search.hybrid.candidate-factor:3}")
+    private Integer candidateFactor;
+
+    // 单次请求的时间预算，超时未返回的一路被丢弃
+    @Value("${app.search.hybrid.timeout-ms:300}")
+    private Long timeoutMs;
+
+    @Value("${app.search.hybrid.threads:8}")
+    private Integer threads;
+
+    // 各工具的读一致性级别，留空使用 spring.milvus.consistency-level
+    @Value("${app.search.consistency.find-similar-laptops:}")
+    private String findSimilarConsistency;
+
+    @Value("${app.search.consistency.search-laptops:}")
+    private String searchConsistency;
+
+    // nprobe/ef 标定：取召回率达到 target-recall 的最小参数
+    @Value("${app.search.calibration.enabled:true}")
+    private Boolean calibrationEnabled;
+
+    @Value("${app.search.calibration.target-recall:0.95}")
+    private Double calibrationTargetRecall;
+
+    @Value("${app.search.calibration.sample-size:200}")
+    private Integer calibrationSampleSize;
+
+    @Value("${app.search.calibration.k:10}")
+    private Integer calibrationK;
+
+    // 累计入库量超过上次标定时目录规模的该比例（且不少于 min-ingest 条）时重新标定
+    @Value("${app.search.calibration.recalibrate-ratio:0.2}")
+    private Double recalibrateRatio;
+
+    @Value("${app.search.calibration.min-ingest:1000}")
+    private Integer recalibrateMinIngest;
+
+    @Value("${app.search.calibration.on-startup:false}")
+    private Boolean calibrateOnStartup;
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService hybridSearchExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "hybrid-search-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newFixedThreadPool(threads, threadFactory);
+    }
+
+    public Integer getRrfK() {
+        return rrfK;
+    }
+
+    public void setRrfK(Integer rrfK) {
+        this.rrfK = rrfK;
+    }
+
+    public Double getKeywordWeight() {
+        return keywordWeight;
+    }
+
+    public void setKeywordWeight(Double keywordWeight) {
+        this.keywordWeight = keywordWeight;
+    }
+
+    public Double getVectorWeight() {
+        return vectorWeight;
+    }
+
+    public void setVectorWeight(Double vectorWeight) {
+        this.vectorWeight = vectorWeight;
+    }
+
+    public Integer getCandidateFactor() {
+        return candidateFactor;
+    }
+
+    public void setCandidateFactor(Integer candidateFactor) {
+        this.candidateFactor = candidateFactor;
+    }
+
+    public Long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    public void setTimeoutMs(Long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+    }
+
+    public Integer getThreads() {
+        return threads;
+    }
+
+    public void setThreads(Integer threads) {
+        this.threads = threads;
+    }
+
+    public String getFindSimilarConsistency() {
+        return findSimilarConsistency;
+    }
+
+    public void setFindSimilarConsistency(String findSimilarConsistency) {
+        this.findSimilarConsistency = findSimilarConsistency;
+    }
+
+    public String getSearchConsistency() {
+        return searchConsistency;
+    }
+
+    public void setSearchConsistency(String searchConsistency) {
+        this.searchConsistency = searchConsistency;
+    }
+
+    public Boolean getCalibrationEnabled() {
+        return calibrationEnabled;
+    }
+
+    public void setCalibrationEnabled(Boolean calibrationEnabled) {
+        this.calibrationEnabled = calibrationEnabled;
+    }
+
+    public Double getCalibrationTargetRecall() {
+        return calibrationTargetRecall;
+    }
+
+    public void setCalibrationTargetRecall(Double calibrationTargetRecall) {
+        this.calibrationTargetRecall = calibrationTargetRecall;
+    }
+
+    public Integer getCalibrationSampleSize() {
+        return calibrationSampleSize;
+    }
+
+    public void setCalibrationSampleSize(Integer calibrationSampleSize) {
+        this.calibrationSampleSize = calibrationSampleSize;
+    }
+
+    public Integer getCalibrationK() {
+        return calibrationK;
+    }
+
+    public void setCalibrationK(Integer calibrationK) {
+        this.calibrationK = calibrationK;
+    }
+
+    public Double getRecalibrateRatio() {
+        return recalibrateRatio;
+    }
+
+    public void setRecalibrateRatio(Double recalibrateRatio) {
+        this.recalibrateRatio = recalibrateRatio;
+    }
+
+    public Integer getRecalibrateMinIngest() {
+        return recalibrateMinIngest;
+    }
+
+    public void setRecalibrateMinIngest(Integer recalibrateMinIngest) {
+        this.recalibrateMinIngest = recalibrateMinIngest;
+    }
+
+    public Boolean getCalibrateOnStartup() {
+        return calibrateOnStartup;
+    }
+
+    public void setCalibrateOnStartup(Boolean calibrateOnStartup) {
+        this.calibrateOnStartup = calibrateOnStartup;
+    }
+}
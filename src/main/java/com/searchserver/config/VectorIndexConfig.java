@@ -0,0 +1,132 @@
+package com.searchserver.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * embedded 模式下进程内向量索引的参数
+ */
+@Configuration
+public class VectorIndexConfig {
+
+    // 索引类型：hnsw（近似）、exact（SIMD 全量扫描，适合小目录）、mapped（内存映射段文件上的精确扫描，重启免加载）、
+    // sq8 / pq（堆内只存 int8 或乘积量化码，候选用Redis中的原始向量重排）
+    @Value("${app.vector.engine:hnsw}")
+    private String engine;
+
+    // 每个节点每层的最大邻居数（第0层为 2M）
+    @Value("${app.vector.hnsw.m:16}")
+    private Integer m;
+
+    // 建图时的候选队列长度，越大召回越高、插入越慢
+    @Value("${app.vector.hnsw.ef-construction:200}")
+    private Integer efConstruction;
+
+    // 查询时的候选队列长度，不小于 topK
+    @Value("${app.vector.hnsw.ef-search:64}")
+    private Integer efSearch;
+
+    // 墓碑节点占比超过该值时在后台重建 HNSW 图
+    @Value("${app.vector.hnsw.compact-ratio:0.3}")
+    private Double hnswCompactRatio;
+
+    // mapped 引擎的段文件路径，每个实例一份本地文件
+    @Value("${app.vector.segment.path:data/laptop-vectors.seg}")
+    private String segmentPath;
+
+    // 墓碑行占比超过该值时压缩段文件
+    @Value("${app.vector.segment.compact-ratio:0.3}")
+    private Double compactRatio;
+
+    // 乘积量化的子空间数，需整除向量维度；子空间越多越准、码越长
+    @Value("${app.vector.quantization.pq-subspaces:96}")
+    private Integer pqSubspaces;
+
+    // 量化检索先取 k*rerankFactor 个候选再用全精度向量重排
+    @Value("${app.vector.quantization.rerank-factor:4}")
+    private Integer rerankFactor;
+
+    // 训练码本的样本数
+    @Value("${app.vector.quantization.training-size:10000}")
+    private Integer trainingSize;
+
+    public String getEngine() {
+        return engine;
+    }
+
+    public void setEngine(String engine) {
+        this.engine = engine;
+    }
+
+    public Integer getM() {
+        return m;
+    }
+
+    public void setM(Integer m) {
+        this.m = m;
+    }
+
+    public Integer getEfConstruction() {
+        return efConstruction;
+    }
+
+    public void setEfConstruction(Integer efConstruction) {
+        this.efConstruction = efConstruction;
+    }
+
+    public Integer getEfSearch() {
+        return efSearch;
+    }
+
+    public void setEfSearch(Integer efSearch) {
+        this.efSearch = efSearch;
+    }
+
+    public String getSegmentPath() {
+        return segmentPath;
+    }
+
+    public void setSegmentPath(String segmentPath) {
+        this.segmentPath = segmentPath;
+    }
+
+    public Double getHnswCompactRatio() {
+        return hnswCompactRatio;
+    }
+
+    public void setHnswCompactRatio(Double hnswCompactRatio) {
+        this.hnswCompactRatio = hnswCompactRatio;
+    }
+
+    public Double getCompactRatio() {
+        return compactRatio;
+    }
+
+    public void setCompactRatio(Double compactRatio) {
+        this.compactRatio = compactRatio;
+    }
+
+    public Integer getPqSubspaces() {
+        return pqSubspaces;
+    }
+
+    public void setPqSubspaces(Integer pqSubspaces) {
+        this.pqSubspaces = pqSubspaces;
+    }
+
+    public Integer getRerankFactor() {
+        return rerankFactor;
+    }
+
+    public void setRerankFactor(Integer rerankFactor) {
+        this.rerankFactor = rerankFactor;
+    }
+
+    public Integer getTrainingSize() {
+        return trainingSize;
+    }
+
+    public void setTrainingSize(Integer trainingSize) {
+        this.trainingSize = trainingSize;
+    }
+}
@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
@@ -18,7 +19,11 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.searchserver.model.LaptopFilter;
 import com.searchserver.model.LaptopInfo;
+import com.searchserver.model.ReadConsistency;
+import com.searchserver.model.VectorSearchOptions;
+import com.searchserver.model.ScoredLaptop;
 import com.searchserver.service.LaptopSearchService;
 
 import reactor.core.publisher.Flux;
@@ -68,15 +73,29 @@ public class HttpMcpServer {
             tool.put("description", "Search laptops by keyword or price range");
             List<Map<String, Object>> params = new ArrayList<>();
             params.add(Map.of("name", "keyword", "type", "string", "description", "Search keyword"));
+            params.add(Map.of("name", "brand", "type", "string", "description", "Brand filter"));
             params.add(Map.of("name", "minPrice", "type", "number", "description", "Minimum price"));
             params.add(Map.of("name", "maxPrice", "type", "number", "description", "Maximum price"));
+            params.add(Map.of("name", "limit", "type", "integer", "description", "Maximum number of results"));
+            params.add(Map.of("name", "offset", "type", "integer", "description", "Number of price range results to skip"));
+            params.add(Map.of("name", "mode", "type", "string", "description", "keyword (default) or hybrid (keyword + vector fused by RRF)"));
+            params.add(Map.of("name", "consistency", "type", "string", "description", "Vector read consistency for hybrid mode: Strong, Bounded, Session or Eventually"));
+            params.add(Map.of("name", "nprobe", "type", "integer", "description", "IVF clusters to probe in hybrid mode"));
+            params.add(Map.of("name", "ef", "type", "integer", "description", "HNSW search queue size in hybrid mode"));
             tool.put("parameters", params);
             Map<String, Object> searchLaptopsInputSchema = new HashMap<>();
             searchLaptopsInputSchema.put("type", "object");
             Map<String, Object> searchLaptopsProps = new HashMap<>();
             searchLaptopsProps.put("keyword", Map.of("type", "string", "description", "Search keyword"));
+            searchLaptopsProps.put("brand", Map.of("type", "string", "description", "Brand filter"));
             searchLaptopsProps.put("minPrice", Map.of("type", "number", "description", "Minimum price"));
             searchLaptopsProps.put("maxPrice", Map.of("type", "number", "description", "Maximum price"));
+            searchLaptopsProps.put("limit", Map.of("type", "integer", "description", "Maximum number of results"));
+            searchLaptopsProps.put("offset", Map.of("type", "integer", "description", "Number of price range results to skip"));
+            searchLaptopsProps.put("mode", Map.of("type", "string", "description", "keyword (default) or hybrid (keyword + vector fused by RRF)"));
+            searchLaptopsProps.put("consistency", Map.of("type", "string", "description", "Vector read consistency for hybrid mode: Strong, Bounded, Session or Eventually"));
+            searchLaptopsProps.put("nprobe", Map.of("type", "integer", "description", "IVF clusters to probe in hybrid mode"));
+            searchLaptopsProps.put("ef", Map.of("type", "integer", "description", "HNSW search queue size in hybrid mode"));
             searchLaptopsInputSchema.put("properties", searchLaptopsProps);
             searchLaptopsInputSchema.put("required", new ArrayList<>());
             tool.put("inputSchema", searchLaptopsInputSchema);
@@ -90,6 +109,14 @@ public class HttpMcpServer {
             params.add(Map.of("name", "description", "type", "string", "description", "Description of desired laptop"));
             params.add(Map.of("name", "laptopId", "type", "string", "description", "ID of reference laptop"));
             params.add(Map.of("name", "limit", "type", "integer", "description", "Maximum number of results"));
+            params.add(Map.of("name", "brand", "type", "string", "description", "Brand filter"));
+            params.add(Map.of("name", "minPrice", "type", "number", "description", "Minimum price"));
+            params.add(Map.of("name", "maxPrice", "type", "number", "description", "Maximum price"));
+            params.add(Map.of("name", "conditionGrade", "type", "string", "description", "Condition grade filter"));
+            params.add(Map.of("name", "minMemoryGb", "type", "integer", "description", "Minimum memory in GB"));
+            params.add(Map.of("name", "consistency", "type", "string", "description", "Read consistency: Strong, Bounded, Session or Eventually"));
+            params.add(Map.of("name", "nprobe", "type", "integer", "description", "IVF clusters to probe; higher is slower with better recall"));
+            params.add(Map.of("name", "ef", "type", "integer", "description", "HNSW search queue size; higher is slower with better recall"));
             tool.put("parameters", params);
             Map<String, Object> findSimilarInputSchema = new HashMap<>();
             findSimilarInputSchema.put("type", "object");
@@ -97,6 +124,14 @@ public class HttpMcpServer {
             findSimilarProps.put("description", Map.of("type", "string", "description", "Description of desired laptop"));
             findSimilarProps.put("laptopId", Map.of("type", "string", "description", "ID of reference laptop"));
             findSimilarProps.put("limit", Map.of("type", "integer", "description", "Maximum number of results"));
+            findSimilarProps.put("brand", Map.of("type", "string", "description", "Brand filter"));
+            findSimilarProps.put("minPrice", Map.of("type", "number", "description", "Minimum price"));
+            findSimilarProps.put("maxPrice", Map.of("type", "number", "description", "Maximum price"));
+            findSimilarProps.put("conditionGrade", Map.of("type", "string", "description", "Condition grade filter"));
+            findSimilarProps.put("minMemoryGb", Map.of("type", "integer", "description", "Minimum memory in GB"));
+            findSimilarProps.put("consistency", Map.of("type", "string", "description", "Read consistency: Strong, Bounded, Session or Eventually"));
+            findSimilarProps.put("nprobe", Map.of("type", "integer", "description", "IVF clusters to probe; higher is slower with better recall"));
+            findSimilarProps.put("ef", Map.of("type", "integer", "description", "HNSW search queue size; higher is slower with better recall"));
             findSimilarInputSchema.put("properties", findSimilarProps);
             findSimilarInputSchema.put("required", new ArrayList<>());
             tool.put("inputSchema", findSimilarInputSchema);
@@ -186,10 +221,24 @@ public class HttpMcpServer {
         ArrayNode searchLaptopsParams = objectMapper.createArrayNode();
         searchLaptopsParams.add(objectMapper.createObjectNode()
             .put("name", "keyword").put("type", "string").put("description", "Search keyword"));
+        searchLaptopsParams.add(objectMapper.createObjectNode()
+            .put("name", "brand").put("type", "string").put("description", "Brand filter"));
         searchLaptopsParams.add(objectMapper.createObjectNode()
             .put("name", "minPrice").put("type", "number").put("description", "Minimum price"));
         searchLaptopsParams.add(objectMapper.createObjectNode()
             .put("name", "maxPrice").put("type", "number").put("description", "Maximum price"));
+        searchLaptopsParams.add(objectMapper.createObjectNode()
+            .put("name", "limit").put("type", "integer").put("description", "Maximum number of results"));
+        searchLaptopsParams.add(objectMapper.createObjectNode()
+            .put("name", "offset").put("type", "integer").put("description", "Number of price range results to skip"));
+        searchLaptopsParams.add(objectMapper.createObjectNode()
+            .put("name", "mode").put("type", "string").put("description", "keyword (default) or hybrid (keyword + vector fused by RRF)"));
+        searchLaptopsParams.add(objectMapper.createObjectNode()
+            .put("name", "consistency").put("type", "string").put("description", "Vector read consistency for hybrid mode: Strong, Bounded, Session or Eventually"));
+        searchLaptopsParams.add(objectMapper.createObjectNode()
+            .put("name", "nprobe").put("type", "integer").put("description", "IVF clusters to probe in hybrid mode"));
+        searchLaptopsParams.add(objectMapper.createObjectNode()
+            .put("name", "ef").put("type", "integer").put("description", "HNSW search queue size in hybrid mode"));
         searchLaptops.set("parameters", searchLaptopsParams);
         tools.add(searchLaptops);
 
@@ -203,6 +252,22 @@ public class HttpMcpServer {
             .put("name", "laptopId").put("type", "string").put("description", "ID of reference laptop"));
         findSimilarParams.add(objectMapper.createObjectNode()
             .put("name", "limit").put("type", "integer").put("description", "Maximum number of results"));
+        findSimilarParams.add(objectMapper.createObjectNode()
+            .put("name", "brand").put("type", "string").put("description", "Brand filter"));
+        findSimilarParams.add(objectMapper.createObjectNode()
+            .put("name", "minPrice").put("type", "number").put("description", "Minimum price"));
+        findSimilarParams.add(objectMapper.createObjectNode()
+            .put("name", "maxPrice").put("type", "number").put("description", "Maximum price"));
+        findSimilarParams.add(objectMapper.createObjectNode()
+            .put("name", "conditionGrade").put("type", "string").put("description", "Condition grade filter"));
+        findSimilarParams.add(objectMapper.createObjectNode()
+            .put("name", "minMemoryGb").put("type", "integer").put("description", "Minimum memory in GB"));
+        findSimilarParams.add(objectMapper.createObjectNode()
+            .put("name", "consistency").put("type", "string").put("description", "Read consistency: Strong, Bounded, Session or Eventually"));
+        findSimilarParams.add(objectMapper.createObjectNode()
+            .put("name", "nprobe").put("type", "integer").put("description", "IVF clusters to probe; higher is slower with better recall"));
+        findSimilarParams.add(objectMapper.createObjectNode()
+            .put("name", "ef").put("type", "integer").put("description", "HNSW search queue size; higher is slower with better recall"));
         findSimilar.set("parameters", findSimilarParams);
         tools.add(findSimilar);
 
@@ -269,42 +334,78 @@ public class HttpMcpServer {
     private Mono<JsonNode> handleSearchLaptops(JsonNode args) {
         return Mono.<JsonNode>fromCallable(() -> {
             String keyword = args.has("keyword") ? args.get("keyword").asText() : null;
+            String brand = args.has("brand") ? args.get("brand").asText() : null;
             Double minPrice = args.has("minPrice") ? args.get("minPrice").asDouble() : null;
             Double maxPrice = args.has("maxPrice") ? args.get("maxPrice").asDouble() : null;
+            int limit = LaptopSearchService.checkLimit(
+                    args.has("limit") ? args.get("limit").asInt() : LaptopSearchService.DEFAULT_KEYWORD_LIMIT);
+            int offset = LaptopSearchService.checkOffset(args.has("offset") ? args.get("offset").asInt() : 0);
+            String mode = args.has("mode") ? args.get("mode").asText() : "keyword";
+            VectorSearchOptions options = toSearchOptions(args);
+
+            LaptopFilter filter = new LaptopFilter();
+            filter.setBrand(brand);
+            filter.setMinPrice(minPrice != null ? java.math.BigDecimal.valueOf(minPrice) : null);
+            filter.setMaxPrice(maxPrice != null ? java.math.BigDecimal.valueOf(maxPrice) : null);
+            boolean hasKeyword = keyword != null && !keyword.trim().isEmpty();
+
+            if ("hybrid".equalsIgnoreCase(mode) && hasKeyword) {
+                // 关键词与向量两路并发召回后融合，结果附带融合得分
+                return objectMapper.valueToTree(convertScoredLaptopsToMap(
+                        laptopSearchService.hybridSearch(keyword, filter, limit, options)));
+            }
 
             List<LaptopInfo> results;
-            if (keyword != null && !keyword.trim().isEmpty()) {
-                results = laptopSearchService.searchByKeyword(keyword);
+            if (hasKeyword && filter.isEmpty()) {
+                results = laptopSearchService.searchByKeyword(keyword, limit);
+            } else if (hasKeyword || filter.hasBrand()) {
+                // 关键词/品牌与价格条件取交集
+                results = laptopSearchService.searchLaptops(keyword, filter, offset, limit);
             } else if (minPrice != null && maxPrice != null) {
                 results = laptopSearchService.searchByPriceRange(
                         java.math.BigDecimal.valueOf(minPrice),
-                        java.math.BigDecimal.valueOf(maxPrice)
+                        java.math.BigDecimal.valueOf(maxPrice),
+                        offset,
+                        limit
                 );
             } else {
-                throw new IllegalArgumentException("必须提供关键词或价格范围");
+                throw new IllegalArgumentException("必须提供关键词、品牌或价格范围");
             }
 
             return objectMapper.valueToTree(convertLaptopsToMap(results));
         }).onErrorResume(e -> Mono.just(createErrorResponse(e.getMessage())));
     }
 
+    /**
+     * 走异步检索：请求线程在发起检索后立即释放，结果由检索完成的回调写回
+     */
     private Mono<JsonNode> handleFindSimilarLaptops(JsonNode args) {
-        return Mono.<JsonNode>fromCallable(() -> {
+        return Mono.defer(() -> {
             String description = args.has("description") ? args.get("description").asText() : null;
             String laptopId = args.has("laptopId") ? args.get("laptopId").asText() : null;
-            int limit = args.has("limit") ? args.get("limit").asInt() : 5;
-
-            List<LaptopInfo> results;
+            int limit = LaptopSearchService.checkLimit(args.has("limit") ? args.get("limit").asInt() : 5);
+
+            // 过滤条件在向量检索内部生效，返回条数不会因过滤而变少
+            LaptopFilter filter = new LaptopFilter();
+            filter.setBrand(args.has("brand") ? args.get("brand").asText() : null);
+            filter.setMinPrice(args.has("minPrice") ? java.math.BigDecimal.valueOf(args.get("minPrice").asDouble()) : null);
+            filter.setMaxPrice(args.has("maxPrice") ? java.math.BigDecimal.valueOf(args.get("maxPrice").asDouble()) : null);
+            filter.setConditionGrade(args.has("conditionGrade") ? args.get("conditionGrade").asText() : null);
+            filter.setMinMemoryGb(args.has("minMemoryGb") ? args.get("minMemoryGb").asInt() : null);
+            VectorSearchOptions options = toSearchOptions(args);
+
+            CompletableFuture<List<ScoredLaptop>> results;
             if (description != null && !description.trim().isEmpty()) {
-                results = laptopSearchService.findSimilarLaptops(description, limit);
+                results = laptopSearchService.findSimilarLaptopsAsync(description, filter, limit, options);
             } else if (laptopId != null) {
-                results = laptopSearchService.findSimilarLaptops(laptopId, limit);
+                results = laptopSearchService.findSimilarLaptopsAsync(Long.valueOf(laptopId), filter, limit, options);
             } else {
                 throw new IllegalArgumentException("必须提供描述或笔记本电脑ID");
             }
 
-            return objectMapper.valueToTree(convertLaptopsToMap(results));
-        }).onErrorResume(e -> Mono.just(createErrorResponse(e.getMessage())));
+            return Mono.fromFuture(results);
+        }).<JsonNode>map(results -> objectMapper.valueToTree(convertScoredLaptopsToMap(results)))
+                .onErrorResume(e -> Mono.just(createErrorResponse(e.getMessage())));
     }
 
     private Mono<JsonNode> handleGetLaptopById(JsonNode args) {
@@ -336,6 +437,25 @@ public class HttpMcpServer {
         return result;
     }
 
+    private VectorSearchOptions toSearchOptions(JsonNode args) {
+        VectorSearchOptions options = VectorSearchOptions.defaults();
+        options.setConsistency(ReadConsistency.parse(
+                args.has("consistency") ? args.get("consistency").asText() : null));
+        options.setNprobe(LaptopSearchService.checkNprobe(args.has("nprobe") ? args.get("nprobe").asInt() : null));
+        options.setEf(LaptopSearchService.checkEf(args.has("ef") ? args.get("ef").asInt() : null));
+        return options;
+    }
+
+    private List<Map<String, Object>> convertScoredLaptopsToMap(List<ScoredLaptop> laptops) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (ScoredLaptop scored : laptops) {
+            Map<String, Object> laptop = convertLaptopToMap(scored.getLaptop());
+            laptop.put("score", scored.getScore());
+            result.add(laptop);
+        }
+        return result;
+    }
+
     private Map<String, Object> convertLaptopToMap(LaptopInfo laptop) {
         Map<String, Object> result = new HashMap<>();
         result.put("id", laptop.getId());
@@ -1,7 +1,11 @@
 package com.searchserver.mcp;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.searchserver.model.LaptopFilter;
 import com.searchserver.model.LaptopInfo;
+import com.searchserver.model.ReadConsistency;
+import com.searchserver.model.VectorSearchOptions;
+import com.searchserver.model.ScoredLaptop;
 import com.searchserver.service.LaptopSearchService;
 import org.springframework.stereotype.Component;
 
@@ -153,6 +157,11 @@ public class TcpMcpServer {
         keywordProp.put("description", "搜索关键词");
         searchProps.put("keyword", keywordProp);
 
+        Map<String, Object> brandProp = new HashMap<>();
+        brandProp.put("type", "string");
+        brandProp.put("description", "品牌");
+        searchProps.put("brand", brandProp);
+
         Map<String, Object> minPriceProp = new HashMap<>();
         minPriceProp.put("type", "number");
         minPriceProp.put("description", "最低价格");
@@ -163,6 +172,25 @@ public class TcpMcpServer {
         maxPriceProp.put("description", "最高价格");
         searchProps.put("maxPrice", maxPriceProp);
 
+        Map<String, Object> searchLimitProp = new HashMap<>();
+        searchLimitProp.put("type", "number");
+        searchLimitProp.put("description", "返回结果数量限制");
+        searchProps.put("limit", searchLimitProp);
+
+        Map<String, Object> offsetProp = new HashMap<>();
+        offsetProp.put("type", "number");
+        offsetProp.put("description", "价格区间结果跳过的条数");
+        searchProps.put("offset", offsetProp);
+
+        Map<String, Object> modeProp = new HashMap<>();
+        modeProp.put("type", "string");
+        modeProp.put("description", "检索模式：keyword（默认）或 hybrid（关键词与向量融合排序）");
+        searchProps.put("mode", modeProp);
+        searchProps.put("consistency", Map.of("type", "string",
+                "description", "hybrid 模式向量检索的读一致性：Strong、Bounded、Session 或 Eventually"));
+        searchProps.put("nprobe", Map.of("type", "number", "description", "hybrid 模式 IVF 索引检索的聚类数"));
+        searchProps.put("ef", Map.of("type", "number", "description", "hybrid 模式 HNSW 索引检索的候选队列长度"));
+
         searchSchema.put("properties", searchProps);
         searchTool.put("inputSchema", searchSchema);
         tools.add(searchTool);
@@ -190,6 +218,16 @@ public class TcpMcpServer {
         limitProp.put("description", "返回结果数量限制");
         similarProps.put("limit", limitProp);
 
+        similarProps.put("brand", Map.of("type", "string", "description", "品牌"));
+        similarProps.put("minPrice", Map.of("type", "number", "description", "最低价格"));
+        similarProps.put("maxPrice", Map.of("type", "number", "description", "最高价格"));
+        similarProps.put("conditionGrade", Map.of("type", "string", "description", "成色"));
+        similarProps.put("minMemoryGb", Map.of("type", "number", "description", "最小内存（GB）"));
+        similarProps.put("consistency", Map.of("type", "string",
+                "description", "读一致性：Strong、Bounded、Session 或 Eventually"));
+        similarProps.put("nprobe", Map.of("type", "number", "description", "IVF 索引检索的聚类数，越大召回越高、越慢"));
+        similarProps.put("ef", Map.of("type", "number", "description", "HNSW 索引检索的候选队列长度，越大召回越高、越慢"));
+
         similarSchema.put("properties", similarProps);
         similarTool.put("inputSchema", similarSchema);
         tools.add(similarTool);
@@ -228,18 +266,39 @@ public class TcpMcpServer {
     private Function<Map<String, Object>, Object> handleSearchLaptops = args -> {
         try {
             String keyword = (String) args.get("keyword");
+            String brand = (String) args.get("brand");
             Number minPriceNum = (Number) args.get("minPrice");
             Number maxPriceNum = (Number) args.get("maxPrice");
+            Number limitNum = (Number) args.get("limit");
+            int limit = LaptopSearchService.checkLimit(
+                    limitNum != null ? limitNum.intValue() : LaptopSearchService.DEFAULT_KEYWORD_LIMIT);
+            Number offsetNum = (Number) args.get("offset");
+            int offset = LaptopSearchService.checkOffset(offsetNum != null ? offsetNum.intValue() : 0);
+            String mode = (String) args.get("mode");
+            VectorSearchOptions options = toSearchOptions(args);
+
+            LaptopFilter filter = new LaptopFilter();
+            filter.setBrand(brand);
+            filter.setMinPrice(minPriceNum != null ? BigDecimal.valueOf(minPriceNum.doubleValue()) : null);
+            filter.setMaxPrice(maxPriceNum != null ? BigDecimal.valueOf(maxPriceNum.doubleValue()) : null);
+            boolean hasKeyword = keyword != null && !keyword.trim().isEmpty();
+
+            if ("hybrid".equalsIgnoreCase(mode) && hasKeyword) {
+                // 关键词与向量两路并发召回后融合，结果附带融合得分
+                return convertScoredLaptopsToMap(laptopSearchService.hybridSearch(keyword, filter, limit, options));
+            }
 
             List<LaptopInfo> results;
-            if (keyword != null && !keyword.trim().isEmpty()) {
-                results = laptopSearchService.searchByKeyword(keyword);
+            if (hasKeyword && filter.isEmpty()) {
+                results = laptopSearchService.searchByKeyword(keyword, limit);
+            } else if (hasKeyword || filter.hasBrand()) {
+                results = laptopSearchService.searchLaptops(keyword, filter, offset, limit);
             } else if (minPriceNum != null && maxPriceNum != null) {
                 BigDecimal minPrice = BigDecimal.valueOf(minPriceNum.doubleValue());
                 BigDecimal maxPrice = BigDecimal.valueOf(maxPriceNum.doubleValue());
-                results = laptopSearchService.searchByPriceRange(minPrice, maxPrice);
+                results = laptopSearchService.searchByPriceRange(minPrice, maxPrice, offset, limit);
             } else {
-                throw new IllegalArgumentException("必须提供关键词或价格范围");
+                throw new IllegalArgumentException("必须提供关键词、品牌或价格范围");
             }
 
             return convertLaptopsToMap(results);
@@ -258,19 +317,31 @@ public class TcpMcpServer {
             Number laptopIdNum = (Number) args.get("laptopId");
             Number limitNum = (Number) args.get("limit");
 
-            int limit = limitNum != null ? limitNum.intValue() : 5;
+            int limit = LaptopSearchService.checkLimit(limitNum != null ? limitNum.intValue() : 5);
 
-            List<LaptopInfo> results;
+            // 过滤条件在向量检索内部生效，返回条数不会因过滤而变少
+            Number minPriceNum = (Number) args.get("minPrice");
+            Number maxPriceNum = (Number) args.get("maxPrice");
+            Number minMemoryNum = (Number) args.get("minMemoryGb");
+            LaptopFilter filter = new LaptopFilter();
+            filter.setBrand((String) args.get("brand"));
+            filter.setMinPrice(minPriceNum != null ? BigDecimal.valueOf(minPriceNum.doubleValue()) : null);
+            filter.setMaxPrice(maxPriceNum != null ? BigDecimal.valueOf(maxPriceNum.doubleValue()) : null);
+            filter.setConditionGrade((String) args.get("conditionGrade"));
+            filter.setMinMemoryGb(minMemoryNum != null ? minMemoryNum.intValue() : null);
+            VectorSearchOptions options = toSearchOptions(args);
+
+            List<ScoredLaptop> results;
             if (description != null && !description.trim().isEmpty()) {
-                results = laptopSearchService.findSimilarLaptops(description, limit);
+                results = laptopSearchService.findSimilarLaptops(description, filter, limit, options);
             } else if (laptopIdNum != null) {
                 Long laptopId = laptopIdNum.longValue();
-                results = laptopSearchService.findSimilarLaptops(laptopId, limit);
+                results = laptopSearchService.findSimilarLaptops(laptopId, filter, limit, options);
             } else {
                 throw new IllegalArgumentException("必须提供描述或笔记本电脑ID");
             }
 
-            return convertLaptopsToMap(results);
+            return convertScoredLaptopsToMap(results);
         } catch (Exception e) {
             log.error("Error handling find similar laptops", e);
             Map<String, Object> error = new HashMap<>();
@@ -321,6 +392,26 @@ public class TcpMcpServer {
         return result;
     }
 
+    private VectorSearchOptions toSearchOptions(Map<String, Object> args) {
+        Number nprobeNum = (Number) args.get("nprobe");
+        Number efNum = (Number) args.get("ef");
+        VectorSearchOptions options = VectorSearchOptions.defaults();
+        options.setConsistency(ReadConsistency.parse((String) args.get("consistency")));
+        options.setNprobe(LaptopSearchService.checkNprobe(nprobeNum != null ? nprobeNum.intValue() : null));
+        options.setEf(LaptopSearchService.checkEf(efNum != null ? efNum.intValue() : null));
+        return options;
+    }
+
+    private List<Map<String, Object>> convertScoredLaptopsToMap(List<ScoredLaptop> laptops) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (ScoredLaptop scored : laptops) {
+            Map<String, Object> laptop = convertLaptopToMap(scored.getLaptop());
+            laptop.put("score", scored.getScore());
+            result.add(laptop);
+        }
+        return result;
+    }
+
     private Map<String, Object> convertLaptopToMap(LaptopInfo laptop) {
         Map<String, Object> result = new HashMap<>();
         result.put("id", laptop.getId());
@@ -0,0 +1,48 @@
+package com.searchserver.model;
+
+/**
+ * 近似检索参数标定结果：选中的参数取值及其在样本查询上的召回率和平均延迟
+ */
+public class AnnCalibrationResult {
+
+    private final String param;
+    private final int value;
+    private final double recall;
+    private final double meanLatencyMillis;
+    private final long catalogSize;
+    private final int sampleSize;
+
+    public AnnCalibrationResult(String param, int value, double recall, double meanLatencyMillis,
+                                long catalogSize, int sampleSize) {
+        this.param = param;
+        this.value = value;
+        this.recall = recall;
+        this.meanLatencyMillis = meanLatencyMillis;
+        this.catalogSize = catalogSize;
+        this.sampleSize = sampleSize;
+    }
+
+    public String getParam() {
+        return param;
+    }
+
+    public int getValue() {
+        return value;
+    }
+
+    public double getRecall() {
+        return recall;
+    }
+
+    public double getMeanLatencyMillis() {
+        return meanLatencyMillis;
+    }
+
+    public long getCatalogSize() {
+        return catalogSize;
+    }
+
+    public int getSampleSize() {
+        return sampleSize;
+    }
+}
@@ -0,0 +1,61 @@
+package com.searchserver.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量保存结果：成功保存的笔记本以及逐条的失败原因
+ */
+public class BulkSaveResult {
+
+    private final List<LaptopInfo> saved = new ArrayList<>();
+    private final List<Failure> failures = new ArrayList<>();
+    // 本次写入在向量存储中的保证时间戳（Milvus 写入返回的 TSO），0 表示不适用
+    private long guaranteeTimestamp;
+
+    public void addSaved(List<LaptopInfo> laptops) {
+        saved.addAll(laptops);
+    }
+
+    public void addFailure(LaptopInfo laptop, String reason) {
+        failures.add(new Failure(laptop, reason));
+    }
+
+    public void recordTimestamp(long timestamp) {
+        guaranteeTimestamp = Math.max(guaranteeTimestamp, timestamp);
+    }
+
+    public long getGuaranteeTimestamp() {
+        return guaranteeTimestamp;
+    }
+
+    public List<LaptopInfo> getSaved() {
+        return saved;
+    }
+
+    public List<Failure> getFailures() {
+        return failures;
+    }
+
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+
+    public static class Failure {
+        private final LaptopInfo laptop;
+        private final String reason;
+
+        public Failure(LaptopInfo laptop, String reason) {
+            this.laptop = laptop;
+            this.reason = reason;
+        }
+
+        public LaptopInfo getLaptop() {
+            return laptop;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.searchserver.model;
+
+import com.searchserver.repository.index.BrandNormalizer;
+import com.searchserver.repository.index.MemorySizeParser;
+
+import java.math.BigDecimal;
+
+/**
+ * 笔记本检索的结构化过滤条件，所有字段均可为空（表示不限）
+ */
+public class LaptopFilter {
+
+    private String brand;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    // 成色，精确匹配（如 "9成新"）
+    private String conditionGrade;
+    // 最小内存容量（GB），由 memoryInfo 解析
+    private Integer minMemoryGb;
+
+    public static LaptopFilter empty() {
+        return new LaptopFilter();
+    }
+
+    public boolean hasBrand() {
+        return brand != null && !brand.trim().isEmpty();
+    }
+
+    public boolean hasPriceRange() {
+        return minPrice != null || maxPrice != null;
+    }
+
+    public boolean hasConditionGrade() {
+        return conditionGrade != null && !conditionGrade.trim().isEmpty();
+    }
+
+    public boolean hasMinMemory() {
+        return minMemoryGb != null && minMemoryGb > 0;
+    }
+
+    /**
+     * 是否包含Redis二级索引之外的条件（成色、内存），需要回表校验
+     */
+    public boolean hasSpecConditions() {
+        return hasConditionGrade() || hasMinMemory();
+    }
+
+    public boolean isEmpty() {
+        return !hasBrand() && !hasPriceRange() && !hasSpecConditions();
+    }
+
+    /**
+     * 在内存中校验全部条件，供无法下推过滤的检索路径使用
+     */
+    public boolean matches(LaptopInfo laptop) {
+        if (hasBrand() && !BrandNormalizer.normalize(brand).equals(BrandNormalizer.normalize(laptop.getBrand()))) {
+            return false;
+        }
+        if (hasConditionGrade() && !conditionGrade.trim().equals(laptop.getConditionGrade())) {
+            return false;
+        }
+        if (hasMinMemory()) {
+            Integer memoryGb = MemorySizeParser.parseGb(laptop.getMemoryInfo());
+            if (memoryGb == null || memoryGb < minMemoryGb) {
+                return false;
+            }
+        }
+        return matchesPrice(laptop.getPrice());
+    }
+
+    public boolean matchesPrice(BigDecimal price) {
+        if (!hasPriceRange()) {
+            return true;
+        }
+        if (price == null) {
+            return false;
+        }
+        return (minPrice == null || price.compareTo(minPrice) >= 0)
+                && (maxPrice == null || price.compareTo(maxPrice) <= 0);
+    }
+
+    public String getBrand() {
+        return brand;
+    }
+
+    public void setBrand(String brand) {
+        this.brand = brand;
+    }
+
+    public BigDecimal getMinPrice() {
+        return minPrice;
+    }
+
+    public void setMinPrice(BigDecimal minPrice) {
+        this.minPrice = minPrice;
+    }
+
+    public BigDecimal getMaxPrice() {
+        return maxPrice;
+    }
+
+    public void setMaxPrice(BigDecimal maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+    public String getConditionGrade() {
+        return conditionGrade;
+    }
+
+    public void setConditionGrade(String conditionGrade) {
+        this.conditionGrade = conditionGrade;
+    }
+
+    public Integer getMinMemoryGb() {
+        return minMemoryGb;
+    }
+
+    public void setMinMemoryGb(Integer minMemoryGb) {
+        this.minMemoryGb = minMemoryGb;
+    }
+}
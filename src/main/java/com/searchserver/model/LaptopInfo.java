@@ -1,6 +1,8 @@
 package com.searchserver.model;
 
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
@@ -26,8 +28,11 @@ public class LaptopInfo {
     private Double sellerRating;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
-    private double[] embedding;
-    private double[] imageEmbedding;
+    // 向量单独以二进制存储，元数据序列化时不写出；仍可读取旧格式数据中的向量
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    private float[] embedding;
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    private float[] imageEmbedding;
 
     public Long getId() {
         return id;
@@ -181,19 +186,19 @@ public class LaptopInfo {
         this.updatedAt = updatedAt;
     }
 
-    public double[] getEmbedding() {
+    public float[] getEmbedding() {
         return embedding;
     }
 
-    public void setEmbedding(double[] embedding) {
+    public void setEmbedding(float[] embedding) {
         this.embedding = embedding;
     }
     
-    public double[] getImageEmbedding() {
+    public float[] getImageEmbedding() {
         return imageEmbedding;
     }
 
-    public void setImageEmbedding(double[] imageEmbedding) {
+    public void setImageEmbedding(float[] imageEmbedding) {
         this.imageEmbedding = imageEmbedding;
     }
 }
@@ -0,0 +1,32 @@
+package com.searchserver.model;
+
+import java.util.Locale;
+
+/**
+ * 向量检索的读一致性级别，对应 Milvus 的同名级别；进程内索引总是读到最新写入，忽略该参数
+ */
+public enum ReadConsistency {
+    // 等待检索开始时刻之前的所有写入可见，尾延迟最高
+    STRONG,
+    // 允许落后一个宽限时间（Milvus 默认 5 秒）
+    BOUNDED,
+    // 保证看到最近一次入库批次（爬虫记录的保证时间戳）之前的写入
+    SESSION,
+    // 不等待，读到什么算什么
+    EVENTUALLY;
+
+    /**
+     * 解析工具参数或配置值，忽略大小写，空值返回 null 表示使用默认级别
+     */
+    public static ReadConsistency parse(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown consistency level: " + value
+                    + ", expected one of Strong/Bounded/Session/Eventually");
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.searchserver.model;
+
+/**
+ * 带相似度得分的检索结果，得分含义取决于向量度量类型（L2 越小越相似，IP 越大越相似）
+ */
+public class ScoredLaptop {
+
+    private final LaptopInfo laptop;
+    private final float score;
+
+    public ScoredLaptop(LaptopInfo laptop, float score) {
+        this.laptop = laptop;
+        this.score = score;
+    }
+
+    public LaptopInfo getLaptop() {
+        return laptop;
+    }
+
+    public float getScore() {
+        return score;
+    }
+}
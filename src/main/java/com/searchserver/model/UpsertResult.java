@@ -0,0 +1,33 @@
+package com.searchserver.model;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 按 productId 增量写入的结果：在批量保存结果之外，按变化类型统计成功写入的条数
+ */
+public class UpsertResult extends BulkSaveResult {
+
+    public enum Change {
+        // 新商品，生成向量后插入
+        INSERTED,
+        // 嵌入文本变化，重新生成向量并替换向量存储中的行
+        REEMBEDDED,
+        // 文本未变但向量存储中的标量字段（价格、品牌等）变化，沿用已存向量重写该行
+        REWRITTEN,
+        // 只改Redis，不触碰向量存储
+        PATCHED,
+        // 除时间戳外内容都没有变化，不做任何写入
+        UNCHANGED
+    }
+
+    private final Map<Change, Integer> counts = new EnumMap<>(Change.class);
+
+    public void record(Change change) {
+        counts.merge(change, 1, Integer::sum);
+    }
+
+    public int count(Change change) {
+        return counts.getOrDefault(change, 0);
+    }
+}
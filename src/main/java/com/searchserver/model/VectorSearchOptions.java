@@ -0,0 +1,49 @@
+package com.searchserver.model;
+
+/**
+ * 单次向量检索的可选参数，字段为空表示使用配置或标定得到的默认值
+ */
+public class VectorSearchOptions {
+
+    private ReadConsistency consistency;
+    // IVF 索引检索的聚类数
+    private Integer nprobe;
+    // HNSW 索引检索的候选队列长度
+    private Integer ef;
+
+    public static VectorSearchOptions defaults() {
+        return new VectorSearchOptions();
+    }
+
+    public VectorSearchOptions copy() {
+        VectorSearchOptions copy = new VectorSearchOptions();
+        copy.consistency = consistency;
+        copy.nprobe = nprobe;
+        copy.ef = ef;
+        return copy;
+    }
+
+    public ReadConsistency getConsistency() {
+        return consistency;
+    }
+
+    public void setConsistency(ReadConsistency consistency) {
+        this.consistency = consistency;
+    }
+
+    public Integer getNprobe() {
+        return nprobe;
+    }
+
+    public void setNprobe(Integer nprobe) {
+        this.nprobe = nprobe;
+    }
+
+    public Integer getEf() {
+        return ef;
+    }
+
+    public void setEf(Integer ef) {
+        this.ef = ef;
+    }
+}
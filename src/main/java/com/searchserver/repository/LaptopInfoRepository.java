@@ -1,21 +1,51 @@
 package com.searchserver.repository;
 
+import com.searchserver.model.AnnCalibrationResult;
+import com.searchserver.model.BulkSaveResult;
+import com.searchserver.model.LaptopFilter;
 import com.searchserver.model.LaptopInfo;
+import com.searchserver.model.ScoredLaptop;
+import com.searchserver.model.UpsertResult;
+import com.searchserver.model.VectorSearchOptions;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @Repository
 public interface LaptopInfoRepository {
 
     // 基本CRUD操作
+
+    /**
+     * 保存单个笔记本，向量存储写入失败时回滚Redis中的写入并抛出 IllegalStateException
+     */
     LaptopInfo save(LaptopInfo laptopInfo);
     
+    /**
+     * 按id读取笔记本元数据，不包含向量
+     */
     Optional<LaptopInfo> findById(Long id);
+
+    /**
+     * 读取文本向量，仅供需要向量的路径（如以图搜图、相似推荐）使用
+     */
+    Optional<float[]> findEmbeddingById(Long id);
+
+    Optional<float[]> findImageEmbeddingById(Long id);
     
     List<LaptopInfo> findAll();
+
+    /**
+     * 以 SCAN 游标 + 分批 MGET 流式遍历全部笔记本，内存占用与目录大小无关。
+     * 返回的 Stream 持有 Redis 连接，必须在 try-with-resources 中使用
+     */
+    Stream<LaptopInfo> streamAll();
     
     void deleteById(Long id);
     
@@ -26,19 +56,97 @@ public interface LaptopInfoRepository {
 
     List<LaptopInfo> findByBrand(String brand);
 
+    long countByBrand(String brand);
+
     List<LaptopInfo> findByPriceBetween(BigDecimal minPrice, BigDecimal maxPrice);
 
-    // 向量相似度搜索
-    List<LaptopInfo> findSimilarLaptops(double[] embedding, int limit);
+    /**
+     * 按价格区间分页查询，结果按价格升序
+     * @param offset 跳过的条数
+     * @param limit 返回的最大条数，负数表示不限
+     */
+    List<LaptopInfo> findByPriceBetween(BigDecimal minPrice, BigDecimal maxPrice, long offset, long limit);
+
+    // 向量相似度搜索，结果按相似度排名并附带得分
+    List<ScoredLaptop> findSimilarLaptops(float[] embedding, int limit);
 
-    // 关键词搜索
-    List<LaptopInfo> searchByKeyword(String keyword);
+    /**
+     * 带过滤条件的向量检索：条件在向量检索内部生效，返回满足条件的前 limit 条
+     * @param filter 品牌/价格/成色/内存条件，为空表示不过滤
+     */
+    List<ScoredLaptop> findSimilarLaptops(float[] embedding, LaptopFilter filter, int limit);
+
+    /**
+     * 指定检索参数的向量检索
+     * @param options 读一致性级别、nprobe/ef 等，为空的字段使用配置或标定得到的默认值
+     */
+    List<ScoredLaptop> findSimilarLaptops(float[] embedding, LaptopFilter filter, int limit,
+                                          VectorSearchOptions options);
+
+    /**
+     * 非阻塞的向量检索：向量库支持异步调用时（Milvus）等待期间不占用调用线程，
+     * 回表等后续步骤在向量库的回调线程上完成
+     */
+    CompletableFuture<List<ScoredLaptop>> findSimilarLaptopsAsync(float[] embedding, LaptopFilter filter, int limit,
+                                                                VectorSearchOptions options);
+
+    /**
+     * 以目录中抽样的向量为查询、精确检索结果为基准，从小到大扫描近似索引的检索参数（nprobe 或 ef），
+     * 选出召回率达标的最小取值并持久化，所有实例启动时沿用
+     * @param sampleSize 抽样查询数
+     * @param k 计算 recall@k 的 k
+     * @param targetRecall 目标召回率，都达不到时选最大的候选值
+     * @return 标定结果；索引没有可调参数或目录为空时为空
+     */
+    Optional<AnnCalibrationResult> calibrateSearchParams(int sampleSize, int k, double targetRecall);
+
+    // 关键词搜索（BM25排序，最多返回limit条）
+    List<LaptopInfo> searchByKeyword(String keyword, int limit);
+
+    /**
+     * 组合检索：关键词（可为空）与品牌、价格过滤条件取交集
+     * @param keyword 关键词，非空时按 BM25 排序，否则品牌结果按价格升序
+     * @param filter 品牌/价格/成色/内存过滤条件，成色与内存需回表校验
+     * @param offset 跳过的条数
+     * @param limit 返回的最大条数
+     */
+    List<LaptopInfo> findByFilter(String keyword, LaptopFilter filter, int offset, int limit);
     
     // 批量操作
-    List<LaptopInfo> saveAll(List<LaptopInfo> laptops);
+    /**
+     * 批量保存：一次 INCRBY 预留 id、一个 WATCH 保护的 Redis 事务写入、按批次列式写入 Milvus
+     * @return 成功保存的笔记本及逐条失败原因
+     */
+    BulkSaveResult saveAll(List<LaptopInfo> laptops);
+
+    /**
+     * 按 productId 增量写入：比较嵌入文本的内容哈希，只有文本变化时才调用 embedder 重新生成向量；
+     * 只有价格、卖家等字段变化时原地改写Redis，不触碰向量存储（向量存储带有的标量字段变化时沿用已存向量重写该行）；
+     * 除时间戳外内容都没变的不做任何写入，原样计入成功
+     * @param embedder 一次为所有新商品和文本变化的商品批量生成文本向量，返回的向量与输入一一对应；
+     *                 单条失败时对应位置为 null，该商品记为失败且不写入。已带向量的笔记本不会传入
+     */
+    UpsertResult upsertAll(List<LaptopInfo> laptops, Function<List<LaptopInfo>, List<float[]>> embedder);
     
     void deleteAll();
 
+    /**
+     * 发布一次入库批次的保证时间戳（只增不减），所有实例的 SESSION 读据此等待该批次可见
+     */
+    void recordGuaranteeTimestamp(long timestamp);
+
+    /**
+     * 根据存储库中的现有数据重建二级索引，并把旧格式数据迁移为当前存储格式（用于历史数据回填）
+     * @return 参与重建的笔记本数量
+     */
+    long rebuildIndexes();
+
+    /**
+     * 流式导出全部文本向量（用于生成基准测试的目录快照），不经过向量库
+     * @return 导出的向量数量
+     */
+    long exportTextVectors(BiConsumer<Long, float[]> consumer);
+
     /**
      * 检查存储库连接状态
      * @return 如果连接正常返回true，否则返回false
@@ -0,0 +1,344 @@
+package com.searchserver.repository.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.searchserver.model.LaptopInfo;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * LaptopInfo 的紧凑二进制编码，格式：
+ * <pre>
+ * [magic 0xB7][version][flags][body]                     未压缩
+ * [magic 0xB7][version][flags=LZ4][原始长度 int][LZ4块]   压缩
+ * </pre>
+ * body 以一个字段存在位图开头，字段按固定顺序写出；新增字段只能追加在末尾并占用新的位，
+ * 这样旧数据仍可按同一版本读取。向量不在此编码中（见 laptop:vec:{id}）。
+ * 以 '{' 开头的旧 JSON 值会透明地按 Jackson 读取，重写时即迁移为二进制格式。
+ */
+public class LaptopInfoBinarySerializer implements RedisSerializer<LaptopInfo> {
+
+    static final byte MAGIC = (byte) 0xB7;
+    static final byte VERSION = 1;
+    private static final byte FLAG_LZ4 = 0x01;
+    private static final int HEADER_LENGTH = 3;
+
+    private final ObjectMapper legacyMapper;
+    private final boolean lz4Enabled;
+    private final int lz4Threshold;
+    private final LZ4Compressor compressor;
+    private final LZ4FastDecompressor decompressor;
+
+    /**
+     * @param legacyMapper 读取旧 JSON 值使用的 ObjectMapper
+     * @param lz4Enabled 是否对 body 做 LZ4 压缩
+     * @param lz4Threshold body 达到该字节数才压缩，过小的值压缩反而变大
+     */
+    public LaptopInfoBinarySerializer(ObjectMapper legacyMapper, boolean lz4Enabled, int lz4Threshold) {
+        this.legacyMapper = legacyMapper;
+        this.lz4Enabled = lz4Enabled;
+        this.lz4Threshold = lz4Threshold;
+        LZ4Factory factory = LZ4Factory.fastestInstance();
+        this.compressor = factory.fastCompressor();
+        this.decompressor = factory.fastDecompressor();
+    }
+
+    @Override
+    public byte[] serialize(LaptopInfo laptop) throws SerializationException {
+        if (laptop == null) {
+            return new byte[0];
+        }
+        byte[] body = writeBody(laptop);
+
+        if (lz4Enabled && body.length >= lz4Threshold) {
+            int maxLength = compressor.maxCompressedLength(body.length);
+            byte[] out = new byte[HEADER_LENGTH + Integer.BYTES + maxLength];
+            out[0] = MAGIC;
+            out[1] = VERSION;
+            out[2] = FLAG_LZ4;
+            ByteBuffer.wrap(out, HEADER_LENGTH, Integer.BYTES).putInt(body.length);
+            int compressedLength = compressor.compress(body, 0, body.length,
+                    out, HEADER_LENGTH + Integer.BYTES, maxLength);
+            return Arrays.copyOf(out, HEADER_LENGTH + Integer.BYTES + compressedLength);
+        }
+
+        byte[] out = new byte[HEADER_LENGTH + body.length];
+        out[0] = MAGIC;
+        out[1] = VERSION;
+        out[2] = 0;
+        System.arraycopy(body, 0, out, HEADER_LENGTH, body.length);
+        return out;
+    }
+
+    @Override
+    public LaptopInfo deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] == '{') {
+            return readLegacyJson(bytes);
+        }
+        if (bytes[0] != MAGIC || bytes.length < HEADER_LENGTH) {
+            throw new SerializationException("Unknown LaptopInfo encoding");
+        }
+        if (bytes[1] != VERSION) {
+            throw new SerializationException("Unsupported LaptopInfo encoding version: " + bytes[1]);
+        }
+
+        if ((bytes[2] & FLAG_LZ4) != 0) {
+            int rawLength = ByteBuffer.wrap(bytes, HEADER_LENGTH, Integer.BYTES).getInt();
+            byte[] body = new byte[rawLength];
+            decompressor.decompress(bytes, HEADER_LENGTH + Integer.BYTES, body, 0, rawLength);
+            return readBody(new Reader(body, 0));
+        }
+        return readBody(new Reader(bytes, HEADER_LENGTH));
+    }
+
+    private LaptopInfo readLegacyJson(byte[] bytes) {
+        try {
+            return legacyMapper.readValue(bytes, LaptopInfo.class);
+        } catch (IOException e) {
+            throw new SerializationException("Could not read legacy JSON LaptopInfo", e);
+        }
+    }
+
+    private byte[] writeBody(LaptopInfo laptop) {
+        Object[] fields = {
+                laptop.getId(), laptop.getTitle(), laptop.getDescription(), laptop.getProductId(),
+                laptop.getImageUrl(), laptop.getProductUrl(), laptop.getPrice(), laptop.getOriginalPrice(),
+                laptop.getBrand(), laptop.getModel(), laptop.getProcessorInfo(), laptop.getMemoryInfo(),
+                laptop.getStorageInfo(), laptop.getDisplayInfo(), laptop.getConditionGrade(),
+                laptop.getSellerName(), laptop.getSellerRating(), laptop.getCreatedAt(), laptop.getUpdatedAt()
+        };
+        long presence = 0;
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i] != null) {
+                presence |= 1L << i;
+            }
+        }
+
+        Writer writer = new Writer(256);
+        writer.writeVarLong(presence);
+        for (Object field : fields) {
+            if (field == null) {
+                continue;
+            }
+            if (field instanceof Long) {
+                writer.writeVarLong((Long) field);
+            } else if (field instanceof String) {
+                writer.writeString((String) field);
+            } else if (field instanceof BigDecimal) {
+                writer.writeDecimal((BigDecimal) field);
+            } else if (field instanceof Double) {
+                writer.writeDouble((Double) field);
+            } else if (field instanceof LocalDateTime) {
+                writer.writeDateTime((LocalDateTime) field);
+            }
+        }
+        return writer.toByteArray();
+    }
+
+    private LaptopInfo readBody(Reader reader) {
+        long presence = reader.readVarLong();
+        LaptopInfo laptop = new LaptopInfo();
+        if (has(presence, 0)) {
+            laptop.setId(reader.readVarLong());
+        }
+        if (has(presence, 1)) {
+            laptop.setTitle(reader.readString());
+        }
+        if (has(presence, 2)) {
+            laptop.setDescription(reader.readString());
+        }
+        if (has(presence, 3)) {
+            laptop.setProductId(reader.readString());
+        }
+        if (has(presence, 4)) {
+            laptop.setImageUrl(reader.readString());
+        }
+        if (has(presence, 5)) {
+            laptop.setProductUrl(reader.readString());
+        }
+        if (has(presence, 6)) {
+            laptop.setPrice(reader.readDecimal());
+        }
+        if (has(presence, 7)) {
+            laptop.setOriginalPrice(reader.readDecimal());
+        }
+        if (has(presence, 8)) {
+            laptop.setBrand(reader.readString());
+        }
+        if (has(presence, 9)) {
+            laptop.setModel(reader.readString());
+        }
+        if (has(presence, 10)) {
+            laptop.setProcessorInfo(reader.readString());
+        }
+        if (has(presence, 11)) {
+            laptop.setMemoryInfo(reader.readString());
+        }
+        if (has(presence, 12)) {
+            laptop.setStorageInfo(reader.readString());
+        }
+        if (has(presence, 13)) {
+            laptop.setDisplayInfo(reader.readString());
+        }
+        if (has(presence, 14)) {
+            laptop.setConditionGrade(reader.readString());
+        }
+        if (has(presence, 15)) {
+            laptop.setSellerName(reader.readString());
+        }
+        if (has(presence, 16)) {
+            laptop.setSellerRating(reader.readDouble());
+        }
+        if (has(presence, 17)) {
+            laptop.setCreatedAt(reader.readDateTime());
+        }
+        if (has(presence, 18)) {
+            laptop.setUpdatedAt(reader.readDateTime());
+        }
+        return laptop;
+    }
+
+    private static boolean has(long presence, int bit) {
+        return (presence & (1L << bit)) != 0;
+    }
+
+    private static final class Writer {
+        private byte[] buffer;
+        private int position;
+
+        private Writer(int initialCapacity) {
+            this.buffer = new byte[initialCapacity];
+        }
+
+        private void ensureCapacity(int extra) {
+            if (position + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+            }
+        }
+
+        private void writeVarLong(long value) {
+            // zigzag + 7位变长整数
+            long zigzag = (value << 1) ^ (value >> 63);
+            ensureCapacity(10);
+            while ((zigzag & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((zigzag & 0x7F) | 0x80);
+                zigzag >>>= 7;
+            }
+            buffer[position++] = (byte) zigzag;
+        }
+
+        private void writeBytes(byte[] bytes) {
+            writeVarLong(bytes.length);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        private void writeString(String value) {
+            writeBytes(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private void writeDecimal(BigDecimal value) {
+            writeVarLong(value.scale());
+            writeBytes(value.unscaledValue().toByteArray());
+        }
+
+        private void writeDouble(double value) {
+            ensureCapacity(Double.BYTES);
+            long bits = Double.doubleToRawLongBits(value);
+            for (int i = 7; i >= 0; i--) {
+                buffer[position++] = (byte) (bits >>> (i * 8));
+            }
+        }
+
+        private void writeDateTime(LocalDateTime value) {
+            writeVarLong(value.toEpochSecond(ZoneOffset.UTC));
+            writeVarLong(value.getNano());
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] buffer;
+        private int position;
+
+        private Reader(byte[] buffer, int offset) {
+            this.buffer = buffer;
+            this.position = offset;
+        }
+
+        private long readVarLong() {
+            long result = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if (position >= buffer.length) {
+                    throw new SerializationException("Truncated LaptopInfo encoding");
+                }
+                b = buffer[position++];
+                result |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return (result >>> 1) ^ -(result & 1);
+        }
+
+        private byte[] readBytes() {
+            int length = (int) readVarLong();
+            if (length < 0 || position + length > buffer.length) {
+                throw new SerializationException("Truncated LaptopInfo encoding");
+            }
+            byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+            position += length;
+            return bytes;
+        }
+
+        private String readString() {
+            int length = (int) readVarLong();
+            if (length < 0 || position + length > buffer.length) {
+                throw new SerializationException("Truncated LaptopInfo encoding");
+            }
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        private BigDecimal readDecimal() {
+            int scale = (int) readVarLong();
+            return new BigDecimal(new BigInteger(readBytes()), scale);
+        }
+
+        private double readDouble() {
+            if (position + Double.BYTES > buffer.length) {
+                throw new SerializationException("Truncated LaptopInfo encoding");
+            }
+            long bits = 0;
+            for (int i = 0; i < 8; i++) {
+                bits = (bits << 8) | (buffer[position++] & 0xFF);
+            }
+            return Double.longBitsToDouble(bits);
+        }
+
+        private LocalDateTime readDateTime() {
+            long epochSecond = readVarLong();
+            int nano = (int) readVarLong();
+            return LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC);
+        }
+    }
+}
@@ -0,0 +1,1677 @@
+package com.searchserver.repository.impl;
+
+import com.searchserver.model.AnnCalibrationResult;
+import com.searchserver.model.BulkSaveResult;
+import com.searchserver.model.LaptopFilter;
+import com.searchserver.model.LaptopInfo;
+import com.searchserver.model.ScoredLaptop;
+import com.searchserver.model.UpsertResult;
+import com.searchserver.model.VectorSearchOptions;
+import com.searchserver.repository.LaptopInfoRepository;
+import com.searchserver.repository.index.BrandNormalizer;
+import com.searchserver.repository.index.EmbeddingText;
+import com.searchserver.repository.index.KeywordIndex;
+import com.searchserver.vector.GroundTruth;
+import com.searchserver.vector.VectorCodec;
+import com.searchserver.vector.VectorHit;
+import com.searchserver.vector.VectorMetric;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scheduling.annotation.Scheduled;
+import com.searchserver.config.RedisConfig;
+
+import javax.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 以Redis保存元数据和二级索引的存储库基类，向量检索由子类实现（Milvus 或进程内索引）
+ */
+public abstract class AbstractRedisLaptopInfoRepository implements LaptopInfoRepository {
+
+    protected final RedisTemplate<String, LaptopInfo> redisTemplate;
+    protected final StringRedisTemplate stringRedisTemplate;
+    protected final RedisConfig redisConfig;
+    protected final KeywordIndex keywordIndex;
+    private final int textDimension;
+    // 关键词索引已包含的元数据写入序号，尚未加载时为 -1
+    private volatile long keywordIndexSequence = -1;
+    private static final org.slf4j.Logger log
+            = org.slf4j.LoggerFactory.getLogger(AbstractRedisLaptopInfoRepository.class);
+    protected static final String REDIS_KEY_PREFIX = "laptop:";
+    private static final String ID_COUNTER_KEY = "laptop:id:counter";
+    // 向量与元数据分开存放：laptop:vec:{id} 为 Hash，字段 text/image 为 float32 二进制
+    protected static final String VECTOR_KEY_PREFIX = "laptop:vec:";
+    protected static final String TEXT_VECTOR_FIELD = "text";
+    protected static final String IMAGE_VECTOR_FIELD = "image";
+    // 生成文本向量所用嵌入文本的内容哈希，与文本向量一起写入
+    private static final String TEXT_HASH_FIELD = "textHash";
+    // 文本向量的写入序号，每次写入或删除文本向量时在同一事务中 INCR，进程内持久化索引据此判断是否落后；
+    // 不能放在 laptop:vec:* 下，否则会被当作向量键遍历
+    private static final String VECTOR_SEQ_KEY = "laptop:vector:seq";
+    // 元数据的写入序号，每次写入或删除笔记本时在同一事务中 INCR，各实例据此发现其他实例的写入并重建关键词索引
+    private static final String KEYWORD_SEQ_KEY = "laptop:keyword:seq";
+    // productId -> id 的二级索引（Redis Hash）
+    private static final String PRODUCT_ID_INDEX_KEY = "laptop:index:productId";
+    // 价格 -> id 的有序集合索引（score 为价格，member 为 id）
+    private static final String PRICE_INDEX_KEY = "laptop:index:price";
+    // 归一化品牌 -> id 集合，完整键为 laptop:index:brand:{brand}
+    private static final String BRAND_INDEX_PREFIX = "laptop:index:brand:";
+    // save/saveAll/upsertAll 遇到并发修改时的最大重试次数
+    private static final int SAVE_MAX_ATTEMPTS = 16;
+    private static final String CONCURRENT_MODIFICATION =
+            "is being modified concurrently, gave up after " + SAVE_MAX_ATTEMPTS + " attempts";
+    // 关键词结果做价格过滤时，每批用管道查询的候选数
+    private static final int FILTER_BATCH_SIZE = 256;
+    // 最近一次入库批次的保证时间戳，供各实例的 SESSION 读使用
+    private static final String GUARANTEE_TS_KEY = "laptop:consistency:guaranteeTs";
+    // 近似检索参数的标定结果（Hash：参数名 -> 取值，以及召回率、目录大小、标定时间）
+    private static final String CALIBRATION_KEY = "laptop:ann:calibration";
+    // 多个实例都会运行爬虫，只在新值更大时覆盖
+    private static final RedisScript<Long> SET_MAX_SCRIPT = new DefaultRedisScript<>(
+            "local current = tonumber(redis.call('GET', KEYS[1]) or '0') "
+                    + "if tonumber(ARGV[1]) > current then redis.call('SET', KEYS[1], ARGV[1]) return 1 end "
+                    + "return 0", Long.class);
+
+    // 重建索引清理过期的 productId 映射时，只在映射仍指向同一个 id 时删除
+    private static final RedisScript<Long> HDEL_IF_EQUAL_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('HGET', KEYS[1], ARGV[1]) == ARGV[2] then return redis.call('HDEL', KEYS[1], ARGV[1]) end "
+                    + "return 0", Long.class);
+
+    protected AbstractRedisLaptopInfoRepository(
+            RedisTemplate<String, LaptopInfo> redisTemplate,
+            StringRedisTemplate stringRedisTemplate,
+            RedisConfig redisConfig,
+            KeywordIndex keywordIndex,
+            int textDimension) {
+        this.redisTemplate = redisTemplate;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.redisConfig = redisConfig;
+        this.keywordIndex = keywordIndex;
+        this.textDimension = textDimension;
+    }
+
+    @PostConstruct
+    public void init() {
+        initVectorStore();
+        loadCalibration();
+        loadKeywordIndex();
+    }
+
+    /**
+     * 启动时准备向量存储（建集合/建索引，或从Redis加载进程内索引）
+     */
+    protected abstract void initVectorStore();
+
+    /**
+     * 写入一批文本向量，失败时抛出异常，异常信息作为失败原因返回给调用方
+     * @return 写入在向量存储中的保证时间戳，不支持时返回 0
+     */
+    protected abstract long insertVectors(List<LaptopInfo> laptops);
+
+    /**
+     * 覆盖向量存储中已有 id 的行（向量或标量字段变化），默认与 insertVectors 相同，
+     * 不支持按主键覆盖的向量存储需先删除旧行
+     */
+    protected long replaceVectors(List<LaptopInfo> laptops) {
+        return insertVectors(laptops);
+    }
+
+    /**
+     * 向量存储中保存的标量字段是否变化，变化时即使文本未变也要重写该行；向量存储不带标量字段时返回 false
+     */
+    protected boolean vectorFieldsChanged(LaptopInfo previous, LaptopInfo current) {
+        return false;
+    }
+
+    protected abstract void deleteVectors(Long id);
+
+    /**
+     * 清空向量存储，在 deleteAll 删除Redis数据并把向量写入序号加一之后调用
+     */
+    protected abstract void deleteAllVectors();
+
+    /**
+     * 向量近邻检索，按相似度从高到低返回满足过滤条件的 id 和得分
+     * @param filter 过滤条件，为空表示不过滤
+     * @param options 检索参数，不为空，其中为空的字段使用默认值
+     */
+    protected abstract List<VectorHit> searchVectors(float[] embedding, int limit, LaptopFilter filter,
+                                                     VectorSearchOptions options);
+
+    /**
+     * searchVectors 的非阻塞版本，默认在调用线程上同步执行（进程内索引没有网络等待）
+     */
+    protected CompletableFuture<List<VectorHit>> searchVectorsAsync(float[] embedding, int limit, LaptopFilter filter,
+                                                                   VectorSearchOptions options) {
+        try {
+            return CompletableFuture.completedFuture(searchVectors(embedding, limit, filter, options));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * 向量度量，标定时计算精确结果使用
+     */
+    protected abstract VectorMetric vectorMetric();
+
+    /**
+     * 可标定的检索参数名（如 nprobe、ef），索引没有可调参数时返回 null
+     */
+    protected String tunableSearchParam() {
+        return null;
+    }
+
+    /**
+     * 标定时按从小（便宜）到大（准确）扫描的候选取值
+     */
+    protected List<Integer> searchParamCandidates(int k) {
+        return Collections.emptyList();
+    }
+
+    /**
+     * 以候选取值构造检索参数
+     */
+    protected VectorSearchOptions calibrationOptions(int value) {
+        return VectorSearchOptions.defaults();
+    }
+
+    /**
+     * 把取值设为之后检索的默认值
+     */
+    protected void applySearchParam(int value) {
+    }
+
+    protected int getTextDimension() {
+        return textDimension;
+    }
+
+    /**
+     * saveAll 每次调用 insertVectors 的最大条数
+     */
+    protected int insertBatchSize() {
+        return Integer.MAX_VALUE;
+    }
+
+    private void loadCalibration() {
+        String param = tunableSearchParam();
+        if (param == null) {
+            return;
+        }
+        try {
+            Object value = stringRedisTemplate.opsForHash().get(CALIBRATION_KEY, param);
+            if (value != null) {
+                applySearchParam(Integer.parseInt(value.toString()));
+                log.info("Using calibrated {}={}", param, value);
+            }
+        } catch (Exception e) {
+            log.error("Error loading search param calibration from Redis", e);
+        }
+    }
+
+    /**
+     * 从Redis全量重建关键词索引并整体换入，重建期间检索仍走旧索引
+     */
+    private void loadKeywordIndex() {
+        try {
+            // 先读序号再读数据：读取期间的写入会使序号前进，下次刷新时再重建
+            long sequence = keywordSequence();
+            try (Stream<LaptopInfo> laptops = streamAll()) {
+                if (keywordIndex.rebuild(laptops)) {
+                    keywordIndexSequence = sequence;
+                }
+            }
+            log.info("Loaded keyword index with {} laptops", keywordIndex.size());
+        } catch (Exception e) {
+            log.error("Error loading keyword index from Redis", e);
+        }
+    }
+
+    /**
+     * 关键词索引只在本进程内增量维护，多实例部署时其他实例的写入只落到Redis：
+     * 定期比较元数据写入序号，发现变化（包括本实例自己的写入）后全量重建，各实例的结果最多落后一个刷新间隔
+     */
+    @Scheduled(fixedDelayString = "${app.search.keyword-refresh-ms:30000}",
+            initialDelayString = "${app.search.keyword-refresh-ms:30000}")
+    public void refreshKeywordIndex() {
+        try {
+            long sequence = keywordSequence();
+            if (sequence != keywordIndexSequence) {
+                log.debug("Keyword sequence moved from {} to {}, rebuilding keyword index", keywordIndexSequence, sequence);
+                loadKeywordIndex();
+            }
+        } catch (Exception e) {
+            log.error("Error refreshing keyword index from Redis", e);
+        }
+    }
+
+    private long keywordSequence() {
+        String value = stringRedisTemplate.opsForValue().get(KEYWORD_SEQ_KEY);
+        return value != null ? Long.parseLong(value) : 0;
+    }
+
+    @Override
+    public LaptopInfo save(LaptopInfo laptopInfo) {
+        float[] storedVector = null;
+        if (laptopInfo.getId() == null) {
+            Long id = redisTemplate.opsForValue().increment(ID_COUNTER_KEY);
+            laptopInfo.setId(id);
+        } else {
+            // 覆盖写前取出已存的文本向量：向量存储写入失败时据此恢复旧行，未提供新向量时沿用
+            storedVector = findTextVectors(Collections.singletonList(laptopInfo.getId())).get(laptopInfo.getId());
+        }
+
+        // 数据和二级索引在同一个 MULTI/EXEC 事务中写入Redis；WATCH 旧值，
+        // 并发保存同一 id 时按最新的旧值重新清理索引，避免留下孤立的索引项
+        byte[] key = rawKey(REDIS_KEY_PREFIX + laptopInfo.getId());
+        LaptopInfo previous = redisTemplate.execute((RedisCallback<LaptopInfo>) connection -> {
+            for (int attempt = 0; attempt < SAVE_MAX_ATTEMPTS; attempt++) {
+                connection.watch(key);
+                byte[] bytes = connection.stringCommands().get(key);
+                LaptopInfo old = bytes != null ? valueSerializer().deserialize(bytes) : null;
+                if (writeInTransaction(connection, Collections.singletonList(laptopInfo),
+                        old != null ? Collections.singletonMap(old.getId(), old) : Collections.emptyMap())) {
+                    return old;
+                }
+            }
+            throw new IllegalStateException("Laptop " + laptopInfo.getId() + " " + CONCURRENT_MODIFICATION);
+        });
+        keywordIndex.index(laptopInfo);
+
+        if (laptopInfo.getEmbedding() == null) {
+            // 未提供向量时Redis中的向量不变，只有向量存储中的标量字段变化时才用已存向量重写该行
+            if (previous == null || storedVector == null || !vectorFieldsChanged(previous, laptopInfo)) {
+                return laptopInfo;
+            }
+            laptopInfo.setEmbedding(storedVector);
+        }
+
+        // 保存向量到向量存储
+        List<LaptopInfo> batch = Collections.singletonList(laptopInfo);
+        try {
+            if (previous != null) {
+                replaceVectors(batch);
+            } else {
+                insertVectors(batch);
+            }
+        } catch (Exception e) {
+            log.error("Error inserting vector for laptop {}: {}", laptopInfo.getId(), e.getMessage());
+            // 与 saveAll 一致：Redis中的新值和文本哈希一并回滚，避免哈希与向量存储不符时之后的增量写入跳过该行
+            Map<Long, LaptopInfo> old = previous != null
+                    ? Collections.singletonMap(previous.getId(), previous) : Collections.emptyMap();
+            if (previous != null) {
+                previous.setEmbedding(storedVector);
+            }
+            rollbackRedisWrites(batch, old);
+            restoreVectors(batch, old);
+            throw new IllegalStateException("Vector insert failed for laptop " + laptopInfo.getId()
+                    + ": " + e.getMessage(), e);
+        }
+
+        return laptopInfo;
+    }
+
+    @Override
+    public Optional<LaptopInfo> findById(Long id) {
+        return Optional.ofNullable(redisTemplate.opsForValue().get(REDIS_KEY_PREFIX + id));
+    }
+
+    @Override
+    public Optional<float[]> findEmbeddingById(Long id) {
+        return findVector(id, TEXT_VECTOR_FIELD, LaptopInfo::getEmbedding);
+    }
+
+    @Override
+    public Optional<float[]> findImageEmbeddingById(Long id) {
+        return findVector(id, IMAGE_VECTOR_FIELD, LaptopInfo::getImageEmbedding);
+    }
+
+    private Optional<float[]> findVector(Long id, String field, Function<LaptopInfo, float[]> legacy) {
+        byte[] bytes = redisTemplate.execute((RedisCallback<byte[]>) connection ->
+                connection.hashCommands().hGet(rawKey(VECTOR_KEY_PREFIX + id), rawKey(field)));
+        if (bytes != null) {
+            return Optional.of(VectorCodec.decode(bytes));
+        }
+        // 尚未迁移的旧数据，向量仍内嵌在元数据JSON中
+        return findById(id).map(legacy);
+    }
+
+    @Override
+    public List<LaptopInfo> findAll() {
+        try (Stream<LaptopInfo> laptops = streamAll()) {
+            return laptops.collect(Collectors.toList());
+        }
+    }
+
+    @Override
+    public Stream<LaptopInfo> streamAll() {
+        int batchSize = redisConfig.getScanBatchSize();
+        Cursor<byte[]> cursor = scan(REDIS_KEY_PREFIX + "*", batchSize);
+        Iterator<List<LaptopInfo>> batches = new Iterator<List<LaptopInfo>>() {
+            @Override
+            public boolean hasNext() {
+                return cursor.hasNext();
+            }
+
+            @Override
+            public List<LaptopInfo> next() {
+                // 只读取 laptop:{id} 数据键，跳过计数器和索引键
+                List<String> keys = new ArrayList<>(batchSize);
+                while (keys.size() < batchSize && cursor.hasNext()) {
+                    String key = new String(cursor.next(), StandardCharsets.UTF_8);
+                    if (isLaptopKey(key)) {
+                        keys.add(key);
+                    }
+                }
+                if (keys.isEmpty()) {
+                    return Collections.emptyList();
+                }
+                List<LaptopInfo> values = redisTemplate.opsForValue().multiGet(keys);
+                return values != null ? values : Collections.emptyList();
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(batches, Spliterator.ORDERED), false)
+                .flatMap(List::stream)
+                .filter(Objects::nonNull)
+                .onClose(cursor::close);
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        LaptopInfo existing = redisTemplate.opsForValue().get(REDIS_KEY_PREFIX + id);
+        redisTemplate.execute((RedisCallback<List<Object>>) connection -> {
+            connection.multi();
+            connection.keyCommands().del(rawKey(REDIS_KEY_PREFIX + id), rawKey(VECTOR_KEY_PREFIX + id));
+            connection.stringCommands().incr(rawKey(VECTOR_SEQ_KEY));
+            connection.stringCommands().incr(rawKey(KEYWORD_SEQ_KEY));
+            removeIndexEntries(connection, id, existing);
+            return connection.exec();
+        });
+        keywordIndex.remove(id);
+        deleteVectors(id);
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return redisTemplate.hasKey(REDIS_KEY_PREFIX + id);
+    }
+
+    @Override
+    public Optional<LaptopInfo> findByProductId(String productId) {
+        if (productId == null) {
+            return Optional.empty();
+        }
+        Object id = stringRedisTemplate.opsForHash().get(PRODUCT_ID_INDEX_KEY, productId);
+        if (id == null) {
+            return Optional.empty();
+        }
+        return findById(Long.parseLong(id.toString()))
+                .filter(laptop -> productId.equals(laptop.getProductId()));
+    }
+
+    @Override
+    public List<LaptopInfo> findByBrand(String brand) {
+        String normalized = BrandNormalizer.normalize(brand);
+        if (normalized == null) {
+            return Collections.emptyList();
+        }
+        Set<String> ids = stringRedisTemplate.opsForSet().members(BRAND_INDEX_PREFIX + normalized);
+        if (ids == null || ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return findAllByIds(ids);
+    }
+
+    @Override
+    public long countByBrand(String brand) {
+        String normalized = BrandNormalizer.normalize(brand);
+        if (normalized == null) {
+            return 0;
+        }
+        Long count = stringRedisTemplate.opsForSet().size(BRAND_INDEX_PREFIX + normalized);
+        return count != null ? count : 0;
+    }
+
+    @Override
+    public List<LaptopInfo> findByFilter(String keyword, LaptopFilter filter, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("offset and limit must not be negative");
+        }
+        LaptopFilter criteria = filter != null ? filter : LaptopFilter.empty();
+        Set<String> brandIds = null;
+        if (criteria.hasBrand()) {
+            brandIds = stringRedisTemplate.opsForSet().members(
+                    BRAND_INDEX_PREFIX + BrandNormalizer.normalize(criteria.getBrand()));
+            if (brandIds == null || brandIds.isEmpty()) {
+                return Collections.emptyList();
+            }
+        }
+
+        if (keyword != null && !keyword.trim().isEmpty()) {
+            // 关键词驱动：品牌集合在倒排索引打分时过滤，价格按排名顺序分批校验
+            Set<String> allowed = brandIds;
+            List<KeywordIndex.Hit> hits = keywordIndex.search(keyword, Integer.MAX_VALUE,
+                    id -> allowed == null || allowed.contains(String.valueOf(id)));
+            List<String> ids = hits.stream()
+                    .map(hit -> String.valueOf(hit.getId()))
+                    .collect(Collectors.toList());
+            if (criteria.hasSpecConditions()) {
+                return filterBySpecs(filterByPrice(ids, criteria, Integer.MAX_VALUE), criteria, offset, limit);
+            }
+            return findAllByIds(filterByPrice(ids, criteria, pageEnd(offset, limit)).stream()
+                    .skip(offset)
+                    .collect(Collectors.toList()));
+        }
+
+        if (brandIds != null) {
+            // 品牌驱动：代价与品牌结果集大小成正比，按价格升序分页
+            List<String> ids = new ArrayList<>(brandIds);
+            Map<String, Double> prices = priceScores(ids);
+            List<String> sorted = ids.stream()
+                    .filter(id -> inPriceRange(prices.get(id), criteria))
+                    .sorted(Comparator.comparing((String id) -> prices.getOrDefault(id, Double.MAX_VALUE))
+                            .thenComparing(Comparator.naturalOrder()))
+                    .collect(Collectors.toList());
+            if (criteria.hasSpecConditions()) {
+                return filterBySpecs(sorted, criteria, offset, limit);
+            }
+            return findAllByIds(sorted.stream()
+                    .skip(offset)
+                    .limit(limit)
+                    .collect(Collectors.toList()));
+        }
+
+        if (criteria.hasPriceRange()) {
+            BigDecimal minPrice = criteria.getMinPrice() != null ? criteria.getMinPrice() : BigDecimal.ZERO;
+            BigDecimal maxPrice = criteria.getMaxPrice() != null
+                    ? criteria.getMaxPrice() : BigDecimal.valueOf(Double.MAX_VALUE);
+            if (criteria.hasSpecConditions()) {
+                Set<String> ids = stringRedisTemplate.opsForZSet().rangeByScore(PRICE_INDEX_KEY,
+                        minPrice.doubleValue(), maxPrice.doubleValue());
+                return ids == null ? Collections.emptyList()
+                        : filterBySpecs(new ArrayList<>(ids), criteria, offset, limit);
+            }
+            return findByPriceBetween(minPrice, maxPrice, offset, limit);
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * 按顺序保留价格落在区间内的 id，凑够 max 条即停止
+     */
+    private List<String> filterByPrice(List<String> ids, LaptopFilter filter, int max) {
+        if (!filter.hasPriceRange()) {
+            return ids.stream().limit(max).collect(Collectors.toList());
+        }
+        List<String> matched = new ArrayList<>();
+        for (int from = 0; from < ids.size() && matched.size() < max; from += FILTER_BATCH_SIZE) {
+            List<String> batch = ids.subList(from, Math.min(from + FILTER_BATCH_SIZE, ids.size()));
+            Map<String, Double> prices = priceScores(batch);
+            for (String id : batch) {
+                if (inPriceRange(prices.get(id), filter) && matched.size() < max) {
+                    matched.add(id);
+                }
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * 成色/内存不在Redis索引中：按顺序分批回表校验，凑够 offset + limit 条即停止
+     */
+    private List<LaptopInfo> filterBySpecs(List<String> ids, LaptopFilter filter, int offset, int limit) {
+        int max = pageEnd(offset, limit);
+        List<LaptopInfo> matched = new ArrayList<>();
+        for (int from = 0; from < ids.size() && matched.size() < max; from += FILTER_BATCH_SIZE) {
+            List<String> batch = ids.subList(from, Math.min(from + FILTER_BATCH_SIZE, ids.size()));
+            for (LaptopInfo laptop : findAllByIds(batch)) {
+                if (filter.matches(laptop) && matched.size() < max) {
+                    matched.add(laptop);
+                }
+            }
+        }
+        return matched.stream().skip(offset).collect(Collectors.toList());
+    }
+
+    /**
+     * offset + limit，按 long 计算后截断到 int 范围，调用方传入很大的值时不会溢出成负数
+     */
+    private static int pageEnd(int offset, int limit) {
+        return (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+    }
+
+    private Map<String, Double> priceScores(List<String> ids) {
+        byte[] key = rawKey(PRICE_INDEX_KEY);
+        List<Object> scores = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String id : ids) {
+                connection.zSetCommands().zScore(key, rawKey(id));
+            }
+            return null;
+        });
+        Map<String, Double> prices = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            Object score = scores.get(i);
+            if (score instanceof Double) {
+                prices.put(ids.get(i), (Double) score);
+            }
+        }
+        return prices;
+    }
+
+    private boolean inPriceRange(Double price, LaptopFilter filter) {
+        if (!filter.hasPriceRange()) {
+            return true;
+        }
+        return price != null
+                && (filter.getMinPrice() == null || price >= filter.getMinPrice().doubleValue())
+                && (filter.getMaxPrice() == null || price <= filter.getMaxPrice().doubleValue());
+    }
+
+    @Override
+    public List<LaptopInfo> findByPriceBetween(BigDecimal minPrice, BigDecimal maxPrice) {
+        return findByPriceBetween(minPrice, maxPrice, 0, -1);
+    }
+
+    @Override
+    public List<LaptopInfo> findByPriceBetween(BigDecimal minPrice, BigDecimal maxPrice, long offset, long limit) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset must not be negative");
+        }
+        // ZRANGEBYSCORE ... LIMIT offset count，只回表当前页
+        Set<String> ids = stringRedisTemplate.opsForZSet().rangeByScore(PRICE_INDEX_KEY,
+                minPrice.doubleValue(), maxPrice.doubleValue(), offset, limit);
+        if (ids == null || ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return findAllByIds(ids);
+    }
+
+    @Override
+    public List<ScoredLaptop> findSimilarLaptops(float[] embedding, int limit) {
+        return findSimilarLaptops(embedding, null, limit);
+    }
+
+    @Override
+    public List<ScoredLaptop> findSimilarLaptops(float[] embedding, LaptopFilter filter, int limit) {
+        return findSimilarLaptops(embedding, filter, limit, null);
+    }
+
+    @Override
+    public List<ScoredLaptop> findSimilarLaptops(float[] embedding, LaptopFilter filter, int limit,
+                                                 VectorSearchOptions options) {
+        LaptopFilter criteria = filter != null && !filter.isEmpty() ? filter : null;
+        List<VectorHit> hits = searchVectors(embedding, limit, criteria,
+                options != null ? options : VectorSearchOptions.defaults());
+        return toScoredLaptops(hits, criteria);
+    }
+
+    @Override
+    public CompletableFuture<List<ScoredLaptop>> findSimilarLaptopsAsync(float[] embedding, LaptopFilter filter,
+                                                                       int limit, VectorSearchOptions options) {
+        LaptopFilter criteria = filter != null && !filter.isEmpty() ? filter : null;
+        return searchVectorsAsync(embedding, limit, criteria,
+                options != null ? options : VectorSearchOptions.defaults())
+                .thenApply(hits -> toScoredLaptops(hits, criteria));
+    }
+
+    private List<ScoredLaptop> toScoredLaptops(List<VectorHit> hits, LaptopFilter criteria) {
+        if (hits.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // 一次 MGET 回表，按向量检索返回的排名顺序组装结果
+        List<String> keys = hits.stream()
+                .map(hit -> REDIS_KEY_PREFIX + hit.getId())
+                .collect(Collectors.toList());
+        List<LaptopInfo> laptops = redisTemplate.opsForValue().multiGet(keys);
+        if (laptops == null) {
+            return Collections.emptyList();
+        }
+        List<ScoredLaptop> results = new ArrayList<>(hits.size());
+        for (int i = 0; i < hits.size(); i++) {
+            LaptopInfo laptop = laptops.get(i);
+            // 向量存储里的标量字段可能落后于Redis（如写入失败），以Redis中的当前值为准再校验一次
+            if (laptop != null && (criteria == null || criteria.matches(laptop))) {
+                results.add(new ScoredLaptop(laptop, hits.get(i).getScore()));
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public List<LaptopInfo> searchByKeyword(String keyword, int limit) {
+        List<KeywordIndex.Hit> hits = keywordIndex.search(keyword, limit);
+        if (hits.isEmpty()) {
+            return Collections.emptyList();
+        }
+        // multiGet 按键顺序返回，保持 BM25 排名
+        return findAllByIds(hits.stream()
+                .map(hit -> String.valueOf(hit.getId()))
+                .collect(Collectors.toList()));
+    }
+
+    private List<LaptopInfo> findAllByIds(Collection<String> ids) {
+        List<String> keys = ids.stream()
+                .map(id -> REDIS_KEY_PREFIX + id)
+                .collect(Collectors.toList());
+        List<LaptopInfo> values = redisTemplate.opsForValue().multiGet(keys);
+        if (values == null) {
+            return Collections.emptyList();
+        }
+        return values.stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 在当前连接上写入笔记本数据及其二级索引，调用方负责包在 MULTI/EXEC 中
+     */
+    private void writeLaptop(RedisConnection connection, LaptopInfo laptop, LaptopInfo previous) {
+        if (previous != null) {
+            removeIndexEntries(connection, laptop.getId(), previous);
+        }
+        connection.stringCommands().set(rawKey(REDIS_KEY_PREFIX + laptop.getId()), valueSerializer().serialize(laptop));
+        connection.stringCommands().incr(rawKey(KEYWORD_SEQ_KEY));
+        writeVectors(connection, laptop);
+        addIndexEntries(connection, laptop);
+    }
+
+    /**
+     * 向量单独写入 laptop:vec:{id}，未提供的向量保持原值不变；文本向量连同其嵌入文本的哈希一起写入
+     */
+    private void writeVectors(RedisConnection connection, LaptopInfo laptop) {
+        Map<byte[], byte[]> vectors = new HashMap<>();
+        if (laptop.getEmbedding() != null) {
+            vectors.put(rawKey(TEXT_VECTOR_FIELD), VectorCodec.encode(laptop.getEmbedding()));
+            vectors.put(rawKey(TEXT_HASH_FIELD), rawKey(EmbeddingText.hash(laptop)));
+        }
+        if (laptop.getImageEmbedding() != null) {
+            vectors.put(rawKey(IMAGE_VECTOR_FIELD), VectorCodec.encode(laptop.getImageEmbedding()));
+        }
+        if (!vectors.isEmpty()) {
+            connection.hashCommands().hMSet(rawKey(VECTOR_KEY_PREFIX + laptop.getId()), vectors);
+        }
+        if (laptop.getEmbedding() != null) {
+            connection.stringCommands().incr(rawKey(VECTOR_SEQ_KEY));
+        }
+    }
+
+    private void addIndexEntries(RedisConnection connection, LaptopInfo laptop) {
+        byte[] member = rawKey(laptop.getId().toString());
+        if (laptop.getProductId() != null) {
+            connection.hashCommands().hSet(rawKey(PRODUCT_ID_INDEX_KEY), rawKey(laptop.getProductId()), member);
+        }
+        if (laptop.getPrice() != null) {
+            connection.zSetCommands().zAdd(rawKey(PRICE_INDEX_KEY), laptop.getPrice().doubleValue(), member);
+        }
+        String brand = BrandNormalizer.normalize(laptop.getBrand());
+        if (brand != null) {
+            connection.setCommands().sAdd(rawKey(BRAND_INDEX_PREFIX + brand), member);
+        }
+    }
+
+    private void removeIndexEntries(RedisConnection connection, Long id, LaptopInfo previous) {
+        byte[] member = rawKey(id.toString());
+        if (previous != null && previous.getProductId() != null) {
+            connection.hashCommands().hDel(rawKey(PRODUCT_ID_INDEX_KEY), rawKey(previous.getProductId()));
+        }
+        connection.zSetCommands().zRem(rawKey(PRICE_INDEX_KEY), member);
+        String brand = previous != null ? BrandNormalizer.normalize(previous.getBrand()) : null;
+        if (brand != null) {
+            connection.setCommands().sRem(rawKey(BRAND_INDEX_PREFIX + brand), member);
+        }
+    }
+
+    protected Cursor<byte[]> scan(String pattern, int count) {
+        ScanOptions options = ScanOptions.scanOptions().match(pattern).count(count).build();
+        // SCAN 游标需要独占连接，使用方负责关闭
+        return redisTemplate.executeWithStickyConnection(
+                (RedisCallback<Cursor<byte[]>>) connection -> connection.keyCommands().scan(options));
+    }
+
+    /**
+     * 文本向量的当前写入序号，从未写入时为 0；deleteAll 不重置该序号，只会使其加一
+     */
+    protected long vectorSequence() {
+        String value = stringRedisTemplate.opsForValue().get(VECTOR_SEQ_KEY);
+        return value != null ? Long.parseLong(value) : 0;
+    }
+
+    /**
+     * 已分配的最大 id，从未分配时为 0；deleteAll 不重置 id 计数器
+     */
+    protected long maxAssignedId() {
+        String value = stringRedisTemplate.opsForValue().get(ID_COUNTER_KEY);
+        return value != null ? Long.parseLong(value) : 0;
+    }
+
+    /**
+     * 以 SCAN 分批遍历匹配的键，每批最多 scan-batch-size 个
+     */
+    protected void scanKeys(String pattern, Consumer<List<String>> batchConsumer) {
+        int batchSize = redisConfig.getScanBatchSize();
+        try (Cursor<byte[]> cursor = scan(pattern, batchSize)) {
+            List<String> batch = new ArrayList<>(batchSize);
+            while (cursor.hasNext()) {
+                batch.add(new String(cursor.next(), StandardCharsets.UTF_8));
+                if (batch.size() >= batchSize) {
+                    batchConsumer.accept(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                batchConsumer.accept(batch);
+            }
+        }
+    }
+
+    protected byte[] rawKey(String key) {
+        return key.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @SuppressWarnings("unchecked")
+    protected RedisSerializer<LaptopInfo> valueSerializer() {
+        return (RedisSerializer<LaptopInfo>) redisTemplate.getValueSerializer();
+    }
+
+    private boolean isLaptopKey(String key) {
+        String suffix = key.substring(REDIS_KEY_PREFIX.length());
+        return !suffix.isEmpty() && suffix.chars().allMatch(Character::isDigit);
+    }
+
+    @Override
+    public BulkSaveResult saveAll(List<LaptopInfo> laptops) {
+        BulkSaveResult result = new BulkSaveResult();
+        List<LaptopInfo> valid = new ArrayList<>(laptops.size());
+        for (LaptopInfo laptop : laptops) {
+            String error = validateForInsert(laptop);
+            if (error != null) {
+                result.addFailure(laptop, error);
+            } else {
+                valid.add(laptop);
+            }
+        }
+        if (valid.isEmpty()) {
+            return result;
+        }
+
+        // 一次 INCRBY 为所有新笔记本预留连续 id
+        List<Long> existingIds = valid.stream()
+                .map(LaptopInfo::getId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        reserveIds(valid);
+
+        // 已有 id 的视为覆盖写：WATCH 之后再读出旧值用于清理索引，EXEC 被并发写入打断时重新读取后重试
+        Map<Long, LaptopInfo> previous = redisTemplate.execute((RedisCallback<Map<Long, LaptopInfo>>) connection -> {
+            for (int attempt = 0; attempt < SAVE_MAX_ATTEMPTS; attempt++) {
+                connection.watch(rawKey(PRODUCT_ID_INDEX_KEY));
+                Map<Long, LaptopInfo> old = watchPrevious(connection, existingIds);
+                attachPreviousVectors(old, valid);
+                if (writeInTransaction(connection, valid, old)) {
+                    return old;
+                }
+            }
+            return null;
+        });
+        if (previous == null) {
+            valid.forEach(laptop -> result.addFailure(laptop, CONCURRENT_MODIFICATION));
+            return result;
+        }
+
+        writeVectorStore(valid, valid, previous, result);
+        return result;
+    }
+
+    @Override
+    public UpsertResult upsertAll(List<LaptopInfo> laptops, Function<List<LaptopInfo>, List<float[]>> embedder) {
+        UpsertResult result = new UpsertResult();
+        List<LaptopInfo> keyed = new ArrayList<>(laptops.size());
+        for (LaptopInfo laptop : laptops) {
+            if (laptop.getProductId() == null) {
+                result.addFailure(laptop, "missing productId");
+            } else {
+                keyed.add(laptop);
+            }
+        }
+        if (keyed.isEmpty()) {
+            return result;
+        }
+
+        // 分类依赖的 productId 映射和旧值都在 WATCH 之后读取，EXEC 被打断时整批重新规划。
+        // 每轮开始前恢复调用方给出的字段；embedder 的结果跨轮复用，同一批数据只生成一次向量
+        Map<LaptopInfo, float[]> providedEmbeddings = new IdentityHashMap<>();
+        Map<LaptopInfo, LocalDateTime> providedCreatedAt = new IdentityHashMap<>();
+        keyed.forEach(laptop -> {
+            providedEmbeddings.put(laptop, laptop.getEmbedding());
+            providedCreatedAt.put(laptop, laptop.getCreatedAt());
+        });
+        Map<LaptopInfo, float[]> generated = new IdentityHashMap<>();
+        Map<LaptopInfo, String> embedFailures = new IdentityHashMap<>();
+        UpsertPlan plan = redisTemplate.execute((RedisCallback<UpsertPlan>) connection -> {
+            for (int attempt = 0; attempt < SAVE_MAX_ATTEMPTS; attempt++) {
+                for (LaptopInfo laptop : keyed) {
+                    laptop.setId(null);
+                    laptop.setEmbedding(providedEmbeddings.get(laptop));
+                    laptop.setCreatedAt(providedCreatedAt.get(laptop));
+                }
+                UpsertPlan candidate = planUpsert(connection, keyed, embedder, generated, embedFailures);
+                if (candidate.writes.isEmpty()) {
+                    connection.unwatch();
+                    return candidate;
+                }
+                if (writeInTransaction(connection, candidate.writes, candidate.previous)) {
+                    return candidate;
+                }
+            }
+            return null;
+        });
+        if (plan == null) {
+            keyed.forEach(laptop -> result.addFailure(laptop, CONCURRENT_MODIFICATION));
+            return result;
+        }
+
+        plan.failures.forEach(failure -> result.addFailure(failure.getLaptop(), failure.getReason()));
+        result.addSaved(plan.unchanged);
+        if (!plan.writes.isEmpty()) {
+            writeVectorStore(plan.writes, plan.vectorWrites, plan.previous, result);
+        }
+        result.getSaved().forEach(laptop -> result.record(plan.changes.get(laptop)));
+        return result;
+    }
+
+    /**
+     * 已有商品的变化类型：提供了新向量或嵌入文本的哈希变化时 REEMBEDDED；除 id 和时间戳外内容都相同时 UNCHANGED；
+     * 向量存储中的标量字段变化时 REWRITTEN；其余为 PATCHED。
+     * 旧数据没有存哈希时以旧值的嵌入文本为准，且不归为 UNCHANGED，借这次写入补写哈希
+     */
+    static UpsertResult.Change classify(LaptopInfo old, LaptopInfo laptop, String storedHash,
+                                        boolean vectorFieldsChanged) {
+        String expectedHash = storedHash != null ? storedHash : EmbeddingText.hash(old);
+        if (laptop.getEmbedding() != null || !expectedHash.equals(EmbeddingText.hash(laptop))) {
+            return UpsertResult.Change.REEMBEDDED;
+        }
+        if (storedHash != null && laptop.getImageEmbedding() == null && sameContent(old, laptop)) {
+            return UpsertResult.Change.UNCHANGED;
+        }
+        return vectorFieldsChanged ? UpsertResult.Change.REWRITTEN : UpsertResult.Change.PATCHED;
+    }
+
+    /**
+     * 比较除 id、时间戳和向量外的所有字段，金额按数值比较（5999.00 与 5999.0 相同）
+     */
+    private static boolean sameContent(LaptopInfo a, LaptopInfo b) {
+        return Objects.equals(a.getTitle(), b.getTitle())
+                && Objects.equals(a.getDescription(), b.getDescription())
+                && Objects.equals(a.getProductId(), b.getProductId())
+                && Objects.equals(a.getImageUrl(), b.getImageUrl())
+                && Objects.equals(a.getProductUrl(), b.getProductUrl())
+                && sameAmount(a.getPrice(), b.getPrice())
+                && sameAmount(a.getOriginalPrice(), b.getOriginalPrice())
+                && Objects.equals(a.getBrand(), b.getBrand())
+                && Objects.equals(a.getModel(), b.getModel())
+                && Objects.equals(a.getProcessorInfo(), b.getProcessorInfo())
+                && Objects.equals(a.getMemoryInfo(), b.getMemoryInfo())
+                && Objects.equals(a.getStorageInfo(), b.getStorageInfo())
+                && Objects.equals(a.getDisplayInfo(), b.getDisplayInfo())
+                && Objects.equals(a.getConditionGrade(), b.getConditionGrade())
+                && Objects.equals(a.getSellerName(), b.getSellerName())
+                && Objects.equals(a.getSellerRating(), b.getSellerRating());
+    }
+
+    private static boolean sameAmount(BigDecimal a, BigDecimal b) {
+        return a == null ? b == null : b != null && a.compareTo(b) == 0;
+    }
+
+    /**
+     * 在已 WATCH 的连接上规划一轮 upsert：读出 productId 映射和旧值，按变化类型分类，
+     * 为需要的笔记本生成向量并预留新 id。embedder 在持有该连接时调用，较慢时本轮更容易被打断，
+     * 但下一轮直接沿用 generated 中的结果
+     */
+    private UpsertPlan planUpsert(RedisConnection connection, List<LaptopInfo> keyed,
+                                  Function<List<LaptopInfo>, List<float[]>> embedder,
+                                  Map<LaptopInfo, float[]> generated, Map<LaptopInfo, String> embedFailures) {
+        UpsertPlan plan = new UpsertPlan();
+
+        // 先 WATCH productId 索引再 HMGET：两个实例同时插入同一 productId 时，后提交的一方 EXEC 失败，
+        // 重新规划时会读到先提交的 id 并改为覆盖写，不会插入重复的笔记本
+        byte[] indexKey = rawKey(PRODUCT_ID_INDEX_KEY);
+        connection.watch(indexKey);
+        List<byte[]> mapped = connection.hashCommands().hMGet(indexKey, keyed.stream()
+                .map(laptop -> rawKey(laptop.getProductId()))
+                .toArray(byte[][]::new));
+        List<Long> existingIds = mapped.stream()
+                .map(bytes -> bytes != null ? Long.parseLong(new String(bytes, StandardCharsets.UTF_8)) : null)
+                .collect(Collectors.toList());
+        plan.previous.putAll(watchPrevious(connection, existingIds.stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList())));
+        Map<Long, String> storedHashes = findTextHashes(new ArrayList<>(plan.previous.keySet()));
+
+        // 按变化类型分类：文本未变的沿用已存向量，只在需要时才调用 embedder
+        Map<LaptopInfo, UpsertResult.Change> changes = plan.changes;
+        List<LaptopInfo> reuseVector = new ArrayList<>();
+        for (int i = 0; i < keyed.size(); i++) {
+            LaptopInfo laptop = keyed.get(i);
+            LaptopInfo old = existingIds.get(i) != null ? plan.previous.get(existingIds.get(i)) : null;
+            if (old == null || !Objects.equals(old.getProductId(), laptop.getProductId())) {
+                changes.put(laptop, UpsertResult.Change.INSERTED);
+                continue;
+            }
+            laptop.setId(old.getId());
+            if (laptop.getCreatedAt() == null) {
+                laptop.setCreatedAt(old.getCreatedAt());
+            }
+
+            String storedHash = storedHashes.get(old.getId());
+            UpsertResult.Change change = classify(old, laptop, storedHash, vectorFieldsChanged(old, laptop));
+            changes.put(laptop, change);
+            if (change == UpsertResult.Change.UNCHANGED) {
+                // 不写入，返回的对象与Redis中保存的一致
+                laptop.setUpdatedAt(old.getUpdatedAt());
+                plan.unchanged.add(laptop);
+                continue;
+            }
+            laptop.setUpdatedAt(LocalDateTime.now());
+            if (change == UpsertResult.Change.REWRITTEN
+                    || (change == UpsertResult.Change.PATCHED && storedHash == null)) {
+                // 沿用已存向量；PATCHED 的旧数据顺带补写哈希
+                reuseVector.add(laptop);
+            }
+        }
+
+        // 一个管道取回需要沿用的文本向量，Redis中已没有向量的改为重新生成
+        Map<Long, float[]> storedVectors = findTextVectors(reuseVector.stream()
+                .map(LaptopInfo::getId)
+                .collect(Collectors.toList()));
+        for (LaptopInfo laptop : reuseVector) {
+            float[] vector = storedVectors.get(laptop.getId());
+            if (vector != null) {
+                laptop.setEmbedding(vector);
+            } else {
+                changes.put(laptop, UpsertResult.Change.REEMBEDDED);
+            }
+        }
+
+        // 需要新向量的笔记本一次批量生成，之前几轮已生成过的直接沿用
+        List<LaptopInfo> toEmbed = keyed.stream()
+                .filter(laptop -> changes.get(laptop) != UpsertResult.Change.PATCHED
+                        && changes.get(laptop) != UpsertResult.Change.UNCHANGED && laptop.getEmbedding() == null)
+                .collect(Collectors.toList());
+        List<LaptopInfo> pending = toEmbed.stream()
+                .filter(laptop -> !generated.containsKey(laptop))
+                .collect(Collectors.toList());
+        if (!pending.isEmpty()) {
+            embed(pending, embedder, generated, embedFailures);
+        }
+        toEmbed.forEach(laptop -> laptop.setEmbedding(generated.get(laptop)));
+
+        for (LaptopInfo laptop : keyed) {
+            if (changes.get(laptop) == UpsertResult.Change.UNCHANGED) {
+                continue;
+            }
+            if (changes.get(laptop) == UpsertResult.Change.PATCHED) {
+                plan.writes.add(laptop);
+                continue;
+            }
+            if (laptop.getEmbedding() == null) {
+                plan.failures.add(new BulkSaveResult.Failure(laptop,
+                        embedFailures.getOrDefault(laptop, "missing text embedding")));
+                continue;
+            }
+            String error = validateForInsert(laptop);
+            if (error != null) {
+                plan.failures.add(new BulkSaveResult.Failure(laptop, error));
+                continue;
+            }
+            plan.writes.add(laptop);
+            plan.vectorWrites.add(laptop);
+        }
+
+        // 被打断的轮次预留的 id 不再使用，只会在 id 序列中留下空洞
+        reserveIds(plan.writes);
+        attachPreviousVectors(plan.previous, plan.vectorWrites);
+        return plan;
+    }
+
+    /**
+     * 调用 embedder 为一批笔记本生成向量，结果（单条失败为 null）记入 generated；
+     * embedder 对单条失败返回 null，整批失败时抛出异常，两种情况都不写入，已存的向量和哈希保持不变
+     */
+    private void embed(List<LaptopInfo> pending, Function<List<LaptopInfo>, List<float[]>> embedder,
+                       Map<LaptopInfo, float[]> generated, Map<LaptopInfo, String> embedFailures) {
+        try {
+            List<float[]> embeddings = embedder.apply(pending);
+            if (embeddings.size() != pending.size()) {
+                throw new IllegalStateException("embedder returned " + embeddings.size()
+                        + " vectors for " + pending.size() + " laptops");
+            }
+            for (int i = 0; i < pending.size(); i++) {
+                generated.put(pending.get(i), embeddings.get(i));
+                if (embeddings.get(i) == null) {
+                    embedFailures.put(pending.get(i), "Embedding failed");
+                }
+            }
+        } catch (Exception e) {
+            for (LaptopInfo laptop : pending) {
+                generated.put(laptop, null);
+                embedFailures.put(laptop, "Embedding failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 一次 INCRBY 为还没有 id 的笔记本预留连续 id
+     */
+    private void reserveIds(List<LaptopInfo> laptops) {
+        long newCount = laptops.stream().filter(laptop -> laptop.getId() == null).count();
+        if (newCount == 0) {
+            return;
+        }
+        long nextId = redisTemplate.opsForValue().increment(ID_COUNTER_KEY, newCount) - newCount + 1;
+        for (LaptopInfo laptop : laptops) {
+            if (laptop.getId() == null) {
+                laptop.setId(nextId++);
+            }
+        }
+    }
+
+    /**
+     * WATCH 这些 id 的数据键后一次 MGET 读出旧值，不存在的 id 不出现在结果中；
+     * 此后到 EXEC 之间任一键被修改，事务都会被放弃
+     */
+    private Map<Long, LaptopInfo> watchPrevious(RedisConnection connection, List<Long> ids) {
+        Map<Long, LaptopInfo> previous = new HashMap<>();
+        if (ids.isEmpty()) {
+            return previous;
+        }
+        byte[][] keys = ids.stream()
+                .map(id -> rawKey(REDIS_KEY_PREFIX + id))
+                .toArray(byte[][]::new);
+        connection.watch(keys);
+        List<byte[]> values = connection.stringCommands().mGet(keys);
+        for (byte[] bytes : values) {
+            if (bytes != null) {
+                LaptopInfo old = valueSerializer().deserialize(bytes);
+                previous.put(old.getId(), old);
+            }
+        }
+        return previous;
+    }
+
+    /**
+     * 覆盖写前取出旧向量挂到旧值上，向量存储写入失败时连同旧值一起恢复
+     */
+    private void attachPreviousVectors(Map<Long, LaptopInfo> previous, List<LaptopInfo> vectorWrites) {
+        findTextVectors(vectorWrites.stream()
+                .map(LaptopInfo::getId)
+                .filter(previous::containsKey)
+                .collect(Collectors.toList()))
+                .forEach((id, vector) -> previous.get(id).setEmbedding(vector));
+    }
+
+    /**
+     * 在已 WATCH 的连接上用一个 MULTI/EXEC 写入一批笔记本及其索引
+     * @return 被其他写入打断（EXEC 返回空结果）时返回 false
+     */
+    private boolean writeInTransaction(RedisConnection connection, List<LaptopInfo> laptops,
+                                       Map<Long, LaptopInfo> previous) {
+        connection.multi();
+        laptops.forEach(laptop -> writeLaptop(connection, laptop, previous.get(laptop.getId())));
+        List<Object> results = connection.exec();
+        return results != null && !results.isEmpty();
+    }
+
+    /**
+     * Redis事务提交之后更新关键词索引，vectorWrites 再按批次写入向量存储；
+     * 失败的批次回滚其Redis写入并逐条记录原因，不在 vectorWrites 中的笔记本只写Redis
+     */
+    private void writeVectorStore(List<LaptopInfo> laptops, List<LaptopInfo> vectorWrites,
+                                  Map<Long, LaptopInfo> previous, BulkSaveResult result) {
+        laptops.forEach(keywordIndex::index);
+
+        if (vectorWrites.size() < laptops.size()) {
+            Set<LaptopInfo> pending = Collections.newSetFromMap(new IdentityHashMap<>());
+            pending.addAll(vectorWrites);
+            result.addSaved(laptops.stream()
+                    .filter(laptop -> !pending.contains(laptop))
+                    .collect(Collectors.toList()));
+        }
+
+        int batchSize = insertBatchSize();
+        for (int from = 0; from < vectorWrites.size(); from += batchSize) {
+            List<LaptopInfo> batch = vectorWrites.subList(from, Math.min(from + batchSize, vectorWrites.size()));
+            try {
+                result.recordTimestamp(writeVectorBatch(batch, previous));
+                result.addSaved(batch);
+            } catch (Exception e) {
+                log.error("Error inserting {} vectors: {}", batch.size(), e.getMessage());
+                rollbackRedisWrites(batch, previous);
+                restoreVectors(batch, previous);
+                batch.forEach(laptop -> result.addFailure(laptop, "Vector insert failed: " + e.getMessage()));
+            }
+        }
+    }
+
+    /**
+     * 一轮 upsert 的规划：要写入Redis的笔记本、其中需要写向量存储的、无需写入的、WATCH 下读到的旧值及变化类型
+     */
+    private static final class UpsertPlan {
+        private final List<LaptopInfo> writes = new ArrayList<>();
+        private final List<LaptopInfo> vectorWrites = new ArrayList<>();
+        private final List<LaptopInfo> unchanged = new ArrayList<>();
+        private final Map<Long, LaptopInfo> previous = new HashMap<>();
+        private final Map<LaptopInfo, UpsertResult.Change> changes = new IdentityHashMap<>();
+        private final List<BulkSaveResult.Failure> failures = new ArrayList<>();
+    }
+
+    /**
+     * 已有 id 的行走 replaceVectors，避免在不支持主键覆盖的向量存储中留下重复行
+     */
+    private long writeVectorBatch(List<LaptopInfo> batch, Map<Long, LaptopInfo> previous) {
+        List<LaptopInfo> fresh = new ArrayList<>(batch.size());
+        List<LaptopInfo> existing = new ArrayList<>();
+        for (LaptopInfo laptop : batch) {
+            (previous.containsKey(laptop.getId()) ? existing : fresh).add(laptop);
+        }
+        long timestamp = 0;
+        if (!existing.isEmpty()) {
+            timestamp = replaceVectors(existing);
+        }
+        if (!fresh.isEmpty()) {
+            timestamp = Math.max(timestamp, insertVectors(fresh));
+        }
+        return timestamp;
+    }
+
+    private String validateForInsert(LaptopInfo laptop) {
+        if (laptop.getEmbedding() == null) {
+            return "missing text embedding";
+        }
+        if (laptop.getEmbedding().length != textDimension) {
+            return "embedding dimension " + laptop.getEmbedding().length
+                    + " does not match " + textDimension;
+        }
+        return null;
+    }
+
+    private void rollbackRedisWrites(List<LaptopInfo> laptops, Map<Long, LaptopInfo> previous) {
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.multi();
+            for (LaptopInfo laptop : laptops) {
+                LaptopInfo old = previous.get(laptop.getId());
+                if (old != null) {
+                    // 旧向量已知时连同其哈希一起写回
+                    writeLaptop(connection, old, laptop);
+                    if (old.getEmbedding() == null) {
+                        // 向量已被新值覆盖且无法恢复，去掉哈希使下次增量写入按文本变化重新生成向量
+                        connection.hashCommands().hDel(rawKey(VECTOR_KEY_PREFIX + laptop.getId()),
+                                rawKey(TEXT_HASH_FIELD));
+                    }
+                } else {
+                    connection.keyCommands().del(rawKey(REDIS_KEY_PREFIX + laptop.getId()),
+                            rawKey(VECTOR_KEY_PREFIX + laptop.getId()));
+                    connection.stringCommands().incr(rawKey(KEYWORD_SEQ_KEY));
+                    removeIndexEntries(connection, laptop.getId(), laptop);
+                }
+            }
+            connection.exec();
+            return null;
+        });
+        for (LaptopInfo laptop : laptops) {
+            LaptopInfo old = previous.get(laptop.getId());
+            if (old != null) {
+                keywordIndex.index(old);
+            } else {
+                keywordIndex.remove(laptop.getId());
+            }
+        }
+    }
+
+    /**
+     * 向量写入失败后尽力恢复向量存储：已有 id 按旧值和旧向量重写（replaceVectors 可能已删除旧行），
+     * 新 id 删除可能已部分写入的行；恢复失败时向量存储落后于Redis，直到下次写入或 rebuildIndexes
+     */
+    private void restoreVectors(List<LaptopInfo> laptops, Map<Long, LaptopInfo> previous) {
+        List<LaptopInfo> restored = new ArrayList<>();
+        for (LaptopInfo laptop : laptops) {
+            LaptopInfo old = previous.get(laptop.getId());
+            if (old == null) {
+                try {
+                    deleteVectors(laptop.getId());
+                } catch (Exception e) {
+                    log.error("Error removing partially written vector of laptop {}: {}", laptop.getId(), e.getMessage());
+                }
+            } else if (old.getEmbedding() != null) {
+                restored.add(old);
+            }
+        }
+        if (restored.isEmpty()) {
+            return;
+        }
+        try {
+            replaceVectors(restored);
+        } catch (Exception e) {
+            log.error("Error restoring {} previous vectors, vector store is behind Redis until the next rebuild: {}",
+                    restored.size(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void deleteAll() {
+        // 以 SCAN + UNLINK 分批删除Redis中的所有数据（包含索引键），避免 KEYS 阻塞；
+        // preservedKeys 中的计数器和元数据保留，id 不会复用，向量写入序号保持单调递增
+        Set<String> preserved = preservedKeys();
+        scanKeys(REDIS_KEY_PREFIX + "*", keys -> {
+            List<String> removable = keys.stream()
+                    .filter(key -> !preserved.contains(key))
+                    .collect(Collectors.toList());
+            if (!removable.isEmpty()) {
+                redisTemplate.unlink(removable);
+            }
+        });
+        keywordIndex.clear();
+        // 清空记为一次向量写入，之前记下的段文件水位都不会再与序号相等
+        stringRedisTemplate.opsForValue().increment(VECTOR_SEQ_KEY);
+        // 其他实例据此清空各自的关键词索引
+        stringRedisTemplate.opsForValue().increment(KEYWORD_SEQ_KEY);
+        deleteAllVectors();
+    }
+
+    /**
+     * deleteAll 不删除的键：id 计数器、向量和元数据写入序号、保证时间戳都只能前进；子类可追加（如迁移锁）
+     */
+    protected Set<String> preservedKeys() {
+        return new HashSet<>(Arrays.asList(ID_COUNTER_KEY, VECTOR_SEQ_KEY, KEYWORD_SEQ_KEY, GUARANTEE_TS_KEY));
+    }
+
+    @Override
+    public Optional<AnnCalibrationResult> calibrateSearchParams(int sampleSize, int k, double targetRecall) {
+        String param = tunableSearchParam();
+        if (param == null) {
+            return Optional.empty();
+        }
+        List<float[]> queries = sampleTextVectors(sampleSize);
+        if (queries.isEmpty()) {
+            return Optional.empty();
+        }
+
+        // 一遍流式扫描算出所有样本查询的精确 top-k
+        long start = System.currentTimeMillis();
+        GroundTruth groundTruth = new GroundTruth(queries, vectorMetric(), k);
+        long[] catalogSize = {0};
+        forEachTextVector((id, vector) -> {
+            groundTruth.accept(id, vector);
+            catalogSize[0]++;
+        });
+        List<List<VectorHit>> expected = groundTruth.results();
+        log.info("Computed exact top-{} for {} sample queries over {} vectors in {} ms",
+                k, queries.size(), catalogSize[0], System.currentTimeMillis() - start);
+
+        // 候选值从小到大，第一个达标的就是最便宜的
+        AnnCalibrationResult chosen = null;
+        for (int value : searchParamCandidates(k)) {
+            VectorSearchOptions options = calibrationOptions(value);
+            double recallSum = 0;
+            long sweepStart = System.nanoTime();
+            for (int i = 0; i < queries.size(); i++) {
+                recallSum += GroundTruth.recall(expected.get(i), searchVectors(queries.get(i), k, null, options));
+            }
+            double latency = (System.nanoTime() - sweepStart) / 1e6 / queries.size();
+            chosen = new AnnCalibrationResult(param, value, recallSum / queries.size(), latency,
+                    catalogSize[0], queries.size());
+            log.info("Calibration {}={}: recall@{}={}, mean latency {} ms",
+                    param, value, k, String.format("%.4f", chosen.getRecall()), String.format("%.2f", latency));
+            if (chosen.getRecall() >= targetRecall) {
+                break;
+            }
+        }
+        if (chosen == null) {
+            return Optional.empty();
+        }
+
+        applySearchParam(chosen.getValue());
+        Map<String, String> stored = new HashMap<>();
+        stored.put(param, String.valueOf(chosen.getValue()));
+        stored.put("recall", String.valueOf(chosen.getRecall()));
+        stored.put("catalogSize", String.valueOf(chosen.getCatalogSize()));
+        stored.put("calibratedAt", String.valueOf(System.currentTimeMillis()));
+        stringRedisTemplate.opsForHash().putAll(CALIBRATION_KEY, stored);
+        log.info("Calibrated {}={} (recall@{}={}, target {})", param, chosen.getValue(), k,
+                String.format("%.4f", chosen.getRecall()), targetRecall);
+        return Optional.of(chosen);
+    }
+
+    @Override
+    public void recordGuaranteeTimestamp(long timestamp) {
+        if (timestamp <= 0) {
+            return;
+        }
+        stringRedisTemplate.execute(SET_MAX_SCRIPT, Collections.singletonList(GUARANTEE_TS_KEY),
+                String.valueOf(timestamp));
+    }
+
+    /**
+     * @return 已发布的最近一次入库批次的保证时间戳，没有时返回 0
+     */
+    protected long guaranteeTimestamp() {
+        String value = stringRedisTemplate.opsForValue().get(GUARANTEE_TS_KEY);
+        return value != null ? Long.parseLong(value) : 0;
+    }
+
+    @Override
+    public long exportTextVectors(BiConsumer<Long, float[]> consumer) {
+        long[] count = {0};
+        forEachTextVector((id, vector) -> {
+            consumer.accept(id, vector);
+            count[0]++;
+        });
+        return count[0];
+    }
+
+    @Override
+    public long rebuildIndexes() {
+        // 不先删除索引：重建期间并发的爬虫和查询仍能看到完整的索引，已有条目原地覆盖，过期条目最后清理。
+        // 按 SCAN 分批在 WATCH 下读取当前值并写入索引，内存占用与目录大小无关
+        long[] total = {0};
+        long[] skipped = {0};
+        scanKeys(REDIS_KEY_PREFIX + "*", keys -> {
+            List<Long> ids = keys.stream()
+                    .filter(this::isLaptopKey)
+                    .map(key -> Long.parseLong(key.substring(REDIS_KEY_PREFIX.length())))
+                    .collect(Collectors.toList());
+            if (ids.isEmpty()) {
+                return;
+            }
+            int indexed = reindex(ids);
+            if (indexed < 0) {
+                skipped[0] += ids.size();
+            } else {
+                total[0] += indexed;
+            }
+        });
+        if (skipped[0] > 0) {
+            // 这些笔记本一直在被写入，写入路径本身会维护其索引
+            log.warn("Skipped {} laptops that kept changing during the index rebuild", skipped[0]);
+        }
+        long pruned = pruneIndexes();
+        log.info("Rebuilt secondary indexes for {} laptops, pruned {} stale entries", total[0], pruned);
+        return total[0];
+    }
+
+    /**
+     * WATCH 一批数据键后读出当前值，在一个 MULTI/EXEC 中补写其索引：价格条目按当前价格覆盖，
+     * 已删除或没有价格的从价格索引中移除。只有旧格式的值（JSON 或内嵌向量）才迁出向量并以当前编码重写，
+     * 写入的都是 EXEC 时仍然有效的值，不会用扫描时读到的旧值覆盖并发写入
+     * @return 仍存在的笔记本数，被并发写入打断 SAVE_MAX_ATTEMPTS 次仍未成功时返回 -1
+     */
+    private int reindex(List<Long> ids) {
+        byte[][] keys = ids.stream()
+                .map(id -> rawKey(REDIS_KEY_PREFIX + id))
+                .toArray(byte[][]::new);
+        List<LaptopInfo> current = redisTemplate.execute((RedisCallback<List<LaptopInfo>>) connection -> {
+            for (int attempt = 0; attempt < SAVE_MAX_ATTEMPTS; attempt++) {
+                connection.watch(keys);
+                List<byte[]> values = connection.stringCommands().mGet(keys);
+                List<LaptopInfo> laptops = new ArrayList<>(ids.size());
+                connection.multi();
+                for (int i = 0; i < ids.size(); i++) {
+                    byte[] bytes = values.get(i);
+                    LaptopInfo laptop = bytes != null ? valueSerializer().deserialize(bytes) : null;
+                    laptops.add(laptop);
+                    if (laptop == null || laptop.getPrice() == null) {
+                        connection.zSetCommands().zRem(rawKey(PRICE_INDEX_KEY), rawKey(ids.get(i).toString()));
+                    }
+                    if (laptop == null) {
+                        continue;
+                    }
+                    if (isLegacyValue(bytes, laptop)) {
+                        writeVectors(connection, laptop);
+                        connection.stringCommands().set(keys[i], valueSerializer().serialize(laptop));
+                    }
+                    addIndexEntries(connection, laptop);
+                }
+                List<Object> results = connection.exec();
+                if (results != null && !results.isEmpty()) {
+                    return laptops;
+                }
+            }
+            return null;
+        });
+        if (current == null) {
+            return -1;
+        }
+        int present = 0;
+        for (int i = 0; i < ids.size(); i++) {
+            if (current.get(i) != null) {
+                keywordIndex.index(current.get(i));
+                present++;
+            } else {
+                keywordIndex.remove(ids.get(i));
+            }
+        }
+        return present;
+    }
+
+    /**
+     * 旧格式的值：向量仍内嵌在元数据中，或按当前编码重写后字节不同（如 JSON 迁移为二进制）
+     */
+    private boolean isLegacyValue(byte[] bytes, LaptopInfo laptop) {
+        return laptop.getEmbedding() != null || laptop.getImageEmbedding() != null
+                || !Arrays.equals(bytes, valueSerializer().serialize(laptop));
+    }
+
+    /**
+     * 按Redis中的当前值逐批校验各索引，删除指向已删除笔记本或与当前字段不符的条目。
+     * 只根据删除时读到的当前值判断，重建期间并发写入的新条目不会被误删
+     */
+    private long pruneIndexes() {
+        int batchSize = redisConfig.getScanBatchSize();
+        long pruned = 0;
+
+        // productId -> id：字段值仍是读到的 id 时才删除，避免误删并发写入的新映射
+        List<Map.Entry<Object, Object>> mappings = new ArrayList<>(batchSize);
+        try (Cursor<Map.Entry<Object, Object>> cursor = stringRedisTemplate.opsForHash()
+                .scan(PRODUCT_ID_INDEX_KEY, ScanOptions.scanOptions().count(batchSize).build())) {
+            while (cursor.hasNext()) {
+                mappings.add(cursor.next());
+                if (mappings.size() >= batchSize || !cursor.hasNext()) {
+                    Map<String, LaptopInfo> current = findByIdStrings(mappings.stream()
+                            .map(entry -> entry.getValue().toString())
+                            .collect(Collectors.toList()));
+                    for (Map.Entry<Object, Object> entry : mappings) {
+                        LaptopInfo laptop = current.get(entry.getValue().toString());
+                        if (laptop == null || !entry.getKey().equals(laptop.getProductId())) {
+                            Long removed = stringRedisTemplate.execute(HDEL_IF_EQUAL_SCRIPT,
+                                    Collections.singletonList(PRODUCT_ID_INDEX_KEY),
+                                    entry.getKey().toString(), entry.getValue().toString());
+                            pruned += removed != null ? removed : 0;
+                        }
+                    }
+                    mappings = new ArrayList<>(batchSize);
+                }
+            }
+        }
+
+        // 价格：笔记本已不存在、没有价格或分数与当前价格不符的条目，在 WATCH 下按当前值重写或移除
+        pruned += pruneMembers(stringRedisTemplate.opsForZSet()
+                        .scan(PRICE_INDEX_KEY, ScanOptions.scanOptions().count(batchSize).build()),
+                tuple -> tuple.getValue(),
+                (tuple, laptop) -> laptop.getPrice() != null
+                        && Objects.equals(tuple.getScore(), laptop.getPrice().doubleValue()),
+                ids -> reindex(ids.stream().map(Long::parseLong).collect(Collectors.toList())) >= 0
+                        ? (long) ids.size() : 0L);
+
+        // 品牌：删除已不存在或品牌已变化的笔记本
+        List<String> brandKeys = new ArrayList<>();
+        scanKeys(BRAND_INDEX_PREFIX + "*", brandKeys::addAll);
+        for (String brandKey : brandKeys) {
+            String brand = brandKey.substring(BRAND_INDEX_PREFIX.length());
+            pruned += pruneMembers(stringRedisTemplate.opsForSet()
+                            .scan(brandKey, ScanOptions.scanOptions().count(batchSize).build()),
+                    member -> member, (member, laptop) -> brand.equals(BrandNormalizer.normalize(laptop.getBrand())),
+                    ids -> stringRedisTemplate.opsForSet().remove(brandKey, ids.toArray()));
+        }
+
+        // 关键词索引：删除Redis中已不存在的笔记本
+        List<Long> indexed = keywordIndex.ids();
+        for (int from = 0; from < indexed.size(); from += batchSize) {
+            List<Long> batch = indexed.subList(from, Math.min(from + batchSize, indexed.size()));
+            Map<String, LaptopInfo> current = findByIdStrings(batch.stream()
+                    .map(String::valueOf)
+                    .collect(Collectors.toList()));
+            for (Long id : batch) {
+                if (!current.containsKey(String.valueOf(id))) {
+                    keywordIndex.remove(id);
+                    pruned++;
+                }
+            }
+        }
+        return pruned;
+    }
+
+    /**
+     * 分批遍历集合成员，删除笔记本已不存在或不再满足 keep 的成员
+     */
+    private <T> long pruneMembers(Cursor<T> cursor, Function<T, String> member, BiPredicate<T, LaptopInfo> keep,
+                                  Function<List<String>, Long> remover) {
+        int batchSize = redisConfig.getScanBatchSize();
+        long pruned = 0;
+        try (Cursor<T> members = cursor) {
+            List<T> batch = new ArrayList<>(batchSize);
+            while (members.hasNext()) {
+                batch.add(members.next());
+                if (batch.size() >= batchSize || !members.hasNext()) {
+                    Map<String, LaptopInfo> current = findByIdStrings(batch.stream()
+                            .map(member)
+                            .collect(Collectors.toList()));
+                    List<String> stale = batch.stream()
+                            .filter(item -> {
+                                LaptopInfo laptop = current.get(member.apply(item));
+                                return laptop == null || !keep.test(item, laptop);
+                            })
+                            .map(member)
+                            .collect(Collectors.toList());
+                    if (!stale.isEmpty()) {
+                        Long removed = remover.apply(stale);
+                        pruned += removed != null ? removed : 0;
+                    }
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        }
+        return pruned;
+    }
+
+    /**
+     * 一次 MGET 按 id 取出当前值，不存在的 id 不出现在结果中
+     */
+    private Map<String, LaptopInfo> findByIdStrings(List<String> ids) {
+        Map<String, LaptopInfo> result = new HashMap<>();
+        findAllByIds(ids).forEach(laptop -> result.put(String.valueOf(laptop.getId()), laptop));
+        return result;
+    }
+
+    /**
+     * 用一个管道批量读取文本向量，缺失的 id 不出现在结果中
+     */
+    protected Map<Long, float[]> findTextVectors(List<Long> ids) {
+        byte[] field = rawKey(TEXT_VECTOR_FIELD);
+        List<Object> vectors = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Long id : ids) {
+                connection.hashCommands().hGet(rawKey(VECTOR_KEY_PREFIX + id), field);
+            }
+            return null;
+        }, RedisSerializer.byteArray());
+        Map<Long, float[]> result = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            Object bytes = vectors.get(i);
+            if (bytes instanceof byte[]) {
+                result.put(ids.get(i), VectorCodec.decode((byte[]) bytes));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 用一个管道批量读取文本向量对应的嵌入文本哈希，没有哈希的 id 不出现在结果中
+     */
+    private Map<Long, String> findTextHashes(List<Long> ids) {
+        byte[] field = rawKey(TEXT_HASH_FIELD);
+        List<Object> hashes = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Long id : ids) {
+                connection.hashCommands().hGet(rawKey(VECTOR_KEY_PREFIX + id), field);
+            }
+            return null;
+        }, RedisSerializer.byteArray());
+        Map<Long, String> result = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            Object bytes = hashes.get(i);
+            if (bytes instanceof byte[]) {
+                result.put(ids.get(i), new String((byte[]) bytes, StandardCharsets.UTF_8));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 蓄水池抽样：遍历一遍全部文本向量，等概率保留至多 sampleSize 条
+     */
+    protected List<float[]> sampleTextVectors(int sampleSize) {
+        List<float[]> sample = new ArrayList<>(sampleSize);
+        Random random = new Random();
+        long[] seen = {0};
+        forEachTextVector((id, vector) -> {
+            long n = ++seen[0];
+            if (sample.size() < sampleSize) {
+                sample.add(vector);
+            } else {
+                long slot = (long) (random.nextDouble() * n);
+                if (slot < sampleSize) {
+                    sample.set((int) slot, vector);
+                }
+            }
+        });
+        return sample;
+    }
+
+    /**
+     * 分批遍历 laptop:vec:* 中的文本向量，供进程内向量索引在启动时重建
+     */
+    protected void forEachTextVector(BiConsumer<Long, float[]> consumer) {
+        byte[] field = rawKey(TEXT_VECTOR_FIELD);
+        scanKeys(VECTOR_KEY_PREFIX + "*", keys -> {
+            List<Object> vectors = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (String key : keys) {
+                    connection.hashCommands().hGet(rawKey(key), field);
+                }
+                return null;
+            }, RedisSerializer.byteArray());
+            for (int i = 0; i < keys.size(); i++) {
+                Object bytes = vectors.get(i);
+                if (bytes instanceof byte[]) {
+                    Long id = Long.parseLong(keys.get(i).substring(VECTOR_KEY_PREFIX.length()));
+                    consumer.accept(id, VectorCodec.decode((byte[]) bytes));
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,489 @@
+package com.searchserver.repository.impl;
+
+import com.searchserver.config.MilvusConfig;
+import com.searchserver.config.RedisConfig;
+import com.searchserver.config.VectorIndexConfig;
+import com.searchserver.model.LaptopFilter;
+import com.searchserver.model.LaptopInfo;
+import com.searchserver.model.VectorSearchOptions;
+import com.searchserver.repository.index.KeywordIndex;
+import com.searchserver.vector.ExactKnnIndex;
+import com.searchserver.vector.HnswIndex;
+import com.searchserver.vector.MappedVectorIndex;
+import com.searchserver.vector.ProductQuantizer;
+import com.searchserver.vector.QuantizedVectorIndex;
+import com.searchserver.vector.ScalarQuantizer;
+import com.searchserver.vector.VectorHit;
+import com.searchserver.vector.VectorIndex;
+import com.searchserver.vector.VectorMetric;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.annotation.PreDestroy;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * 不依赖Milvus的存储库：元数据仍在Redis，向量检索走进程内索引（HNSW、精确扫描、内存映射段文件或量化索引）。
+ * 启动时从 laptop:vec:* 重建索引，维度和度量沿用 spring.milvus 配置以保证得分口径一致；
+ * 段文件头部记录的水位与Redis的向量写入序号一致时直接使用，否则按Redis重新同步。
+ * 非段文件引擎重建时先建一份新索引再整体替换，期间检索走旧索引；HNSW 墓碑过多时同样在后台重建。
+ */
+@Repository
+@Profile("embedded")
+public class EmbeddedLaptopInfoRepository extends AbstractRedisLaptopInfoRepository {
+
+    private volatile VectorIndex vectorIndex;
+    private final VectorMetric metric;
+    private final int dimension;
+    private final int trainingSize;
+    private final VectorIndexConfig vectorIndexConfig;
+    // Redis向量写入序号中已反映到本地索引的部分，关闭时与Redis一致才记为段文件水位
+    private final AtomicLong appliedSequence = new AtomicLong();
+    // 写入持读锁，开始/结束重建持写锁；重建期间写入同时进入 pendingIndex，并记下 id 让回填跳过
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private VectorIndex pendingIndex;
+    private final Set<Long> touchedDuringRebuild = ConcurrentHashMap.newKeySet();
+    // deleteAllVectors 时递增，重建期间发生过清空则放弃替换
+    private final AtomicLong clearGeneration = new AtomicLong();
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private final AtomicBoolean compactionQueued = new AtomicBoolean();
+    private final ExecutorService compactionExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "hnsw-compaction");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // 带过滤条件检索时候选集每轮扩大的倍数
+    private static final int FILTER_EXPANSION = 4;
+    // 墓碑少于该数时不重建，避免小索引频繁重建
+    private static final int MIN_DELETED_FOR_COMPACTION = 1024;
+    private static final org.slf4j.Logger log
+            = org.slf4j.LoggerFactory.getLogger(EmbeddedLaptopInfoRepository.class);
+
+    public EmbeddedLaptopInfoRepository(
+            RedisTemplate<String, LaptopInfo> redisTemplate,
+            StringRedisTemplate stringRedisTemplate,
+            MilvusConfig milvusConfig,
+            RedisConfig redisConfig,
+            VectorIndexConfig vectorIndexConfig,
+            KeywordIndex keywordIndex) throws IOException {
+        super(redisTemplate, stringRedisTemplate, redisConfig, keywordIndex, milvusConfig.getTextDimension());
+        this.metric = VectorMetric.valueOf(milvusConfig.getMetricType());
+        this.dimension = milvusConfig.getTextDimension();
+        this.trainingSize = vectorIndexConfig.getTrainingSize();
+        this.vectorIndexConfig = vectorIndexConfig;
+        if ("mapped".equalsIgnoreCase(vectorIndexConfig.getEngine())) {
+            this.vectorIndex = new MappedVectorIndex(
+                    Paths.get(vectorIndexConfig.getSegmentPath()),
+                    dimension,
+                    metric,
+                    vectorIndexConfig.getCompactRatio());
+        } else {
+            this.vectorIndex = newInMemoryIndex();
+        }
+    }
+
+    /**
+     * 按配置创建一份空的进程内索引，重建时也用它创建替换用的新索引
+     */
+    private VectorIndex newInMemoryIndex() {
+        if ("sq8".equalsIgnoreCase(vectorIndexConfig.getEngine())) {
+            // 量化码常驻堆内，重排所需的全精度向量从Redis取回
+            return new QuantizedVectorIndex(dimension, metric, new ScalarQuantizer(dimension, metric),
+                    vectorIndexConfig.getRerankFactor(), trainingSize, this::findTextVectors);
+        } else if ("pq".equalsIgnoreCase(vectorIndexConfig.getEngine())) {
+            return new QuantizedVectorIndex(dimension, metric,
+                    new ProductQuantizer(dimension, vectorIndexConfig.getPqSubspaces(), metric),
+                    vectorIndexConfig.getRerankFactor(), trainingSize, this::findTextVectors);
+        } else if ("exact".equalsIgnoreCase(vectorIndexConfig.getEngine())) {
+            return new ExactKnnIndex(dimension, metric);
+        }
+        return new HnswIndex(
+                dimension,
+                metric,
+                vectorIndexConfig.getM(),
+                vectorIndexConfig.getEfConstruction(),
+                vectorIndexConfig.getEfSearch());
+    }
+
+    @Override
+    protected void initVectorStore() {
+        // 先读序号再加载，加载期间的写入会让序号前进，下次启动时重新同步
+        long sequence = vectorSequence();
+        appliedSequence.set(sequence);
+        VectorIndex index = vectorIndex;
+        if (!(index instanceof MappedVectorIndex)) {
+            loadVectors(index, index::add);
+            return;
+        }
+        MappedVectorIndex mapped = (MappedVectorIndex) index;
+        if (mapped.watermark() == sequence) {
+            // 段文件热启动：映射即可检索，不再从Redis加载
+            log.info("Opened {} with {} vectors at sequence {}",
+                    mapped.getClass().getSimpleName(), mapped.size(), sequence);
+            return;
+        }
+        if (mapped.size() > 0) {
+            log.info("Vector segment watermark {} does not match Redis sequence {}, resyncing",
+                    mapped.watermark(), sequence);
+            resyncVectors(mapped);
+        } else {
+            loadVectors(mapped, mapped::add);
+        }
+        mapped.setWatermark(sequence);
+    }
+
+    /**
+     * 从Redis加载全部向量，经 adder 写入 target
+     */
+    private void loadVectors(VectorIndex target, BiConsumer<Long, float[]> adder) {
+        long start = System.currentTimeMillis();
+        if (target instanceof QuantizedVectorIndex) {
+            trainQuantizer((QuantizedVectorIndex) target);
+        }
+        forEachTextVector(adder);
+        log.info("Built {} vector index with {} vectors in {} ms",
+                target.getClass().getSimpleName(), target.size(), System.currentTimeMillis() - start);
+        if (target instanceof QuantizedVectorIndex) {
+            QuantizedVectorIndex quantized = (QuantizedVectorIndex) target;
+            long floatBytes = (long) quantized.size() * getTextDimension() * Float.BYTES;
+            log.info("Quantized index ({}) uses {} KB, float32 vectors would use {} KB",
+                    quantized.getQuantizer(), quantized.memoryBytes() / 1024, floatBytes / 1024);
+        }
+    }
+
+    /**
+     * 按Redis覆盖段文件中的每个向量，并删除Redis中已不存在的 id
+     */
+    private void resyncVectors(MappedVectorIndex mapped) {
+        long start = System.currentTimeMillis();
+        Set<Long> stale = mapped.ids();
+        forEachTextVector((id, vector) -> {
+            mapped.add(id, vector);
+            stale.remove(id);
+        });
+        stale.forEach(mapped::remove);
+        log.info("Resynced vector segment with {} vectors, removed {} stale in {} ms",
+                mapped.size(), stale.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 先遍历一遍Redis，用蓄水池抽样取出训练样本训练码本；目录为空时由索引在攒够样本后自动训练
+     */
+    private void trainQuantizer(QuantizedVectorIndex index) {
+        List<float[]> sample = sampleTextVectors(trainingSize);
+        if (!sample.isEmpty()) {
+            long start = System.currentTimeMillis();
+            index.train(sample);
+            log.info("Trained {} on {} vectors in {} ms",
+                    index.getQuantizer(), sample.size(), System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * 回填时同时按Redis中的向量重建进程内索引，修正段文件在本实例停机期间落后的数据
+     */
+    @Override
+    public long rebuildIndexes() {
+        long total = super.rebuildIndexes();
+        long sequence = vectorSequence();
+        VectorIndex index = vectorIndex;
+        if (index instanceof MappedVectorIndex) {
+            // 原地同步，重建期间检索仍可用
+            MappedVectorIndex mapped = (MappedVectorIndex) index;
+            resyncVectors(mapped);
+            mapped.setWatermark(sequence);
+        } else {
+            rebuildLock.lock();
+            try {
+                VectorIndex fresh = newInMemoryIndex();
+                rebuildAndSwap(fresh, () -> loadVectors(fresh, (id, vector) -> backfill(fresh, id, vector)));
+            } finally {
+                rebuildLock.unlock();
+            }
+        }
+        appliedSequence.set(sequence);
+        return total;
+    }
+
+    /**
+     * 在 fresh 上执行 fill 后替换当前索引；fill 期间的写入同时进入 fresh，检索始终走旧索引
+     */
+    private void rebuildAndSwap(VectorIndex fresh, Runnable fill) {
+        long generation;
+        swapLock.writeLock().lock();
+        try {
+            pendingIndex = fresh;
+            touchedDuringRebuild.clear();
+            generation = clearGeneration.get();
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        boolean filled = false;
+        try {
+            fill.run();
+            filled = true;
+        } finally {
+            swapLock.writeLock().lock();
+            try {
+                VectorIndex current = vectorIndex;
+                // 重建期间被清空过时回填可能带回已删除的向量，保留已清空的当前索引
+                if (filled && generation == clearGeneration.get()) {
+                    if (current instanceof HnswIndex && fresh instanceof HnswIndex) {
+                        ((HnswIndex) fresh).setEfSearch(((HnswIndex) current).getEfSearch());
+                    }
+                    vectorIndex = fresh;
+                }
+                pendingIndex = null;
+                touchedDuringRebuild.clear();
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * 回填一条向量；重建开始后被写入或删除过的 id 以写入为准
+     */
+    private void backfill(VectorIndex target, Long id, float[] vector) {
+        synchronized (touchedDuringRebuild) {
+            if (!touchedDuringRebuild.contains(id)) {
+                target.add(id, vector);
+            }
+        }
+    }
+
+    /**
+     * 对当前索引执行写入；重建进行中时同时写入新索引
+     */
+    private void write(Long id, Consumer<VectorIndex> operation) {
+        swapLock.readLock().lock();
+        try {
+            operation.accept(vectorIndex);
+            VectorIndex pending = pendingIndex;
+            if (pending != null) {
+                synchronized (touchedDuringRebuild) {
+                    touchedDuringRebuild.add(id);
+                    operation.accept(pending);
+                }
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * HNSW 的删除和覆盖只打墓碑，墓碑占比超过 compact-ratio 时在后台用存活节点重建一张新图
+     */
+    private void maybeCompact() {
+        VectorIndex index = vectorIndex;
+        if (index instanceof HnswIndex && needsCompaction((HnswIndex) index)
+                && compactionQueued.compareAndSet(false, true)) {
+            compactionExecutor.execute(this::compactHnsw);
+        }
+    }
+
+    private boolean needsCompaction(HnswIndex index) {
+        int deleted = index.deletedCount();
+        return deleted >= MIN_DELETED_FOR_COMPACTION
+                && deleted > index.size() * vectorIndexConfig.getHnswCompactRatio();
+    }
+
+    private void compactHnsw() {
+        rebuildLock.lock();
+        try {
+            VectorIndex index = vectorIndex;
+            // 排队期间可能已被 rebuildIndexes 替换
+            if (!(index instanceof HnswIndex) || !needsCompaction((HnswIndex) index)) {
+                return;
+            }
+            HnswIndex current = (HnswIndex) index;
+            long start = System.currentTimeMillis();
+            int deleted = current.deletedCount();
+            VectorIndex fresh = newInMemoryIndex();
+            rebuildAndSwap(fresh, () -> current.forEach((id, vector) -> backfill(fresh, id, vector)));
+            log.info("Compacted HNSW index: dropped {} deleted nodes, {} vectors in {} ms",
+                    deleted, fresh.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.warn("Error compacting HNSW index: {}", e.getMessage());
+        } finally {
+            compactionQueued.set(false);
+            rebuildLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        compactionExecutor.shutdownNow();
+        VectorIndex index = vectorIndex;
+        if (index instanceof MappedVectorIndex) {
+            recordWatermark((MappedVectorIndex) index);
+        }
+        if (index instanceof Closeable) {
+            ((Closeable) index).close();
+        }
+    }
+
+    /**
+     * 运行期间只有本实例写过向量时，本地索引与Redis一致，记下水位供下次热启动；
+     * 否则（其他实例写入、或本地写入失败）保留旧水位，下次启动时重新同步
+     */
+    private void recordWatermark(MappedVectorIndex mapped) {
+        try {
+            long sequence = vectorSequence();
+            if (sequence == appliedSequence.get()) {
+                mapped.setWatermark(sequence);
+            } else {
+                log.info("Vector segment applied {} of Redis sequence {}, will resync on next start",
+                        appliedSequence.get(), sequence);
+            }
+        } catch (Exception e) {
+            log.warn("Error reading vector sequence from Redis: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    protected long insertVectors(List<LaptopInfo> laptops) {
+        for (LaptopInfo laptop : laptops) {
+            write(laptop.getId(), index -> index.add(laptop.getId(), laptop.getEmbedding()));
+            appliedSequence.incrementAndGet();
+        }
+        maybeCompact();
+        return 0;
+    }
+
+    @Override
+    protected void deleteVectors(Long id) {
+        write(id, index -> index.remove(id));
+        appliedSequence.incrementAndGet();
+        maybeCompact();
+    }
+
+    @Override
+    protected void deleteAllVectors() {
+        swapLock.writeLock().lock();
+        try {
+            vectorIndex.clear();
+            clearGeneration.incrementAndGet();
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        // 对应 deleteAll 对写入序号的一次 INCR；之前已落后的仍然落后，下次启动时重新同步
+        appliedSequence.incrementAndGet();
+    }
+
+    /**
+     * 进程内索引不保存标量字段，有过滤条件时按 4 倍递增扩大候选，回表校验直到凑够 limit 条或遍历完索引。
+     * 写入同步进入索引，任何一致性级别都能读到最新数据
+     */
+    @Override
+    protected List<VectorHit> searchVectors(float[] embedding, int limit, LaptopFilter filter,
+                                            VectorSearchOptions options) {
+        if (filter == null) {
+            return searchIndex(embedding, limit, options);
+        }
+        int topK = limit * FILTER_EXPANSION;
+        while (true) {
+            List<VectorHit> hits = searchIndex(embedding, topK, options);
+            List<VectorHit> matched = filterHits(hits, filter, limit);
+            if (matched.size() >= limit || hits.size() < topK || topK >= vectorIndex.size()) {
+                return matched;
+            }
+            topK = (int) Math.min((long) topK * FILTER_EXPANSION, Integer.MAX_VALUE);
+        }
+    }
+
+    private List<VectorHit> searchIndex(float[] embedding, int k, VectorSearchOptions options) {
+        VectorIndex index = vectorIndex;
+        if (options.getEf() != null && index instanceof HnswIndex) {
+            return ((HnswIndex) index).search(embedding, k, options.getEf());
+        }
+        return index.search(embedding, k);
+    }
+
+    @Override
+    protected VectorMetric vectorMetric() {
+        return metric;
+    }
+
+    /**
+     * 只有 HNSW 引擎有可调的检索参数，精确扫描和量化引擎的召回率与参数无关
+     */
+    @Override
+    protected String tunableSearchParam() {
+        return vectorIndex instanceof HnswIndex ? "ef" : null;
+    }
+
+    @Override
+    protected List<Integer> searchParamCandidates(int k) {
+        if (!(vectorIndex instanceof HnswIndex)) {
+            return Collections.emptyList();
+        }
+        List<Integer> candidates = new ArrayList<>();
+        for (int ef = 16; ef <= 1024; ef *= 2) {
+            if (ef >= k) {
+                candidates.add(ef);
+            }
+        }
+        return candidates;
+    }
+
+    @Override
+    protected VectorSearchOptions calibrationOptions(int value) {
+        VectorSearchOptions options = VectorSearchOptions.defaults();
+        options.setEf(value);
+        return options;
+    }
+
+    @Override
+    protected void applySearchParam(int value) {
+        swapLock.readLock().lock();
+        try {
+            VectorIndex index = vectorIndex;
+            if (index instanceof HnswIndex) {
+                ((HnswIndex) index).setEfSearch(value);
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    private List<VectorHit> filterHits(List<VectorHit> hits, LaptopFilter filter, int limit) {
+        List<String> keys = hits.stream()
+                .map(hit -> REDIS_KEY_PREFIX + hit.getId())
+                .collect(Collectors.toList());
+        List<LaptopInfo> laptops = keys.isEmpty() ? null : redisTemplate.opsForValue().multiGet(keys);
+        List<VectorHit> matched = new ArrayList<>(limit);
+        for (int i = 0; laptops != null && i < hits.size() && matched.size() < limit; i++) {
+            LaptopInfo laptop = laptops.get(i);
+            if (laptop != null && filter.matches(laptop)) {
+                matched.add(hits.get(i));
+            }
+        }
+        return matched;
+    }
+
+    @Override
+    public boolean isConnected() {
+        // 索引在进程内，始终可用
+        return true;
+    }
+}
@@ -0,0 +1,227 @@
+package com.searchserver.repository.impl;
+
+import com.searchserver.config.MilvusClientPool;
+import com.searchserver.config.MilvusConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.milvus.client.MilvusClient;
+import io.milvus.grpc.CompactionState;
+import io.milvus.grpc.FlushResponse;
+import io.milvus.grpc.GetCompactionStateResponse;
+import io.milvus.grpc.GetPersistentSegmentInfoResponse;
+import io.milvus.grpc.GetQuerySegmentInfoResponse;
+import io.milvus.grpc.ManualCompactionResponse;
+import io.milvus.param.R;
+import io.milvus.param.collection.FlushParam;
+import io.milvus.param.control.GetCompactionStateParam;
+import io.milvus.param.control.GetPersistentSegmentInfoParam;
+import io.milvus.param.control.GetQuerySegmentInfoParam;
+import io.milvus.param.control.ManualCompactParam;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Milvus 的删除只写墓碑，被删的行在压缩前仍留在分段里拖慢检索。
+ * 按集合累计删除行数，达到阈值后在独立的后台线程上 flush 并手动压缩、轮询等待完成，不占用检索线程；
+ * 分段数（milvus.segments）、待压缩删除数（milvus.deletes.pending）和压缩耗时（milvus.compaction.duration）作为指标暴露
+ */
+@Component
+@Profile("!embedded")
+public class MilvusCompactionScheduler {
+
+    private final MilvusClient milvusClient;
+    private final MilvusConfig milvusConfig;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, CollectionState> collections = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "milvus-compaction");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final org.slf4j.Logger log
+            = org.slf4j.LoggerFactory.getLogger(MilvusCompactionScheduler.class);
+
+    public MilvusCompactionScheduler(MilvusClientPool milvusClientPool, MilvusConfig milvusConfig,
+                                     MeterRegistry meterRegistry) {
+        this.milvusClient = milvusClientPool.client();
+        this.milvusConfig = milvusConfig;
+        this.meterRegistry = meterRegistry;
+        state(milvusConfig.getCollectionName());
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 记录一次删除的行数，累计达到 delete-threshold 时在后台触发压缩
+     */
+    public void recordDeletes(String collection, long count) {
+        if (count <= 0) {
+            return;
+        }
+        CollectionState state = state(collection);
+        if (state.pendingDeletes.addAndGet(count) >= milvusConfig.getCompactionDeleteThreshold()) {
+            trigger(collection, state);
+        }
+    }
+
+    /**
+     * 整个集合被清空后不等累计量，立即压缩
+     */
+    public void compactNow(String collection) {
+        trigger(collection, state(collection));
+    }
+
+    /**
+     * 定期刷新分段数指标，并补查运行期间累计过阈值的集合
+     */
+    @Scheduled(fixedDelayString = "${spring.milvus.compaction.check-interval-ms:60000}")
+    public void check() {
+        collections.forEach((collection, state) -> {
+            if (state.pendingDeletes.get() >= milvusConfig.getCompactionDeleteThreshold()) {
+                trigger(collection, state);
+            } else {
+                executor.execute(() -> refreshSegments(collection, state));
+            }
+        });
+    }
+
+    private CollectionState state(String collection) {
+        return collections.computeIfAbsent(collection, name -> {
+            CollectionState state = new CollectionState();
+            Gauge.builder("milvus.segments", state.persistentSegments, AtomicLong::get)
+                    .description("Number of persisted segments in the collection")
+                    .tags("collection", name, "type", "persistent")
+                    .register(meterRegistry);
+            Gauge.builder("milvus.segments", state.querySegments, AtomicLong::get)
+                    .description("Number of segments loaded by query nodes")
+                    .tags("collection", name, "type", "query")
+                    .register(meterRegistry);
+            Gauge.builder("milvus.deletes.pending", state.pendingDeletes, AtomicLong::get)
+                    .description("Rows deleted since the last compaction")
+                    .tag("collection", name)
+                    .register(meterRegistry);
+            return state;
+        });
+    }
+
+    /**
+     * 同一集合同时只排一次压缩
+     */
+    private void trigger(String collection, CollectionState state) {
+        if (!milvusConfig.getCompactionEnabled() || !state.running.compareAndSet(false, true)) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                compact(collection, state);
+            } finally {
+                state.running.set(false);
+                refreshSegments(collection, state);
+            }
+        });
+    }
+
+    private void compact(String collection, CollectionState state) {
+        long deletes = state.pendingDeletes.get();
+        long start = System.nanoTime();
+        String outcome = "failed";
+        try {
+            // 先 flush 把删除记录落成 delta log，压缩才能清理这些行
+            R<FlushResponse> flush = milvusClient.flush(FlushParam.newBuilder()
+                    .addCollectionName(collection)
+                    .withSyncFlush(Boolean.TRUE)
+                    .withSyncFlushWaitingInterval(milvusConfig.getCompactionPollIntervalMs())
+                    .withSyncFlushWaitingTimeout(TimeUnit.MILLISECONDS.toSeconds(milvusConfig.getCompactionTimeoutMs()))
+                    .build());
+            checkStatus(flush, "flush");
+
+            R<ManualCompactionResponse> compaction = milvusClient.manualCompact(ManualCompactParam.newBuilder()
+                    .withCollectionName(collection)
+                    .build());
+            checkStatus(compaction, "manual compaction");
+            // 压缩开始后新到的删除留给下一轮
+            state.pendingDeletes.addAndGet(-deletes);
+
+            long compactionId = compaction.getData().getCompactionID();
+            outcome = awaitCompaction(compactionId) ? "completed" : "timeout";
+            log.info("Milvus compaction {} of collection {} after {} deletes: {} in {} ms", compactionId, collection,
+                    deletes, outcome, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (Exception e) {
+            log.error("Error compacting Milvus collection {}", collection, e);
+        } finally {
+            Timer.builder("milvus.compaction.duration")
+                    .description("Time from flush to completed manual compaction")
+                    .tags("collection", collection, "outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * @return 超时前压缩完成返回 true
+     */
+    private boolean awaitCompaction(long compactionId) {
+        long deadline = System.currentTimeMillis() + milvusConfig.getCompactionTimeoutMs();
+        GetCompactionStateParam param = GetCompactionStateParam.newBuilder()
+                .withCompactionID(compactionId)
+                .build();
+        while (System.currentTimeMillis() < deadline) {
+            R<GetCompactionStateResponse> response = milvusClient.getCompactionState(param);
+            checkStatus(response, "get compaction state");
+            if (response.getData().getState() == CompactionState.Completed) {
+                return true;
+            }
+            try {
+                Thread.sleep(milvusConfig.getCompactionPollIntervalMs());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private void refreshSegments(String collection, CollectionState state) {
+        try {
+            R<GetPersistentSegmentInfoResponse> persistent = milvusClient.getPersistentSegmentInfo(
+                    GetPersistentSegmentInfoParam.newBuilder().withCollectionName(collection).build());
+            if (persistent.getStatus() == R.Status.Success.getCode()) {
+                state.persistentSegments.set(persistent.getData().getInfosCount());
+            }
+            R<GetQuerySegmentInfoResponse> query = milvusClient.getQuerySegmentInfo(
+                    GetQuerySegmentInfoParam.newBuilder().withCollectionName(collection).build());
+            if (query.getStatus() == R.Status.Success.getCode()) {
+                state.querySegments.set(query.getData().getInfosCount());
+            }
+        } catch (Exception e) {
+            log.warn("Error reading segment info of Milvus collection {}: {}", collection, e.getMessage());
+        }
+    }
+
+    private static void checkStatus(R<?> response, String operation) {
+        if (response.getStatus() != R.Status.Success.getCode()) {
+            throw new IllegalStateException("Milvus " + operation + " failed: " + response.getMessage());
+        }
+    }
+
+    private static final class CollectionState {
+        private final AtomicLong pendingDeletes = new AtomicLong();
+        private final AtomicLong persistentSegments = new AtomicLong();
+        private final AtomicLong querySegments = new AtomicLong();
+        private final AtomicBoolean running = new AtomicBoolean();
+    }
+}
@@ -0,0 +1,57 @@
+package com.searchserver.repository.impl;
+
+import com.searchserver.config.MilvusConfig;
+
+/**
+ * 按索引类型拼装 Milvus 的建索引参数和检索参数，存储库与索引基准测试共用
+ */
+public final class MilvusIndexParams {
+
+    private MilvusIndexParams() {
+    }
+
+    /**
+     * 建索引参数：IVF 系列用 nlist（IVF_PQ 另带 m/nbits），HNSW 用 M/efConstruction，其余索引用默认参数
+     */
+    public static String indexParams(String indexType, MilvusConfig config) {
+        if ("IVF_PQ".equals(indexType)) {
+            return "{\"nlist\":" + config.getNlist() + ",\"m\":" + config.getPqM() + ",\"nbits\":8}";
+        }
+        if (indexType.startsWith("IVF")) {
+            return "{\"nlist\":" + config.getNlist() + "}";
+        }
+        if ("HNSW".equals(indexType)) {
+            return "{\"M\":" + config.getHnswM() + ",\"efConstruction\":" + config.getHnswEfConstruction() + "}";
+        }
+        return "{}";
+    }
+
+    /**
+     * 检索参数：IVF 系列用 nprobe（不超过 nlist），HNSW 用 ef，DISKANN 用 search_list；后两者不能小于 topK
+     */
+    public static String searchParams(String indexType, MilvusConfig config, int nprobe, int ef, int topK) {
+        if (indexType.startsWith("IVF")) {
+            return "{\"nprobe\":" + Math.min(nprobe, config.getNlist()) + "}";
+        }
+        if ("HNSW".equals(indexType)) {
+            return "{\"ef\":" + Math.max(ef, topK) + "}";
+        }
+        if ("DISKANN".equals(indexType)) {
+            return "{\"search_list\":" + Math.max(ef, topK) + "}";
+        }
+        return "{}";
+    }
+
+    /**
+     * 可调的检索参数名，FLAT 等没有可调参数的索引返回 null
+     */
+    public static String tunableParam(String indexType) {
+        if (indexType.startsWith("IVF")) {
+            return "nprobe";
+        }
+        if ("HNSW".equals(indexType)) {
+            return "ef";
+        }
+        return "DISKANN".equals(indexType) ? "search_list" : null;
+    }
+}
@@ -1,61 +1,277 @@
 package com.searchserver.repository.impl;
 
+import com.searchserver.batch.MicroBatcher;
+import com.searchserver.config.MilvusClientPool;
 import com.searchserver.config.MilvusConfig;
+import com.searchserver.config.RedisConfig;
+import com.searchserver.model.LaptopFilter;
 import com.searchserver.model.LaptopInfo;
-import com.searchserver.repository.LaptopInfoRepository;
+import com.searchserver.model.ReadConsistency;
+import com.searchserver.model.VectorSearchOptions;
+import com.searchserver.repository.index.BrandNormalizer;
+import com.searchserver.repository.index.KeywordIndex;
+import com.searchserver.repository.index.MemorySizeParser;
+import com.searchserver.vector.ExactKnnIndex;
+import com.searchserver.vector.FloatVectors;
+import com.searchserver.vector.VectorHit;
+import com.searchserver.vector.VectorMetric;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.milvus.client.MilvusClient;
 import io.milvus.common.clientenum.ConsistencyLevelEnum;
 import io.milvus.grpc.DataType;
+import io.milvus.grpc.DescribeCollectionResponse;
+import io.milvus.grpc.MutationResult;
+import io.milvus.grpc.QueryResults;
 import io.milvus.grpc.SearchResults;
+import io.milvus.grpc.ShowCollectionsResponse;
+import io.milvus.grpc.ShowPartitionsResponse;
 import io.milvus.param.*;
+import io.milvus.param.alias.AlterAliasParam;
+import io.milvus.param.alias.CreateAliasParam;
 import io.milvus.param.collection.*;
 import io.milvus.param.dml.InsertParam;
+import io.milvus.param.dml.QueryParam;
 import io.milvus.param.dml.SearchParam;
 import io.milvus.param.index.CreateIndexParam;
+import io.milvus.param.partition.CreatePartitionParam;
+import io.milvus.param.partition.HasPartitionParam;
+import io.milvus.param.partition.LoadPartitionsParam;
+import io.milvus.param.partition.ShowPartitionsParam;
+import io.milvus.response.DescCollResponseWrapper;
+import io.milvus.response.QueryResultsWrapper;
 import io.milvus.response.SearchResultsWrapper;
+import org.springframework.context.annotation.Profile;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Repository;
 import io.milvus.param.dml.DeleteParam;
-import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+/**
+ * Milvus 存储向量及可过滤的标量字段（价格、品牌、成色、内存），过滤条件转成布尔表达式在检索时生效。
+ * spring.milvus.collection-name 是指向版本化集合的别名，结构迁移在新集合中完成后切换别名
+ */
 @Repository
-public class MilvusLaptopInfoRepository implements LaptopInfoRepository {
+@Profile("!embedded")
+public class MilvusLaptopInfoRepository extends AbstractRedisLaptopInfoRepository {
 
     private final MilvusClient milvusClient;
-    private final RedisTemplate<String, LaptopInfo> redisTemplate;
+    private final MilvusClientPool milvusClientPool;
     private final MilvusConfig milvusConfig;
-    private static final String REDIS_KEY_PREFIX = "laptop:";
-    private static final String ID_COUNTER_KEY = "laptop:id:counter";
+    private final MilvusCompactionScheduler compactionScheduler;
+    private static final org.slf4j.Logger log
+            = org.slf4j.LoggerFactory.getLogger(MilvusLaptopInfoRepository.class);
+    // Milvus 标量字段不支持空值，缺失的价格写为 -1，价格条件总是带上 price >= 0
+    private static final double MISSING_PRICE = -1;
+    private static final int VARCHAR_MAX_LENGTH = 256;
+    // 按字符截断，保证中文（UTF-8 三字节）也不超过 VARCHAR_MAX_LENGTH 字节
+    private static final int VARCHAR_MAX_CHARS = 64;
+    // 每个归一化品牌一个分区，无品牌或超出分区上限的品牌写入兜底分区
+    private static final String BRAND_PARTITION_PREFIX = "brand_";
+    private static final String CATCH_ALL_PARTITION = "catch_all";
+    // 分区名只允许字母、数字和下划线，非 ASCII 字符编码为 _xxxx 后最长 6 + 48 * 5 字符
+    private static final int PARTITION_BRAND_MAX_CHARS = 48;
+    // 版本化集合名为 {collection-name}_v{时间戳}，collection-name 作为别名指向当前版本
+    private static final String VERSION_SEPARATOR = "_v";
+    // 结构迁移的互斥锁，防止多个开启迁移的实例同时回填
+    private static final String MIGRATION_LOCK_KEY = "laptop:milvus:migration:lock";
+    private static final Duration MIGRATION_LOCK_TTL = Duration.ofHours(1);
+    // 回填期间仍有向量写入时最多核对的轮数
+    private static final int MIGRATION_MAX_PASSES = 3;
+    // deleteAllVectors 每次查询的 id 区间跨度，不超过 Milvus 默认的单次查询结果上限 16384
+    private static final long ID_QUERY_RANGE = 16384;
+    private static final RedisScript<Long> DEL_IF_EQUAL_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end return 0",
+            Long.class);
+    // 数据读写使用的集合名，平时即配置的别名，迁移回填期间指向新集合
+    private volatile String collection;
+    // 已存在的品牌分区，启动时从Milvus加载；其他实例新建的分区在未命中时补查
+    private final Set<String> brandPartitions = ConcurrentHashMap.newKeySet();
+    // 检索未命中时重新加载分区列表的最小间隔，避免没有分区的品牌每次检索都多一次 RPC
+    private static final long PARTITION_REFRESH_INTERVAL_MS = 5000;
+    private volatile long partitionsLoadedAt;
+    // 当前检索参数默认值，启动时取配置，标定后被覆盖
+    private volatile int nprobe;
+    private volatile int ef;
+    // 参数相同的并发检索合并成一次多向量 search，减少 gRPC 往返
+    private final MicroBatcher<SearchShape, float[], List<VectorHit>> searchBatcher;
 
     public MilvusLaptopInfoRepository(
-            MilvusClient milvusClient,
+            MilvusClientPool milvusClientPool,
             RedisTemplate<String, LaptopInfo> redisTemplate,
-            MilvusConfig milvusConfig) {
-        this.milvusClient = milvusClient;
-        this.redisTemplate = redisTemplate;
+            StringRedisTemplate stringRedisTemplate,
+            MilvusConfig milvusConfig,
+            RedisConfig redisConfig,
+            KeywordIndex keywordIndex,
+            MilvusCompactionScheduler compactionScheduler,
+            MeterRegistry meterRegistry) {
+        super(redisTemplate, stringRedisTemplate, redisConfig, keywordIndex, milvusConfig.getTextDimension());
+        this.milvusClient = milvusClientPool.client();
+        this.milvusClientPool = milvusClientPool;
         this.milvusConfig = milvusConfig;
+        this.collection = milvusConfig.getCollectionName();
+        this.compactionScheduler = compactionScheduler;
+        this.nprobe = milvusConfig.getNprobe();
+        this.ef = milvusConfig.getEf();
+        this.searchBatcher = new MicroBatcher<>(milvusConfig.getSearchBatchSize(),
+                milvusConfig.getSearchBatchWaitMicros(), this::searchBatch, meterRegistry, "milvus.search");
     }
 
-    @PostConstruct
-    public void init() {
-        createCollectionIfNotExists();
-        createIndexIfNotExists();
+    @PreDestroy
+    public void close() {
+        searchBatcher.close();
     }
 
-    private void createCollectionIfNotExists() {
-        // 检查集合是否存在
-        HasCollectionParam hasCollectionParam = HasCollectionParam.newBuilder()
-                .withCollectionName(milvusConfig.getCollectionName())
-                .build();
-        R<Boolean> hasCollection = milvusClient.hasCollection(hasCollectionParam);
+    @Override
+    protected void initVectorStore() {
+        String alias = milvusConfig.getCollectionName();
+        if (!hasCollection(alias)) {
+            // 新部署：建版本化的集合并以别名对外，以后的结构迁移只需切换别名
+            String target = versionedName(alias);
+            createCollection(target);
+            checkStatus(milvusClient.createAlias(CreateAliasParam.newBuilder()
+                    .withCollectionName(target)
+                    .withAlias(alias)
+                    .build()), "create alias");
+            log.info("Created collection {} with alias {}", target, alias);
+        } else if (!hasScalarFields(alias) || !hasPartition(alias, CATCH_ALL_PARTITION)) {
+            if (!Boolean.TRUE.equals(milvusConfig.getMigrateSchema())) {
+                throw new IllegalStateException("Milvus collection " + alias + " predates scalar fields or brand "
+                        + "partitions, start one instance with spring.milvus.migrate-schema=true to migrate it");
+            }
+            migrateCollection(alias);
+        }
+        loadBrandPartitions();
+        log.info("Collection {} has {} brand partitions", alias, brandPartitions.size());
+        createIndexIfNotExists(alias);
+    }
+
+    /**
+     * Milvus 不支持给已有集合加字段，旧数据也都在默认分区：在新集合中按新结构重建并从Redis回填，
+     * 完成后把别名切到新集合，切换前检索和写入一直走旧集合。回填期间有新的向量写入或删除（写入序号变化）时
+     * 按主键覆盖再核对一轮，并删除Redis中已不存在的 id；
+     * 中途失败时别名不变，下次迁移先清理残留的新集合
+     */
+    private void migrateCollection(String alias) {
+        String token = UUID.randomUUID().toString();
+        if (!Boolean.TRUE.equals(stringRedisTemplate.opsForValue()
+                .setIfAbsent(MIGRATION_LOCK_KEY, token, MIGRATION_LOCK_TTL))) {
+            throw new IllegalStateException("Milvus collection " + alias + " is being migrated by another instance");
+        }
+        try {
+            String current = resolveCollection(alias);
+            dropStaleVersions(alias, current);
+            String target = versionedName(alias);
+            log.warn("Collection {} predates scalar fields or brand partitions, migrating it into {}", current, target);
+            long start = System.currentTimeMillis();
+            createCollection(target);
+            createIndexIfNotExists(target);
+
+            // 本实例尚未对外服务，回填期间数据读写都指向新集合
+            collection = target;
+            loadBrandPartitions();
+            long sequence = vectorSequence();
+            Set<Long> written = new HashSet<>();
+            long total = reloadVectorsFromRedis(false, written);
+            for (int pass = 1; vectorSequence() != sequence; pass++) {
+                if (pass > MIGRATION_MAX_PASSES) {
+                    throw new IllegalStateException("Vectors kept changing while migrating " + alias
+                            + ", gave up after " + MIGRATION_MAX_PASSES + " passes");
+                }
+                sequence = vectorSequence();
+                log.info("Vectors changed during backfill of {}, reconciling (pass {})", target, pass);
+                // 上一轮写入而本轮Redis中已没有的 id 是回填期间被删除的，切换前从新集合中删除
+                Set<Long> current = new HashSet<>();
+                reloadVectorsFromRedis(true, current);
+                written.removeAll(current);
+                deleteVectorIds(new ArrayList<>(written));
+                written = current;
+            }
+
+            switchAlias(alias, current, target);
+            log.info("Migrated collection {} into {} with {} vectors in {} ms",
+                    current, target, total, System.currentTimeMillis() - start);
+        } finally {
+            collection = alias;
+            stringRedisTemplate.execute(DEL_IF_EQUAL_SCRIPT, Collections.singletonList(MIGRATION_LOCK_KEY), token);
+        }
+    }
 
-        if (hasCollection.getData()) {
-            return;
+    /**
+     * 别名已存在时原子切换后删除旧集合；旧部署直接以该名称建了集合，别名不能与集合重名，
+     * 只能先删除旧集合再建别名，期间检索短暂不可用
+     */
+    private void switchAlias(String alias, String current, String target) {
+        if (current.equals(alias)) {
+            dropCollection(current);
+            checkStatus(milvusClient.createAlias(CreateAliasParam.newBuilder()
+                    .withCollectionName(target)
+                    .withAlias(alias)
+                    .build()), "create alias");
+        } else {
+            checkStatus(milvusClient.alterAlias(AlterAliasParam.newBuilder()
+                    .withCollectionName(target)
+                    .withAlias(alias)
+                    .build()), "alter alias");
+            dropCollection(current);
         }
+    }
+
+    /**
+     * 删除之前中断的迁移留下的版本化集合
+     */
+    private void dropStaleVersions(String alias, String current) {
+        R<ShowCollectionsResponse> response = milvusClient.showCollections(ShowCollectionsParam.newBuilder().build());
+        checkStatus(response, "show collections");
+        for (String name : response.getData().getCollectionNamesList()) {
+            if (name.startsWith(alias + VERSION_SEPARATOR) && !name.equals(current)) {
+                log.info("Dropping collection {} left by an interrupted migration", name);
+                dropCollection(name);
+            }
+        }
+    }
+
+    private static String versionedName(String alias) {
+        return alias + VERSION_SEPARATOR + System.currentTimeMillis();
+    }
+
+    private boolean hasCollection(String name) {
+        R<Boolean> response = milvusClient.hasCollection(HasCollectionParam.newBuilder()
+                .withCollectionName(name)
+                .build());
+        checkStatus(response, "has collection");
+        return Boolean.TRUE.equals(response.getData());
+    }
 
+    /**
+     * 别名实际指向的集合名，name 本身就是集合时原样返回
+     */
+    private String resolveCollection(String name) {
+        R<DescribeCollectionResponse> response = milvusClient.describeCollection(
+                DescribeCollectionParam.newBuilder()
+                        .withCollectionName(name)
+                        .build());
+        checkStatus(response, "describe collection");
+        return response.getData().getCollectionName();
+    }
+
+    private void dropCollection(String name) {
+        checkStatus(milvusClient.dropCollection(DropCollectionParam.newBuilder()
+                .withCollectionName(name)
+                .build()), "drop collection");
+    }
+
+    private void createCollection(String name) {
         // 创建字段
         FieldType idField = FieldType.newBuilder()
                 .withName("id")
@@ -70,183 +286,627 @@ public class MilvusLaptopInfoRepository implements LaptopInfoRepository {
                 .withDimension(milvusConfig.getTextDimension())
                 .build();
 
+        // 可过滤的标量字段
+        FieldType priceField = FieldType.newBuilder()
+                .withName("price")
+                .withDataType(DataType.Double)
+                .build();
+
+        FieldType brandField = FieldType.newBuilder()
+                .withName("brand")
+                .withDataType(DataType.VarChar)
+                .withMaxLength(VARCHAR_MAX_LENGTH)
+                .build();
+
+        FieldType conditionField = FieldType.newBuilder()
+                .withName("condition_grade")
+                .withDataType(DataType.VarChar)
+                .withMaxLength(VARCHAR_MAX_LENGTH)
+                .build();
+
+        FieldType memoryField = FieldType.newBuilder()
+                .withName("memory_gb")
+                .withDataType(DataType.Int32)
+                .build();
+
         CreateCollectionParam createCollectionParam = CreateCollectionParam.newBuilder()
-                .withCollectionName(milvusConfig.getCollectionName())
+                .withCollectionName(name)
                 .withDescription("Laptop information collection")
                 .addFieldType(idField)
                 .addFieldType(embeddingField)
+                .addFieldType(priceField)
+                .addFieldType(brandField)
+                .addFieldType(conditionField)
+                .addFieldType(memoryField)
                 .build();
 
-        milvusClient.createCollection(createCollectionParam);
+        checkStatus(milvusClient.createCollection(createCollectionParam), "create collection");
+        checkStatus(milvusClient.createPartition(CreatePartitionParam.newBuilder()
+                .withCollectionName(name)
+                .withPartitionName(CATCH_ALL_PARTITION)
+                .build()), "create partition");
+    }
+
+    private boolean hasPartition(String collectionName, String partitionName) {
+        R<Boolean> response = milvusClient.hasPartition(HasPartitionParam.newBuilder()
+                .withCollectionName(collectionName)
+                .withPartitionName(partitionName)
+                .build());
+        return response.getStatus() == R.Status.Success.getCode() && Boolean.TRUE.equals(response.getData());
+    }
+
+    private void loadBrandPartitions() {
+        R<ShowPartitionsResponse> response = milvusClient.showPartitions(ShowPartitionsParam.newBuilder()
+                .withCollectionName(collection)
+                .build());
+        if (response.getStatus() != R.Status.Success.getCode()) {
+            throw new IllegalStateException("Milvus show partitions failed: " + response.getMessage());
+        }
+        Set<String> loaded = response.getData().getPartitionNamesList().stream()
+                .filter(name -> name.startsWith(BRAND_PARTITION_PREFIX))
+                .collect(Collectors.toSet());
+        // 先加后删，刷新期间检索不会看到空集合
+        brandPartitions.addAll(loaded);
+        brandPartitions.retainAll(loaded);
+        partitionsLoadedAt = System.currentTimeMillis();
+        log.debug("Collection {} has {} brand partitions", collection, brandPartitions.size());
     }
 
-    private void createIndexIfNotExists() {
+    /**
+     * 检索时重新加载分区列表，失败时沿用缓存
+     */
+    private void refreshBrandPartitions() {
+        try {
+            loadBrandPartitions();
+        } catch (Exception e) {
+            partitionsLoadedAt = System.currentTimeMillis();
+            log.warn("Error reloading partitions of collection {}: {}", collection, e.getMessage());
+        }
+    }
+
+    /**
+     * 归一化品牌对应的分区名：a-z0-9 原样保留，其余字符编码为 _ 加四位十六进制，保证不同品牌不会撞名
+     * @return 分区名，品牌为空时返回 null
+     */
+    static String brandPartition(String brand) {
+        String normalized = BrandNormalizer.normalize(brand);
+        if (normalized == null) {
+            return null;
+        }
+        String truncated = normalized.length() > PARTITION_BRAND_MAX_CHARS
+                ? normalized.substring(0, PARTITION_BRAND_MAX_CHARS) : normalized;
+        StringBuilder name = new StringBuilder(BRAND_PARTITION_PREFIX);
+        for (char c : truncated.toCharArray()) {
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                name.append(c);
+            } else {
+                name.append(String.format("_%04x", (int) c));
+            }
+        }
+        return name.toString();
+    }
+
+    /**
+     * 写入时的目标分区，品牌分区不存在时按需创建；达到上限后新品牌落入兜底分区。
+     * 分区可能已由其他实例创建，创建前先查询，创建失败时再确认一次
+     */
+    private String partitionForInsert(LaptopInfo laptop) {
+        String partition = brandPartition(laptop.getBrand());
+        if (partition == null) {
+            return CATCH_ALL_PARTITION;
+        }
+        if (brandPartitions.contains(partition)) {
+            return partition;
+        }
+        synchronized (brandPartitions) {
+            if (brandPartitions.contains(partition)) {
+                return partition;
+            }
+            if (hasPartition(collection, partition)) {
+                brandPartitions.add(partition);
+                return partition;
+            }
+            if (brandPartitions.size() >= milvusConfig.getMaxBrandPartitions()) {
+                return CATCH_ALL_PARTITION;
+            }
+            R<RpcStatus> created = milvusClient.createPartition(CreatePartitionParam.newBuilder()
+                    .withCollectionName(collection)
+                    .withPartitionName(partition)
+                    .build());
+            // 其他实例抢先创建时返回“已存在”，同样视为成功
+            if (created.getStatus() != R.Status.Success.getCode() && !hasPartition(collection, partition)) {
+                log.warn("Failed to create partition {}: {}", partition, created.getMessage());
+                return CATCH_ALL_PARTITION;
+            }
+            // 集合已加载时，新分区需要单独加载才能被检索
+            R<RpcStatus> loaded = milvusClient.loadPartitions(LoadPartitionsParam.newBuilder()
+                    .withCollectionName(collection)
+                    .withPartitionNames(Collections.singletonList(partition))
+                    .build());
+            if (loaded.getStatus() != R.Status.Success.getCode()) {
+                log.warn("Failed to load partition {}: {}", partition, loaded.getMessage());
+            }
+            brandPartitions.add(partition);
+            return partition;
+        }
+    }
+
+    /**
+     * 检索时裁剪的分区：品牌有独立分区时查该分区和兜底分区（分区建立前写入兜底分区的旧数据），否则只查兜底分区
+     */
+    private List<String> partitionsForSearch(LaptopFilter filter) {
+        if (filter == null || !filter.hasBrand()) {
+            return Collections.emptyList();
+        }
+        String partition = brandPartition(filter.getBrand());
+        if (!brandPartitions.contains(partition)
+                && System.currentTimeMillis() - partitionsLoadedAt >= PARTITION_REFRESH_INTERVAL_MS) {
+            refreshBrandPartitions();
+        }
+        return brandPartitions.contains(partition)
+                ? Arrays.asList(partition, CATCH_ALL_PARTITION)
+                : Collections.singletonList(CATCH_ALL_PARTITION);
+    }
+
+    private boolean hasScalarFields(String name) {
+        R<DescribeCollectionResponse> response = milvusClient.describeCollection(
+                DescribeCollectionParam.newBuilder()
+                        .withCollectionName(name)
+                        .build());
+        if (response.getStatus() != R.Status.Success.getCode()) {
+            throw new IllegalStateException("Milvus describe collection failed: " + response.getMessage());
+        }
+        return new DescCollResponseWrapper(response.getData()).getFields().stream()
+                .anyMatch(field -> "price".equals(field.getName()));
+    }
+
+    /**
+     * 流式遍历Redis中的全部笔记本，按 insert-batch-size 分批连同向量写入Milvus
+     * @param replace 为 true 时按主键覆盖已写入的行
+     * @param written 收集写入的 id
+     * @return 写入的向量数
+     */
+    private long reloadVectorsFromRedis(boolean replace, Set<Long> written) {
+        long start = System.currentTimeMillis();
+        long total = 0;
+        List<LaptopInfo> batch = new ArrayList<>();
+        try (Stream<LaptopInfo> laptops = streamAll()) {
+            Iterator<LaptopInfo> iterator = laptops.iterator();
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() >= insertBatchSize() || !iterator.hasNext()) {
+                    total += insertWithStoredVectors(batch, replace, written);
+                    batch = new ArrayList<>();
+                }
+            }
+        }
+        log.info("Reloaded {} vectors into Milvus in {} ms", total, System.currentTimeMillis() - start);
+        return total;
+    }
+
+    private int insertWithStoredVectors(List<LaptopInfo> batch, boolean replace, Set<Long> written) {
+        Map<Long, float[]> vectors = findTextVectors(batch.stream()
+                .map(LaptopInfo::getId)
+                .collect(Collectors.toList()));
+        List<LaptopInfo> withVectors = new ArrayList<>(batch.size());
+        for (LaptopInfo laptop : batch) {
+            float[] vector = vectors.get(laptop.getId());
+            if (vector != null) {
+                laptop.setEmbedding(vector);
+            }
+            // 旧格式数据的向量仍内嵌在元数据中
+            if (laptop.getEmbedding() != null) {
+                withVectors.add(laptop);
+            }
+        }
+        if (!withVectors.isEmpty()) {
+            if (replace) {
+                replaceVectors(withVectors);
+            } else {
+                insertVectors(withVectors);
+            }
+            withVectors.forEach(laptop -> written.add(laptop.getId()));
+        }
+        return withVectors.size();
+    }
+
+    private void createIndexIfNotExists(String name) {
         // 创建索引
         IndexType indexType = IndexType.valueOf(milvusConfig.getIndexType());
         MetricType metricType = MetricType.valueOf(milvusConfig.getMetricType());
         
         CreateIndexParam createIndexParam = CreateIndexParam.newBuilder()
-                .withCollectionName(milvusConfig.getCollectionName())
+                .withCollectionName(name)
                 .withFieldName("embedding")
                 .withIndexType(indexType)
                 .withMetricType(metricType)
-                .withExtraParam("{\"nlist\":1024}")
+                .withExtraParam(MilvusIndexParams.indexParams(milvusConfig.getIndexType(), milvusConfig))
                 .build();
 
         milvusClient.createIndex(createIndexParam);
 
         // 加载集合到内存
         LoadCollectionParam loadCollectionParam = LoadCollectionParam.newBuilder()
-                .withCollectionName(milvusConfig.getCollectionName())
+                .withCollectionName(name)
                 .build();
         milvusClient.loadCollection(loadCollectionParam);
     }
 
+    /**
+     * 按目标分区分组，每个分区以列式 InsertParam 写入；各分区异步并发写入，分摊到连接池的不同通道
+     */
     @Override
-    public LaptopInfo save(LaptopInfo laptopInfo) {
-        if (laptopInfo.getId() == null) {
-            Long id = redisTemplate.opsForValue().increment(ID_COUNTER_KEY);
-            laptopInfo.setId(id);
+    protected long insertVectors(List<LaptopInfo> laptops) {
+        Map<String, List<LaptopInfo>> byPartition = new LinkedHashMap<>();
+        for (LaptopInfo laptop : laptops) {
+            byPartition.computeIfAbsent(partitionForInsert(laptop), k -> new ArrayList<>()).add(laptop);
+        }
+        List<CompletableFuture<Long>> inserts = new ArrayList<>(byPartition.size());
+        for (Map.Entry<String, List<LaptopInfo>> entry : byPartition.entrySet()) {
+            inserts.add(insertPartition(entry.getKey(), entry.getValue()));
         }
+        long timestamp = 0;
+        for (CompletableFuture<Long> insert : inserts) {
+            timestamp = Math.max(timestamp, join(insert));
+        }
+        return timestamp;
+    }
 
-        // 保存到Redis
-        redisTemplate.opsForValue().set(REDIS_KEY_PREFIX + laptopInfo.getId(), laptopInfo);
+    /**
+     * @return 本次写入的 TSO 时间戳，以此作为保证时间戳的 SESSION 读一定能看到这批数据
+     */
+    private CompletableFuture<Long> insertPartition(String partition, List<LaptopInfo> laptops) {
+        List<Long> ids = new ArrayList<>(laptops.size());
+        List<List<Float>> vectors = new ArrayList<>(laptops.size());
+        List<Double> prices = new ArrayList<>(laptops.size());
+        List<String> brands = new ArrayList<>(laptops.size());
+        List<String> conditions = new ArrayList<>(laptops.size());
+        List<Integer> memories = new ArrayList<>(laptops.size());
+        for (LaptopInfo laptop : laptops) {
+            ids.add(laptop.getId());
+            vectors.add(FloatVectors.asList(laptop.getEmbedding()));
+            prices.add(laptop.getPrice() != null ? laptop.getPrice().doubleValue() : MISSING_PRICE);
+            brands.add(varchar(BrandNormalizer.normalize(laptop.getBrand())));
+            conditions.add(varchar(laptop.getConditionGrade()));
+            Integer memoryGb = MemorySizeParser.parseGb(laptop.getMemoryInfo());
+            memories.add(memoryGb != null ? memoryGb : 0);
+        }
 
-        // 保存向量到Milvus
         List<InsertParam.Field> fields = new ArrayList<>();
-        fields.add(new InsertParam.Field("id", Collections.singletonList(laptopInfo.getId())));
-        fields.add(new InsertParam.Field("embedding", Collections.singletonList(laptopInfo.getEmbedding())));
+        fields.add(new InsertParam.Field("id", ids));
+        fields.add(new InsertParam.Field("embedding", vectors));
+        fields.add(new InsertParam.Field("price", prices));
+        fields.add(new InsertParam.Field("brand", brands));
+        fields.add(new InsertParam.Field("condition_grade", conditions));
+        fields.add(new InsertParam.Field("memory_gb", memories));
 
         InsertParam insertParam = InsertParam.newBuilder()
-                .withCollectionName(milvusConfig.getCollectionName())
+                .withCollectionName(collection)
+                .withPartitionName(partition)
                 .withFields(fields)
                 .build();
+        return milvusClientPool.insertAsync(insertParam).thenApply(response -> {
+            if (response.getStatus() != R.Status.Success.getCode()) {
+                throw new IllegalStateException("Milvus insert failed: " + response.getMessage());
+            }
+            return response.getData().getTimestamp();
+        });
+    }
 
-        milvusClient.insert(insertParam);
+    private static String varchar(String value) {
+        if (value == null) {
+            return "";
+        }
+        String trimmed = value.trim();
+        return trimmed.length() > VARCHAR_MAX_CHARS ? trimmed.substring(0, VARCHAR_MAX_CHARS) : trimmed;
+    }
 
-        return laptopInfo;
+    /**
+     * 把过滤条件转成 Milvus 布尔表达式，字段取值与 insertVectors 的写入口径一致
+     */
+    static String toExpr(LaptopFilter filter) {
+        List<String> clauses = new ArrayList<>();
+        if (filter.hasBrand()) {
+            clauses.add("brand == " + quote(varchar(BrandNormalizer.normalize(filter.getBrand()))));
+        }
+        if (filter.hasPriceRange()) {
+            clauses.add("price >= " + (filter.getMinPrice() != null
+                    ? filter.getMinPrice().max(BigDecimal.ZERO).toPlainString() : "0"));
+            if (filter.getMaxPrice() != null) {
+                clauses.add("price <= " + filter.getMaxPrice().toPlainString());
+            }
+        }
+        if (filter.hasConditionGrade()) {
+            clauses.add("condition_grade == " + quote(varchar(filter.getConditionGrade())));
+        }
+        if (filter.hasMinMemory()) {
+            clauses.add("memory_gb >= " + filter.getMinMemoryGb());
+        }
+        return String.join(" && ", clauses);
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
     }
 
     @Override
-    public Optional<LaptopInfo> findById(Long id) {
-        return Optional.ofNullable(redisTemplate.opsForValue().get(REDIS_KEY_PREFIX + id));
+    protected int insertBatchSize() {
+        return milvusConfig.getInsertBatchSize();
     }
 
+    /**
+     * Milvus 2.2 没有 upsert：先按主键删除旧行（品牌变化时旧行在另一个分区，不指定分区），再插入新行。
+     * 插入晚于删除的时间戳，删除不会影响新行；插入失败时由调用方用旧值重写
+     */
     @Override
-    public List<LaptopInfo> findAll() {
-        Set<String> keys = redisTemplate.keys(REDIS_KEY_PREFIX + "*");
-        if (keys == null || keys.isEmpty()) {
-            return Collections.emptyList();
+    protected long replaceVectors(List<LaptopInfo> laptops) {
+        // 删除前先检查，避免删掉旧行后才发现无法写入新行
+        for (LaptopInfo laptop : laptops) {
+            if (laptop.getEmbedding() == null) {
+                throw new IllegalArgumentException("Laptop " + laptop.getId() + " has no text embedding");
+            }
         }
-        return redisTemplate.opsForValue().multiGet(keys).stream()
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
+        deleteVectorIds(laptops.stream()
+                .map(LaptopInfo::getId)
+                .collect(Collectors.toList()));
+        return insertVectors(laptops);
     }
 
+    /**
+     * 按 insertPartition 的写入口径比较标量字段，价格、品牌、成色或内存变化都需要重写该行
+     */
     @Override
-    public void deleteById(Long id) {
-        redisTemplate.delete(REDIS_KEY_PREFIX + id);
-        // Milvus删除操作（注意：Milvus 2.x版本支持删除操作）
-        DeleteParam deleteParam = DeleteParam.newBuilder()
-                .withCollectionName(milvusConfig.getCollectionName())
-                .withExpr("id in [" + id + "]")
-                .build();
-        milvusClient.delete(deleteParam);
+    protected boolean vectorFieldsChanged(LaptopInfo previous, LaptopInfo current) {
+        return !scalarFields(previous).equals(scalarFields(current));
+    }
+
+    private static List<Object> scalarFields(LaptopInfo laptop) {
+        Integer memoryGb = MemorySizeParser.parseGb(laptop.getMemoryInfo());
+        return Arrays.asList(
+                laptop.getPrice() != null ? laptop.getPrice().doubleValue() : MISSING_PRICE,
+                varchar(BrandNormalizer.normalize(laptop.getBrand())),
+                varchar(laptop.getConditionGrade()),
+                memoryGb != null ? memoryGb : 0);
     }
 
     @Override
-    public boolean existsById(Long id) {
-        return redisTemplate.hasKey(REDIS_KEY_PREFIX + id);
+    protected void deleteVectors(Long id) {
+        deleteVectorIds(Collections.singletonList(id));
     }
 
+    /**
+     * 按主键分批删除（Milvus 2.2 的删除表达式只支持主键 in），失败时抛出异常
+     * @return 删除的行数
+     */
+    private long deleteVectorIds(List<Long> ids) {
+        long deleted = 0;
+        int batchSize = insertBatchSize();
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            String expr = ids.subList(from, Math.min(from + batchSize, ids.size())).stream()
+                    .map(String::valueOf)
+                    .collect(Collectors.joining(", ", "id in [", "]"));
+            R<MutationResult> response = milvusClient.delete(DeleteParam.newBuilder()
+                    .withCollectionName(collection)
+                    .withExpr(expr)
+                    .build());
+            checkStatus(response, "delete");
+            deleted += response.getData().getDeleteCnt();
+        }
+        if (deleted > 0) {
+            compactionScheduler.recordDeletes(milvusConfig.getCollectionName(), deleted);
+        }
+        return deleted;
+    }
+
+    /**
+     * 迁移进行中时 deleteAll 不能释放其他实例持有的迁移锁
+     */
     @Override
-    public Optional<LaptopInfo> findByProductId(String productId) {
-        return findAll().stream()
-                .filter(laptop -> laptop.getProductId().equals(productId))
-                .findFirst();
+    protected Set<String> preservedKeys() {
+        Set<String> keys = super.preservedKeys();
+        keys.add(MIGRATION_LOCK_KEY);
+        return keys;
     }
 
+    /**
+     * Milvus 2.2 不支持按条件删除全部行：按 id 区间分段查询出主键再逐段删除，id 不会超过已分配的最大值
+     */
     @Override
-    public List<LaptopInfo> findByBrand(String brand) {
-        return findAll().stream()
-                .filter(laptop -> laptop.getBrand().equalsIgnoreCase(brand))
+    protected void deleteAllVectors() {
+        long maxId = maxAssignedId();
+        long deleted = 0;
+        for (long from = 0; from < maxId; from += ID_QUERY_RANGE) {
+            List<Long> ids = queryIds("id > " + from + " && id <= " + Math.min(from + ID_QUERY_RANGE, maxId));
+            if (!ids.isEmpty()) {
+                deleted += deleteVectorIds(ids);
+            }
+        }
+        log.info("Deleted {} vectors from collection {}", deleted, collection);
+        // 整个集合都成了墓碑，立即在后台压缩
+        compactionScheduler.compactNow(milvusConfig.getCollectionName());
+    }
+
+    /**
+     * 强一致地查询满足表达式的主键
+     */
+    private List<Long> queryIds(String expr) {
+        R<QueryResults> response = milvusClient.query(QueryParam.newBuilder()
+                .withCollectionName(collection)
+                .withExpr(expr)
+                .withOutFields(Collections.singletonList("id"))
+                .withConsistencyLevel(ConsistencyLevelEnum.STRONG)
+                .build());
+        checkStatus(response, "query");
+        return new QueryResultsWrapper(response.getData()).getFieldWrapper("id").getFieldData().stream()
+                .map(id -> (Long) id)
                 .collect(Collectors.toList());
     }
 
     @Override
-    public List<LaptopInfo> findByPriceBetween(BigDecimal minPrice, BigDecimal maxPrice) {
-        return findAll().stream()
-                .filter(laptop -> laptop.getPrice().compareTo(minPrice) >= 0
-                        && laptop.getPrice().compareTo(maxPrice) <= 0)
-                .collect(Collectors.toList());
+    protected List<VectorHit> searchVectors(float[] embedding, int limit, LaptopFilter filter,
+                                            VectorSearchOptions options) {
+        return join(searchVectorsAsync(embedding, limit, filter, options));
     }
 
     @Override
-    public List<LaptopInfo> findSimilarLaptops(double[] embedding, int limit) {
-        MetricType metricType = MetricType.valueOf(milvusConfig.getMetricType());
-        SearchParam searchParam = SearchParam.newBuilder()
-                .withCollectionName(milvusConfig.getCollectionName())
-                .withConsistencyLevel(ConsistencyLevelEnum.STRONG)
-                .withMetricType(metricType)
+    protected CompletableFuture<List<VectorHit>> searchVectorsAsync(float[] embedding, int limit, LaptopFilter filter,
+                                                                   VectorSearchOptions options) {
+        int rerankFactor = milvusConfig.getRerankFactor();
+        int topK = rerankFactor > 1 ? limit * rerankFactor : limit;
+        ReadConsistency level = options.getConsistency() != null
+                ? options.getConsistency() : ReadConsistency.parse(milvusConfig.getConsistencyLevel());
+        String params = MilvusIndexParams.searchParams(milvusConfig.getIndexType(), milvusConfig,
+                options.getNprobe() != null ? options.getNprobe() : nprobe,
+                options.getEf() != null ? options.getEf() : ef, topK);
+        // 会话一致：只等待爬虫发布的最近入库批次可见，而不是等到当前时刻。
+        // 在调用线程上读取，合批定时线程上不做Redis读写；保证时间戳相同的请求才合成一批
+        long guaranteeTs = level == ReadConsistency.SESSION ? guaranteeTimestamp() : 0;
+        // 过滤在Milvus检索内部生效，返回的就是满足条件的前 topK 条，无需多取
+        SearchShape shape = filter != null
+                ? new SearchShape(topK, level, guaranteeTs, params, toExpr(filter), partitionsForSearch(filter))
+                : new SearchShape(topK, level, guaranteeTs, params, null, Collections.emptyList());
+
+        return searchBatcher.submit(shape, embedding).thenApply(hits -> {
+            if (rerankFactor <= 1 || hits.isEmpty()) {
+                return hits;
+            }
+
+            // 近似索引的候选用原始向量精确重排
+            Map<Long, float[]> candidates = findTextVectors(hits.stream()
+                    .map(VectorHit::getId)
+                    .collect(Collectors.toList()));
+            return ExactKnnIndex.rerank(embedding, candidates, vectorMetric(), limit);
+        });
+    }
+
+    /**
+     * 一次 search 检索同一批查询向量，结果按输入顺序一一对应；Milvus 返回失败状态时整批异常完成
+     */
+    private CompletableFuture<List<List<VectorHit>>> searchBatch(SearchShape shape, List<float[]> embeddings) {
+        SearchParam.Builder builder = SearchParam.newBuilder()
+                .withCollectionName(collection)
+                .withConsistencyLevel(toConsistencyLevel(shape.level))
+                .withMetricType(MetricType.valueOf(milvusConfig.getMetricType()))
                 .withOutFields(Collections.singletonList("id"))
-                .withTopK(limit)
-                .withVectors(Collections.singletonList(embedding))
+                .withTopK(shape.topK)
+                .withVectors(embeddings.stream().map(FloatVectors::asList).collect(Collectors.toList()))
                 .withVectorFieldName("embedding")
-                .build();
-
-        R<SearchResults> searchResponse = milvusClient.search(searchParam);
-        if (searchResponse.getStatus() != R.Status.Success.getCode()) {
-            return Collections.emptyList();
+                .withParams(shape.params);
+        if (shape.guaranteeTs > 0) {
+            builder.withGuaranteeTimestamp(shape.guaranteeTs);
         }
+        if (shape.expr != null) {
+            builder.withExpr(shape.expr);
+        }
+        if (!shape.partitions.isEmpty()) {
+            builder.withPartitionNames(shape.partitions);
+        }
+
+        return milvusClientPool.searchAsync(builder.build())
+                .thenApply(searchResponse -> toHits(searchResponse, embeddings.size()));
+    }
 
+    private static List<List<VectorHit>> toHits(R<SearchResults> searchResponse, int queries) {
+        // 失败不能当作没有结果返回，否则调用方无法区分"没有相似商品"和"检索不可用"
+        checkStatus(searchResponse, "search");
+        List<List<VectorHit>> results = new ArrayList<>(queries);
         SearchResultsWrapper wrapper = new SearchResultsWrapper(searchResponse.getData().getResults());
-        List<Long> ids = wrapper.getIDScore(0).stream()
-                .map(id -> Long.parseLong(id.toString()))
-                .collect(Collectors.toList());
+        for (int i = 0; i < queries; i++) {
+            results.add(wrapper.getIDScore(i).stream()
+                    .map(hit -> new VectorHit(hit.getLongID(), hit.getScore()))
+                    .collect(Collectors.toList()));
+        }
+        return results;
+    }
 
-        return ids.stream()
-                .map(id -> redisTemplate.opsForValue().get(REDIS_KEY_PREFIX + id))
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
+    private static void checkStatus(R<?> response, String operation) {
+        if (response.getStatus() != R.Status.Success.getCode()) {
+            throw new IllegalStateException("Milvus " + operation + " failed: " + response.getMessage());
+        }
+    }
+
+    /**
+     * 同步等待异步调用，把 CompletionException 还原成原始异常
+     */
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
     }
 
     @Override
-    public List<LaptopInfo> searchByKeyword(String keyword) {
-        String lowercaseKeyword = keyword.toLowerCase();
-        return findAll().stream()
-                .filter(laptop ->
-                    containsIgnoreCase(laptop.getBrand(), lowercaseKeyword) ||
-                    containsIgnoreCase(laptop.getModel(), lowercaseKeyword) ||
-                    containsIgnoreCase(laptop.getTitle(), lowercaseKeyword) ||
-                    containsIgnoreCase(laptop.getDescription(), lowercaseKeyword))
-                .collect(Collectors.toList());
+    protected VectorMetric vectorMetric() {
+        return VectorMetric.valueOf(milvusConfig.getMetricType());
     }
 
-    private boolean containsIgnoreCase(String text, String keyword) {
-        return text != null && text.toLowerCase().contains(keyword);
+    @Override
+    protected String tunableSearchParam() {
+        return MilvusIndexParams.tunableParam(milvusConfig.getIndexType());
     }
 
+    /**
+     * nprobe 从 1 倍增到 nlist，ef / search_list 从 16 倍增到 1024（不小于 k）
+     */
     @Override
-    public List<LaptopInfo> saveAll(List<LaptopInfo> laptops) {
-        return laptops.stream()
-                .map(this::save)
-                .collect(Collectors.toList());
+    protected List<Integer> searchParamCandidates(int k) {
+        List<Integer> candidates = new ArrayList<>();
+        if ("nprobe".equals(tunableSearchParam())) {
+            for (int value = 1; value <= milvusConfig.getNlist(); value *= 2) {
+                candidates.add(value);
+            }
+        } else if (tunableSearchParam() != null) {
+            for (int value = 16; value <= 1024; value *= 2) {
+                if (value >= k) {
+                    candidates.add(value);
+                }
+            }
+        }
+        return candidates;
     }
 
+    /**
+     * 标定用 STRONG 读，保证精确结果与近似结果基于同一份数据
+     */
     @Override
-    public void deleteAll() {
-        // 删除Redis中的所有数据
-        Set<String> keys = redisTemplate.keys(REDIS_KEY_PREFIX + "*");
-        if (keys != null && !keys.isEmpty()) {
-            redisTemplate.delete(keys);
+    protected VectorSearchOptions calibrationOptions(int value) {
+        VectorSearchOptions options = VectorSearchOptions.defaults();
+        options.setConsistency(ReadConsistency.STRONG);
+        if ("nprobe".equals(tunableSearchParam())) {
+            options.setNprobe(value);
+        } else {
+            options.setEf(value);
         }
+        return options;
+    }
 
-        // 删除Milvus集合中的所有数据
-        DeleteParam deleteParam = DeleteParam.newBuilder()
-                .withCollectionName(milvusConfig.getCollectionName())
-                .withExpr("1==1")
-                .build();
-        milvusClient.delete(deleteParam);
+    @Override
+    protected void applySearchParam(int value) {
+        if ("nprobe".equals(tunableSearchParam())) {
+            nprobe = value;
+        } else {
+            ef = value;
+        }
+    }
+
+    private static ConsistencyLevelEnum toConsistencyLevel(ReadConsistency level) {
+        if (level == null) {
+            return ConsistencyLevelEnum.BOUNDED;
+        }
+        switch (level) {
+            case STRONG:
+                return ConsistencyLevelEnum.STRONG;
+            case SESSION:
+                return ConsistencyLevelEnum.SESSION;
+            case EVENTUALLY:
+                return ConsistencyLevelEnum.EVENTUALLY;
+            default:
+                return ConsistencyLevelEnum.BOUNDED;
+        }
     }
 
     @Override
@@ -262,4 +922,49 @@ public class MilvusLaptopInfoRepository implements LaptopInfoRepository {
             return false;
         }
     }
+
+    /**
+     * 一次检索除查询向量以外的全部参数，相等的请求可以合成一批
+     */
+    private static final class SearchShape {
+        private final int topK;
+        private final ReadConsistency level;
+        // SESSION 读的保证时间戳，其他一致性级别为 0
+        private final long guaranteeTs;
+        private final String params;
+        private final String expr;
+        private final List<String> partitions;
+
+        private SearchShape(int topK, ReadConsistency level, long guaranteeTs, String params, String expr,
+                            List<String> partitions) {
+            this.topK = topK;
+            this.level = level;
+            this.guaranteeTs = guaranteeTs;
+            this.params = params;
+            this.expr = expr;
+            this.partitions = partitions;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SearchShape)) {
+                return false;
+            }
+            SearchShape that = (SearchShape) o;
+            return topK == that.topK
+                    && level == that.level
+                    && guaranteeTs == that.guaranteeTs
+                    && params.equals(that.params)
+                    && Objects.equals(expr, that.expr)
+                    && partitions.equals(that.partitions);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(topK, level, guaranteeTs, params, expr, partitions);
+        }
+    }
 }
@@ -0,0 +1,20 @@
+package com.searchserver.repository.index;
+
+import java.util.Locale;
+
+/**
+ * 品牌名归一化：去掉空白并转小写，使 "ThinkPad"、" thinkpad " 落到同一个索引桶
+ */
+public final class BrandNormalizer {
+
+    private BrandNormalizer() {
+    }
+
+    public static String normalize(String brand) {
+        if (brand == null) {
+            return null;
+        }
+        String normalized = brand.replaceAll("\\s+", "").toLowerCase(Locale.ROOT);
+        return normalized.isEmpty() ? null : normalized;
+    }
+}
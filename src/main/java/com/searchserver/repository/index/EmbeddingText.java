@@ -0,0 +1,45 @@
+package com.searchserver.repository.index;
+
+import com.searchserver.model.LaptopInfo;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 文本向量的输入口径：标题、描述和各项配置按固定顺序拼接。
+ * 爬虫生成向量和存储库判断文本是否变化都以此为准，内容哈希相同即可沿用已有向量
+ */
+public final class EmbeddingText {
+
+    private EmbeddingText() {
+    }
+
+    public static String of(LaptopInfo laptop) {
+        return laptop.getTitle() + " " +
+                laptop.getDescription() + " " +
+                laptop.getBrand() + " " +
+                laptop.getModel() + " " +
+                laptop.getProcessorInfo() + " " +
+                laptop.getMemoryInfo() + " " +
+                laptop.getStorageInfo() + " " +
+                laptop.getDisplayInfo();
+    }
+
+    /**
+     * 嵌入文本的 SHA-256，十六进制小写
+     */
+    public static String hash(LaptopInfo laptop) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(of(laptop).getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
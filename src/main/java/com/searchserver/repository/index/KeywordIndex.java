@@ -0,0 +1,297 @@
+package com.searchserver.repository.index;
+
+import com.searchserver.model.LaptopInfo;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+import java.util.stream.Stream;
+
+/**
+ * 进程内倒排索引，按 BM25 对品牌/型号/标题/描述打分。
+ * 由存储库在 save/deleteById 时增量维护，启动时从 Redis 全量重建；
+ * 多实例部署时其他实例的写入不会到达本实例，由存储库发现 Redis 中的写入序号变化后调用 rebuild 追上。
+ */
+@Component
+public class KeywordIndex {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    // 字段权重：品牌和型号命中比描述命中更有区分度
+    private static final float BRAND_WEIGHT = 3.0f;
+    private static final float MODEL_WEIGHT = 3.0f;
+    private static final float TITLE_WEIGHT = 2.0f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+
+    private Map<String, Map<Long, Float>> postings = new HashMap<>();
+    private Map<Long, Document> documents = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private double totalLength;
+    // 重建期间增量写入过的 id，换入新索引时以当前索引中的状态为准；不在重建时为 null
+    private Set<Long> touchedDuringRebuild;
+    // 每次 clear 加一，重建期间被 clear 时放弃换入
+    private long clearGeneration;
+    private final Object rebuildLock = new Object();
+
+    public void index(LaptopInfo laptop) {
+        if (laptop == null || laptop.getId() == null) {
+            return;
+        }
+
+        Map<String, Float> termFrequencies = new HashMap<>();
+        addField(termFrequencies, laptop.getBrand(), BRAND_WEIGHT);
+        addField(termFrequencies, laptop.getModel(), MODEL_WEIGHT);
+        addField(termFrequencies, laptop.getTitle(), TITLE_WEIGHT);
+        addField(termFrequencies, laptop.getDescription(), DESCRIPTION_WEIGHT);
+
+        float length = 0;
+        for (float tf : termFrequencies.values()) {
+            length += tf;
+        }
+
+        lock.writeLock().lock();
+        try {
+            markTouched(laptop.getId());
+            put(laptop.getId(), new Document(length, termFrequencies.keySet().toArray(new String[0])),
+                    termFrequencies);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            markTouched(id);
+            removeInternal(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            totalLength = 0;
+            clearGeneration++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 用 laptops 全量重建后整体换入，重建期间检索仍走旧索引。
+     * 重建期间 index/remove 过的 id 保留当前索引中的状态，避免换入读取时刻更早的数据；
+     * 重建期间被 clear 时放弃本次结果
+     * @return 是否已换入
+     */
+    public boolean rebuild(Stream<LaptopInfo> laptops) {
+        synchronized (rebuildLock) {
+            long generation;
+            lock.writeLock().lock();
+            try {
+                touchedDuringRebuild = new HashSet<>();
+                generation = clearGeneration;
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            KeywordIndex fresh = new KeywordIndex();
+            try {
+                laptops.forEach(fresh::index);
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    touchedDuringRebuild = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+
+            lock.writeLock().lock();
+            try {
+                Set<Long> touched = touchedDuringRebuild;
+                touchedDuringRebuild = null;
+                if (generation != clearGeneration) {
+                    return false;
+                }
+                for (Long id : touched) {
+                    fresh.removeInternal(id);
+                    Document document = documents.get(id);
+                    if (document != null) {
+                        fresh.put(id, document, termFrequencies(id, document));
+                    }
+                }
+                postings = fresh.postings;
+                documents = fresh.documents;
+                totalLength = fresh.totalLength;
+                return true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * 当前已索引的 id 快照
+     */
+    public List<Long> ids() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(documents.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Hit> search(String query, int limit) {
+        return search(query, limit, id -> true);
+    }
+
+    /**
+     * BM25 检索
+     * @param query 查询文本
+     * @param limit 返回的最大结果数
+     * @param filter 候选过滤条件，不满足的文档不参与排序
+     * @return 按得分降序排列的命中结果
+     */
+    public List<Hit> search(String query, int limit, LongPredicate filter) {
+        Set<String> terms = new LinkedHashSet<>(LaptopTokenizer.tokenize(query));
+        if (terms.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        lock.readLock().lock();
+        try {
+            int documentCount = documents.size();
+            if (documentCount == 0) {
+                return Collections.emptyList();
+            }
+            double averageLength = totalLength / documentCount;
+
+            Map<Long, Float> scores = new HashMap<>();
+            for (String term : terms) {
+                Map<Long, Float> termPostings = postings.get(term);
+                if (termPostings == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (documentCount - termPostings.size() + 0.5) / (termPostings.size() + 0.5));
+                for (Map.Entry<Long, Float> posting : termPostings.entrySet()) {
+                    Long id = posting.getKey();
+                    if (!filter.test(id)) {
+                        continue;
+                    }
+                    float tf = posting.getValue();
+                    double norm = K1 * (1 - B + B * documents.get(id).length / averageLength);
+                    float score = (float) (idf * tf * (K1 + 1) / (tf + norm));
+                    scores.merge(id, score, Float::sum);
+                }
+            }
+
+            PriorityQueue<Hit> topHits = new PriorityQueue<>(Comparator.comparingDouble(Hit::getScore));
+            for (Map.Entry<Long, Float> entry : scores.entrySet()) {
+                if (topHits.size() < limit) {
+                    topHits.add(new Hit(entry.getKey(), entry.getValue()));
+                } else if (entry.getValue() > topHits.peek().getScore()) {
+                    topHits.poll();
+                    topHits.add(new Hit(entry.getKey(), entry.getValue()));
+                }
+            }
+
+            List<Hit> result = new ArrayList<>(topHits);
+            result.sort(Comparator.comparingDouble(Hit::getScore).reversed());
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void markTouched(Long id) {
+        if (touchedDuringRebuild != null && id != null) {
+            touchedDuringRebuild.add(id);
+        }
+    }
+
+    private void put(Long id, Document document, Map<String, Float> termFrequencies) {
+        removeInternal(id);
+        for (Map.Entry<String, Float> entry : termFrequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), k -> new HashMap<>()).put(id, entry.getValue());
+        }
+        documents.put(id, document);
+        totalLength += document.length;
+    }
+
+    private Map<String, Float> termFrequencies(Long id, Document document) {
+        Map<String, Float> termFrequencies = new HashMap<>();
+        for (String term : document.terms) {
+            termFrequencies.put(term, postings.get(term).get(id));
+        }
+        return termFrequencies;
+    }
+
+    private void removeInternal(Long id) {
+        Document document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+        for (String term : document.terms) {
+            Map<Long, Float> termPostings = postings.get(term);
+            if (termPostings != null) {
+                termPostings.remove(id);
+                if (termPostings.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalLength -= document.length;
+    }
+
+    private void addField(Map<String, Float> termFrequencies, String text, float weight) {
+        for (String token : LaptopTokenizer.tokenize(text)) {
+            termFrequencies.merge(token, weight, Float::sum);
+        }
+    }
+
+    private static final class Document {
+        private final float length;
+        private final String[] terms;
+
+        private Document(float length, String[] terms) {
+            this.length = length;
+            this.terms = terms;
+        }
+    }
+
+    public static final class Hit {
+        private final long id;
+        private final float score;
+
+        public Hit(long id, float score) {
+            this.id = id;
+            this.score = score;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public float getScore() {
+            return score;
+        }
+    }
+}
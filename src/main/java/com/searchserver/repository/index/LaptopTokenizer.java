@@ -0,0 +1,86 @@
+package com.searchserver.repository.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 面向商品标题的分词器：中日韩文字按二元组（bigram）切分，
+ * 英文/数字按连续字母数字切分，并在字母与数字交界处补充子词（如 rtx4060 -> rtx, 4060）
+ */
+public final class LaptopTokenizer {
+
+    private LaptopTokenizer() {
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+
+        String normalized = text.toLowerCase(Locale.ROOT);
+        int length = normalized.length();
+        int i = 0;
+        while (i < length) {
+            int codePoint = normalized.codePointAt(i);
+            if (isCjk(codePoint)) {
+                int start = i;
+                while (i < length && isCjk(normalized.codePointAt(i))) {
+                    i += Character.charCount(normalized.codePointAt(i));
+                }
+                addCjkBigrams(normalized.substring(start, i), tokens);
+            } else if (Character.isLetterOrDigit(codePoint)) {
+                int start = i;
+                while (i < length) {
+                    int cp = normalized.codePointAt(i);
+                    if (!Character.isLetterOrDigit(cp) || isCjk(cp)) {
+                        break;
+                    }
+                    i += Character.charCount(cp);
+                }
+                addAlphanumeric(normalized.substring(start, i), tokens);
+            } else {
+                i += Character.charCount(codePoint);
+            }
+        }
+        return tokens;
+    }
+
+    private static void addCjkBigrams(String run, List<String> tokens) {
+        int[] codePoints = run.codePoints().toArray();
+        if (codePoints.length == 1) {
+            tokens.add(new String(codePoints, 0, 1));
+            return;
+        }
+        for (int i = 0; i + 1 < codePoints.length; i++) {
+            tokens.add(new String(codePoints, i, 2));
+        }
+    }
+
+    private static void addAlphanumeric(String run, List<String> tokens) {
+        tokens.add(run);
+
+        // 型号类词（i7, 32gb, rtx4060）在字母/数字交界处再切一次，便于 "32G" 命中 "32GB"
+        int start = 0;
+        List<String> parts = new ArrayList<>();
+        for (int i = 1; i < run.length(); i++) {
+            if (Character.isDigit(run.charAt(i)) != Character.isDigit(run.charAt(i - 1))) {
+                parts.add(run.substring(start, i));
+                start = i;
+            }
+        }
+        if (!parts.isEmpty()) {
+            parts.add(run.substring(start));
+            tokens.addAll(parts);
+        }
+    }
+
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
@@ -0,0 +1,41 @@
+package com.searchserver.repository.index;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 从内存描述（如 "16GB"、"32G DDR5"、"1TB"）中解析容量，单位统一为 GB
+ */
+public final class MemorySizeParser {
+
+    // 前面不能紧跟数字，避免从一长串数字的中间开始匹配
+    private static final Pattern SIZE = Pattern.compile("(?<!\\d)(\\d+)\\s*(t|g)", Pattern.CASE_INSENSITIVE);
+    // 超过 9 位的数字不是合理的容量，也可能超出 long
+    private static final int MAX_DIGITS = 9;
+
+    private MemorySizeParser() {
+    }
+
+    /**
+     * @return 容量（GB），无法解析或换算后超出 int 范围时返回 null
+     */
+    public static Integer parseGb(String memoryInfo) {
+        if (memoryInfo == null) {
+            return null;
+        }
+        Matcher matcher = SIZE.matcher(memoryInfo);
+        if (!matcher.find()) {
+            return null;
+        }
+        String digits = matcher.group(1);
+        if (digits.length() > MAX_DIGITS) {
+            return null;
+        }
+        long size = Long.parseLong(digits);
+        if ("t".equals(matcher.group(2).toLowerCase(Locale.ROOT))) {
+            size *= 1024;
+        }
+        return size <= Integer.MAX_VALUE ? (int) size : null;
+    }
+}
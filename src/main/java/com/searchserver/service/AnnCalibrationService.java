@@ -0,0 +1,96 @@
+package com.searchserver.service;
+
+import com.searchserver.config.SearchConfig;
+import com.searchserver.model.AnnCalibrationResult;
+import com.searchserver.repository.LaptopInfoRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * nprobe/ef 自动标定：启动时（可选）和累计入库量达到阈值后在后台重新标定，
+ * 同一时间只运行一次标定
+ */
+@Service
+public class AnnCalibrationService {
+
+    private final LaptopInfoRepository laptopInfoRepository;
+    private final SearchConfig searchConfig;
+    private final AtomicLong ingestedSinceCalibration = new AtomicLong();
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ann-calibration");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile long lastCatalogSize;
+    private static final org.slf4j.Logger log
+            = org.slf4j.LoggerFactory.getLogger(AnnCalibrationService.class);
+
+    public AnnCalibrationService(LaptopInfoRepository laptopInfoRepository, SearchConfig searchConfig) {
+        this.laptopInfoRepository = laptopInfoRepository;
+        this.searchConfig = searchConfig;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void calibrateOnStartup() {
+        if (searchConfig.getCalibrateOnStartup()) {
+            triggerAsync();
+        }
+    }
+
+    /**
+     * 记录新入库的条数，累计超过 max(min-ingest, 上次目录规模 * recalibrate-ratio) 时触发后台标定
+     */
+    public void onIngest(int count) {
+        if (count <= 0) {
+            return;
+        }
+        long ingested = ingestedSinceCalibration.addAndGet(count);
+        long threshold = Math.max(searchConfig.getRecalibrateMinIngest(),
+                (long) (lastCatalogSize * searchConfig.getRecalibrateRatio()));
+        if (ingested >= threshold) {
+            triggerAsync();
+        }
+    }
+
+    /**
+     * 同步执行一次标定
+     */
+    public Optional<AnnCalibrationResult> calibrate() {
+        Optional<AnnCalibrationResult> result = laptopInfoRepository.calibrateSearchParams(
+                searchConfig.getCalibrationSampleSize(),
+                searchConfig.getCalibrationK(),
+                searchConfig.getCalibrationTargetRecall());
+        result.ifPresent(r -> lastCatalogSize = r.getCatalogSize());
+        return result;
+    }
+
+    private void triggerAsync() {
+        if (!searchConfig.getCalibrationEnabled() || !running.compareAndSet(false, true)) {
+            return;
+        }
+        ingestedSinceCalibration.set(0);
+        executor.execute(() -> {
+            try {
+                calibrate();
+            } catch (Exception e) {
+                log.error("Error calibrating vector search params", e);
+            } finally {
+                running.set(false);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -1,63 +1,159 @@
 package com.searchserver.service;
 
+import com.searchserver.batch.MicroBatcher;
+import com.searchserver.config.EmbeddingConfig;
+import com.searchserver.vector.FloatVectors;
 import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
 import dev.langchain4j.model.embedding.AllMiniLmL6V2EmbeddingModel;
 import dev.langchain4j.model.embedding.EmbeddingModel;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 @Service
 public class EmbeddingService {
 
+    private final EmbeddingConfig embeddingConfig;
+    private final MeterRegistry meterRegistry;
     private EmbeddingModel embeddingModel;
+    // 并发的单条调用合并成一次 embedAll；所有文本用同一个模型，共用一个批
+    private MicroBatcher<String, String, float[]> batcher;
+    // 向量化是 CPU 密集的，批在独立的工作线程上执行，微批的定时线程只负责封批
+    private ExecutorService workers;
+    private Timer singleLatency;
+    private Timer bulkLatency;
+    private static final String BATCH_KEY = "all-minilm-l6-v2";
     private static final org.slf4j.Logger log
             = org.slf4j.LoggerFactory.getLogger(EmbeddingService.class);
+
+    public EmbeddingService(EmbeddingConfig embeddingConfig, MeterRegistry meterRegistry) {
+        this.embeddingConfig = embeddingConfig;
+        this.meterRegistry = meterRegistry;
+    }
+
     @PostConstruct
     public void init() {
         embeddingModel = new AllMiniLmL6V2EmbeddingModel();
+        AtomicInteger counter = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(Math.max(1, embeddingConfig.getThreads()), runnable -> {
+            Thread thread = new Thread(runnable, "embedding-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        batcher = new MicroBatcher<>(embeddingConfig.getBatchSize(), embeddingConfig.getBatchWaitMicros(),
+                (model, texts) -> CompletableFuture.supplyAsync(() -> embedAll(texts), workers),
+                meterRegistry, "embedding");
+        singleLatency = Timer.builder("embedding.latency")
+                .description("Time to embed a single text, including the wait for its batch")
+                .tag("path", "single")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        bulkLatency = Timer.builder("embedding.latency")
+                .description("Time to embed a list of texts")
+                .tag("path", "bulk")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
     }
 
-    public double[] generateEmbedding(String text) {
-        try {
-            if (text == null || text.trim().isEmpty()) {
-                return new double[384]; // Return zero vector for empty text
-            }
+    @PreDestroy
+    public void close() {
+        batcher.close();
+        workers.shutdownNow();
+    }
 
-            Embedding embedding = embeddingModel.embed(text).content();
-            double[] result = new double[embedding.vector().length];
-            for (int i = 0; i < result.length; i++) {
-                result[i] = embedding.vector()[i];
+    /**
+     * 单条文本（如查询）向量化，并发调用经动态微批合并成一次 embedAll；空文本和向量化失败时抛出异常
+     */
+    public float[] generateEmbedding(String text) {
+        try {
+            return generateEmbeddingAsync(text).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
             }
-            return result;
-        } catch (Exception e) {
-            log.error("Error generating embedding for text", e);
-            return new double[384]; // Return zero vector on error
+            throw e;
         }
     }
 
-    public double calculateCosineSimilarity(double[] vector1, double[] vector2) {
-        if (vector1.length != vector2.length) {
-            throw new IllegalArgumentException("Vectors must have the same dimension");
+    /**
+     * 空文本和向量化失败时返回异常完成的 future，不用零向量代替（零向量会检索出任意结果）
+     */
+    public CompletableFuture<float[]> generateEmbeddingAsync(String text) {
+        if (text == null || text.trim().isEmpty()) {
+            CompletableFuture<float[]> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new IllegalArgumentException("向量化的文本不能为空"));
+            return failed;
         }
+        long start = System.nanoTime();
+        return batcher.submit(BATCH_KEY, text).whenComplete((vector, e) -> {
+            singleLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (e != null) {
+                log.error("Error generating embedding for text", e);
+            }
+        });
+    }
 
-        double dotProduct = 0.0;
-        double norm1 = 0.0;
-        double norm2 = 0.0;
-
-        for (int i = 0; i < vector1.length; i++) {
-            dotProduct += vector1[i] * vector2[i];
-            norm1 += vector1[i] * vector1[i];
-            norm2 += vector2[i] * vector2[i];
+    /**
+     * 批量向量化（如爬虫整页入库），按 batch-size 分块直接调用 embedAll，不经过微批等待。
+     * 返回的向量与输入一一对应，空文本和出错分块中的文本对应 null，由调用方记为失败
+     */
+    public List<float[]> generateEmbeddings(List<String> texts) {
+        long start = System.nanoTime();
+        List<float[]> vectors = new ArrayList<>(texts.size());
+        List<Integer> positions = new ArrayList<>(texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            vectors.add(null);
+            String text = texts.get(i);
+            if (text != null && !text.trim().isEmpty()) {
+                positions.add(i);
+            }
         }
 
-        norm1 = Math.sqrt(norm1);
-        norm2 = Math.sqrt(norm2);
-
-        if (norm1 == 0 || norm2 == 0) {
-            return 0.0;
+        int chunkSize = Math.max(1, embeddingConfig.getBatchSize());
+        for (int from = 0; from < positions.size(); from += chunkSize) {
+            List<Integer> chunk = positions.subList(from, Math.min(from + chunkSize, positions.size()));
+            try {
+                List<float[]> embedded = embedAll(chunk.stream()
+                        .map(texts::get)
+                        .collect(Collectors.toList()));
+                for (int i = 0; i < chunk.size(); i++) {
+                    vectors.set(chunk.get(i), embedded.get(i));
+                }
+            } catch (Exception e) {
+                log.error("Error generating embeddings for {} texts", chunk.size(), e);
+            }
         }
+        bulkLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return vectors;
+    }
+
+    public float calculateCosineSimilarity(float[] vector1, float[] vector2) {
+        return FloatVectors.cosineSimilarity(vector1, vector2);
+    }
 
-        return dotProduct / (norm1 * norm2);
+    /**
+     * 一次 embedAll：分词和 ONNX 会话的调用开销由整批分摊
+     */
+    private List<float[]> embedAll(List<String> texts) {
+        List<TextSegment> segments = texts.stream()
+                .map(TextSegment::from)
+                .collect(Collectors.toList());
+        // 模型输出即为 float32，直接沿用，不再拓宽为 double
+        return embeddingModel.embedAll(segments).content().stream()
+                .map(Embedding::vector)
+                .collect(Collectors.toList());
     }
 }
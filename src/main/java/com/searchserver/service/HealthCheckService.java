@@ -1,6 +1,6 @@
 package com.searchserver.service;
 
-import com.searchserver.repository.impl.MilvusLaptopInfoRepository;
+import com.searchserver.repository.LaptopInfoRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.boot.actuate.health.Health;
 import org.springframework.boot.actuate.health.HealthIndicator;
@@ -9,37 +9,37 @@ import org.springframework.beans.factory.annotation.Autowired;
 @Service
 public class HealthCheckService implements HealthIndicator {
 
-    private final MilvusLaptopInfoRepository milvusRepository;
+    private final LaptopInfoRepository laptopInfoRepository;
     private final RedisCacheService redisCacheService;
 
     @Autowired
-    public HealthCheckService(MilvusLaptopInfoRepository milvusRepository,
+    public HealthCheckService(LaptopInfoRepository laptopInfoRepository,
                            RedisCacheService redisCacheService) {
-        this.milvusRepository = milvusRepository;
+        this.laptopInfoRepository = laptopInfoRepository;
         this.redisCacheService = redisCacheService;
     }
 
     @Override
     public Health health() {
-        boolean milvusHealthy = checkMilvusConnection();
+        boolean vectorStoreHealthy = checkVectorStore();
         boolean redisHealthy = checkRedisConnection();
 
-        if (milvusHealthy && redisHealthy) {
+        if (vectorStoreHealthy && redisHealthy) {
             return Health.up()
-                    .withDetail("Milvus", "Available")
+                    .withDetail("VectorStore", "Available")
                     .withDetail("Redis", "Available")
                     .build();
         } else {
             return Health.down()
-                    .withDetail("Milvus", milvusHealthy ? "Available" : "Unavailable")
+                    .withDetail("VectorStore", vectorStoreHealthy ? "Available" : "Unavailable")
                     .withDetail("Redis", redisHealthy ? "Available" : "Unavailable")
                     .build();
         }
     }
 
-    private boolean checkMilvusConnection() {
+    private boolean checkVectorStore() {
         try {
-            return milvusRepository.isConnected();
+            return laptopInfoRepository.isConnected();
         } catch (Exception e) {
             return false;
         }
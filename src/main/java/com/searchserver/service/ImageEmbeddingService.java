@@ -20,12 +20,11 @@ public class ImageEmbeddingService {
 
     private static final int IMAGE_EMBEDDING_SIZE = 512;
 
-    public double[] generateEmbedding(String imageUrl) throws IOException, ModelException, TranslateException {
+    public float[] generateEmbedding(String imageUrl) throws IOException, ModelException, TranslateException {
         try (ZooModel<Image, float[]> model = loadModel()) {
             try (Predictor<Image, float[]> predictor = model.newPredictor()) {
                 Image image = loadImage(imageUrl);
-                float[] embedding = predictor.predict(image);
-                return toDoubleArray(embedding);
+                return predictor.predict(image);
             }
         }
     }
@@ -46,12 +45,4 @@ public class ImageEmbeddingService {
             return ImageFactory.getInstance().fromFile(Path.of(imageUrl));
         }
     }
-
-    private double[] toDoubleArray(float[] floatArray) {
-        double[] doubleArray = new double[floatArray.length];
-        for (int i = 0; i < floatArray.length; i++) {
-            doubleArray[i] = floatArray[i];
-        }
-        return doubleArray;
-    }
 }
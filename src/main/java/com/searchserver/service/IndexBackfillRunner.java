@@ -0,0 +1,32 @@
+package com.searchserver.service;
+
+import com.searchserver.repository.LaptopInfoRepository;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * 二级索引回填命令，启动时加上 --app.index.backfill=true 即可为历史数据重建索引
+ */
+@Component
+@ConditionalOnProperty(name = "app.index.backfill", havingValue = "true")
+public class IndexBackfillRunner implements ApplicationRunner {
+
+    private final LaptopInfoRepository laptopInfoRepository;
+    private static final org.slf4j.Logger log
+            = org.slf4j.LoggerFactory.getLogger(IndexBackfillRunner.class);
+
+    public IndexBackfillRunner(LaptopInfoRepository laptopInfoRepository) {
+        this.laptopInfoRepository = laptopInfoRepository;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        log.info("Starting secondary index backfill");
+        long start = System.currentTimeMillis();
+        long indexed = laptopInfoRepository.rebuildIndexes();
+        log.info("Secondary index backfill finished: {} entries in {} ms",
+                indexed, System.currentTimeMillis() - start);
+    }
+}
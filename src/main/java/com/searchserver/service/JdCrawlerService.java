@@ -1,7 +1,10 @@
 package com.searchserver.service;
 
+import com.searchserver.model.BulkSaveResult;
 import com.searchserver.model.LaptopInfo;
+import com.searchserver.model.UpsertResult;
 import com.searchserver.repository.LaptopInfoRepository;
+import com.searchserver.repository.index.EmbeddingText;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
@@ -14,10 +17,12 @@ import javax.annotation.Resource;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 @Service
 public class JdCrawlerService {
@@ -25,6 +30,8 @@ public class JdCrawlerService {
     private LaptopInfoRepository laptopInfoRepository;
     @Resource
     private EmbeddingService embeddingService;
+    @Resource
+    private AnnCalibrationService annCalibrationService;
 
     @Value("${app.jd.base-url}")
     private String baseUrl;
@@ -46,6 +53,8 @@ public class JdCrawlerService {
 
     public List<LaptopInfo> crawlJdSecondHandLaptops() {
         List<LaptopInfo> results = new ArrayList<>();
+        List<LaptopInfo> pending = new ArrayList<>();
+        Set<String> seenProductIds = new HashSet<>();
         try {
             // 访问京东二手笔记本电脑页面
             Document doc = Jsoup.connect(baseUrl)
@@ -60,9 +69,8 @@ public class JdCrawlerService {
                 try {
                     String productId = item.attr("data-sku");
 
-                    // 检查是否已存在
-                    Optional<LaptopInfo> existingLaptop = laptopInfoRepository.findByProductId(productId);
-                    if (existingLaptop.isPresent()) {
+                    // 跳过本页内重复的SKU；已入库的SKU照常解析，保存时按内容变化增量更新
+                    if (!seenProductIds.add(productId)) {
                         continue;
                     }
 
@@ -92,22 +100,8 @@ public class JdCrawlerService {
                     // 获取详细信息
                     enrichLaptopDetails(laptop);
 
-                    // 生成嵌入向量
-                    double[] embedding = embeddingService.generateEmbedding(
-                            laptop.getTitle() + " " +
-                            laptop.getDescription() + " " +
-                            laptop.getBrand() + " " +
-                            laptop.getModel() + " " +
-                            laptop.getProcessorInfo() + " " +
-                            laptop.getMemoryInfo() + " " +
-                            laptop.getStorageInfo() + " " +
-                            laptop.getDisplayInfo()
-                    );
-                    laptop.setEmbedding(embedding);
-
-                    // 保存到数据库
-                    laptopInfoRepository.save(laptop);
-                    results.add(laptop);
+                    // 嵌入向量在保存时按需生成，只有价格/卖家变化的已有商品不会重新生成
+                    pending.add(laptop);
 
                 } catch (Exception e) {
                     log.error("Error processing laptop item", e);
@@ -118,6 +112,32 @@ public class JdCrawlerService {
             log.error("Error crawling JD second-hand laptops", e);
         }
 
+        // 整页按 productId 增量保存到数据库
+        if (!pending.isEmpty()) {
+            long start = System.nanoTime();
+            // 需要向量的笔记本一次批量向量化，分词和 ONNX 调用开销由整批分摊
+            UpsertResult saveResult = laptopInfoRepository.upsertAll(pending,
+                    batch -> embeddingService.generateEmbeddings(batch.stream()
+                            .map(EmbeddingText::of)
+                            .collect(Collectors.toList())));
+            double seconds = (System.nanoTime() - start) / 1e9;
+            log.info("Saved {} of {} crawled laptops in {} s ({} items/s)", saveResult.getSaved().size(), pending.size(),
+                    String.format("%.2f", seconds), String.format("%.1f", seconds > 0 ? pending.size() / seconds : 0));
+            results.addAll(saveResult.getSaved());
+            for (BulkSaveResult.Failure failure : saveResult.getFailures()) {
+                log.error("Failed to save laptop {}: {}", failure.getLaptop().getProductId(), failure.getReason());
+            }
+            log.info("Upserted laptops: {} inserted, {} re-embedded, {} rewritten, {} patched, {} unchanged",
+                    saveResult.count(UpsertResult.Change.INSERTED), saveResult.count(UpsertResult.Change.REEMBEDDED),
+                    saveResult.count(UpsertResult.Change.REWRITTEN), saveResult.count(UpsertResult.Change.PATCHED),
+                    saveResult.count(UpsertResult.Change.UNCHANGED));
+            // 发布本批次的保证时间戳，之后的 SESSION 读一定能看到这批数据
+            laptopInfoRepository.recordGuaranteeTimestamp(saveResult.getGuaranteeTimestamp());
+            // 向量变化（新增或重新生成）累计到阈值时后台重新标定检索参数
+            annCalibrationService.onIngest(saveResult.count(UpsertResult.Change.INSERTED)
+                    + saveResult.count(UpsertResult.Change.REEMBEDDED));
+        }
+
         return results;
     }
 
@@ -1,60 +1,281 @@
 package com.searchserver.service;
 
+import com.searchserver.config.SearchConfig;
+import com.searchserver.model.LaptopFilter;
 import com.searchserver.model.LaptopInfo;
+import com.searchserver.model.ReadConsistency;
+import com.searchserver.model.VectorSearchOptions;
+import com.searchserver.model.ScoredLaptop;
 import com.searchserver.repository.LaptopInfoRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.Resource;
 import java.math.BigDecimal;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 @Service
 public class LaptopSearchService {
     private static final org.slf4j.Logger log
             = org.slf4j.LoggerFactory.getLogger(LaptopSearchService.class);
+    public static final int DEFAULT_KEYWORD_LIMIT = 20;
+    // 单次请求最多返回的条数，MCP 请求中更大的 limit 截断到此值
+    public static final int MAX_LIMIT = 100;
+    // nprobe 超过 nlist 时按 nlist 检索，上限取 Milvus 允许的最大 nlist
+    public static final int MAX_NPROBE = 65536;
+    // 标定最多扫描到 ef=1024，更大的 ef 只增加延迟，不再提高召回
+    public static final int MAX_EF = 4096;
     @Resource
     private LaptopInfoRepository laptopInfoRepository;
     @Resource
     private EmbeddingService embeddingService;
     @Resource
     private JdCrawlerService crawlerService;
+    private final SearchConfig searchConfig;
+    private final ExecutorService hybridSearchExecutor;
 
     public LaptopSearchService(LaptopInfoRepository laptopInfoRepository,
                              EmbeddingService embeddingService,
-                             JdCrawlerService crawlerService) {
+                             JdCrawlerService crawlerService,
+                             SearchConfig searchConfig,
+                             ExecutorService hybridSearchExecutor) {
         this.laptopInfoRepository = laptopInfoRepository;
         this.embeddingService = embeddingService;
         this.crawlerService = crawlerService;
+        this.searchConfig = searchConfig;
+        this.hybridSearchExecutor = hybridSearchExecutor;
     }
 
     public List<LaptopInfo> searchByKeyword(String keyword) {
-        return laptopInfoRepository.searchByKeyword(keyword);
+        return searchByKeyword(keyword, DEFAULT_KEYWORD_LIMIT);
+    }
+
+    public List<LaptopInfo> searchByKeyword(String keyword, int limit) {
+        return laptopInfoRepository.searchByKeyword(keyword, limit);
+    }
+
+    /**
+     * 校验请求中的 limit：负数拒绝，超过 MAX_LIMIT 时截断
+     */
+    public static int checkLimit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit 不能为负数: " + limit);
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+
+    /**
+     * 校验请求中的 offset：负数拒绝
+     */
+    public static int checkOffset(int offset) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset 不能为负数: " + offset);
+        }
+        return offset;
+    }
+
+    /**
+     * 校验请求中的 nprobe：未指定时返回 null 使用默认值，不在 [1, MAX_NPROBE] 内时拒绝
+     */
+    public static Integer checkNprobe(Integer nprobe) {
+        return checkSearchParam("nprobe", nprobe, MAX_NPROBE);
+    }
+
+    /**
+     * 校验请求中的 ef：未指定时返回 null 使用默认值，不在 [1, MAX_EF] 内时拒绝
+     */
+    public static Integer checkEf(Integer ef) {
+        return checkSearchParam("ef", ef, MAX_EF);
+    }
+
+    private static Integer checkSearchParam(String name, Integer value, int max) {
+        if (value != null && (value < 1 || value > max)) {
+            throw new IllegalArgumentException(name + " 必须在 1 到 " + max + " 之间: " + value);
+        }
+        return value;
     }
 
     public List<LaptopInfo> searchByPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
         return laptopInfoRepository.findByPriceBetween(minPrice, maxPrice);
     }
 
-    public List<LaptopInfo> findSimilarLaptops(String description, int limit) {
-        double[] embedding = embeddingService.generateEmbedding(description);
-        return laptopInfoRepository.findSimilarLaptops(embedding, limit);
+    public List<LaptopInfo> searchByPriceRange(BigDecimal minPrice, BigDecimal maxPrice, int offset, int limit) {
+        return laptopInfoRepository.findByPriceBetween(minPrice, maxPrice, offset, limit);
+    }
+
+    public List<ScoredLaptop> findSimilarLaptops(String description, int limit) {
+        return findSimilarLaptops(description, null, limit);
+    }
+
+    /**
+     * 带过滤条件的相似检索，条件在向量检索内部生效（Milvus 下推为布尔表达式）
+     */
+    public List<ScoredLaptop> findSimilarLaptops(String description, LaptopFilter filter, int limit) {
+        return findSimilarLaptops(description, filter, limit, null);
+    }
+
+    /**
+     * @param options 本次调用的读一致性级别与 nprobe/ef，为空的字段依次使用工具配置、标定结果和 spring.milvus.*
+     */
+    public List<ScoredLaptop> findSimilarLaptops(String description, LaptopFilter filter, int limit,
+                                                 VectorSearchOptions options) {
+        float[] embedding = embeddingService.generateEmbedding(description);
+        return laptopInfoRepository.findSimilarLaptops(embedding, filter, limit,
+                resolveOptions(options, searchConfig.getFindSimilarConsistency()));
     }
 
-    public List<LaptopInfo> findSimilarLaptops(Long laptopId, int limit) {
-        LaptopInfo laptop = laptopInfoRepository.findById(laptopId)
+    public List<ScoredLaptop> findSimilarLaptops(Long laptopId, int limit) {
+        return findSimilarLaptops(laptopId, null, limit, null);
+    }
+
+    public List<ScoredLaptop> findSimilarLaptops(Long laptopId, LaptopFilter filter, int limit,
+                                                 VectorSearchOptions options) {
+        float[] embedding = laptopInfoRepository.findEmbeddingById(laptopId)
                 .orElseThrow(() -> new IllegalArgumentException("Laptop not found with id: " + laptopId));
 
-        return laptopInfoRepository.findSimilarLaptops(laptop.getEmbedding(), limit).stream()
-                .filter(l -> !l.getId().equals(laptopId))
+        // 多取一条，排除参考笔记本自身后仍能返回 limit 条
+        return laptopInfoRepository.findSimilarLaptops(embedding, filter, limit + 1,
+                        resolveOptions(options, searchConfig.getFindSimilarConsistency())).stream()
+                .filter(l -> !l.getLaptop().getId().equals(laptopId))
+                .limit(limit)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * 非阻塞的相似检索：向量化经动态微批在向量化线程上执行，检索回到检索线程池发起，
+     * 向量检索和回表不占用调用线程（如 Tomcat 请求线程）
+     */
+    public CompletableFuture<List<ScoredLaptop>> findSimilarLaptopsAsync(String description, LaptopFilter filter,
+                                                                       int limit, VectorSearchOptions options) {
+        VectorSearchOptions resolved = resolveOptions(options, searchConfig.getFindSimilarConsistency());
+        return embeddingService.generateEmbeddingAsync(description)
+                .thenComposeAsync(embedding -> laptopInfoRepository.findSimilarLaptopsAsync(embedding, filter, limit, resolved),
+                        hybridSearchExecutor);
+    }
+
+    public CompletableFuture<List<ScoredLaptop>> findSimilarLaptopsAsync(Long laptopId, LaptopFilter filter,
+                                                                       int limit, VectorSearchOptions options) {
+        VectorSearchOptions resolved = resolveOptions(options, searchConfig.getFindSimilarConsistency());
+        return CompletableFuture.supplyAsync(() -> laptopInfoRepository.findEmbeddingById(laptopId)
+                        .orElseThrow(() -> new IllegalArgumentException("Laptop not found with id: " + laptopId)),
+                        hybridSearchExecutor)
+                .thenCompose(embedding -> laptopInfoRepository.findSimilarLaptopsAsync(embedding, filter, limit + 1, resolved))
+                .thenApply(results -> results.stream()
+                        .filter(l -> !l.getLaptop().getId().equals(laptopId))
+                        .limit(limit)
+                        .collect(Collectors.toList()));
+    }
+
     public List<LaptopInfo> findByBrand(String brand) {
         return laptopInfoRepository.findByBrand(brand);
     }
 
+    public long countByBrand(String brand) {
+        return laptopInfoRepository.countByBrand(brand);
+    }
+
+    public List<LaptopInfo> searchLaptops(String keyword, LaptopFilter filter, int offset, int limit) {
+        return laptopInfoRepository.findByFilter(keyword, filter, offset, limit);
+    }
+
+    /**
+     * 混合检索：关键词（BM25）与向量两路并发召回，按加权 RRF 融合成一个排序列表。
+     * 两路共享一个时间预算，超时或失败的一路被丢弃，只用另一路的结果
+     * @param query 查询文本，同时作为关键词和向量化的输入
+     * @param filter 品牌/价格过滤条件，可为空
+     * @param limit 返回的最大条数
+     * @return 按融合得分降序的结果，得分为 RRF 分数而非向量距离
+     */
+    public List<ScoredLaptop> hybridSearch(String query, LaptopFilter filter, int limit) {
+        return hybridSearch(query, filter, limit, null);
+    }
+
+    /**
+     * @param options 向量一路的读一致性级别与 nprobe/ef，为空的字段依次使用工具配置、标定结果和 spring.milvus.*
+     */
+    public List<ScoredLaptop> hybridSearch(String query, LaptopFilter filter, int limit, VectorSearchOptions options) {
+        if (query == null || query.trim().isEmpty()) {
+            throw new IllegalArgumentException("混合检索必须提供查询文本");
+        }
+        LaptopFilter criteria = filter != null ? filter : LaptopFilter.empty();
+        int candidates = limit * searchConfig.getCandidateFactor();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(searchConfig.getTimeoutMs());
+
+        CompletableFuture<List<LaptopInfo>> keywordLeg = CompletableFuture.supplyAsync(
+                () -> laptopInfoRepository.findByFilter(query, criteria, 0, candidates), hybridSearchExecutor);
+        VectorSearchOptions vectorOptions = resolveOptions(options, searchConfig.getSearchConsistency());
+        CompletableFuture<List<LaptopInfo>> vectorLeg = CompletableFuture.supplyAsync(
+                () -> vectorCandidates(query, criteria, candidates, vectorOptions), hybridSearchExecutor);
+
+        List<LaptopInfo> keywordHits = awaitLeg("keyword", keywordLeg, deadline);
+        List<LaptopInfo> vectorHits = awaitLeg("vector", vectorLeg, deadline);
+
+        // 加权 RRF：只看名次，不需要把 BM25 分数和向量距离归一到同一尺度
+        Map<Long, LaptopInfo> laptops = new HashMap<>();
+        Map<Long, Double> scores = new HashMap<>();
+        accumulateRrf(keywordHits, searchConfig.getKeywordWeight(), laptops, scores);
+        accumulateRrf(vectorHits, searchConfig.getVectorWeight(), laptops, scores);
+
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(entry -> new ScoredLaptop(laptops.get(entry.getKey()), entry.getValue().floatValue()))
+                .collect(Collectors.toList());
+    }
+
+    private List<LaptopInfo> vectorCandidates(String query, LaptopFilter filter, int candidates,
+                                              VectorSearchOptions options) {
+        float[] embedding = embeddingService.generateEmbedding(query);
+        return laptopInfoRepository.findSimilarLaptops(embedding, filter, candidates, options).stream()
+                .map(ScoredLaptop::getLaptop)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 一致性级别调用参数优先，其次是工具级配置，都为空时留给存储库使用全局默认级别；
+     * 复制一份再填充，不修改调用方传入的对象
+     */
+    private VectorSearchOptions resolveOptions(VectorSearchOptions requested, String toolDefault) {
+        VectorSearchOptions options = requested != null ? requested.copy() : VectorSearchOptions.defaults();
+        if (options.getConsistency() == null) {
+            options.setConsistency(ReadConsistency.parse(toolDefault));
+        }
+        return options;
+    }
+
+    private List<LaptopInfo> awaitLeg(String name, CompletableFuture<List<LaptopInfo>> leg, long deadline) {
+        try {
+            long remaining = Math.max(0, deadline - System.nanoTime());
+            return leg.get(remaining, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            leg.cancel(true);
+            log.warn("Hybrid search {} leg exceeded {} ms budget, dropped", name, searchConfig.getTimeoutMs());
+        } catch (ExecutionException e) {
+            log.warn("Hybrid search {} leg failed, dropped: {}", name, e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            leg.cancel(true);
+        }
+        return Collections.emptyList();
+    }
+
+    private void accumulateRrf(List<LaptopInfo> ranked, double weight,
+                               Map<Long, LaptopInfo> laptops, Map<Long, Double> scores) {
+        int k = searchConfig.getRrfK();
+        for (int rank = 0; rank < ranked.size(); rank++) {
+            LaptopInfo laptop = ranked.get(rank);
+            laptops.putIfAbsent(laptop.getId(), laptop);
+            scores.merge(laptop.getId(), weight / (k + rank + 1), Double::sum);
+        }
+    }
+
     public void refreshLaptopData() {
         try {
             List<LaptopInfo> newLaptops = crawlerService.crawlJdSecondHandLaptops();
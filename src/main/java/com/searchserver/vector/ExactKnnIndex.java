@@ -0,0 +1,183 @@
+package com.searchserver.vector;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 精确 k 近邻：向量按行连续存放在一个 float 矩阵中，查询时全量扫描。
+ * 行数较多时用 fork/join 按行区间切分到多个核上，每段用定长堆取 top-k 后合并。
+ * 删除时把最后一行搬到空位，矩阵始终保持紧凑。
+ */
+public class ExactKnnIndex implements VectorIndex {
+
+    // 每个 fork/join 任务至少扫描的行数，太小时任务调度开销超过计算本身
+    private static final int MIN_ROWS_PER_TASK = 4096;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final int dimension;
+    private final VectorMetric metric;
+    private final ForkJoinPool pool;
+    private final Map<Long, Integer> rows = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private float[] matrix;
+    private long[] ids;
+    private int count;
+
+    public ExactKnnIndex(int dimension, VectorMetric metric) {
+        this(dimension, metric, ForkJoinPool.commonPool());
+    }
+
+    public ExactKnnIndex(int dimension, VectorMetric metric, ForkJoinPool pool) {
+        this.dimension = dimension;
+        this.metric = metric;
+        this.pool = pool;
+        this.matrix = new float[INITIAL_CAPACITY * dimension];
+        this.ids = new long[INITIAL_CAPACITY];
+    }
+
+    @Override
+    public void add(long id, float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("Vector dimension " + vector.length + " does not match " + dimension);
+        }
+        lock.writeLock().lock();
+        try {
+            Integer row = rows.get(id);
+            if (row == null) {
+                ensureCapacity(count + 1);
+                row = count++;
+                rows.put(id, row);
+                ids[row] = id;
+            }
+            System.arraycopy(vector, 0, matrix, row * dimension, dimension);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rows.remove(id);
+            if (row == null) {
+                return;
+            }
+            int last = --count;
+            if (row != last) {
+                System.arraycopy(matrix, last * dimension, matrix, row * dimension, dimension);
+                ids[row] = ids[last];
+                rows.put(ids[row], row);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            rows.clear();
+            count = 0;
+            matrix = new float[INITIAL_CAPACITY * dimension];
+            ids = new long[INITIAL_CAPACITY];
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<VectorHit> search(float[] query, int k) {
+        if (k <= 0) {
+            return Collections.emptyList();
+        }
+        lock.readLock().lock();
+        try {
+            if (count == 0) {
+                return Collections.emptyList();
+            }
+            int topK = Math.min(k, count);
+            TopKCollector top = count <= MIN_ROWS_PER_TASK
+                    ? scan(query, 0, count, topK)
+                    : pool.invoke(new ScanTask(query, 0, count, topK));
+            return top.toHits(metric);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 对一组候选向量做精确重排，用于修正近似索引（如 Milvus IVF/PQ）返回的顺序和得分
+     */
+    public static List<VectorHit> rerank(float[] query, Map<Long, float[]> candidates, VectorMetric metric, int k) {
+        if (candidates.isEmpty() || k <= 0) {
+            return Collections.emptyList();
+        }
+        TopKCollector top = new TopKCollector(Math.min(k, candidates.size()));
+        for (Map.Entry<Long, float[]> candidate : candidates.entrySet()) {
+            top.offer(candidate.getKey(), metric.distance(query, candidate.getValue()));
+        }
+        return top.toHits(metric);
+    }
+
+    private TopKCollector scan(float[] query, int from, int to, int k) {
+        TopKCollector top = new TopKCollector(k);
+        for (int row = from; row < to; row++) {
+            float distance = metric.distance(query, 0, matrix, row * dimension, dimension);
+            if (distance < top.threshold()) {
+                top.offer(ids[row], distance);
+            }
+        }
+        return top;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= ids.length) {
+            return;
+        }
+        int capacity = Math.max(required, ids.length * 2);
+        matrix = Arrays.copyOf(matrix, capacity * dimension);
+        ids = Arrays.copyOf(ids, capacity);
+    }
+
+    private final class ScanTask extends RecursiveTask<TopKCollector> {
+        private final float[] query;
+        private final int from;
+        private final int to;
+        private final int k;
+
+        private ScanTask(float[] query, int from, int to, int k) {
+            this.query = query;
+            this.from = from;
+            this.to = to;
+            this.k = k;
+        }
+
+        @Override
+        protected TopKCollector compute() {
+            if (to - from <= MIN_ROWS_PER_TASK) {
+                return scan(query, from, to, k);
+            }
+            int middle = (from + to) >>> 1;
+            ScanTask left = new ScanTask(query, from, middle, k);
+            left.fork();
+            TopKCollector top = new ScanTask(query, middle, to, k).compute();
+            top.merge(left.join());
+            return top;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.searchserver.vector;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * float[] 向量工具：Milvus SDK 的向量参数类型为 List&lt;Float&gt;，这里提供不复制数组的只读视图
+ */
+public final class FloatVectors {
+
+    private FloatVectors() {
+    }
+
+    public static List<Float> asList(float[] vector) {
+        return new FloatArrayView(vector);
+    }
+
+    public static float cosineSimilarity(float[] vector1, float[] vector2) {
+        if (vector1.length != vector2.length) {
+            throw new IllegalArgumentException("Vectors must have the same dimension");
+        }
+
+        VectorOps ops = VectorOps.get();
+        float norm1 = ops.dot(vector1, vector1);
+        float norm2 = ops.dot(vector2, vector2);
+        if (norm1 == 0 || norm2 == 0) {
+            return 0f;
+        }
+        return (float) (ops.dot(vector1, vector2) / Math.sqrt((double) norm1 * norm2));
+    }
+
+    private static final class FloatArrayView extends AbstractList<Float> implements RandomAccess {
+        private final float[] vector;
+
+        private FloatArrayView(float[] vector) {
+            this.vector = vector;
+        }
+
+        @Override
+        public Float get(int index) {
+            return vector[index];
+        }
+
+        @Override
+        public int size() {
+            return vector.length;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.searchserver.vector;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 一批查询的精确 k 近邻：逐条喂入全量向量，每个查询只保留一个 k 大小的堆，内存与目录大小无关。
+ * 用于评估近似索引的召回率
+ */
+public final class GroundTruth {
+
+    private final List<float[]> queries;
+    private final VectorMetric metric;
+    private final TopKCollector[] collectors;
+
+    public GroundTruth(List<float[]> queries, VectorMetric metric, int k) {
+        this.queries = queries;
+        this.metric = metric;
+        this.collectors = new TopKCollector[queries.size()];
+        for (int i = 0; i < collectors.length; i++) {
+            collectors[i] = new TopKCollector(k);
+        }
+    }
+
+    public void accept(long id, float[] vector) {
+        for (int i = 0; i < collectors.length; i++) {
+            float distance = metric.distance(queries.get(i), vector);
+            if (distance < collectors[i].threshold()) {
+                collectors[i].offer(id, distance);
+            }
+        }
+    }
+
+    /**
+     * 每个查询的精确结果，顺序与构造时的查询一致；调用后不可再 accept
+     */
+    public List<List<VectorHit>> results() {
+        List<List<VectorHit>> results = new ArrayList<>(collectors.length);
+        for (TopKCollector collector : collectors) {
+            results.add(collector.toHits(metric));
+        }
+        return results;
+    }
+
+    /**
+     * recall@k：近似结果中命中精确结果的比例
+     */
+    public static double recall(List<VectorHit> expected, List<VectorHit> actual) {
+        if (expected.isEmpty()) {
+            return 1.0;
+        }
+        Set<Long> expectedIds = new HashSet<>();
+        for (VectorHit hit : expected) {
+            expectedIds.add(hit.getId());
+        }
+        int matched = 0;
+        for (VectorHit hit : actual) {
+            if (expectedIds.contains(hit.getId())) {
+                matched++;
+            }
+        }
+        return (double) matched / expected.size();
+    }
+}
@@ -0,0 +1,362 @@
+package com.searchserver.vector;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+
+/**
+ * 进程内 HNSW 近似最近邻索引（Malkov &amp; Yashunin）。
+ * 并发插入/删除：节点邻居表为写时复制数组，修改时锁住该节点；只有新节点层数超过入口点时才持有全局锁。
+ * 删除为逻辑删除，被删节点仍参与图遍历但不会出现在结果中；墓碑（deletedCount）占比过高时，
+ * 由使用方用 forEach 把存活向量重建成一张新图后整体替换。
+ */
+public class HnswIndex implements VectorIndex {
+
+    private static final int MAX_LEVEL = 16;
+
+    private final int dimension;
+    private final VectorMetric metric;
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private volatile int efSearch;
+    private final double levelMultiplier;
+
+    private final Map<Long, Node> nodes = new ConcurrentHashMap<>();
+    private final ReentrantLock entryLock = new ReentrantLock();
+    private final AtomicInteger deletedCount = new AtomicInteger();
+    private volatile Node entryPoint;
+
+    public HnswIndex(int dimension, VectorMetric metric, int m, int efConstruction, int efSearch) {
+        if (m < 2) {
+            throw new IllegalArgumentException("M must be at least 2");
+        }
+        this.dimension = dimension;
+        this.metric = metric;
+        this.m = m;
+        this.maxM0 = m * 2;
+        this.efConstruction = Math.max(efConstruction, m);
+        this.efSearch = efSearch;
+        this.levelMultiplier = 1 / Math.log(m);
+    }
+
+    /**
+     * 插入或覆盖向量；同 id 的旧节点被逻辑删除
+     */
+    @Override
+    public void add(long id, float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("Vector dimension " + vector.length + " does not match " + dimension);
+        }
+        Node node = new Node(id, vector, randomLevel());
+        Node replaced = nodes.put(id, node);
+        if (replaced != null) {
+            markDeleted(replaced);
+        }
+
+        entryLock.lock();
+        boolean holdsLock = true;
+        try {
+            Node entry = entryPoint;
+            if (entry == null) {
+                entryPoint = node;
+                return;
+            }
+            // 不会成为新入口点的插入无需持有全局锁
+            if (node.level <= entry.level) {
+                entryLock.unlock();
+                holdsLock = false;
+            }
+            insert(node, entry);
+            if (holdsLock) {
+                entryPoint = node;
+            }
+        } finally {
+            if (holdsLock) {
+                entryLock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public void remove(long id) {
+        Node node = nodes.remove(id);
+        if (node != null) {
+            markDeleted(node);
+        }
+    }
+
+    @Override
+    public void clear() {
+        entryLock.lock();
+        try {
+            nodes.clear();
+            entryPoint = null;
+            deletedCount.set(0);
+        } finally {
+            entryLock.unlock();
+        }
+    }
+
+    @Override
+    public List<VectorHit> search(float[] query, int k) {
+        return search(query, k, efSearch);
+    }
+
+    /**
+     * 以指定的候选队列长度检索，用于单次请求覆盖 efSearch 或参数标定
+     */
+    public List<VectorHit> search(float[] query, int k, int ef) {
+        Node entry = entryPoint;
+        if (entry == null || k <= 0) {
+            return Collections.emptyList();
+        }
+        Candidate nearest = greedySearch(query, entry, entry.level, 0);
+        PriorityQueue<Candidate> found = searchLayer(query, Collections.singletonList(nearest),
+                Math.max(ef, k), 0, true);
+
+        List<Candidate> sorted = sortAscending(found);
+        List<VectorHit> hits = new ArrayList<>(Math.min(k, sorted.size()));
+        for (int i = 0; i < sorted.size() && hits.size() < k; i++) {
+            Candidate candidate = sorted.get(i);
+            hits.add(new VectorHit(candidate.node.id, metric.toScore(candidate.distance)));
+        }
+        return hits;
+    }
+
+    @Override
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * 被删除或被覆盖、仍留在图中的节点数
+     */
+    public int deletedCount() {
+        return deletedCount.get();
+    }
+
+    /**
+     * 遍历未删除的向量，不包含墓碑
+     */
+    public void forEach(BiConsumer<Long, float[]> consumer) {
+        for (Node node : nodes.values()) {
+            consumer.accept(node.id, node.vector);
+        }
+    }
+
+    public int getEfSearch() {
+        return efSearch;
+    }
+
+    public void setEfSearch(int efSearch) {
+        this.efSearch = efSearch;
+    }
+
+    private void insert(Node node, Node entry) {
+        Candidate nearest = greedySearch(node.vector, entry, entry.level, node.level);
+        List<Candidate> entryPoints = Collections.singletonList(nearest);
+        for (int level = Math.min(node.level, entry.level); level >= 0; level--) {
+            List<Candidate> candidates = sortAscending(
+                    searchLayer(node.vector, entryPoints, efConstruction, level, false));
+            Node[] selected = selectNeighbors(candidates, m);
+            synchronized (node) {
+                // 上层连通后其他线程可能已向本层追加了反向边，需要合并而不是覆盖
+                Node[] existing = node.neighbors.get(level);
+                node.neighbors.set(level, existing.length == 0 ? selected : merge(node, existing, selected, level));
+            }
+            for (Node neighbor : selected) {
+                connect(neighbor, node, level);
+            }
+            entryPoints = candidates;
+        }
+    }
+
+    /**
+     * 把 node 加入 neighbor 在该层的邻居表，超出上限时按启发式重新裁剪
+     */
+    private void connect(Node neighbor, Node node, int level) {
+        int max = level == 0 ? maxM0 : m;
+        synchronized (neighbor) {
+            Node[] current = neighbor.neighbors.get(level);
+            Node[] updated;
+            if (current.length < max) {
+                updated = Arrays.copyOf(current, current.length + 1);
+                updated[current.length] = node;
+            } else {
+                List<Candidate> candidates = new ArrayList<>(current.length + 1);
+                for (Node n : current) {
+                    candidates.add(new Candidate(n, metric.distance(neighbor.vector, n.vector)));
+                }
+                candidates.add(new Candidate(node, metric.distance(neighbor.vector, node.vector)));
+                candidates.sort(Candidate.ASCENDING);
+                updated = selectNeighbors(candidates, max);
+            }
+            neighbor.neighbors.set(level, updated);
+        }
+    }
+
+    private Node[] merge(Node node, Node[] existing, Node[] selected, int level) {
+        Set<Node> union = new LinkedHashSet<>(Arrays.asList(selected));
+        union.addAll(Arrays.asList(existing));
+        int max = level == 0 ? maxM0 : m;
+        if (union.size() <= max) {
+            return union.toArray(new Node[0]);
+        }
+        List<Candidate> candidates = new ArrayList<>(union.size());
+        for (Node n : union) {
+            candidates.add(new Candidate(n, metric.distance(node.vector, n.vector)));
+        }
+        candidates.sort(Candidate.ASCENDING);
+        return selectNeighbors(candidates, max);
+    }
+
+    /**
+     * 启发式选邻：候选只有在比已选邻居更靠近查询点时才入选，保留不同方向的边；不足时用被裁掉的候选补齐
+     */
+    private Node[] selectNeighbors(List<Candidate> sortedCandidates, int max) {
+        List<Node> selected = new ArrayList<>(max);
+        List<Node> pruned = new ArrayList<>();
+        for (Candidate candidate : sortedCandidates) {
+            if (selected.size() >= max) {
+                break;
+            }
+            boolean diverse = true;
+            for (Node chosen : selected) {
+                if (metric.distance(candidate.node.vector, chosen.vector) < candidate.distance) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected.add(candidate.node);
+            } else {
+                pruned.add(candidate.node);
+            }
+        }
+        for (int i = 0; i < pruned.size() && selected.size() < max; i++) {
+            selected.add(pruned.get(i));
+        }
+        return selected.toArray(new Node[0]);
+    }
+
+    /**
+     * 从 fromLevel 逐层贪心下降到 toLevel（不含），返回最后一层找到的最近节点
+     */
+    private Candidate greedySearch(float[] query, Node entry, int fromLevel, int toLevel) {
+        Node current = entry;
+        float currentDistance = metric.distance(query, current.vector);
+        for (int level = fromLevel; level > toLevel; level--) {
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (Node neighbor : current.neighbors.get(level)) {
+                    float distance = metric.distance(query, neighbor.vector);
+                    if (distance < currentDistance) {
+                        current = neighbor;
+                        currentDistance = distance;
+                        changed = true;
+                    }
+                }
+            }
+        }
+        return new Candidate(current, currentDistance);
+    }
+
+    /**
+     * 单层 beam search，返回以距离为堆顶的最大堆（最多 ef 个）
+     */
+    private PriorityQueue<Candidate> searchLayer(float[] query, List<Candidate> entryPoints, int ef,
+                                                 int level, boolean skipDeleted) {
+        Set<Node> visited = new HashSet<>();
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>(Candidate.ASCENDING);
+        PriorityQueue<Candidate> results = new PriorityQueue<>(Candidate.ASCENDING.reversed());
+        for (Candidate entry : entryPoints) {
+            if (visited.add(entry.node)) {
+                candidates.add(entry);
+                if (!skipDeleted || !entry.node.deleted) {
+                    results.add(entry);
+                }
+            }
+        }
+        while (results.size() > ef) {
+            results.poll();
+        }
+
+        while (!candidates.isEmpty()) {
+            Candidate closest = candidates.poll();
+            if (results.size() >= ef && closest.distance > results.peek().distance) {
+                break;
+            }
+            for (Node neighbor : closest.node.neighbors.get(level)) {
+                if (!visited.add(neighbor)) {
+                    continue;
+                }
+                float distance = metric.distance(query, neighbor.vector);
+                if (results.size() < ef || distance < results.peek().distance) {
+                    Candidate candidate = new Candidate(neighbor, distance);
+                    candidates.add(candidate);
+                    // 被删除的节点只用于导航
+                    if (!skipDeleted || !neighbor.deleted) {
+                        results.add(candidate);
+                        if (results.size() > ef) {
+                            results.poll();
+                        }
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    private List<Candidate> sortAscending(PriorityQueue<Candidate> heap) {
+        List<Candidate> sorted = new ArrayList<>(heap);
+        sorted.sort(Candidate.ASCENDING);
+        return sorted;
+    }
+
+    private void markDeleted(Node node) {
+        node.deleted = true;
+        deletedCount.incrementAndGet();
+    }
+
+    private int randomLevel() {
+        double r = 1 - ThreadLocalRandom.current().nextDouble();
+        return Math.min((int) (-Math.log(r) * levelMultiplier), MAX_LEVEL);
+    }
+
+    private static final class Node {
+        private final long id;
+        private final float[] vector;
+        private final int level;
+        // 每层一个邻居数组，整体替换以便读者无锁遍历
+        private final AtomicReferenceArray<Node[]> neighbors;
+        private volatile boolean deleted;
+
+        private Node(long id, float[] vector, int level) {
+            this.id = id;
+            this.vector = vector;
+            this.level = level;
+            this.neighbors = new AtomicReferenceArray<>(level + 1);
+            for (int i = 0; i <= level; i++) {
+                neighbors.set(i, new Node[0]);
+            }
+        }
+    }
+
+    private static final class Candidate {
+        private static final Comparator<Candidate> ASCENDING = (a, b) -> Float.compare(a.distance, b.distance);
+
+        private final Node node;
+        private final float distance;
+
+        private Candidate(Node node, float distance) {
+            this.node = node;
+            this.distance = distance;
+        }
+    }
+}
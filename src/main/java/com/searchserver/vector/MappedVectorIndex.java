@@ -0,0 +1,331 @@
+package com.searchserver.vector;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+
+/**
+ * 基于内存映射段文件的精确检索索引：重启后直接映射已有文件即可检索，无需反序列化目录。
+ * 写入追加到段尾，覆盖和删除只把旧行标记为墓碑；墓碑比例超过阈值或容量用尽时压缩到新文件并原子替换。
+ * 头部保存调用方写入的水位，用于重启时判断段文件是否落后于数据源。
+ */
+public class MappedVectorIndex implements VectorIndex, Closeable {
+
+    private static final int MIN_ROWS_PER_TASK = 4096;
+    private static final int INITIAL_CAPACITY = 1024;
+    // 行数太少时压缩收益不大
+    private static final int MIN_ROWS_FOR_COMPACTION = 1024;
+
+    private final Path path;
+    private final int dimension;
+    private final VectorMetric metric;
+    private final double compactRatio;
+    private final ForkJoinPool pool = ForkJoinPool.commonPool();
+    private final Map<Long, Integer> rows = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private VectorSegment segment;
+    private int deleted;
+
+    /**
+     * 打开已有段文件；文件不存在、损坏或维度不一致时新建空文件，由调用方从Redis重新加载
+     */
+    public MappedVectorIndex(Path path, int dimension, VectorMetric metric, double compactRatio) throws IOException {
+        this.path = path;
+        this.dimension = dimension;
+        this.metric = metric;
+        this.compactRatio = compactRatio;
+
+        VectorSegment existing = null;
+        if (Files.exists(path)) {
+            try {
+                existing = VectorSegment.open(path);
+            } catch (IOException e) {
+                existing = null;
+            }
+        }
+        if (existing != null && existing.dimension() == dimension) {
+            segment = existing;
+            loadRows();
+        } else {
+            if (existing != null) {
+                existing.close();
+            }
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            segment = VectorSegment.create(path, dimension, INITIAL_CAPACITY);
+        }
+    }
+
+    private void loadRows() {
+        // 只扫描 id 列；同一 id 出现多次时以最后写入的行为准
+        for (int row = 0; row < segment.rowCount(); row++) {
+            long id = segment.id(row);
+            if (id == VectorSegment.TOMBSTONE) {
+                deleted++;
+                continue;
+            }
+            Integer previous = rows.put(id, row);
+            if (previous != null) {
+                segment.markDeleted(previous);
+                deleted++;
+            }
+        }
+    }
+
+    @Override
+    public void add(long id, float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("Vector dimension " + vector.length + " does not match " + dimension);
+        }
+        lock.writeLock().lock();
+        try {
+            if (segment.rowCount() >= segment.capacity()) {
+                compactInternal(Math.max(INITIAL_CAPACITY, (rows.size() + 1) * 2));
+            }
+            // 先追加新行再标记旧行，中途退出时重启按最后一行恢复
+            int row = segment.append(id, vector);
+            Integer previous = rows.put(id, row);
+            if (previous != null) {
+                segment.markDeleted(previous);
+                deleted++;
+                maybeCompact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rows.remove(id);
+            if (row != null) {
+                segment.markDeleted(row);
+                deleted++;
+                maybeCompact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            rows.clear();
+            compactInternal(INITIAL_CAPACITY);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<VectorHit> search(float[] query, int k) {
+        if (k <= 0) {
+            return Collections.emptyList();
+        }
+        lock.readLock().lock();
+        try {
+            if (rows.isEmpty()) {
+                return Collections.emptyList();
+            }
+            int topK = Math.min(k, rows.size());
+            int rowCount = segment.rowCount();
+            TopKCollector top = rowCount <= MIN_ROWS_PER_TASK
+                    ? scan(segment, query, 0, rowCount, topK)
+                    : pool.invoke(new ScanTask(segment, query, 0, rowCount, topK));
+            return top.toHits(metric);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return rows.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 按行号顺序遍历存活的向量，每次回调拿到一份拷贝
+     */
+    public void forEach(BiConsumer<Long, float[]> consumer) {
+        lock.readLock().lock();
+        try {
+            for (int row = 0; row < segment.rowCount(); row++) {
+                long id = segment.id(row);
+                if (id != VectorSegment.TOMBSTONE) {
+                    float[] vector = new float[dimension];
+                    segment.readVector(row, vector);
+                    consumer.accept(id, vector);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 当前存活的 id 集合（拷贝）
+     */
+    public Set<Long> ids() {
+        lock.readLock().lock();
+        try {
+            return new HashSet<>(rows.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 段文件中记录的数据源水位，从未写入时返回 -1
+     */
+    public long watermark() {
+        lock.readLock().lock();
+        try {
+            return segment.watermark();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 记录数据源水位并把段文件刷到磁盘，保证水位不会先于它所描述的行落盘
+     */
+    public void setWatermark(long watermark) {
+        lock.writeLock().lock();
+        try {
+            segment.force();
+            segment.setWatermark(watermark);
+            segment.force();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int deletedCount() {
+        lock.readLock().lock();
+        try {
+            return deleted;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 把存活行复制到新段文件并原子替换，回收墓碑占用的空间
+     */
+    public void compact() {
+        lock.writeLock().lock();
+        try {
+            compactInternal(Math.max(INITIAL_CAPACITY, rows.size() * 2));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            segment.force();
+            segment.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void maybeCompact() {
+        int rowCount = segment.rowCount();
+        if (rowCount >= MIN_ROWS_FOR_COMPACTION && deleted > rowCount * compactRatio) {
+            compactInternal(Math.max(INITIAL_CAPACITY, rows.size() * 2));
+        }
+    }
+
+    private void compactInternal(int capacity) {
+        Path temp = path.resolveSibling(path.getFileName() + ".compact");
+        try {
+            VectorSegment compacted = VectorSegment.create(temp, dimension, capacity);
+            Map<Long, Integer> newRows = new HashMap<>(rows.size() * 2);
+            float[] vector = new float[dimension];
+            for (Map.Entry<Long, Integer> entry : rows.entrySet()) {
+                segment.readVector(entry.getValue(), vector);
+                newRows.put(entry.getKey(), compacted.append(entry.getKey(), vector));
+            }
+            compacted.setWatermark(segment.watermark());
+            compacted.force();
+            // 新文件已打开，替换路径后继续使用同一个映射
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            segment.close();
+            segment = compacted;
+            rows.clear();
+            rows.putAll(newRows);
+            deleted = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to compact vector segment " + path, e);
+        }
+    }
+
+    private TopKCollector scan(VectorSegment source, float[] query, int from, int to, int k) {
+        TopKCollector top = new TopKCollector(k);
+        ByteBuffer buffer = source.buffer();
+        for (int row = from; row < to; row++) {
+            long id = source.id(row);
+            if (id == VectorSegment.TOMBSTONE) {
+                continue;
+            }
+            float distance = metric.distance(query, buffer, source.vectorOffset(row), dimension);
+            if (distance < top.threshold()) {
+                top.offer(id, distance);
+            }
+        }
+        return top;
+    }
+
+    private final class ScanTask extends RecursiveTask<TopKCollector> {
+        private final VectorSegment source;
+        private final float[] query;
+        private final int from;
+        private final int to;
+        private final int k;
+
+        private ScanTask(VectorSegment source, float[] query, int from, int to, int k) {
+            this.source = source;
+            this.query = query;
+            this.from = from;
+            this.to = to;
+            this.k = k;
+        }
+
+        @Override
+        protected TopKCollector compute() {
+            if (to - from <= MIN_ROWS_PER_TASK) {
+                return scan(source, query, from, to, k);
+            }
+            int middle = (from + to) >>> 1;
+            ScanTask left = new ScanTask(source, query, from, middle, k);
+            left.fork();
+            TopKCollector top = new ScanTask(source, query, middle, to, k).compute();
+            top.merge(left.join());
+            return top;
+        }
+    }
+}
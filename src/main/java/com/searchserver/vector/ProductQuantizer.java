@@ -0,0 +1,160 @@
+package com.searchserver.vector;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * 乘积量化：向量切成 m 个子空间，每个子空间用 k-means 训练 256 个中心，编码为 m 个字节。
+ * 查询时先算出每个子空间到各中心的距离表，码字距离即 m 次查表求和。
+ */
+public class ProductQuantizer implements VectorQuantizer {
+
+    private static final int CENTROIDS = 256;
+    private static final int ITERATIONS = 10;
+    // 每个中心约 16 个样本即可收敛，更多样本只会拖慢训练
+    private static final int MAX_TRAINING_SIZE = CENTROIDS * 16;
+
+    private final int dimension;
+    private final int subspaces;
+    private final int subDimension;
+    private final VectorMetric metric;
+    // [子空间][中心 * subDimension]
+    private float[][] codebooks;
+    private int centroidCount;
+
+    public ProductQuantizer(int dimension, int subspaces, VectorMetric metric) {
+        if (dimension % subspaces != 0) {
+            throw new IllegalArgumentException("Dimension " + dimension + " is not divisible by " + subspaces);
+        }
+        this.dimension = dimension;
+        this.subspaces = subspaces;
+        this.subDimension = dimension / subspaces;
+        this.metric = metric;
+    }
+
+    @Override
+    public void train(List<float[]> sample) {
+        if (sample.isEmpty()) {
+            throw new IllegalArgumentException("Training sample is empty");
+        }
+        List<float[]> training = sample.size() > MAX_TRAINING_SIZE ? sample.subList(0, MAX_TRAINING_SIZE) : sample;
+        int k = Math.min(CENTROIDS, training.size());
+        float[][] trained = new float[subspaces][];
+        // 各子空间相互独立，并行训练
+        IntStream.range(0, subspaces).parallel()
+                .forEach(s -> trained[s] = kMeans(training, s * subDimension, k, new Random(s)));
+        this.centroidCount = k;
+        this.codebooks = trained;
+    }
+
+    private float[] kMeans(List<float[]> sample, int offset, int k, Random random) {
+        int n = sample.size();
+        float[] centroids = new float[k * subDimension];
+        // 随机选取不重复的样本作为初始中心
+        int[] order = IntStream.range(0, n).toArray();
+        for (int i = 0; i < k; i++) {
+            int j = i + random.nextInt(n - i);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+            System.arraycopy(sample.get(order[i]), offset, centroids, i * subDimension, subDimension);
+        }
+
+        int[] assignment = new int[n];
+        float[] sums = new float[k * subDimension];
+        int[] counts = new int[k];
+        for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+            for (int i = 0; i < n; i++) {
+                assignment[i] = nearest(sample.get(i), offset, centroids, k);
+            }
+            Arrays.fill(sums, 0f);
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < n; i++) {
+                float[] vector = sample.get(i);
+                int c = assignment[i];
+                counts[c]++;
+                for (int d = 0; d < subDimension; d++) {
+                    sums[c * subDimension + d] += vector[offset + d];
+                }
+            }
+            for (int c = 0; c < k; c++) {
+                if (counts[c] == 0) {
+                    // 空簇重新取一个随机样本
+                    System.arraycopy(sample.get(random.nextInt(n)), offset, centroids, c * subDimension, subDimension);
+                    continue;
+                }
+                for (int d = 0; d < subDimension; d++) {
+                    centroids[c * subDimension + d] = sums[c * subDimension + d] / counts[c];
+                }
+            }
+        }
+        return centroids;
+    }
+
+    private int nearest(float[] vector, int offset, float[] centroids, int k) {
+        int best = 0;
+        float bestDistance = Float.POSITIVE_INFINITY;
+        for (int c = 0; c < k; c++) {
+            // 子空间维度很小（通常 4-16），直接标量循环，并在超过当前最优时提前退出
+            int base = c * subDimension;
+            float distance = 0f;
+            for (int d = 0; d < subDimension && distance < bestDistance; d++) {
+                float diff = vector[offset + d] - centroids[base + d];
+                distance += diff * diff;
+            }
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public boolean isTrained() {
+        return codebooks != null;
+    }
+
+    @Override
+    public int codeSize() {
+        return subspaces;
+    }
+
+    @Override
+    public void encode(float[] vector, byte[] codes, int offset) {
+        for (int s = 0; s < subspaces; s++) {
+            codes[offset + s] = (byte) nearest(vector, s * subDimension, codebooks[s], centroidCount);
+        }
+    }
+
+    @Override
+    public Distance prepare(float[] query) {
+        // 距离表按 [子空间 * 256 + 中心] 平铺
+        float[] table = new float[subspaces * CENTROIDS];
+        for (int s = 0; s < subspaces; s++) {
+            for (int c = 0; c < centroidCount; c++) {
+                table[s * CENTROIDS + c] = metric.distance(query, s * subDimension,
+                        codebooks[s], c * subDimension, subDimension);
+            }
+        }
+        return (codes, offset) -> {
+            float sum = 0f;
+            for (int s = 0; s < subspaces; s++) {
+                sum += table[s * CENTROIDS + (codes[offset + s] & 0xFF)];
+            }
+            return sum;
+        };
+    }
+
+    @Override
+    public long memoryBytes() {
+        return (long) subspaces * centroidCount * subDimension * Float.BYTES;
+    }
+
+    @Override
+    public String toString() {
+        return "pq" + subspaces;
+    }
+}
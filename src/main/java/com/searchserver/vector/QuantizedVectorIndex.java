@@ -0,0 +1,206 @@
+package com.searchserver.vector;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * 量化向量索引：堆内只保存量化码，查询先用 ADC 扫描码表取 k*rerankFactor 个候选，
+ * 再取回候选的全精度向量（如从Redis）精确重排。
+ * 量化器训练前写入的向量以原始形式暂存，攒够 minTrainingSize 条后自动训练并编码。
+ */
+public class QuantizedVectorIndex implements VectorIndex {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final int dimension;
+    private final VectorMetric metric;
+    private final VectorQuantizer quantizer;
+    private final int rerankFactor;
+    private final int minTrainingSize;
+    private final Function<List<Long>, Map<Long, float[]>> fullVectors;
+    private final Map<Long, Integer> rows = new HashMap<>();
+    private final Map<Long, float[]> pending = new LinkedHashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private byte[] codes;
+    private long[] ids;
+    private int count;
+
+    /**
+     * @param fullVectors 按 id 批量取回全精度向量，用于重排；缺失的 id 直接丢弃
+     */
+    public QuantizedVectorIndex(int dimension, VectorMetric metric, VectorQuantizer quantizer, int rerankFactor,
+                                int minTrainingSize, Function<List<Long>, Map<Long, float[]>> fullVectors) {
+        this.dimension = dimension;
+        this.metric = metric;
+        this.quantizer = quantizer;
+        this.rerankFactor = Math.max(1, rerankFactor);
+        this.minTrainingSize = minTrainingSize;
+        this.fullVectors = fullVectors;
+        this.codes = new byte[INITIAL_CAPACITY * quantizer.codeSize()];
+        this.ids = new long[INITIAL_CAPACITY];
+    }
+
+    /**
+     * 用样本（重新）训练量化器并清空已有编码，调用方随后重新 add 全量向量
+     */
+    public void train(List<float[]> sample) {
+        lock.writeLock().lock();
+        try {
+            quantizer.train(sample);
+            rows.clear();
+            pending.clear();
+            count = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void add(long id, float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("Vector dimension " + vector.length + " does not match " + dimension);
+        }
+        lock.writeLock().lock();
+        try {
+            if (!quantizer.isTrained()) {
+                pending.put(id, vector);
+                if (pending.size() >= minTrainingSize) {
+                    quantizer.train(new ArrayList<>(pending.values()));
+                    pending.forEach(this::encodeRow);
+                    pending.clear();
+                }
+                return;
+            }
+            encodeRow(id, vector);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void encodeRow(long id, float[] vector) {
+        Integer row = rows.get(id);
+        if (row == null) {
+            ensureCapacity(count + 1);
+            row = count++;
+            rows.put(id, row);
+            ids[row] = id;
+        }
+        quantizer.encode(vector, codes, row * quantizer.codeSize());
+    }
+
+    @Override
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            pending.remove(id);
+            Integer row = rows.remove(id);
+            if (row == null) {
+                return;
+            }
+            int codeSize = quantizer.codeSize();
+            int last = --count;
+            if (row != last) {
+                System.arraycopy(codes, last * codeSize, codes, row * codeSize, codeSize);
+                ids[row] = ids[last];
+                rows.put(ids[row], row);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            rows.clear();
+            pending.clear();
+            count = 0;
+            codes = new byte[INITIAL_CAPACITY * quantizer.codeSize()];
+            ids = new long[INITIAL_CAPACITY];
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<VectorHit> search(float[] query, int k) {
+        List<VectorHit> candidates = searchCodes(query, k * rerankFactor);
+        if (candidates.isEmpty() || rerankFactor == 1) {
+            return candidates.size() > k ? candidates.subList(0, k) : candidates;
+        }
+        // 在锁外取回全精度向量，避免远程IO阻塞写入
+        List<Long> candidateIds = new ArrayList<>(candidates.size());
+        candidates.forEach(hit -> candidateIds.add(hit.getId()));
+        return ExactKnnIndex.rerank(query, fullVectors.apply(candidateIds), metric, k);
+    }
+
+    /**
+     * 只用量化码做 ADC 检索（不重排），得分为近似值
+     */
+    public List<VectorHit> searchCodes(float[] query, int k) {
+        if (k <= 0) {
+            return Collections.emptyList();
+        }
+        lock.readLock().lock();
+        try {
+            int total = count + pending.size();
+            if (total == 0) {
+                return Collections.emptyList();
+            }
+            TopKCollector top = new TopKCollector(Math.min(k, total));
+            if (count > 0) {
+                VectorQuantizer.Distance distance = quantizer.prepare(query);
+                int codeSize = quantizer.codeSize();
+                for (int row = 0; row < count; row++) {
+                    top.offer(ids[row], distance.distance(codes, row * codeSize));
+                }
+            }
+            for (Map.Entry<Long, float[]> entry : pending.entrySet()) {
+                top.offer(entry.getKey(), metric.distance(query, entry.getValue()));
+            }
+            return top.toHits(metric);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return count + pending.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 常驻堆内存：量化码 + id 列 + 码本 + 尚未编码的原始向量
+     */
+    public long memoryBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) count * (quantizer.codeSize() + Long.BYTES)
+                    + quantizer.memoryBytes()
+                    + (long) pending.size() * dimension * Float.BYTES;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public VectorQuantizer getQuantizer() {
+        return quantizer;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= ids.length) {
+            return;
+        }
+        int capacity = Math.max(required, ids.length * 2);
+        codes = Arrays.copyOf(codes, capacity * quantizer.codeSize());
+        ids = Arrays.copyOf(ids, capacity);
+    }
+}
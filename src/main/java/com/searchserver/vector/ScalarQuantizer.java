@@ -0,0 +1,105 @@
+package com.searchserver.vector;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * int8 标量量化：每个维度按训练样本的最小/最大值线性映射到 0-255，压缩比 4:1
+ */
+public class ScalarQuantizer implements VectorQuantizer {
+
+    private final int dimension;
+    private final VectorMetric metric;
+    private float[] min;
+    private float[] scale;
+
+    public ScalarQuantizer(int dimension, VectorMetric metric) {
+        this.dimension = dimension;
+        this.metric = metric;
+    }
+
+    @Override
+    public void train(List<float[]> sample) {
+        if (sample.isEmpty()) {
+            throw new IllegalArgumentException("Training sample is empty");
+        }
+        float[] low = new float[dimension];
+        float[] high = new float[dimension];
+        Arrays.fill(low, Float.POSITIVE_INFINITY);
+        Arrays.fill(high, Float.NEGATIVE_INFINITY);
+        for (float[] vector : sample) {
+            for (int d = 0; d < dimension; d++) {
+                low[d] = Math.min(low[d], vector[d]);
+                high[d] = Math.max(high[d], vector[d]);
+            }
+        }
+        float[] step = new float[dimension];
+        for (int d = 0; d < dimension; d++) {
+            step[d] = high[d] > low[d] ? (high[d] - low[d]) / 255f : 1f;
+        }
+        this.scale = step;
+        this.min = low;
+    }
+
+    @Override
+    public boolean isTrained() {
+        return min != null;
+    }
+
+    @Override
+    public int codeSize() {
+        return dimension;
+    }
+
+    @Override
+    public void encode(float[] vector, byte[] codes, int offset) {
+        for (int d = 0; d < dimension; d++) {
+            // 超出训练范围的值截断到边界
+            int code = Math.round((vector[d] - min[d]) / scale[d]);
+            codes[offset + d] = (byte) Math.max(0, Math.min(255, code));
+        }
+    }
+
+    @Override
+    public Distance prepare(float[] query) {
+        if (metric == VectorMetric.IP) {
+            // q·(min + c*scale) = q·min + Σ (q*scale)·c
+            float[] weights = new float[dimension];
+            float bias = 0f;
+            for (int d = 0; d < dimension; d++) {
+                weights[d] = query[d] * scale[d];
+                bias += query[d] * min[d];
+            }
+            float constant = bias;
+            return (codes, offset) -> {
+                float sum = constant;
+                for (int d = 0; d < dimension; d++) {
+                    sum += weights[d] * (codes[offset + d] & 0xFF);
+                }
+                return -sum;
+            };
+        }
+        float[] shifted = new float[dimension];
+        for (int d = 0; d < dimension; d++) {
+            shifted[d] = query[d] - min[d];
+        }
+        return (codes, offset) -> {
+            float sum = 0f;
+            for (int d = 0; d < dimension; d++) {
+                float diff = shifted[d] - (codes[offset + d] & 0xFF) * scale[d];
+                sum += diff * diff;
+            }
+            return sum;
+        };
+    }
+
+    @Override
+    public long memoryBytes() {
+        return 2L * dimension * Float.BYTES;
+    }
+
+    @Override
+    public String toString() {
+        return "sq8";
+    }
+}
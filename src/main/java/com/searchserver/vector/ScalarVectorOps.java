@@ -0,0 +1,102 @@
+package com.searchserver.vector;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 标量实现，四路展开减少循环依赖
+ */
+final class ScalarVectorOps implements VectorOps {
+
+    @Override
+    public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        float s0 = 0f;
+        float s1 = 0f;
+        float s2 = 0f;
+        float s3 = 0f;
+        int i = 0;
+        for (; i + 3 < length; i += 4) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+            s1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+            s2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+            s3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+        }
+        for (; i < length; i++) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    @Override
+    public float squaredL2(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        float s0 = 0f;
+        float s1 = 0f;
+        float s2 = 0f;
+        float s3 = 0f;
+        int i = 0;
+        for (; i + 3 < length; i += 4) {
+            float d0 = a[aOffset + i] - b[bOffset + i];
+            float d1 = a[aOffset + i + 1] - b[bOffset + i + 1];
+            float d2 = a[aOffset + i + 2] - b[bOffset + i + 2];
+            float d3 = a[aOffset + i + 3] - b[bOffset + i + 3];
+            s0 += d0 * d0;
+            s1 += d1 * d1;
+            s2 += d2 * d2;
+            s3 += d3 * d3;
+        }
+        for (; i < length; i++) {
+            float d = a[aOffset + i] - b[bOffset + i];
+            s0 += d * d;
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    @Override
+    public float dot(float[] a, ByteBuffer b, int bOffset, int length) {
+        float s0 = 0f;
+        float s1 = 0f;
+        float s2 = 0f;
+        float s3 = 0f;
+        int i = 0;
+        for (; i + 3 < length; i += 4) {
+            int offset = bOffset + i * Float.BYTES;
+            s0 += a[i] * b.getFloat(offset);
+            s1 += a[i + 1] * b.getFloat(offset + 4);
+            s2 += a[i + 2] * b.getFloat(offset + 8);
+            s3 += a[i + 3] * b.getFloat(offset + 12);
+        }
+        for (; i < length; i++) {
+            s0 += a[i] * b.getFloat(bOffset + i * Float.BYTES);
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    @Override
+    public float squaredL2(float[] a, ByteBuffer b, int bOffset, int length) {
+        float s0 = 0f;
+        float s1 = 0f;
+        float s2 = 0f;
+        float s3 = 0f;
+        int i = 0;
+        for (; i + 3 < length; i += 4) {
+            int offset = bOffset + i * Float.BYTES;
+            float d0 = a[i] - b.getFloat(offset);
+            float d1 = a[i + 1] - b.getFloat(offset + 4);
+            float d2 = a[i + 2] - b.getFloat(offset + 8);
+            float d3 = a[i + 3] - b.getFloat(offset + 12);
+            s0 += d0 * d0;
+            s1 += d1 * d1;
+            s2 += d2 * d2;
+            s3 += d3 * d3;
+        }
+        for (; i < length; i++) {
+            float d = a[i] - b.getFloat(bOffset + i * Float.BYTES);
+            s0 += d * d;
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    @Override
+    public String toString() {
+        return "scalar";
+    }
+}
@@ -0,0 +1,104 @@
+package com.searchserver.vector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 定长最大堆（堆顶为当前第 k 名的距离），基本类型数组实现，扫描时不产生对象分配
+ */
+final class TopKCollector {
+
+    private final int k;
+    private final float[] distances;
+    private final long[] ids;
+    private int size;
+
+    TopKCollector(int k) {
+        this.k = k;
+        this.distances = new float[k];
+        this.ids = new long[k];
+    }
+
+    /**
+     * 当前门槛距离，不小于它的候选无需再考虑
+     */
+    float threshold() {
+        return size < k ? Float.POSITIVE_INFINITY : distances[0];
+    }
+
+    void offer(long id, float distance) {
+        if (size < k) {
+            distances[size] = distance;
+            ids[size] = id;
+            siftUp(size++);
+        } else if (distance < distances[0]) {
+            distances[0] = distance;
+            ids[0] = id;
+            siftDown(0);
+        }
+    }
+
+    void merge(TopKCollector other) {
+        for (int i = 0; i < other.size; i++) {
+            offer(other.ids[i], other.distances[i]);
+        }
+    }
+
+    /**
+     * 按距离升序输出，得分按度量转换
+     */
+    List<VectorHit> toHits(VectorMetric metric) {
+        int n = size;
+        float[] sortedDistances = new float[n];
+        long[] sortedIds = new long[n];
+        // 依次弹出堆顶（最大）从尾部往前填
+        for (int i = n - 1; i >= 0; i--) {
+            sortedDistances[i] = distances[0];
+            sortedIds[i] = ids[0];
+            size--;
+            distances[0] = distances[size];
+            ids[0] = ids[size];
+            siftDown(0);
+        }
+        List<VectorHit> hits = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            hits.add(new VectorHit(sortedIds[i], metric.toScore(sortedDistances[i])));
+        }
+        return hits;
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (distances[parent] >= distances[index]) {
+                break;
+            }
+            swap(parent, index);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= size) {
+                return;
+            }
+            int largest = left + 1 < size && distances[left + 1] > distances[left] ? left + 1 : left;
+            if (distances[index] >= distances[largest]) {
+                return;
+            }
+            swap(index, largest);
+            index = largest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        float d = distances[i];
+        distances[i] = distances[j];
+        distances[j] = d;
+        long id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+    }
+}
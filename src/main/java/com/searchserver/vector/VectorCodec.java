@@ -0,0 +1,30 @@
+package com.searchserver.vector;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * 向量的紧凑二进制编码：小端 float32 连续存放，384 维文本向量占 1536 字节
+ */
+public final class VectorCodec {
+
+    private VectorCodec() {
+    }
+
+    public static byte[] encode(float[] vector) {
+        ByteBuffer buffer = ByteBuffer.allocate(vector.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asFloatBuffer().put(vector);
+        return buffer.array();
+    }
+
+    public static float[] decode(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        FloatBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+        float[] vector = new float[buffer.remaining()];
+        buffer.get(vector);
+        return vector;
+    }
+}
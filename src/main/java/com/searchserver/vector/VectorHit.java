@@ -0,0 +1,23 @@
+package com.searchserver.vector;
+
+/**
+ * 向量检索命中：id 及其得分，得分含义与度量类型一致（L2 越小越相似，IP 越大越相似）
+ */
+public final class VectorHit {
+
+    private final long id;
+    private final float score;
+
+    public VectorHit(long id, float score) {
+        this.id = id;
+        this.score = score;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public float getScore() {
+        return score;
+    }
+}
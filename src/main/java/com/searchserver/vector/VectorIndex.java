@@ -0,0 +1,25 @@
+package com.searchserver.vector;
+
+import java.util.List;
+
+/**
+ * 进程内向量索引，实现需支持并发读写
+ */
+public interface VectorIndex {
+
+    /**
+     * 插入或覆盖 id 对应的向量
+     */
+    void add(long id, float[] vector);
+
+    void remove(long id);
+
+    void clear();
+
+    /**
+     * 返回最相似的 k 个向量，按相似度从高到低排列
+     */
+    List<VectorHit> search(float[] query, int k);
+
+    int size();
+}
@@ -0,0 +1,58 @@
+package com.searchserver.vector;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 进程内向量索引使用的度量。distance 越小越相似；score 与 Milvus 返回的得分口径一致
+ */
+public enum VectorMetric {
+
+    /** 欧氏距离平方，与 Milvus L2 一致 */
+    L2 {
+        @Override
+        public float distance(float[] a, int aOffset, float[] b, int bOffset, int length) {
+            return VectorOps.get().squaredL2(a, aOffset, b, bOffset, length);
+        }
+
+        @Override
+        public float distance(float[] a, ByteBuffer b, int bOffset, int length) {
+            return VectorOps.get().squaredL2(a, b, bOffset, length);
+        }
+
+        @Override
+        public float toScore(float distance) {
+            return distance;
+        }
+    },
+
+    /** 内积，距离取其相反数 */
+    IP {
+        @Override
+        public float distance(float[] a, int aOffset, float[] b, int bOffset, int length) {
+            return -VectorOps.get().dot(a, aOffset, b, bOffset, length);
+        }
+
+        @Override
+        public float distance(float[] a, ByteBuffer b, int bOffset, int length) {
+            return -VectorOps.get().dot(a, b, bOffset, length);
+        }
+
+        @Override
+        public float toScore(float distance) {
+            return -distance;
+        }
+    };
+
+    public abstract float distance(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+    /**
+     * b 为小端 float32 缓冲区，bOffset 为字节偏移
+     */
+    public abstract float distance(float[] a, ByteBuffer b, int bOffset, int length);
+
+    public abstract float toScore(float distance);
+
+    public float distance(float[] a, float[] b) {
+        return distance(a, 0, b, 0, a.length);
+    }
+}
@@ -0,0 +1,54 @@
+package com.searchserver.vector;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 向量内积/距离计算核心。JVM 以 --add-modules jdk.incubator.vector 启动时使用 SIMD 实现，否则退回标量循环
+ */
+public interface VectorOps {
+
+    float dot(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+    float squaredL2(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+    /**
+     * b 为小端 float32 缓冲区（如内存映射文件），bOffset 为字节偏移，读取时不复制
+     */
+    float dot(float[] a, ByteBuffer b, int bOffset, int length);
+
+    float squaredL2(float[] a, ByteBuffer b, int bOffset, int length);
+
+    default float dot(float[] a, float[] b) {
+        return dot(a, 0, b, 0, a.length);
+    }
+
+    default float squaredL2(float[] a, float[] b) {
+        return squaredL2(a, 0, b, 0, a.length);
+    }
+
+    static VectorOps get() {
+        return Holder.INSTANCE;
+    }
+
+    final class Holder {
+        private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(VectorOps.class);
+        private static final VectorOps INSTANCE = load();
+
+        private Holder() {
+        }
+
+        private static VectorOps load() {
+            try {
+                // 通过反射加载，未启用孵化模块时不会触发 SimdVectorOps 的类解析
+                Class.forName("jdk.incubator.vector.FloatVector");
+                VectorOps ops = (VectorOps) Class.forName("com.searchserver.vector.SimdVectorOps")
+                        .getDeclaredConstructor().newInstance();
+                log.info("Using SIMD vector kernels: {}", ops);
+                return ops;
+            } catch (Throwable e) {
+                log.info("jdk.incubator.vector not available, using scalar vector kernels");
+                return new ScalarVectorOps();
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.searchserver.vector;
+
+import java.util.List;
+
+/**
+ * 向量量化器：用当前目录的样本训练码本，把 float32 向量压缩成定长字节码，
+ * 查询时对原始查询向量和码字做非对称距离计算（ADC）
+ */
+public interface VectorQuantizer {
+
+    void train(List<float[]> sample);
+
+    boolean isTrained();
+
+    /**
+     * 每个向量编码后的字节数
+     */
+    int codeSize();
+
+    void encode(float[] vector, byte[] codes, int offset);
+
+    /**
+     * 为一次查询预计算距离表，返回的对象只在该查询内使用
+     */
+    Distance prepare(float[] query);
+
+    /**
+     * 码本等常驻内存的字节数
+     */
+    long memoryBytes();
+
+    interface Distance {
+        float distance(byte[] codes, int offset);
+    }
+}
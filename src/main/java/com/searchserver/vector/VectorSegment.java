@@ -0,0 +1,176 @@
+package com.searchserver.vector;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 本地向量段文件，整体通过 FileChannel.map 映射，布局（小端）：
+ * <pre>
+ *   [0, 64)   头部：magic "LVEC"、版本、维度、保留、容量(int64)、已写入行数(int64)、水位(int64)
+ *   id 列     capacity 个 int64，被删除的行写为 -1
+ *   向量矩阵  capacity 行 float32，起始偏移按 64 字节对齐
+ * </pre>
+ * 行只追加不原地修改；行数在整行写完后才更新，进程中途退出时不会读到半行。非线程安全，由调用方加锁。
+ */
+final class VectorSegment implements Closeable {
+
+    static final long TOMBSTONE = -1L;
+
+    private static final int MAGIC = 0x4C564543;
+    // 版本 2 增加水位字段，旧版本文件无法判断是否落后，打开失败后由调用方重新加载
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 64;
+    private static final int VERSION_OFFSET = 4;
+    private static final int DIMENSION_OFFSET = 8;
+    private static final int CAPACITY_OFFSET = 16;
+    private static final int ROW_COUNT_OFFSET = 24;
+    private static final int WATERMARK_OFFSET = 32;
+    static final long NO_WATERMARK = -1L;
+    private static final int ALIGNMENT = 64;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int dimension;
+    private final int capacity;
+    private final int matrixOffset;
+    private int rowCount;
+
+    private VectorSegment(FileChannel channel, int dimension, int capacity, int rowCount) throws IOException {
+        this.channel = channel;
+        this.dimension = dimension;
+        this.capacity = capacity;
+        this.matrixOffset = matrixOffset(capacity);
+        long size = fileSize(dimension, capacity);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        this.buffer.order(ByteOrder.LITTLE_ENDIAN);
+        this.rowCount = rowCount;
+    }
+
+    static VectorSegment create(Path path, int dimension, int capacity) throws IOException {
+        long size = fileSize(dimension, capacity);
+        // 单个 MappedByteBuffer 最大 2GB
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Vector segment of " + capacity + " rows exceeds 2GB");
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        VectorSegment segment = new VectorSegment(channel, dimension, capacity, 0);
+        segment.buffer.putInt(0, MAGIC);
+        segment.buffer.putInt(VERSION_OFFSET, VERSION);
+        segment.buffer.putInt(DIMENSION_OFFSET, dimension);
+        segment.buffer.putLong(CAPACITY_OFFSET, capacity);
+        segment.buffer.putLong(ROW_COUNT_OFFSET, 0);
+        segment.buffer.putLong(WATERMARK_OFFSET, NO_WATERMARK);
+        return segment;
+    }
+
+    static VectorSegment open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(header, 0);
+            if (header.getInt(0) != MAGIC || header.getInt(VERSION_OFFSET) != VERSION) {
+                throw new IOException("Not a vector segment file: " + path);
+            }
+            int dimension = header.getInt(DIMENSION_OFFSET);
+            int capacity = (int) header.getLong(CAPACITY_OFFSET);
+            int rowCount = (int) header.getLong(ROW_COUNT_OFFSET);
+            if (channel.size() < fileSize(dimension, capacity) || rowCount > capacity) {
+                throw new IOException("Truncated vector segment file: " + path);
+            }
+            return new VectorSegment(channel, dimension, capacity, rowCount);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 追加一行并返回行号，先写 id 和向量，最后更新行数
+     */
+    int append(long id, float[] vector) {
+        if (rowCount >= capacity) {
+            throw new IllegalStateException("Vector segment is full");
+        }
+        int row = rowCount;
+        ByteBuffer target = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        target.position(vectorOffset(row));
+        target.asFloatBuffer().put(vector, 0, dimension);
+        buffer.putLong(HEADER_SIZE + row * Long.BYTES, id);
+        rowCount = row + 1;
+        buffer.putLong(ROW_COUNT_OFFSET, rowCount);
+        return row;
+    }
+
+    void markDeleted(int row) {
+        buffer.putLong(HEADER_SIZE + row * Long.BYTES, TOMBSTONE);
+    }
+
+    long id(int row) {
+        return buffer.getLong(HEADER_SIZE + row * Long.BYTES);
+    }
+
+    void readVector(int row, float[] target) {
+        ByteBuffer source = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        source.position(vectorOffset(row));
+        source.asFloatBuffer().get(target, 0, dimension);
+    }
+
+    /**
+     * 映射缓冲区（小端），配合 vectorOffset 做零拷贝距离计算；只能用绝对位置读取
+     */
+    ByteBuffer buffer() {
+        return buffer;
+    }
+
+    int vectorOffset(int row) {
+        return matrixOffset + row * dimension * Float.BYTES;
+    }
+
+    /**
+     * 调用方记录的数据源版本，新建的段为 NO_WATERMARK
+     */
+    long watermark() {
+        return buffer.getLong(WATERMARK_OFFSET);
+    }
+
+    void setWatermark(long watermark) {
+        buffer.putLong(WATERMARK_OFFSET, watermark);
+    }
+
+    int rowCount() {
+        return rowCount;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    int dimension() {
+        return dimension;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static int matrixOffset(int capacity) {
+        long idsEnd = HEADER_SIZE + (long) capacity * Long.BYTES;
+        return (int) ((idsEnd + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT);
+    }
+
+    private static long fileSize(int dimension, int capacity) {
+        return matrixOffset(capacity) + (long) capacity * dimension * Float.BYTES;
+    }
+}
@@ -0,0 +1,153 @@
+package com.searchserver.batch;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MicroBatcherTest {
+
+    // 记录每次批量调用收到的请求
+    private final List<List<Integer>> calls = new CopyOnWriteArrayList<>();
+    private MicroBatcher<String, Integer, Integer> batcher;
+
+    @AfterEach
+    void tearDown() {
+        if (batcher != null) {
+            batcher.close();
+        }
+    }
+
+    @Test
+    void dispatchesFullBatchWithoutWaiting() throws Exception {
+        // 等待时间远大于测试超时，只有凑满才会发出
+        batcher = new MicroBatcher<>(3, TimeUnit.SECONDS.toMicros(60), this::doubled,
+                new SimpleMeterRegistry(), "test");
+
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            futures.add(batcher.submit("k", i));
+        }
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(2 * (i + 1), futures.get(i).get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(List.of(List.of(1, 2, 3)), calls);
+    }
+
+    @Test
+    void dispatchesPartialBatchAfterMaxWait() throws Exception {
+        batcher = new MicroBatcher<>(100, 1000, this::doubled, new SimpleMeterRegistry(), "test");
+
+        CompletableFuture<Integer> first = batcher.submit("k", 1);
+        CompletableFuture<Integer> second = batcher.submit("k", 2);
+
+        assertEquals(2, first.get(5, TimeUnit.SECONDS));
+        assertEquals(4, second.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of(List.of(1, 2)), calls);
+    }
+
+    @Test
+    void keepsDifferentKeysInSeparateBatches() throws Exception {
+        batcher = new MicroBatcher<>(2, TimeUnit.SECONDS.toMicros(60), this::doubled,
+                new SimpleMeterRegistry(), "test");
+
+        CompletableFuture<Integer> a1 = batcher.submit("a", 1);
+        CompletableFuture<Integer> b1 = batcher.submit("b", 10);
+        CompletableFuture<Integer> a2 = batcher.submit("a", 2);
+        CompletableFuture<Integer> b2 = batcher.submit("b", 20);
+
+        assertEquals(2, a1.get(5, TimeUnit.SECONDS));
+        assertEquals(4, a2.get(5, TimeUnit.SECONDS));
+        assertEquals(20, b1.get(5, TimeUnit.SECONDS));
+        assertEquals(40, b2.get(5, TimeUnit.SECONDS));
+        assertTrue(calls.contains(List.of(1, 2)));
+        assertTrue(calls.contains(List.of(10, 20)));
+    }
+
+    @Test
+    void zeroWaitDispatchesEachRequestAlone() throws Exception {
+        batcher = new MicroBatcher<>(16, 0, this::doubled, new SimpleMeterRegistry(), "test");
+
+        assertEquals(2, batcher.submit("k", 1).get(5, TimeUnit.SECONDS));
+        assertEquals(4, batcher.submit("k", 2).get(5, TimeUnit.SECONDS));
+        assertEquals(List.of(List.of(1), List.of(2)), calls);
+    }
+
+    @Test
+    void closeFailsQueuedRequests() {
+        batcher = new MicroBatcher<>(100, TimeUnit.SECONDS.toMicros(60), this::doubled,
+                new SimpleMeterRegistry(), "test");
+
+        CompletableFuture<Integer> pending = batcher.submit("k", 1);
+        batcher.close();
+
+        assertTrue(pending.isCompletedExceptionally());
+        assertTrue(calls.isEmpty());
+    }
+
+    @Test
+    void failedBatchFailsEveryCaller() {
+        IllegalStateException failure = new IllegalStateException("Milvus search failed");
+        batcher = new MicroBatcher<>(2, TimeUnit.SECONDS.toMicros(60),
+                (key, items) -> CompletableFuture.failedFuture(failure), new SimpleMeterRegistry(), "test");
+
+        CompletableFuture<Integer> first = batcher.submit("k", 1);
+        CompletableFuture<Integer> second = batcher.submit("k", 2);
+
+        assertSame(failure, causeOf(first));
+        assertSame(failure, causeOf(second));
+    }
+
+    @Test
+    void handlerThrowingSynchronouslyFailsBatch() {
+        batcher = new MicroBatcher<>(1, 0, (key, items) -> {
+            throw new IllegalArgumentException("bad request");
+        }, new SimpleMeterRegistry(), "test");
+
+        assertTrue(causeOf(batcher.submit("k", 1)) instanceof IllegalArgumentException);
+    }
+
+    @Test
+    void resultCountMismatchFailsBatch() {
+        batcher = new MicroBatcher<>(2, TimeUnit.SECONDS.toMicros(60),
+                (key, items) -> CompletableFuture.completedFuture(List.of(0)), new SimpleMeterRegistry(), "test");
+
+        CompletableFuture<Integer> first = batcher.submit("k", 1);
+        CompletableFuture<Integer> second = batcher.submit("k", 2);
+
+        assertTrue(causeOf(first) instanceof IllegalStateException);
+        assertTrue(causeOf(second) instanceof IllegalStateException);
+    }
+
+    @Test
+    void laterBatchesSucceedAfterFailure() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        batcher = new MicroBatcher<>(1, 0, (key, items) -> attempts.incrementAndGet() == 1
+                ? CompletableFuture.failedFuture(new IllegalStateException("transient"))
+                : doubled(key, items), new SimpleMeterRegistry(), "test");
+
+        assertNotNull(causeOf(batcher.submit("k", 1)));
+        assertEquals(4, batcher.submit("k", 2).get(5, TimeUnit.SECONDS));
+    }
+
+    private static Throwable causeOf(CompletableFuture<?> future) {
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        return e.getCause();
+    }
+
+    private CompletableFuture<List<Integer>> doubled(String key, List<Integer> items) {
+        calls.add(List.copyOf(items));
+        return CompletableFuture.completedFuture(items.stream().map(i -> i * 2).collect(Collectors.toList()));
+    }
+}
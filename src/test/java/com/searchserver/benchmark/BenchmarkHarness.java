@@ -0,0 +1,128 @@
+package com.searchserver.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 各基准测试共用的回放、参数和合成数据。
+ * 基准测试类以 *Benchmark / *BenchmarkRunner 命名，不匹配 surefire 默认的 *Test，不随构建运行，需显式指定：
+ * mvn test -Dtest=QuantizationBenchmark -Dbenchmark.count=100000
+ */
+final class BenchmarkHarness {
+
+    private BenchmarkHarness() {
+    }
+
+    /**
+     * 不计时地先跑前 count 条，让 JIT 和缓存就绪
+     */
+    static <T> void warmup(List<T> inputs, int count, Function<T, ?> operation) {
+        for (int i = 0; i < Math.min(count, inputs.size()); i++) {
+            operation.apply(inputs.get(i));
+        }
+    }
+
+    /**
+     * 单线程逐条回放，延迟不受并发排队影响
+     */
+    static <T, R> Measurement<R> serial(List<T> inputs, Function<T, R> operation) {
+        long[] latencies = new long[inputs.size()];
+        List<R> results = new ArrayList<>(inputs.size());
+        long start = System.nanoTime();
+        for (int i = 0; i < inputs.size(); i++) {
+            long begin = System.nanoTime();
+            results.add(operation.apply(inputs.get(i)));
+            latencies[i] = System.nanoTime() - begin;
+        }
+        return new Measurement<>(inputs.size(), System.nanoTime() - start, latencies, results);
+    }
+
+    /**
+     * concurrency 个线程从同一个游标领取输入，直到全部回放完
+     */
+    static <T, R> Measurement<R> concurrent(List<T> inputs, int concurrency, Function<T, R> operation)
+            throws Exception {
+        int threads = Math.max(1, concurrency);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            long[] latencies = new long[inputs.size()];
+            Object[] results = new Object[inputs.size()];
+            AtomicInteger cursor = new AtomicInteger();
+            List<Future<?>> workers = new ArrayList<>(threads);
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                workers.add(executor.submit(() -> {
+                    int i;
+                    while ((i = cursor.getAndIncrement()) < inputs.size()) {
+                        long begin = System.nanoTime();
+                        results[i] = operation.apply(inputs.get(i));
+                        latencies[i] = System.nanoTime() - begin;
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+            long total = System.nanoTime() - start;
+            @SuppressWarnings("unchecked")
+            List<R> ordered = (List<R>) Arrays.asList(results);
+            return new Measurement<>(inputs.size(), total, latencies, ordered);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 从 -Dbenchmark.{name} 读取整数参数
+     */
+    static int intProperty(String name, int defaultValue) {
+        String value = System.getProperty("benchmark." + name);
+        return value == null || value.trim().isEmpty() ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    static String stringProperty(String name, String defaultValue) {
+        String value = System.getProperty("benchmark." + name);
+        return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+    }
+
+    /**
+     * 围绕 clusters 个随机中心扰动生成的单位向量，比均匀随机更接近真实文本向量
+     */
+    static float[][] clusteredVectors(int count, int dimension, int clusters, Random random) {
+        float[][] centers = new float[clusters][dimension];
+        for (float[] center : centers) {
+            for (int d = 0; d < dimension; d++) {
+                center[d] = (float) random.nextGaussian();
+            }
+        }
+        float[][] vectors = new float[count][];
+        for (int i = 0; i < count; i++) {
+            vectors[i] = perturb(centers[random.nextInt(clusters)], random);
+        }
+        return vectors;
+    }
+
+    /**
+     * base 加高斯噪声后归一化，用作与 base 相近的查询
+     */
+    static float[] perturb(float[] base, Random random) {
+        float[] vector = new float[base.length];
+        float norm = 0;
+        for (int d = 0; d < base.length; d++) {
+            vector[d] = base[d] + (float) random.nextGaussian() * 0.3f;
+            norm += vector[d] * vector[d];
+        }
+        norm = (float) Math.sqrt(norm);
+        for (int d = 0; d < base.length; d++) {
+            vector[d] /= norm;
+        }
+        return vector;
+    }
+}
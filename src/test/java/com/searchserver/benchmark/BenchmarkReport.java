@@ -0,0 +1,103 @@
+package com.searchserver.benchmark;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * 基准测试结果表：逐行收集，结束时打印对齐的表格并写一份 CSV。
+ * 浮点数统一保留 3 位小数，不受默认 Locale 影响
+ */
+final class BenchmarkReport {
+
+    private final String name;
+    private final List<String> columns;
+    private final List<List<String>> rows = new ArrayList<>();
+
+    BenchmarkReport(String name, String... columns) {
+        this.name = name;
+        this.columns = Arrays.asList(columns);
+    }
+
+    BenchmarkReport row(Object... values) {
+        if (values.length != columns.size()) {
+            throw new IllegalArgumentException("Expected " + columns.size() + " values, got " + values.length);
+        }
+        rows.add(Arrays.stream(values).map(BenchmarkReport::format).collect(Collectors.toList()));
+        return this;
+    }
+
+    /**
+     * 写到 target/benchmarks/{name}.csv
+     */
+    Path finish() throws IOException {
+        return finish(Paths.get("target", "benchmarks", name + ".csv"));
+    }
+
+    Path finish(Path csv) throws IOException {
+        print();
+        Path parent = csv.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(csv, StandardCharsets.UTF_8))) {
+            writer.println(String.join(",", columns));
+            for (List<String> row : rows) {
+                writer.println(String.join(",", row));
+            }
+        }
+        System.out.println("Benchmark report written to " + csv.toAbsolutePath());
+        return csv;
+    }
+
+    private void print() {
+        int[] widths = new int[columns.size()];
+        for (int i = 0; i < widths.length; i++) {
+            widths[i] = columns.get(i).length();
+            for (List<String> row : rows) {
+                widths[i] = Math.max(widths[i], row.get(i).length());
+            }
+        }
+        System.out.println("== " + name);
+        System.out.println(line(columns, widths));
+        for (List<String> row : rows) {
+            System.out.println(line(row, widths));
+        }
+    }
+
+    private static String line(List<String> cells, int[] widths) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < cells.size(); i++) {
+            if (i > 0) {
+                builder.append("  ");
+            }
+            String cell = cells.get(i);
+            // 首列左对齐，数值列右对齐
+            builder.append(pad(cell, widths[i], i > 0));
+        }
+        return builder.toString();
+    }
+
+    private static String pad(String cell, int width, boolean padLeft) {
+        StringBuilder padding = new StringBuilder();
+        for (int i = cell.length(); i < width; i++) {
+            padding.append(' ');
+        }
+        return padLeft ? padding + cell : cell + padding;
+    }
+
+    private static String format(Object value) {
+        if (value instanceof Double || value instanceof Float) {
+            return String.format(Locale.ROOT, "%.3f", ((Number) value).doubleValue());
+        }
+        return String.valueOf(value);
+    }
+}
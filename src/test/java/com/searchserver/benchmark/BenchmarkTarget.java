@@ -0,0 +1,30 @@
+package com.searchserver.benchmark;
+
+import com.searchserver.vector.VectorHit;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基准测试的被测后端：每次 build 建一个指定类型的索引，测完后 drop
+ */
+public interface BenchmarkTarget {
+
+    String name();
+
+    boolean supports(String indexType);
+
+    /**
+     * 写入整个目录并建好索引，返回时即可检索
+     */
+    void build(String indexType, Map<Long, float[]> catalog);
+
+    List<VectorHit> search(float[] query, int k);
+
+    /**
+     * 当前索引占用的内存字节数
+     */
+    long memoryBytes();
+
+    void drop();
+}
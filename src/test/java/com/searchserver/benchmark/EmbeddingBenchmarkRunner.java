@@ -0,0 +1,116 @@
+package com.searchserver.benchmark;
+
+import com.searchserver.config.BenchmarkConfig;
+import com.searchserver.model.LaptopInfo;
+import com.searchserver.repository.LaptopInfoRepository;
+import com.searchserver.repository.index.EmbeddingText;
+import com.searchserver.service.EmbeddingService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 向量化基准测试，在完整应用上下文中运行（需要 Redis 中已有商品）：
+ * mvn test -Dtest=EmbeddingBenchmarkRunner
+ * 对比改动前后的两条路径：入库吞吐（逐条调用 vs 批量 embedAll）和查询向量化延迟（并发直接调用 vs 经动态微批），
+ * 输出吞吐、p50/p99 延迟到 app.benchmark.embedding.report-path
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class EmbeddingBenchmarkRunner {
+
+    @Autowired
+    private BenchmarkConfig benchmarkConfig;
+    @Autowired
+    private LaptopInfoRepository laptopInfoRepository;
+    @Autowired
+    private EmbeddingService embeddingService;
+
+    @Test
+    void run() throws Exception {
+        List<String> documents = loadDocuments();
+        if (documents.isEmpty()) {
+            System.out.println("Embedding benchmark skipped: catalog is empty");
+            return;
+        }
+        List<String> queries = loadQueries(documents);
+        int concurrency = benchmarkConfig.getConcurrency();
+
+        // 预热模型，避免首次加载计入第一组结果
+        int warmup = Math.min(benchmarkConfig.getWarmup(), documents.size());
+        embeddingService.generateEmbeddings(documents.subList(0, warmup));
+
+        BenchmarkReport report = new BenchmarkReport("embedding-benchmark", "workload", "path", "texts",
+                "concurrency", "total_ms", "texts_per_s", "p50_ms", "p99_ms");
+        // 入库：改动前每条商品一次调用，改动后整页一次批量调用
+        addRow(report, "ingest", "per-item", 1, BenchmarkHarness.serial(documents,
+                text -> embeddingService.generateEmbeddings(Collections.singletonList(text))));
+        addRow(report, "ingest", "embed-all", 1, BenchmarkHarness.serial(Collections.singletonList(documents),
+                embeddingService::generateEmbeddings), documents.size());
+
+        // 查询：并发的单条调用，改动前各自调用，改动后经动态微批合并
+        addRow(report, "query", "direct", concurrency, BenchmarkHarness.concurrent(queries, concurrency,
+                text -> embeddingService.generateEmbeddings(Collections.singletonList(text))));
+        addRow(report, "query", "batched", concurrency, BenchmarkHarness.concurrent(queries, concurrency,
+                embeddingService::generateEmbedding));
+        report.finish(Paths.get(benchmarkConfig.getEmbeddingReportPath()));
+    }
+
+    private static void addRow(BenchmarkReport report, String workload, String path, int concurrency,
+                               Measurement<?> measurement) {
+        addRow(report, workload, path, concurrency, measurement, measurement.count());
+    }
+
+    /**
+     * @param texts 一次批量调用向量化多条文本时，吞吐按文本数而不是调用次数计算，且没有逐条延迟
+     */
+    private static void addRow(BenchmarkReport report, String workload, String path, int concurrency,
+                               Measurement<?> measurement, int texts) {
+        boolean batch = texts != measurement.count();
+        double seconds = measurement.totalNanos() / 1e9;
+        report.row(workload, path, texts, concurrency, measurement.totalNanos() / 1_000_000,
+                seconds > 0 ? texts / seconds : 0.0,
+                batch ? 0.0 : measurement.percentileMillis(0.50),
+                batch ? 0.0 : measurement.percentileMillis(0.99));
+    }
+
+    /**
+     * 取目录中商品的嵌入文本作为入库负载，与爬虫的向量化口径一致
+     */
+    private List<String> loadDocuments() {
+        try (Stream<LaptopInfo> laptops = laptopInfoRepository.streamAll()) {
+            return laptops.limit(benchmarkConfig.getQueryCount())
+                    .map(EmbeddingText::of)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * 优先使用查询文件（每行一条文本），否则用商品标题作为查询
+     */
+    private List<String> loadQueries(List<String> documents) throws IOException {
+        int count = benchmarkConfig.getQueryCount();
+        String queryFile = benchmarkConfig.getQueryFile();
+        if (queryFile != null && !queryFile.trim().isEmpty()) {
+            return Files.readAllLines(Paths.get(queryFile), StandardCharsets.UTF_8).stream()
+                    .map(String::trim)
+                    .filter(line -> !line.isEmpty())
+                    .limit(count)
+                    .collect(Collectors.toList());
+        }
+        try (Stream<LaptopInfo> laptops = laptopInfoRepository.streamAll()) {
+            return laptops.map(LaptopInfo::getTitle)
+                    .filter(title -> title != null && !title.trim().isEmpty())
+                    .limit(count)
+                    .collect(Collectors.toList());
+        }
+    }
+}
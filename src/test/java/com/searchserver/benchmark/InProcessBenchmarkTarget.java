@@ -0,0 +1,114 @@
+package com.searchserver.benchmark;
+
+import com.searchserver.config.VectorIndexConfig;
+import com.searchserver.vector.ExactKnnIndex;
+import com.searchserver.vector.HnswIndex;
+import com.searchserver.vector.ProductQuantizer;
+import com.searchserver.vector.QuantizedVectorIndex;
+import com.searchserver.vector.ScalarQuantizer;
+import com.searchserver.vector.VectorHit;
+import com.searchserver.vector.VectorIndex;
+import com.searchserver.vector.VectorMetric;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 不依赖Milvus的替身：FLAT 对应精确扫描，HNSW 对应进程内 HNSW，IVF_PQ / IVF_SQ8 对应量化索引（全量 ADC 扫描 + 重排，
+ * 没有倒排分桶）。IVF_FLAT 和 DISKANN 没有进程内对应实现，不支持
+ */
+public class InProcessBenchmarkTarget implements BenchmarkTarget {
+
+    private final int dimension;
+    private final VectorMetric metric;
+    private final VectorIndexConfig config;
+    private VectorIndex index;
+    private long memoryBytes;
+
+    public InProcessBenchmarkTarget(int dimension, VectorMetric metric, VectorIndexConfig config) {
+        this.dimension = dimension;
+        this.metric = metric;
+        this.config = config;
+    }
+
+    @Override
+    public String name() {
+        return "in-process";
+    }
+
+    @Override
+    public boolean supports(String indexType) {
+        return "FLAT".equals(indexType) || "HNSW".equals(indexType)
+                || "IVF_PQ".equals(indexType) || "IVF_SQ8".equals(indexType);
+    }
+
+    @Override
+    public void build(String indexType, Map<Long, float[]> catalog) {
+        long before = usedHeap();
+        if ("HNSW".equals(indexType)) {
+            index = new HnswIndex(dimension, metric, config.getM(), config.getEfConstruction(), config.getEfSearch());
+        } else if ("FLAT".equals(indexType)) {
+            index = new ExactKnnIndex(dimension, metric);
+        } else {
+            QuantizedVectorIndex quantized = new QuantizedVectorIndex(dimension, metric,
+                    "IVF_PQ".equals(indexType)
+                            ? new ProductQuantizer(dimension, config.getPqSubspaces(), metric)
+                            : new ScalarQuantizer(dimension, metric),
+                    config.getRerankFactor(), config.getTrainingSize(), ids -> fullVectors(catalog, ids));
+            quantized.train(trainingSample(catalog));
+            index = quantized;
+        }
+        catalog.forEach(index::add);
+
+        // 量化索引能精确统计码表大小；其余索引以建索引前后的堆占用差近似
+        memoryBytes = index instanceof QuantizedVectorIndex
+                ? ((QuantizedVectorIndex) index).memoryBytes()
+                : Math.max(0, usedHeap() - before);
+    }
+
+    @Override
+    public List<VectorHit> search(float[] query, int k) {
+        return index.search(query, k);
+    }
+
+    @Override
+    public long memoryBytes() {
+        return memoryBytes;
+    }
+
+    @Override
+    public void drop() {
+        index = null;
+        memoryBytes = 0;
+    }
+
+    private List<float[]> trainingSample(Map<Long, float[]> catalog) {
+        List<float[]> sample = new ArrayList<>(Math.min(catalog.size(), config.getTrainingSize()));
+        for (float[] vector : catalog.values()) {
+            if (sample.size() >= config.getTrainingSize()) {
+                break;
+            }
+            sample.add(vector);
+        }
+        return sample;
+    }
+
+    private static Map<Long, float[]> fullVectors(Map<Long, float[]> catalog, List<Long> ids) {
+        Map<Long, float[]> vectors = new HashMap<>(ids.size() * 2);
+        for (Long id : ids) {
+            float[] vector = catalog.get(id);
+            if (vector != null) {
+                vectors.put(id, vector);
+            }
+        }
+        return vectors;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
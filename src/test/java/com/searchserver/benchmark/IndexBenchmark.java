@@ -0,0 +1,71 @@
+package com.searchserver.benchmark;
+
+import com.searchserver.vector.GroundTruth;
+import com.searchserver.vector.VectorHit;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 对一个后端依次测一个索引类型：建索引耗时、内存、预热后串行回放得到延迟分位数和 recall@k，
+ * 再并发回放一遍得到 QPS。测完即删除索引
+ */
+public class IndexBenchmark {
+
+    private final Map<Long, float[]> catalog;
+    private final List<float[]> queries;
+    private final List<List<VectorHit>> expected;
+    private final int k;
+    private final int warmup;
+    private final int concurrency;
+
+    /**
+     * @param expected 每条查询的精确 top-k，顺序与 queries 一致
+     */
+    public IndexBenchmark(Map<Long, float[]> catalog, List<float[]> queries, List<List<VectorHit>> expected,
+                          int k, int warmup, int concurrency) {
+        this.catalog = catalog;
+        this.queries = queries;
+        this.expected = expected;
+        this.k = k;
+        this.warmup = warmup;
+        this.concurrency = Math.max(1, concurrency);
+    }
+
+    public IndexBenchmarkResult run(BenchmarkTarget target, String indexType) throws Exception {
+        try {
+            long buildStart = System.nanoTime();
+            target.build(indexType, catalog);
+            long buildMillis = (System.nanoTime() - buildStart) / 1_000_000;
+            long memoryBytes = target.memoryBytes();
+
+            BenchmarkHarness.warmup(queries, warmup, query -> target.search(query, k));
+            Measurement<List<VectorHit>> serial = BenchmarkHarness.serial(queries, query -> target.search(query, k));
+            double recallSum = 0;
+            for (int i = 0; i < queries.size(); i++) {
+                recallSum += GroundTruth.recall(expected.get(i), serial.results().get(i));
+            }
+
+            Measurement<List<VectorHit>> concurrent = BenchmarkHarness.concurrent(queries, concurrency,
+                    query -> target.search(query, k));
+            return new IndexBenchmarkResult(target.name(), indexType, buildMillis, memoryBytes,
+                    concurrent.throughput(), serial.percentileMillis(0.50), serial.percentileMillis(0.99),
+                    queries.isEmpty() ? 0 : recallSum / queries.size());
+        } finally {
+            target.drop();
+        }
+    }
+
+    /**
+     * 结果表的列，与 {@link #addRow} 对应
+     */
+    static BenchmarkReport newReport(String name, int k) {
+        return new BenchmarkReport(name, "target", "index_type", "build_ms", "memory_bytes", "qps",
+                "p50_ms", "p99_ms", "recall_at_" + k);
+    }
+
+    static void addRow(BenchmarkReport report, IndexBenchmarkResult result) {
+        report.row(result.getTarget(), result.getIndexType(), result.getBuildMillis(), result.getMemoryBytes(),
+                result.getQps(), result.getP50Millis(), result.getP99Millis(), result.getRecall());
+    }
+}
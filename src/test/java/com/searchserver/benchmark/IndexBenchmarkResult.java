@@ -0,0 +1,60 @@
+package com.searchserver.benchmark;
+
+/**
+ * 单个索引类型的测试结果
+ */
+public class IndexBenchmarkResult {
+
+    private final String target;
+    private final String indexType;
+    private final long buildMillis;
+    private final long memoryBytes;
+    private final double qps;
+    private final double p50Millis;
+    private final double p99Millis;
+    private final double recall;
+
+    public IndexBenchmarkResult(String target, String indexType, long buildMillis, long memoryBytes,
+                                double qps, double p50Millis, double p99Millis, double recall) {
+        this.target = target;
+        this.indexType = indexType;
+        this.buildMillis = buildMillis;
+        this.memoryBytes = memoryBytes;
+        this.qps = qps;
+        this.p50Millis = p50Millis;
+        this.p99Millis = p99Millis;
+        this.recall = recall;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public String getIndexType() {
+        return indexType;
+    }
+
+    public long getBuildMillis() {
+        return buildMillis;
+    }
+
+    public long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    public double getQps() {
+        return qps;
+    }
+
+    public double getP50Millis() {
+        return p50Millis;
+    }
+
+    public double getP99Millis() {
+        return p99Millis;
+    }
+
+    public double getRecall() {
+        return recall;
+    }
+}
@@ -0,0 +1,143 @@
+package com.searchserver.benchmark;
+
+import com.searchserver.config.BenchmarkConfig;
+import com.searchserver.config.MilvusConfig;
+import com.searchserver.config.VectorIndexConfig;
+import com.searchserver.repository.LaptopInfoRepository;
+import com.searchserver.service.EmbeddingService;
+import com.searchserver.vector.GroundTruth;
+import com.searchserver.vector.MappedVectorIndex;
+import com.searchserver.vector.VectorHit;
+import com.searchserver.vector.VectorMetric;
+import io.milvus.client.MilvusClient;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * 索引类型基准测试，在完整应用上下文中运行（需要 Redis，target=milvus 时还需要 Milvus）：
+ * mvn test -Dtest=IndexBenchmarkRunner -Dapp.benchmark.target=milvus
+ * 加载目录快照，对 app.benchmark.index-types 中的每种索引建索引并回放查询集，
+ * 输出建索引耗时、内存、QPS、p50/p99 延迟和 recall@k（以精确检索为基准）到 app.benchmark.report-path
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class IndexBenchmarkRunner {
+
+    // 抽样查询用固定种子，同一份快照每次回放同一组查询
+    private static final long QUERY_SEED = 42L;
+
+    @Autowired
+    private BenchmarkConfig benchmarkConfig;
+    @Autowired
+    private MilvusConfig milvusConfig;
+    @Autowired
+    private VectorIndexConfig vectorIndexConfig;
+    @Autowired
+    private LaptopInfoRepository laptopInfoRepository;
+    @Autowired
+    private EmbeddingService embeddingService;
+    @Autowired
+    private ObjectProvider<MilvusClient> milvusClient;
+
+    @Test
+    void run() throws Exception {
+        Map<Long, float[]> catalog = loadSnapshot();
+        if (catalog.isEmpty()) {
+            System.out.println("Index benchmark skipped: catalog snapshot is empty");
+            return;
+        }
+        List<float[]> queries = loadQueries(catalog);
+        int k = benchmarkConfig.getK();
+        VectorMetric metric = VectorMetric.valueOf(milvusConfig.getMetricType());
+
+        long start = System.currentTimeMillis();
+        GroundTruth groundTruth = new GroundTruth(queries, metric, k);
+        catalog.forEach(groundTruth::accept);
+        List<List<VectorHit>> expected = groundTruth.results();
+        System.out.printf("Computed exact top-%d for %d queries over %d vectors in %d ms%n",
+                k, queries.size(), catalog.size(), System.currentTimeMillis() - start);
+
+        BenchmarkTarget target = createTarget(metric);
+        IndexBenchmark benchmark = new IndexBenchmark(catalog, queries, expected, k,
+                benchmarkConfig.getWarmup(), benchmarkConfig.getConcurrency());
+        BenchmarkReport report = IndexBenchmark.newReport("index-benchmark", k);
+        for (String type : benchmarkConfig.getIndexTypes().split(",")) {
+            String indexType = type.trim().toUpperCase(Locale.ROOT);
+            if (indexType.isEmpty()) {
+                continue;
+            }
+            if (!target.supports(indexType)) {
+                System.out.printf("Index type %s is not supported by the %s target, skipped%n", indexType, target.name());
+                continue;
+            }
+            IndexBenchmark.addRow(report, benchmark.run(target, indexType));
+        }
+        report.finish(Paths.get(benchmarkConfig.getReportPath()));
+    }
+
+    private BenchmarkTarget createTarget(VectorMetric metric) {
+        if ("milvus".equalsIgnoreCase(benchmarkConfig.getTarget())) {
+            MilvusClient client = milvusClient.getIfAvailable();
+            if (client == null) {
+                throw new IllegalStateException("Milvus benchmark target requires a Milvus connection (not the embedded profile)");
+            }
+            return new MilvusBenchmarkTarget(client, milvusConfig);
+        }
+        return new InProcessBenchmarkTarget(milvusConfig.getTextDimension(), metric, vectorIndexConfig);
+    }
+
+    /**
+     * 快照文件不存在时先从Redis导出，之后每次运行都回放同一份数据
+     */
+    private Map<Long, float[]> loadSnapshot() throws IOException {
+        Path path = Paths.get(benchmarkConfig.getSnapshotPath());
+        Map<Long, float[]> catalog = new LinkedHashMap<>();
+        try (MappedVectorIndex snapshot = new MappedVectorIndex(path, milvusConfig.getTextDimension(),
+                VectorMetric.valueOf(milvusConfig.getMetricType()), 1.0)) {
+            if (snapshot.size() == 0) {
+                long exported = laptopInfoRepository.exportTextVectors(snapshot::add);
+                System.out.printf("Exported %d vectors from Redis to catalog snapshot %s%n", exported, path);
+            }
+            snapshot.forEach(catalog::put);
+        }
+        return catalog;
+    }
+
+    /**
+     * 优先使用查询文件（每行一条文本，经文本向量模型编码），否则从快照中按固定种子抽样
+     */
+    private List<float[]> loadQueries(Map<Long, float[]> catalog) throws IOException {
+        int count = benchmarkConfig.getQueryCount();
+        String queryFile = benchmarkConfig.getQueryFile();
+        List<float[]> queries = new ArrayList<>(count);
+        if (queryFile != null && !queryFile.trim().isEmpty()) {
+            List<String> lines = new ArrayList<>(count);
+            for (String line : Files.readAllLines(Paths.get(queryFile), StandardCharsets.UTF_8)) {
+                if (lines.size() >= count) {
+                    break;
+                }
+                if (!line.trim().isEmpty()) {
+                    lines.add(line.trim());
+                }
+            }
+            // 向量化失败的查询为 null，跳过
+            embeddingService.generateEmbeddings(lines).stream()
+                    .filter(Objects::nonNull)
+                    .forEach(queries::add);
+            return queries;
+        }
+
+        List<float[]> vectors = new ArrayList<>(catalog.values());
+        Collections.shuffle(vectors, new Random(QUERY_SEED));
+        queries.addAll(vectors.subList(0, Math.min(count, vectors.size())));
+        return queries;
+    }
+}
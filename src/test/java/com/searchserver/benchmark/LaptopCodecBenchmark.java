@@ -0,0 +1,100 @@
+package com.searchserver.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.searchserver.model.LaptopInfo;
+import com.searchserver.repository.codec.LaptopInfoBinarySerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Redis 值编码对比：JSON / 二进制 / 二进制+LZ4 的编码大小与编解码耗时：
+ * mvn test -Dtest=LaptopCodecBenchmark -Dbenchmark.samples=10000
+ */
+class LaptopCodecBenchmark {
+
+    private static final String[] BRANDS = {"联想", "ThinkPad", "戴尔", "华为", "Apple", "华硕", "惠普", "小米"};
+    private static final String[] CPUS = {"Intel i5-1135G7", "Intel i7-12700H", "AMD R7 5800H", "Apple M1", "AMD R5 6600U"};
+    private static final String[] MEMORY = {"8GB", "16GB", "32GB"};
+    private static final String[] STORAGE = {"256GB SSD", "512GB SSD", "1TB SSD"};
+
+    @Test
+    void run() throws Exception {
+        int samples = BenchmarkHarness.intProperty("samples", 10000);
+        List<LaptopInfo> laptops = generate(samples, new Random(42));
+
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        Jackson2JsonRedisSerializer<LaptopInfo> json = new Jackson2JsonRedisSerializer<>(LaptopInfo.class);
+        json.setObjectMapper(mapper);
+
+        Map<String, RedisSerializer<LaptopInfo>> codecs = new LinkedHashMap<>();
+        codecs.put("json", json);
+        codecs.put("binary", new LaptopInfoBinarySerializer(mapper, false, 0));
+        codecs.put("binary+lz4", new LaptopInfoBinarySerializer(mapper, true, 256));
+
+        BenchmarkReport report = new BenchmarkReport("laptop-codec", "codec", "avg_bytes", "encode_ns_per_op",
+                "decode_ns_per_op", "decode_p99_us");
+        for (Map.Entry<String, RedisSerializer<LaptopInfo>> entry : codecs.entrySet()) {
+            RedisSerializer<LaptopInfo> codec = entry.getValue();
+            // 预热：整组编解码一遍
+            BenchmarkHarness.warmup(laptops, samples, laptop -> codec.deserialize(codec.serialize(laptop)));
+            Measurement<byte[]> encode = BenchmarkHarness.serial(laptops, codec::serialize);
+            Measurement<LaptopInfo> decode = BenchmarkHarness.serial(encode.results(), codec::deserialize);
+            if (decode.results().contains(null)) {
+                throw new IllegalStateException("Decoded null value");
+            }
+            long totalBytes = 0;
+            for (byte[] bytes : encode.results()) {
+                totalBytes += bytes.length;
+            }
+            report.row(entry.getKey(), (double) totalBytes / samples,
+                    (double) encode.totalNanos() / samples, (double) decode.totalNanos() / samples,
+                    decode.percentileMillis(0.99) * 1000);
+        }
+        report.finish();
+    }
+
+    private static List<LaptopInfo> generate(int count, Random random) {
+        List<LaptopInfo> laptops = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String brand = BRANDS[random.nextInt(BRANDS.length)];
+            String cpu = CPUS[random.nextInt(CPUS.length)];
+            String memory = MEMORY[random.nextInt(MEMORY.length)];
+            String storage = STORAGE[random.nextInt(STORAGE.length)];
+
+            LaptopInfo laptop = new LaptopInfo();
+            laptop.setId((long) i + 1);
+            laptop.setProductId(String.valueOf(100000000L + random.nextInt(900000000)));
+            laptop.setTitle(brand + " 二手笔记本电脑 " + cpu + " " + memory + " " + storage + " 轻薄办公本 9成新");
+            laptop.setDescription("品牌：" + brand + " 处理器：" + cpu + " 内存容量：" + memory
+                    + " 硬盘容量：" + storage + " 屏幕尺寸：14英寸 成色：9成新");
+            laptop.setImageUrl("https://img10.360buyimg.com/n7/jfs/t1/" + random.nextInt(1000000) + ".jpg");
+            laptop.setProductUrl("https://item.jd.com/" + laptop.getProductId() + ".html");
+            laptop.setPrice(BigDecimal.valueOf(1500 + random.nextInt(10000), 0).setScale(2));
+            laptop.setOriginalPrice(laptop.getPrice().multiply(BigDecimal.valueOf(2)));
+            laptop.setBrand(brand);
+            laptop.setModel(brand + "-" + random.nextInt(100));
+            laptop.setProcessorInfo(cpu);
+            laptop.setMemoryInfo(memory);
+            laptop.setStorageInfo(storage);
+            laptop.setDisplayInfo("14英寸");
+            laptop.setConditionGrade("9成新");
+            laptop.setSellerName("京东二手优品");
+            laptop.setSellerRating(4.5 + random.nextDouble() / 2);
+            laptop.setCreatedAt(LocalDateTime.now());
+            laptop.setUpdatedAt(LocalDateTime.now());
+            laptops.add(laptop);
+        }
+        return laptops;
+    }
+}
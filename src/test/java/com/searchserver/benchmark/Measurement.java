@@ -0,0 +1,59 @@
+package com.searchserver.benchmark;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 一次回放的计时结果：总耗时、逐条延迟和逐条返回值（顺序与输入一致）
+ * @param <R> 单条操作的返回值
+ */
+final class Measurement<R> {
+
+    private final int count;
+    private final long totalNanos;
+    private final long[] sortedLatencies;
+    private final List<R> results;
+
+    Measurement(int count, long totalNanos, long[] latencies, List<R> results) {
+        this.count = count;
+        this.totalNanos = totalNanos;
+        this.sortedLatencies = latencies.clone();
+        Arrays.sort(this.sortedLatencies);
+        this.results = Collections.unmodifiableList(results);
+    }
+
+    int count() {
+        return count;
+    }
+
+    long totalNanos() {
+        return totalNanos;
+    }
+
+    List<R> results() {
+        return results;
+    }
+
+    /**
+     * 每秒完成的操作数
+     */
+    double throughput() {
+        return totalNanos > 0 ? count / (totalNanos / 1e9) : 0;
+    }
+
+    double meanMillis() {
+        return count > 0 ? totalNanos / 1e6 / count : 0;
+    }
+
+    /**
+     * 没有逐条延迟（如一次批量调用）时返回 0
+     */
+    double percentileMillis(double quantile) {
+        if (sortedLatencies.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sortedLatencies.length) - 1;
+        return sortedLatencies[Math.max(0, Math.min(index, sortedLatencies.length - 1))] / 1e6;
+    }
+}
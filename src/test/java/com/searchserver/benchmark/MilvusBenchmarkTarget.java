@@ -0,0 +1,192 @@
+package com.searchserver.benchmark;
+
+import com.searchserver.config.MilvusConfig;
+import com.searchserver.repository.impl.MilvusIndexParams;
+import com.searchserver.vector.FloatVectors;
+import com.searchserver.vector.VectorHit;
+import io.milvus.client.MilvusClient;
+import io.milvus.common.clientenum.ConsistencyLevelEnum;
+import io.milvus.grpc.DataType;
+import io.milvus.grpc.GetQuerySegmentInfoResponse;
+import io.milvus.grpc.QuerySegmentInfo;
+import io.milvus.grpc.SearchResults;
+import io.milvus.param.IndexType;
+import io.milvus.param.MetricType;
+import io.milvus.param.R;
+import io.milvus.param.collection.*;
+import io.milvus.param.control.GetQuerySegmentInfoParam;
+import io.milvus.param.dml.InsertParam;
+import io.milvus.param.dml.SearchParam;
+import io.milvus.param.index.CreateIndexParam;
+import io.milvus.response.SearchResultsWrapper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 在 Milvus（本地 standalone 容器）中建临时集合 {collection}_bench 进行测试，不影响线上集合。
+ * 建索引参数与检索参数和存储库一致（spring.milvus.nlist / hnsw-m / nprobe / ef 等）
+ */
+public class MilvusBenchmarkTarget implements BenchmarkTarget {
+
+    private final MilvusClient milvusClient;
+    private final MilvusConfig milvusConfig;
+    private final String collectionName;
+    private String indexType;
+
+    public MilvusBenchmarkTarget(MilvusClient milvusClient, MilvusConfig milvusConfig) {
+        this.milvusClient = milvusClient;
+        this.milvusConfig = milvusConfig;
+        this.collectionName = milvusConfig.getCollectionName() + "_bench";
+    }
+
+    @Override
+    public String name() {
+        return "milvus";
+    }
+
+    @Override
+    public boolean supports(String indexType) {
+        try {
+            IndexType.valueOf(indexType);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 建集合、分批写入、同步 flush、同步建索引、同步加载，计时覆盖全过程
+     */
+    @Override
+    public void build(String indexType, Map<Long, float[]> catalog) {
+        this.indexType = indexType;
+        drop();
+        createCollection();
+
+        List<Long> ids = new ArrayList<>();
+        List<List<Float>> vectors = new ArrayList<>();
+        for (Map.Entry<Long, float[]> entry : catalog.entrySet()) {
+            ids.add(entry.getKey());
+            vectors.add(FloatVectors.asList(entry.getValue()));
+            if (ids.size() >= milvusConfig.getInsertBatchSize()) {
+                insert(ids, vectors);
+                ids = new ArrayList<>();
+                vectors = new ArrayList<>();
+            }
+        }
+        if (!ids.isEmpty()) {
+            insert(ids, vectors);
+        }
+
+        check(milvusClient.flush(FlushParam.newBuilder()
+                .addCollectionName(collectionName)
+                .withSyncFlush(true)
+                .build()), "flush");
+        check(milvusClient.createIndex(CreateIndexParam.newBuilder()
+                .withCollectionName(collectionName)
+                .withFieldName("embedding")
+                .withIndexType(IndexType.valueOf(indexType))
+                .withMetricType(MetricType.valueOf(milvusConfig.getMetricType()))
+                .withExtraParam(MilvusIndexParams.indexParams(indexType, milvusConfig))
+                .withSyncMode(Boolean.TRUE)
+                .build()), "create index");
+        check(milvusClient.loadCollection(LoadCollectionParam.newBuilder()
+                .withCollectionName(collectionName)
+                .withSyncLoad(true)
+                .build()), "load collection");
+    }
+
+    @Override
+    public List<VectorHit> search(float[] query, int k) {
+        SearchParam searchParam = SearchParam.newBuilder()
+                .withCollectionName(collectionName)
+                .withConsistencyLevel(ConsistencyLevelEnum.BOUNDED)
+                .withMetricType(MetricType.valueOf(milvusConfig.getMetricType()))
+                .withOutFields(Collections.singletonList("id"))
+                .withTopK(k)
+                .withVectors(Collections.singletonList(FloatVectors.asList(query)))
+                .withVectorFieldName("embedding")
+                .withParams(MilvusIndexParams.searchParams(indexType, milvusConfig,
+                        milvusConfig.getNprobe(), milvusConfig.getEf(), k))
+                .build();
+        R<SearchResults> response = milvusClient.search(searchParam);
+        check(response, "search");
+        SearchResultsWrapper wrapper = new SearchResultsWrapper(response.getData().getResults());
+        return wrapper.getIDScore(0).stream()
+                .map(hit -> new VectorHit(hit.getLongID(), hit.getScore()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 查询节点上已加载段的内存占用之和
+     */
+    @Override
+    public long memoryBytes() {
+        R<GetQuerySegmentInfoResponse> response = milvusClient.getQuerySegmentInfo(
+                GetQuerySegmentInfoParam.newBuilder()
+                        .withCollectionName(collectionName)
+                        .build());
+        if (response.getStatus() != R.Status.Success.getCode()) {
+            return -1;
+        }
+        long total = 0;
+        for (QuerySegmentInfo segment : response.getData().getInfosList()) {
+            total += segment.getMemSize();
+        }
+        return total;
+    }
+
+    @Override
+    public void drop() {
+        R<Boolean> exists = milvusClient.hasCollection(HasCollectionParam.newBuilder()
+                .withCollectionName(collectionName)
+                .build());
+        if (Boolean.TRUE.equals(exists.getData())) {
+            milvusClient.dropCollection(DropCollectionParam.newBuilder()
+                    .withCollectionName(collectionName)
+                    .build());
+        }
+    }
+
+    private void createCollection() {
+        FieldType idField = FieldType.newBuilder()
+                .withName("id")
+                .withDataType(DataType.Int64)
+                .withPrimaryKey(true)
+                .withAutoID(false)
+                .build();
+
+        FieldType embeddingField = FieldType.newBuilder()
+                .withName("embedding")
+                .withDataType(DataType.FloatVector)
+                .withDimension(milvusConfig.getTextDimension())
+                .build();
+
+        check(milvusClient.createCollection(CreateCollectionParam.newBuilder()
+                .withCollectionName(collectionName)
+                .withDescription("Index benchmark scratch collection")
+                .addFieldType(idField)
+                .addFieldType(embeddingField)
+                .build()), "create collection");
+    }
+
+    private void insert(List<Long> ids, List<List<Float>> vectors) {
+        List<InsertParam.Field> fields = new ArrayList<>();
+        fields.add(new InsertParam.Field("id", ids));
+        fields.add(new InsertParam.Field("embedding", vectors));
+        check(milvusClient.insert(InsertParam.newBuilder()
+                .withCollectionName(collectionName)
+                .withFields(fields)
+                .build()), "insert");
+    }
+
+    private static void check(R<?> response, String operation) {
+        if (response.getStatus() != R.Status.Success.getCode()) {
+            throw new IllegalStateException("Milvus " + operation + " failed: " + response.getMessage());
+        }
+    }
+}
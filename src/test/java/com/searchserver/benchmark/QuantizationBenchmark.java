@@ -0,0 +1,82 @@
+package com.searchserver.benchmark;
+
+import com.searchserver.vector.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+/**
+ * 量化索引的内存占用与召回对比：float32 精确扫描 / int8 标量量化 / 乘积量化，分别统计重排前后的 recall@k：
+ * mvn test -Dtest=QuantizationBenchmark -Dbenchmark.count=50000 -Dbenchmark.subspaces=48 -Dbenchmark.rerank-factor=4
+ */
+class QuantizationBenchmark {
+
+    private static final int DIMENSION = 384;
+    private static final int CLUSTERS = 64;
+
+    @Test
+    void run() throws Exception {
+        int count = BenchmarkHarness.intProperty("count", 50000);
+        int queryCount = BenchmarkHarness.intProperty("queries", 200);
+        int k = BenchmarkHarness.intProperty("k", 10);
+        int subspaces = BenchmarkHarness.intProperty("subspaces", 48);
+        int rerankFactor = BenchmarkHarness.intProperty("rerank-factor", 4);
+
+        Random random = new Random(42);
+        float[][] vectors = BenchmarkHarness.clusteredVectors(count, DIMENSION, CLUSTERS, random);
+        Map<Long, float[]> byId = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            byId.put((long) i, vectors[i]);
+        }
+        List<float[]> queries = new ArrayList<>(queryCount);
+        for (int i = 0; i < queryCount; i++) {
+            queries.add(BenchmarkHarness.perturb(vectors[random.nextInt(count)], random));
+        }
+        GroundTruth groundTruth = new GroundTruth(queries, VectorMetric.L2, k);
+        byId.forEach(groundTruth::accept);
+        List<List<VectorHit>> expected = groundTruth.results();
+
+        long floatBytes = (long) count * (DIMENSION * Float.BYTES + Long.BYTES);
+        BenchmarkReport report = new BenchmarkReport("quantization", "index", "memory_mb", "compression",
+                "train_ms", "adc_recall_at_" + k, "rerank_recall_at_" + k, "p50_ms", "p99_ms");
+        // 精确扫描只作为内存和召回的基准，不计时
+        report.row("float32", floatBytes / 1048576.0, 1.0, "-", 1.0, 1.0, "-", "-");
+
+        List<VectorQuantizer> quantizers = Arrays.asList(
+                new ScalarQuantizer(DIMENSION, VectorMetric.L2),
+                new ProductQuantizer(DIMENSION, subspaces, VectorMetric.L2));
+        List<float[]> sample = Arrays.asList(vectors).subList(0, Math.min(count, 10000));
+        for (VectorQuantizer quantizer : quantizers) {
+            QuantizedVectorIndex index = new QuantizedVectorIndex(DIMENSION, VectorMetric.L2, quantizer,
+                    rerankFactor, Integer.MAX_VALUE, ids -> {
+                        Map<Long, float[]> result = new HashMap<>();
+                        ids.forEach(id -> result.put(id, byId.get(id)));
+                        return result;
+                    });
+            long start = System.nanoTime();
+            index.train(sample);
+            long trainMillis = (System.nanoTime() - start) / 1_000_000;
+            for (int i = 0; i < count; i++) {
+                index.add(i, vectors[i]);
+            }
+
+            // 只比较量化码（ADC）时的召回，与重排后的召回对照
+            Measurement<List<VectorHit>> adc = BenchmarkHarness.serial(queries, query -> index.searchCodes(query, k));
+            BenchmarkHarness.warmup(queries, 20, query -> index.search(query, k));
+            Measurement<List<VectorHit>> rerank = BenchmarkHarness.serial(queries, query -> index.search(query, k));
+            report.row(quantizer.toString(), index.memoryBytes() / 1048576.0,
+                    floatBytes / (double) index.memoryBytes(), trainMillis,
+                    recall(expected, adc), recall(expected, rerank),
+                    rerank.percentileMillis(0.50), rerank.percentileMillis(0.99));
+        }
+        report.finish();
+    }
+
+    private static double recall(List<List<VectorHit>> expected, Measurement<List<VectorHit>> measurement) {
+        double sum = 0;
+        for (int i = 0; i < expected.size(); i++) {
+            sum += GroundTruth.recall(expected.get(i), measurement.results().get(i));
+        }
+        return expected.isEmpty() ? 0 : sum / expected.size();
+    }
+}
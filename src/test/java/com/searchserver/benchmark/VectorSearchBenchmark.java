@@ -0,0 +1,96 @@
+package com.searchserver.benchmark;
+
+import com.searchserver.config.MilvusConfig;
+import com.searchserver.config.VectorIndexConfig;
+import com.searchserver.vector.GroundTruth;
+import com.searchserver.vector.VectorHit;
+import com.searchserver.vector.VectorMetric;
+import io.milvus.client.MilvusServiceClient;
+import io.milvus.param.ConnectParam;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+/**
+ * 合成数据上进程内 HNSW 与 Milvus 检索路径的延迟/召回对比，召回以精确检索为基准，不需要 Redis：
+ * mvn test -Dtest=VectorSearchBenchmark -Dbenchmark.count=20000 -Dbenchmark.milvus=localhost:19530
+ * 不传 benchmark.milvus 时只测进程内索引
+ */
+class VectorSearchBenchmark {
+
+    private static final int DIMENSION = 384;
+    private static final int CLUSTERS = 64;
+
+    @Test
+    void run() throws Exception {
+        int count = BenchmarkHarness.intProperty("count", 20000);
+        int queryCount = BenchmarkHarness.intProperty("queries", 200);
+        int k = BenchmarkHarness.intProperty("k", 10);
+        String milvusAddress = BenchmarkHarness.stringProperty("milvus", null);
+
+        Random random = new Random(42);
+        float[][] vectors = BenchmarkHarness.clusteredVectors(count, DIMENSION, CLUSTERS, random);
+        Map<Long, float[]> catalog = new LinkedHashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            catalog.put((long) i, vectors[i]);
+        }
+        List<float[]> queries = new ArrayList<>(queryCount);
+        for (int i = 0; i < queryCount; i++) {
+            queries.add(BenchmarkHarness.perturb(vectors[random.nextInt(count)], random));
+        }
+        GroundTruth groundTruth = new GroundTruth(queries, VectorMetric.L2, k);
+        catalog.forEach(groundTruth::accept);
+        List<List<VectorHit>> expected = groundTruth.results();
+
+        IndexBenchmark benchmark = new IndexBenchmark(catalog, queries, expected, k, 20, 4);
+        BenchmarkReport report = IndexBenchmark.newReport("vector-search", k);
+        BenchmarkTarget inProcess = new InProcessBenchmarkTarget(DIMENSION, VectorMetric.L2, vectorIndexConfig());
+        IndexBenchmark.addRow(report, benchmark.run(inProcess, "HNSW"));
+
+        if (milvusAddress != null) {
+            String[] hostPort = milvusAddress.split(":");
+            MilvusServiceClient client = new MilvusServiceClient(ConnectParam.newBuilder()
+                    .withHost(hostPort[0])
+                    .withPort(hostPort.length > 1 ? Integer.parseInt(hostPort[1]) : 19530)
+                    .build());
+            try {
+                BenchmarkTarget milvus = new MilvusBenchmarkTarget(client, milvusConfig());
+                for (String indexType : Arrays.asList("IVF_FLAT", "HNSW")) {
+                    IndexBenchmark.addRow(report, benchmark.run(milvus, indexType));
+                }
+            } finally {
+                client.close();
+            }
+        }
+        report.finish();
+    }
+
+    /**
+     * 与 application.yml 中 app.vector.hnsw 的默认值一致
+     */
+    private static VectorIndexConfig vectorIndexConfig() {
+        VectorIndexConfig config = new VectorIndexConfig();
+        config.setM(16);
+        config.setEfConstruction(200);
+        config.setEfSearch(64);
+        return config;
+    }
+
+    /**
+     * 与 application.yml 中 spring.milvus 的默认值一致，集合名加 _bench 后缀，测完即删除
+     */
+    private static MilvusConfig milvusConfig() {
+        MilvusConfig config = new MilvusConfig();
+        config.setCollectionName("vector_search");
+        config.setTextDimension(DIMENSION);
+        config.setMetricType("L2");
+        config.setInsertBatchSize(500);
+        config.setNlist(1024);
+        config.setPqM(48);
+        config.setHnswM(16);
+        config.setHnswEfConstruction(200);
+        config.setNprobe(16);
+        config.setEf(64);
+        return config;
+    }
+}
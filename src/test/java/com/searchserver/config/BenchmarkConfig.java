@@ -0,0 +1,128 @@
+package com.searchserver.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 基准测试的参数（application.yml 中 app.benchmark），由 IndexBenchmarkRunner 和 EmbeddingBenchmarkRunner 读取
+ */
+@Configuration
+public class BenchmarkConfig {
+
+    // milvus：在本地 Milvus standalone 中建临时集合；in-process：用进程内索引代替
+    @Value("${app.benchmark.target:in-process}")
+    private String target;
+
+    // 逗号分隔，依次建索引并回放查询
+    @Value("${app.benchmark.index-types:IVF_FLAT,HNSW,IVF_PQ,DISKANN}")
+    private String indexTypes;
+
+    // 目录快照（段文件格式），不存在时从Redis导出一份，之后的运行都回放同一份数据
+    @Value("${app.benchmark.snapshot-path:data/benchmark-catalog.seg}")
+    private String snapshotPath;
+
+    // 每行一条查询文本；留空时从快照中抽样向量作为查询
+    @Value("${app.benchmark.query-file:}")
+    private String queryFile;
+
+    @Value("${app.benchmark.query-count:1000}")
+    private Integer queryCount;
+
+    @Value("${app.benchmark.k:10}")
+    private Integer k;
+
+    // 正式计时前先跑的查询数
+    @Value("${app.benchmark.warmup:100}")
+    private Integer warmup;
+
+    // 测 QPS 时的并发线程数
+    @Value("${app.benchmark.concurrency:4}")
+    private Integer concurrency;
+
+    @Value("${app.benchmark.report-path:data/benchmark-report.csv}")
+    private String reportPath;
+
+    // 向量化基准测试的报告，复用 query-file、query-count、warmup、concurrency
+    @Value("${app.benchmark.embedding.report-path:data/embedding-benchmark-report.csv}")
+    private String embeddingReportPath;
+
+    public String getTarget() {
+        return target;
+    }
+
+    public void setTarget(String target) {
+        this.target = target;
+    }
+
+    public String getIndexTypes() {
+        return indexTypes;
+    }
+
+    public void setIndexTypes(String indexTypes) {
+        this.indexTypes = indexTypes;
+    }
+
+    public String getSnapshotPath() {
+        return snapshotPath;
+    }
+
+    public void setSnapshotPath(String snapshotPath) {
+        this.snapshotPath = snapshotPath;
+    }
+
+    public String getQueryFile() {
+        return queryFile;
+    }
+
+    public void setQueryFile(String queryFile) {
+        this.queryFile = queryFile;
+    }
+
+    public Integer getQueryCount() {
+        return queryCount;
+    }
+
+    public void setQueryCount(Integer queryCount) {
+        this.queryCount = queryCount;
+    }
+
+    public Integer getK() {
+        return k;
+    }
+
+    public void setK(Integer k) {
+        this.k = k;
+    }
+
+    public Integer getWarmup() {
+        return warmup;
+    }
+
+    public void setWarmup(Integer warmup) {
+        this.warmup = warmup;
+    }
+
+    public Integer getConcurrency() {
+        return concurrency;
+    }
+
+    public void setConcurrency(Integer concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    public String getReportPath() {
+        return reportPath;
+    }
+
+    public void setReportPath(String reportPath) {
+        this.reportPath = reportPath;
+    }
+
+    public String getEmbeddingReportPath() {
+        return embeddingReportPath;
+    }
+
+    public void setEmbeddingReportPath(String embeddingReportPath) {
+        this.embeddingReportPath = embeddingReportPath;
+    }
+}
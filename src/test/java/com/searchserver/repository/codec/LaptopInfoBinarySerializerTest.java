@@ -0,0 +1,168 @@
+package com.searchserver.repository.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.searchserver.model.LaptopInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LaptopInfoBinarySerializerTest {
+
+    private final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final LaptopInfoBinarySerializer serializer = new LaptopInfoBinarySerializer(mapper, false, 512);
+
+    @Test
+    void roundTripsFullyPopulatedLaptop() {
+        LaptopInfo laptop = fullLaptop();
+
+        byte[] bytes = serializer.serialize(laptop);
+
+        assertEquals(LaptopInfoBinarySerializer.MAGIC, bytes[0]);
+        assertEquals(LaptopInfoBinarySerializer.VERSION, bytes[1]);
+        assertSameFields(laptop, serializer.deserialize(bytes));
+    }
+
+    @Test
+    void roundTripsSparseLaptop() {
+        LaptopInfo laptop = new LaptopInfo();
+        laptop.setId(7L);
+        laptop.setTitle("ThinkPad X1");
+        laptop.setSellerRating(4.5);
+
+        LaptopInfo decoded = serializer.deserialize(serializer.serialize(laptop));
+
+        assertSameFields(laptop, decoded);
+        assertNull(decoded.getPrice());
+        assertNull(decoded.getCreatedAt());
+    }
+
+    @Test
+    void roundTripsLz4CompressedLaptop() {
+        LaptopInfoBinarySerializer compressing = new LaptopInfoBinarySerializer(mapper, true, 16);
+        LaptopInfo laptop = fullLaptop();
+        laptop.setDescription("轻薄本 ".repeat(200));
+
+        byte[] bytes = compressing.serialize(laptop);
+
+        assertEquals(0x01, bytes[2] & 0x01);
+        assertSameFields(laptop, compressing.deserialize(bytes));
+        // 未开启压缩的实例也能读取压缩值
+        assertSameFields(laptop, serializer.deserialize(bytes));
+    }
+
+    @Test
+    void doesNotEncodeVectors() {
+        LaptopInfo laptop = fullLaptop();
+        laptop.setEmbedding(new float[]{0.1f, 0.2f});
+        laptop.setImageEmbedding(new float[]{0.3f});
+
+        LaptopInfo decoded = serializer.deserialize(serializer.serialize(laptop));
+
+        assertNull(decoded.getEmbedding());
+        assertNull(decoded.getImageEmbedding());
+    }
+
+    @Test
+    void decodesLegacyJsonValue() {
+        String json = "{\"id\":42,\"title\":\"MacBook Air\",\"productId\":\"100012345\","
+                + "\"price\":5999.00,\"brand\":\"Apple\",\"memoryInfo\":\"16GB\",\"sellerRating\":4.8,"
+                + "\"createdAt\":[2024,3,1,12,30,15],\"embedding\":[0.25,-0.5]}";
+
+        LaptopInfo decoded = serializer.deserialize(json.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(42L, decoded.getId());
+        assertEquals("MacBook Air", decoded.getTitle());
+        assertEquals("100012345", decoded.getProductId());
+        assertEquals(0, new BigDecimal("5999.00").compareTo(decoded.getPrice()));
+        assertEquals("Apple", decoded.getBrand());
+        assertEquals("16GB", decoded.getMemoryInfo());
+        assertEquals(4.8, decoded.getSellerRating());
+        assertEquals(LocalDateTime.of(2024, 3, 1, 12, 30, 15), decoded.getCreatedAt());
+        // 旧格式中内嵌的向量仍可读出，供回填时迁移到 laptop:vec:{id}
+        assertArrayEquals(new float[]{0.25f, -0.5f}, decoded.getEmbedding());
+    }
+
+    @Test
+    void legacyJsonIsRewrittenAsBinary() {
+        String json = "{\"id\":1,\"title\":\"Legion\",\"price\":7999}";
+
+        LaptopInfo legacy = serializer.deserialize(json.getBytes(StandardCharsets.UTF_8));
+        byte[] rewritten = serializer.serialize(legacy);
+
+        assertEquals(LaptopInfoBinarySerializer.MAGIC, rewritten[0]);
+        assertSameFields(legacy, serializer.deserialize(rewritten));
+    }
+
+    @Test
+    void emptyValueDecodesToNull() {
+        assertNull(serializer.deserialize(null));
+        assertNull(serializer.deserialize(new byte[0]));
+    }
+
+    @Test
+    void rejectsUnknownVersionAndTruncatedValues() {
+        byte[] bytes = serializer.serialize(fullLaptop());
+
+        byte[] futureVersion = bytes.clone();
+        futureVersion[1] = (byte) (LaptopInfoBinarySerializer.VERSION + 1);
+        assertThrows(SerializationException.class, () -> serializer.deserialize(futureVersion));
+
+        // 去掉最后一个字节，读到末尾字段时越界
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 1);
+        assertThrows(SerializationException.class, () -> serializer.deserialize(truncated));
+    }
+
+    private static LaptopInfo fullLaptop() {
+        LaptopInfo laptop = new LaptopInfo();
+        laptop.setId(123456789L);
+        laptop.setTitle("联想 ThinkPad X1 Carbon 2023");
+        laptop.setDescription("九成新，电池健康 95%");
+        laptop.setProductId("100087654321");
+        laptop.setImageUrl("https://img.example.com/x1.jpg");
+        laptop.setProductUrl("https://item.example.com/100087654321.html");
+        laptop.setPrice(new BigDecimal("6499.50"));
+        laptop.setOriginalPrice(new BigDecimal("12999"));
+        laptop.setBrand("ThinkPad");
+        laptop.setModel("X1 Carbon Gen 11");
+        laptop.setProcessorInfo("i7-1365U");
+        laptop.setMemoryInfo("32GB LPDDR5");
+        laptop.setStorageInfo("1TB SSD");
+        laptop.setDisplayInfo("14\" 2.8K OLED");
+        laptop.setConditionGrade("A");
+        laptop.setSellerName("京东二手");
+        laptop.setSellerRating(4.9);
+        laptop.setCreatedAt(LocalDateTime.of(2024, 1, 15, 8, 0, 0, 123_000_000));
+        laptop.setUpdatedAt(LocalDateTime.of(2024, 2, 1, 23, 59, 59));
+        return laptop;
+    }
+
+    private static void assertSameFields(LaptopInfo expected, LaptopInfo actual) {
+        assertNotNull(actual);
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getTitle(), actual.getTitle());
+        assertEquals(expected.getDescription(), actual.getDescription());
+        assertEquals(expected.getProductId(), actual.getProductId());
+        assertEquals(expected.getImageUrl(), actual.getImageUrl());
+        assertEquals(expected.getProductUrl(), actual.getProductUrl());
+        assertEquals(expected.getPrice(), actual.getPrice());
+        assertEquals(expected.getOriginalPrice(), actual.getOriginalPrice());
+        assertEquals(expected.getBrand(), actual.getBrand());
+        assertEquals(expected.getModel(), actual.getModel());
+        assertEquals(expected.getProcessorInfo(), actual.getProcessorInfo());
+        assertEquals(expected.getMemoryInfo(), actual.getMemoryInfo());
+        assertEquals(expected.getStorageInfo(), actual.getStorageInfo());
+        assertEquals(expected.getDisplayInfo(), actual.getDisplayInfo());
+        assertEquals(expected.getConditionGrade(), actual.getConditionGrade());
+        assertEquals(expected.getSellerName(), actual.getSellerName());
+        assertEquals(expected.getSellerRating(), actual.getSellerRating());
+        assertEquals(expected.getCreatedAt(), actual.getCreatedAt());
+        assertEquals(expected.getUpdatedAt(), actual.getUpdatedAt());
+    }
+}
@@ -0,0 +1,74 @@
+package com.searchserver.repository.impl;
+
+import com.searchserver.model.LaptopFilter;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MilvusFilterExprTest {
+
+    @Test
+    void emptyFilterHasNoExpression() {
+        assertEquals("", MilvusLaptopInfoRepository.toExpr(LaptopFilter.empty()));
+    }
+
+    @Test
+    void combinesAllConditions() {
+        LaptopFilter filter = new LaptopFilter();
+        filter.setBrand(" Think Pad ");
+        filter.setMinPrice(new BigDecimal("3000"));
+        filter.setMaxPrice(new BigDecimal("6999.50"));
+        filter.setConditionGrade("9成新");
+        filter.setMinMemoryGb(16);
+
+        assertEquals("brand == \"thinkpad\" && price >= 3000 && price <= 6999.50"
+                        + " && condition_grade == \"9成新\" && memory_gb >= 16",
+                MilvusLaptopInfoRepository.toExpr(filter));
+    }
+
+    @Test
+    void openPriceRangeStartsAtZero() {
+        LaptopFilter maxOnly = new LaptopFilter();
+        maxOnly.setMaxPrice(new BigDecimal("5000"));
+        LaptopFilter negativeMin = new LaptopFilter();
+        negativeMin.setMinPrice(new BigDecimal("-10"));
+
+        assertEquals("price >= 0 && price <= 5000", MilvusLaptopInfoRepository.toExpr(maxOnly));
+        assertEquals("price >= 0", MilvusLaptopInfoRepository.toExpr(negativeMin));
+    }
+
+    @Test
+    void escapesQuotesAndBackslashes() {
+        LaptopFilter filter = new LaptopFilter();
+        filter.setConditionGrade("a\"b\\c");
+
+        assertEquals("condition_grade == \"a\\\"b\\\\c\"", MilvusLaptopInfoRepository.toExpr(filter));
+    }
+
+    @Test
+    void brandPartitionIsNormalizedAndAscii() {
+        assertEquals("brand_thinkpad", MilvusLaptopInfoRepository.brandPartition(" Think Pad "));
+        assertEquals(MilvusLaptopInfoRepository.brandPartition("ThinkPad"),
+                MilvusLaptopInfoRepository.brandPartition("thinkpad"));
+        // 非 ASCII 字符编码为 _xxxx，保证分区名只含字母、数字和下划线
+        assertEquals("brand__8054_60f3", MilvusLaptopInfoRepository.brandPartition("联想"));
+        assertEquals("brand_hp_002d1", MilvusLaptopInfoRepository.brandPartition("HP-1"));
+    }
+
+    @Test
+    void brandPartitionIsNullForBlankBrand() {
+        assertNull(MilvusLaptopInfoRepository.brandPartition(null));
+        assertNull(MilvusLaptopInfoRepository.brandPartition("  "));
+    }
+
+    @Test
+    void longBrandsShareTruncatedPartition() {
+        String prefix = "a".repeat(48);
+
+        assertEquals("brand_" + prefix, MilvusLaptopInfoRepository.brandPartition(prefix + "x"));
+        assertEquals(MilvusLaptopInfoRepository.brandPartition(prefix + "x"),
+                MilvusLaptopInfoRepository.brandPartition(prefix + "y"));
+    }
+}
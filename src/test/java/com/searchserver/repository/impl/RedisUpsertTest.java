@@ -0,0 +1,277 @@
+package com.searchserver.repository.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.searchserver.config.RedisConfig;
+import com.searchserver.model.LaptopFilter;
+import com.searchserver.model.LaptopInfo;
+import com.searchserver.model.UpsertResult;
+import com.searchserver.model.VectorSearchOptions;
+import com.searchserver.repository.codec.LaptopInfoBinarySerializer;
+import com.searchserver.repository.index.KeywordIndex;
+import com.searchserver.vector.VectorHit;
+import com.searchserver.vector.VectorMetric;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * upsertAll 的变化分类、多个爬虫实例并发 upsertAll 的一致性，以及其他实例关键词索引的刷新。需要本地 Redis（REDIS_HOST/REDIS_PORT，默认 localhost:6379），
+ * 使用 15 号库并在前后清空；连不上时跳过
+ */
+class RedisUpsertTest {
+
+    private static final int DIMENSION = 4;
+    private static final int WRITERS = 4;
+
+    private JedisConnectionFactory connectionFactory;
+    private StringRedisTemplate stringRedisTemplate;
+    private InMemoryRepository repository;
+    // 共用同一个Redis的另一个实例，关键词索引各自维护
+    private InMemoryRepository replica;
+
+    @BeforeEach
+    void setUp() {
+        RedisStandaloneConfiguration config = new RedisStandaloneConfiguration(
+                System.getenv().getOrDefault("REDIS_HOST", "localhost"),
+                Integer.parseInt(System.getenv().getOrDefault("REDIS_PORT", "6379")));
+        config.setDatabase(15);
+        connectionFactory = new JedisConnectionFactory(config);
+        connectionFactory.afterPropertiesSet();
+        try {
+            connectionFactory.getConnection().close();
+        } catch (Exception e) {
+            connectionFactory.destroy();
+            assumeTrue(false, "Redis not available: " + e.getMessage());
+        }
+
+        RedisTemplate<String, LaptopInfo> redisTemplate = new RedisTemplate<>();
+        redisTemplate.setConnectionFactory(connectionFactory);
+        redisTemplate.setKeySerializer(new StringRedisSerializer());
+        redisTemplate.setValueSerializer(new LaptopInfoBinarySerializer(
+                new ObjectMapper().registerModule(new JavaTimeModule()), false, 512));
+        redisTemplate.setHashKeySerializer(new StringRedisSerializer());
+        redisTemplate.afterPropertiesSet();
+        stringRedisTemplate = new StringRedisTemplate(connectionFactory);
+
+        RedisConfig redisConfig = new RedisConfig();
+        redisConfig.setScanBatchSize(100);
+        repository = new InMemoryRepository(redisTemplate, stringRedisTemplate, redisConfig);
+        replica = new InMemoryRepository(redisTemplate, stringRedisTemplate, redisConfig);
+        stringRedisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (stringRedisTemplate != null) {
+            stringRedisTemplate.execute((RedisCallback<Object>) connection -> {
+                connection.serverCommands().flushDb();
+                return null;
+            });
+        }
+        if (connectionFactory != null) {
+            connectionFactory.destroy();
+        }
+    }
+
+    @Test
+    void classifiesRepeatedCrawlsAndSkipsUnchangedItems() {
+        AtomicInteger embedded = new AtomicInteger();
+        Function<List<LaptopInfo>, List<float[]>> embedder = laptops -> {
+            embedded.addAndGet(laptops.size());
+            return embedder().apply(laptops);
+        };
+
+        UpsertResult inserted = repository.upsertAll(List.of(laptop("p1", "Lenovo", 5000)), embedder);
+        LaptopInfo stored = repository.findByProductId("p1").orElseThrow();
+
+        UpsertResult unchanged = repository.upsertAll(List.of(laptop("p1", "Lenovo", 5000)), embedder);
+        LaptopInfo afterUnchanged = repository.findByProductId("p1").orElseThrow();
+
+        UpsertResult patched = repository.upsertAll(List.of(laptop("p1", "Lenovo", 4500)), embedder);
+        LaptopInfo retitled = laptop("p1", "Lenovo", 4500);
+        retitled.setTitle("Lenovo p1 2024");
+        UpsertResult reembedded = repository.upsertAll(List.of(retitled), embedder);
+
+        assertEquals(1, inserted.count(UpsertResult.Change.INSERTED));
+        assertEquals(1, unchanged.count(UpsertResult.Change.UNCHANGED));
+        // 未变化的商品不重写，updatedAt 保持不变
+        assertEquals(stored.getUpdatedAt(), afterUnchanged.getUpdatedAt());
+        assertEquals(1, patched.count(UpsertResult.Change.PATCHED));
+        assertEquals(4500.0, stringRedisTemplate.opsForZSet().score("laptop:index:price", String.valueOf(stored.getId())));
+        assertEquals(1, reembedded.count(UpsertResult.Change.REEMBEDDED));
+        // 只有插入和标题变化时调用 embedder
+        assertEquals(2, embedded.get());
+        assertEquals("Lenovo p1 2024".hashCode(), repository.vectors.get(stored.getId())[0], 0f);
+        assertEquals(1, repository.findAll().size());
+    }
+
+    @Test
+    void replicaKeywordIndexCatchesUpOnRefresh() {
+        replica.refreshKeywordIndex();
+        repository.upsertAll(List.of(laptop("p1", "Lenovo", 5000)), embedder());
+        Long id = repository.findByProductId("p1").orElseThrow().getId();
+
+        // 另一个实例的写入在刷新前不可见
+        assertTrue(replica.searchByKeyword("lenovo", 10).isEmpty());
+        replica.refreshKeywordIndex();
+        assertEquals(List.of(id), replica.searchByKeyword("lenovo", 10).stream()
+                .map(LaptopInfo::getId)
+                .collect(Collectors.toList()));
+
+        repository.deleteById(id);
+        replica.refreshKeywordIndex();
+        assertTrue(replica.searchByKeyword("lenovo", 10).isEmpty());
+    }
+
+    @Test
+    void concurrentInsertsOfSameProductsDoNotDuplicateIds() throws Exception {
+        int products = 50;
+        runConcurrently(writer -> {
+            List<LaptopInfo> batch = new ArrayList<>();
+            for (int i = 0; i < products; i++) {
+                batch.add(laptop("p" + i, "Lenovo", 5000 + i));
+            }
+            return repository.upsertAll(batch, embedder());
+        });
+
+        Map<Object, Object> mappings = stringRedisTemplate.opsForHash().entries("laptop:index:productId");
+        assertEquals(products, mappings.size());
+        assertEquals(products, repository.findAll().size());
+        for (Map.Entry<Object, Object> entry : mappings.entrySet()) {
+            LaptopInfo stored = repository.findById(Long.parseLong(entry.getValue().toString())).orElseThrow();
+            assertEquals(entry.getKey(), stored.getProductId());
+        }
+        assertEquals(products, stringRedisTemplate.opsForZSet().zCard("laptop:index:price"));
+        assertEquals(products, repository.vectors.size());
+    }
+
+    @Test
+    void concurrentUpdatesLeaveIndexesMatchingFinalValue() throws Exception {
+        repository.upsertAll(Collections.singletonList(laptop("p1", "Lenovo", 5000)), embedder());
+
+        // 各写入方写入不同的价格和品牌，最终的索引必须与最终值一致，不能残留其他写入方的条目
+        String[] brands = {"Lenovo", "Dell", "HP", "Asus"};
+        runConcurrently(writer -> {
+            UpsertResult last = null;
+            for (int round = 0; round < 20; round++) {
+                last = repository.upsertAll(Collections.singletonList(
+                        laptop("p1", brands[writer], 6000 + writer * 100 + round)), embedder());
+            }
+            return last;
+        });
+
+        LaptopInfo stored = repository.findByProductId("p1").orElseThrow();
+        Set<String> priced = stringRedisTemplate.opsForZSet().range("laptop:index:price", 0, -1);
+        assertEquals(Collections.singleton(String.valueOf(stored.getId())), priced);
+        assertEquals(stored.getPrice().doubleValue(),
+                stringRedisTemplate.opsForZSet().score("laptop:index:price", String.valueOf(stored.getId())));
+        for (String brand : brands) {
+            long expected = brand.equals(stored.getBrand()) ? 1 : 0;
+            assertEquals(expected, repository.countByBrand(brand), brand);
+        }
+        assertEquals(1, repository.findAll().size());
+    }
+
+    private void runConcurrently(Function<Integer, UpsertResult> writer) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<UpsertResult>> futures = new ArrayList<>();
+            for (int i = 0; i < WRITERS; i++) {
+                int index = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return writer.apply(index);
+                }));
+            }
+            start.countDown();
+            for (Future<UpsertResult> future : futures) {
+                UpsertResult result = future.get(60, TimeUnit.SECONDS);
+                assertFalse(result.hasFailures(), () -> result.getFailures().stream()
+                        .map(failure -> failure.getReason())
+                        .collect(Collectors.joining(", ")));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Function<List<LaptopInfo>, List<float[]>> embedder() {
+        return laptops -> laptops.stream()
+                .map(laptop -> new float[]{laptop.getTitle().hashCode(), 1, 0, 0})
+                .collect(Collectors.toList());
+    }
+
+    private static LaptopInfo laptop(String productId, String brand, int price) {
+        LaptopInfo laptop = new LaptopInfo();
+        laptop.setProductId(productId);
+        laptop.setTitle(brand + " " + productId);
+        laptop.setBrand(brand);
+        laptop.setPrice(BigDecimal.valueOf(price));
+        return laptop;
+    }
+
+    /**
+     * 向量存在内存里的存储库，只用来验证Redis一侧的写入
+     */
+    private static final class InMemoryRepository extends AbstractRedisLaptopInfoRepository {
+
+        private final Map<Long, float[]> vectors = new ConcurrentHashMap<>();
+
+        private InMemoryRepository(RedisTemplate<String, LaptopInfo> redisTemplate,
+                                   StringRedisTemplate stringRedisTemplate, RedisConfig redisConfig) {
+            super(redisTemplate, stringRedisTemplate, redisConfig, new KeywordIndex(), DIMENSION);
+        }
+
+        @Override
+        protected void initVectorStore() {
+        }
+
+        @Override
+        protected long insertVectors(List<LaptopInfo> laptops) {
+            laptops.forEach(laptop -> vectors.put(laptop.getId(), laptop.getEmbedding()));
+            return 0;
+        }
+
+        @Override
+        protected void deleteVectors(Long id) {
+            vectors.remove(id);
+        }
+
+        @Override
+        protected void deleteAllVectors() {
+            vectors.clear();
+        }
+
+        @Override
+        protected List<VectorHit> searchVectors(float[] embedding, int limit, LaptopFilter filter,
+                                                VectorSearchOptions options) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        protected VectorMetric vectorMetric() {
+            return VectorMetric.L2;
+        }
+    }
+}
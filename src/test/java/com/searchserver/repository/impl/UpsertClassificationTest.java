@@ -0,0 +1,105 @@
+package com.searchserver.repository.impl;
+
+import com.searchserver.model.LaptopInfo;
+import com.searchserver.model.UpsertResult;
+import com.searchserver.repository.index.EmbeddingText;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpsertClassificationTest {
+
+    @Test
+    void identicalContentIsUnchangedDespiteTimestamps() {
+        LaptopInfo old = laptop();
+        LaptopInfo crawled = laptop();
+        crawled.setId(null);
+        crawled.setUpdatedAt(LocalDateTime.now());
+        // 金额按数值比较
+        crawled.setPrice(new BigDecimal("5999.0"));
+
+        assertEquals(UpsertResult.Change.UNCHANGED,
+                AbstractRedisLaptopInfoRepository.classify(old, crawled, EmbeddingText.hash(old), false));
+    }
+
+    @Test
+    void changedEmbeddingTextIsReembedded() {
+        LaptopInfo old = laptop();
+        LaptopInfo crawled = laptop();
+        crawled.setTitle("Lenovo Yoga 14s 2024");
+
+        assertEquals(UpsertResult.Change.REEMBEDDED,
+                AbstractRedisLaptopInfoRepository.classify(old, crawled, EmbeddingText.hash(old), false));
+    }
+
+    @Test
+    void suppliedEmbeddingIsAlwaysReembedded() {
+        LaptopInfo old = laptop();
+        LaptopInfo crawled = laptop();
+        crawled.setEmbedding(new float[]{1, 0});
+
+        assertEquals(UpsertResult.Change.REEMBEDDED,
+                AbstractRedisLaptopInfoRepository.classify(old, crawled, EmbeddingText.hash(old), false));
+    }
+
+    @Test
+    void nonTextChangeIsRewrittenOnlyWhenVectorFieldsChanged() {
+        LaptopInfo old = laptop();
+        LaptopInfo crawled = laptop();
+        crawled.setPrice(new BigDecimal("5499.00"));
+        String hash = EmbeddingText.hash(old);
+
+        assertEquals(UpsertResult.Change.REWRITTEN,
+                AbstractRedisLaptopInfoRepository.classify(old, crawled, hash, true));
+        assertEquals(UpsertResult.Change.PATCHED,
+                AbstractRedisLaptopInfoRepository.classify(old, crawled, hash, false));
+    }
+
+    @Test
+    void sellerChangeIsPatched() {
+        LaptopInfo old = laptop();
+        LaptopInfo crawled = laptop();
+        crawled.setSellerRating(4.9);
+
+        assertEquals(UpsertResult.Change.PATCHED,
+                AbstractRedisLaptopInfoRepository.classify(old, crawled, EmbeddingText.hash(old), false));
+    }
+
+    @Test
+    void missingStoredHashIsPatchedToBackfillHash() {
+        LaptopInfo old = laptop();
+
+        assertEquals(UpsertResult.Change.PATCHED,
+                AbstractRedisLaptopInfoRepository.classify(old, laptop(), null, false));
+    }
+
+    @Test
+    void newImageEmbeddingIsNotUnchanged() {
+        LaptopInfo old = laptop();
+        LaptopInfo crawled = laptop();
+        crawled.setImageEmbedding(new float[]{0, 1});
+
+        assertEquals(UpsertResult.Change.PATCHED,
+                AbstractRedisLaptopInfoRepository.classify(old, crawled, EmbeddingText.hash(old), false));
+    }
+
+    private static LaptopInfo laptop() {
+        LaptopInfo laptop = new LaptopInfo();
+        laptop.setId(1L);
+        laptop.setProductId("100012345678");
+        laptop.setTitle("Lenovo Yoga 14s");
+        laptop.setDescription("轻薄本");
+        laptop.setBrand("Lenovo");
+        laptop.setModel("Yoga 14s");
+        laptop.setMemoryInfo("16GB");
+        laptop.setPrice(new BigDecimal("5999.00"));
+        laptop.setSellerName("自营");
+        laptop.setSellerRating(4.8);
+        laptop.setCreatedAt(LocalDateTime.of(2024, 1, 1, 0, 0));
+        laptop.setUpdatedAt(LocalDateTime.of(2024, 1, 1, 0, 0));
+        return laptop;
+    }
+}
@@ -0,0 +1,139 @@
+package com.searchserver.repository.index;
+
+import com.searchserver.model.LaptopInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeywordIndexTest {
+
+    private final KeywordIndex index = new KeywordIndex();
+
+    @Test
+    void ranksBrandMatchAboveDescriptionMatch() {
+        index.index(laptop(1L, "Dell", "XPS 13", "轻薄本", "适合替换 lenovo 旧机"));
+        index.index(laptop(2L, "Lenovo", "Yoga", "轻薄本", "办公"));
+
+        List<KeywordIndex.Hit> hits = index.search("lenovo", 10);
+
+        assertEquals(List.of(2L, 1L), ids(hits));
+        assertTrue(hits.get(0).getScore() > hits.get(1).getScore());
+    }
+
+    @Test
+    void matchesModelNumberSubwords() {
+        index.index(laptop(1L, "Asus", "ROG", "RTX4060 游戏本", null));
+        index.index(laptop(2L, "Asus", "Zenbook", "集显 轻薄本", null));
+
+        assertEquals(List.of(1L), ids(index.search("4060", 10)));
+    }
+
+    @Test
+    void reindexReplacesPreviousTerms() {
+        index.index(laptop(1L, "Lenovo", "Yoga", "轻薄本", null));
+        index.index(laptop(1L, "HP", "Omen", "游戏本", null));
+
+        assertTrue(index.search("lenovo", 10).isEmpty());
+        assertEquals(List.of(1L), ids(index.search("omen", 10)));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void removeDropsDocument() {
+        index.index(laptop(1L, "Lenovo", "Yoga", "轻薄本", null));
+        index.index(laptop(2L, "Lenovo", "Legion", "游戏本", null));
+
+        index.remove(1L);
+
+        assertEquals(List.of(2L), ids(index.search("lenovo", 10)));
+        assertEquals(List.of(2L), index.ids());
+    }
+
+    @Test
+    void appliesFilterAndLimit() {
+        for (long id = 1; id <= 5; id++) {
+            index.index(laptop(id, "Lenovo", "Yoga " + id, "轻薄本", null));
+        }
+
+        List<KeywordIndex.Hit> hits = index.search("lenovo", 2, id -> id % 2 == 1);
+
+        assertEquals(2, hits.size());
+        assertTrue(hits.stream().allMatch(hit -> hit.getId() % 2 == 1));
+    }
+
+    @Test
+    void returnsNothingForUnknownOrBlankQuery() {
+        index.index(laptop(1L, "Lenovo", "Yoga", "轻薄本", null));
+
+        assertTrue(index.search("macbook", 10).isEmpty());
+        assertTrue(index.search("  ", 10).isEmpty());
+    }
+
+    @Test
+    void rebuildReplacesContents() {
+        index.index(laptop(1L, "Lenovo", "Yoga", "轻薄本", null));
+        index.index(laptop(2L, "Dell", "XPS", "轻薄本", null));
+
+        // 其他实例把 1 改成了 HP，删除了 2，新增了 3
+        assertTrue(index.rebuild(Stream.of(
+                laptop(1L, "HP", "Omen", "游戏本", null),
+                laptop(3L, "Asus", "ROG", "游戏本", null))));
+
+        assertTrue(index.search("lenovo", 10).isEmpty());
+        assertTrue(index.search("xps", 10).isEmpty());
+        assertEquals(List.of(1L), ids(index.search("omen", 10)));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void rebuildKeepsWritesMadeWhileRebuilding() {
+        index.index(laptop(1L, "Lenovo", "Yoga", "轻薄本", null));
+        index.index(laptop(2L, "Dell", "XPS", "轻薄本", null));
+
+        // 读取快照之后本实例又写入了 1、删除了 2，快照中仍是旧值
+        Stream<LaptopInfo> snapshot = Stream.of(
+                laptop(1L, "Lenovo", "Yoga", "轻薄本", null),
+                laptop(2L, "Dell", "XPS", "轻薄本", null))
+                .peek(laptop -> {
+                    if (laptop.getId() == 2L) {
+                        index.index(laptop(1L, "HP", "Omen", "游戏本", null));
+                        index.remove(2L);
+                    }
+                });
+        assertTrue(index.rebuild(snapshot));
+
+        assertEquals(List.of(1L), ids(index.search("omen", 10)));
+        assertTrue(index.search("lenovo", 10).isEmpty());
+        assertTrue(index.search("xps", 10).isEmpty());
+        assertEquals(List.of(1L), index.ids());
+    }
+
+    @Test
+    void rebuildDiscardedWhenClearedMeanwhile() {
+        index.index(laptop(1L, "Lenovo", "Yoga", "轻薄本", null));
+
+        Stream<LaptopInfo> snapshot = Stream.of(laptop(1L, "Lenovo", "Yoga", "轻薄本", null))
+                .peek(laptop -> index.clear());
+
+        assertFalse(index.rebuild(snapshot));
+        assertEquals(0, index.size());
+    }
+
+    private static List<Long> ids(List<KeywordIndex.Hit> hits) {
+        return hits.stream().map(KeywordIndex.Hit::getId).collect(Collectors.toList());
+    }
+
+    private static LaptopInfo laptop(Long id, String brand, String model, String title, String description) {
+        LaptopInfo laptop = new LaptopInfo();
+        laptop.setId(id);
+        laptop.setBrand(brand);
+        laptop.setModel(model);
+        laptop.setTitle(title);
+        laptop.setDescription(description);
+        return laptop;
+    }
+}
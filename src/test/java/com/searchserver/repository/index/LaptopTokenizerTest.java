@@ -0,0 +1,36 @@
+package com.searchserver.repository.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LaptopTokenizerTest {
+
+    @Test
+    void splitsCjkIntoBigrams() {
+        assertEquals(List.of("轻薄", "薄本"), LaptopTokenizer.tokenize("轻薄本"));
+        assertEquals(List.of("本"), LaptopTokenizer.tokenize("本"));
+    }
+
+    @Test
+    void lowercasesAndSplitsModelNumbersAtDigitBoundaries() {
+        assertEquals(List.of("rtx4060", "rtx", "4060"), LaptopTokenizer.tokenize("RTX4060"));
+        assertEquals(List.of("32gb", "32", "gb"), LaptopTokenizer.tokenize("32GB"));
+        assertEquals(List.of("lenovo"), LaptopTokenizer.tokenize("Lenovo"));
+    }
+
+    @Test
+    void separatesMixedScriptsAndDropsPunctuation() {
+        assertEquals(List.of("联想", "thinkpad", "x1", "x", "1", "笔记", "记本"),
+                LaptopTokenizer.tokenize("联想ThinkPad-X1 笔记本！"));
+    }
+
+    @Test
+    void returnsNoTokensForEmptyInput() {
+        assertTrue(LaptopTokenizer.tokenize(null).isEmpty());
+        assertTrue(LaptopTokenizer.tokenize("").isEmpty());
+        assertTrue(LaptopTokenizer.tokenize(" -/ ").isEmpty());
+    }
+}
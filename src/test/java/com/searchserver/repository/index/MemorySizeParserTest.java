@@ -0,0 +1,43 @@
+package com.searchserver.repository.index;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MemorySizeParserTest {
+
+    @Test
+    void parsesGigabytesAndTerabytes() {
+        assertEquals(16, MemorySizeParser.parseGb("16GB"));
+        assertEquals(32, MemorySizeParser.parseGb("32G DDR5"));
+        assertEquals(8, MemorySizeParser.parseGb("8 gb 板载"));
+        assertEquals(1024, MemorySizeParser.parseGb("1TB"));
+    }
+
+    @Test
+    void usesFirstSizeInText() {
+        assertEquals(16, MemorySizeParser.parseGb("16GB+512GB SSD"));
+    }
+
+    @Test
+    void returnsNullWithoutSize() {
+        assertNull(MemorySizeParser.parseGb(null));
+        assertNull(MemorySizeParser.parseGb(""));
+        assertNull(MemorySizeParser.parseGb("DDR5 5600MHz"));
+    }
+
+    @Test
+    void returnsNullForOversizedNumbersInsteadOfThrowing() {
+        // 爬取的标题里可能出现很长的数字串
+        assertNull(MemorySizeParser.parseGb("12345678901234567890GB"));
+        assertNull(MemorySizeParser.parseGb("1234567890G"));
+        // 换算成 GB 后超出 int
+        assertNull(MemorySizeParser.parseGb("999999999T"));
+        assertEquals(999_999_999, MemorySizeParser.parseGb("999999999G"));
+    }
+
+    @Test
+    void doesNotStartMatchInsideLongerDigitRun() {
+        assertNull(MemorySizeParser.parseGb("型号 20231234567890G"));
+    }
+}
@@ -0,0 +1,51 @@
+package com.searchserver.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * MCP 请求参数的范围校验，不合法的值以 IllegalArgumentException 返回给调用方
+ */
+class LaptopSearchServiceTest {
+
+    @Test
+    void limitIsCappedAndNegativeRejected() {
+        assertEquals(10, LaptopSearchService.checkLimit(10));
+        assertEquals(LaptopSearchService.MAX_LIMIT, LaptopSearchService.checkLimit(LaptopSearchService.MAX_LIMIT + 1));
+        assertThrows(IllegalArgumentException.class, () -> LaptopSearchService.checkLimit(-1));
+    }
+
+    @Test
+    void negativeOffsetRejected() {
+        assertEquals(0, LaptopSearchService.checkOffset(0));
+        assertThrows(IllegalArgumentException.class, () -> LaptopSearchService.checkOffset(-1));
+    }
+
+    @Test
+    void missingSearchParamsFallBackToDefaults() {
+        assertNull(LaptopSearchService.checkNprobe(null));
+        assertNull(LaptopSearchService.checkEf(null));
+    }
+
+    @Test
+    void nprobeAcceptedWithinRange() {
+        assertEquals(1, LaptopSearchService.checkNprobe(1));
+        assertEquals(LaptopSearchService.MAX_NPROBE, LaptopSearchService.checkNprobe(LaptopSearchService.MAX_NPROBE));
+    }
+
+    @Test
+    void nprobeOutOfRangeRejected() {
+        assertThrows(IllegalArgumentException.class, () -> LaptopSearchService.checkNprobe(0));
+        assertThrows(IllegalArgumentException.class, () -> LaptopSearchService.checkNprobe(-8));
+        assertThrows(IllegalArgumentException.class,
+                () -> LaptopSearchService.checkNprobe(LaptopSearchService.MAX_NPROBE + 1));
+    }
+
+    @Test
+    void efOutOfRangeRejected() {
+        assertEquals(64, LaptopSearchService.checkEf(64));
+        assertThrows(IllegalArgumentException.class, () -> LaptopSearchService.checkEf(0));
+        assertThrows(IllegalArgumentException.class, () -> LaptopSearchService.checkEf(Integer.MAX_VALUE));
+    }
+}
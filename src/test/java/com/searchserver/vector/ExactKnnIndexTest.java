@@ -0,0 +1,100 @@
+package com.searchserver.vector;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExactKnnIndexTest {
+
+    private static final int DIMENSION = 24;
+
+    @Test
+    void matchesBruteForceOnParallelScan() {
+        Random random = new Random(5);
+        for (VectorMetric metric : VectorMetric.values()) {
+            ExactKnnIndex index = new ExactKnnIndex(DIMENSION, metric);
+            Map<Long, float[]> vectors = new HashMap<>();
+            // 行数超过单任务阈值，走 ForkJoin 分段扫描再合并
+            for (long id = 0; id < 20_000; id++) {
+                float[] vector = randomVector(random);
+                vectors.put(id, vector);
+                index.add(id, vector);
+            }
+            float[] query = randomVector(random);
+
+            assertEquals(bruteForce(vectors, query, metric, 10), ids(index.search(query, 10)), metric.name());
+        }
+    }
+
+    @Test
+    void removeMovesLastRowIntoHole() {
+        Random random = new Random(9);
+        ExactKnnIndex index = new ExactKnnIndex(DIMENSION, VectorMetric.L2);
+        Map<Long, float[]> vectors = new HashMap<>();
+        for (long id = 0; id < 50; id++) {
+            float[] vector = randomVector(random);
+            vectors.put(id, vector);
+            index.add(id, vector);
+        }
+
+        index.remove(10);
+        vectors.remove(10L);
+
+        assertEquals(49, index.size());
+        // 被搬到空位上的最后一行仍按自己的 id 返回
+        assertEquals(49L, index.search(vectors.get(49L), 1).get(0).getId());
+        assertTrue(index.search(randomVector(random), 50).stream().noneMatch(hit -> hit.getId() == 10));
+    }
+
+    @Test
+    void overwriteReplacesVector() {
+        ExactKnnIndex index = new ExactKnnIndex(2, VectorMetric.L2);
+        index.add(1, new float[]{0, 0});
+        index.add(2, new float[]{5, 5});
+
+        index.add(1, new float[]{10, 10});
+
+        assertEquals(2, index.size());
+        assertEquals(2L, index.search(new float[]{0, 0}, 1).get(0).getId());
+    }
+
+    @Test
+    void rerankOrdersCandidatesExactly() {
+        Map<Long, float[]> candidates = new HashMap<>();
+        candidates.put(1L, new float[]{3, 0});
+        candidates.put(2L, new float[]{1, 0});
+        candidates.put(3L, new float[]{2, 0});
+
+        List<VectorHit> hits = ExactKnnIndex.rerank(new float[]{0, 0}, candidates, VectorMetric.L2, 2);
+
+        assertEquals(List.of(2L, 3L), ids(hits));
+        assertEquals(1f, hits.get(0).getScore(), 1e-6f);
+    }
+
+    private static List<Long> bruteForce(Map<Long, float[]> vectors, float[] query, VectorMetric metric, int k) {
+        return vectors.entrySet().stream()
+                .sorted(Comparator.comparingDouble(entry -> metric.distance(query, entry.getValue())))
+                .limit(k)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    private static List<Long> ids(List<VectorHit> hits) {
+        return hits.stream().map(VectorHit::getId).collect(Collectors.toList());
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
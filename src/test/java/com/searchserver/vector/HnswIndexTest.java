@@ -0,0 +1,119 @@
+package com.searchserver.vector;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HnswIndexTest {
+
+    private static final int DIMENSION = 32;
+    private static final int COUNT = 2000;
+    private static final int K = 10;
+
+    @Test
+    void recallMatchesExactSearch() {
+        for (VectorMetric metric : VectorMetric.values()) {
+            Random random = new Random(42);
+            HnswIndex hnsw = new HnswIndex(DIMENSION, metric, 16, 200, 100);
+            ExactKnnIndex exact = new ExactKnnIndex(DIMENSION, metric);
+            for (long id = 0; id < COUNT; id++) {
+                float[] vector = randomVector(random);
+                hnsw.add(id, vector);
+                exact.add(id, vector);
+            }
+
+            double recall = 0;
+            int queries = 50;
+            for (int i = 0; i < queries; i++) {
+                float[] query = randomVector(random);
+                recall += GroundTruth.recall(exact.search(query, K), hnsw.search(query, K));
+            }
+
+            assertTrue(recall / queries >= 0.9, metric + " recall " + recall / queries);
+        }
+    }
+
+    @Test
+    void returnsNearestFirst() {
+        Random random = new Random(7);
+        HnswIndex index = new HnswIndex(DIMENSION, VectorMetric.L2, 16, 100, 64);
+        Map<Long, float[]> vectors = new HashMap<>();
+        for (long id = 0; id < 500; id++) {
+            float[] vector = randomVector(random);
+            vectors.put(id, vector);
+            index.add(id, vector);
+        }
+        float[] query = randomVector(random);
+
+        List<VectorHit> hits = index.search(query, K);
+
+        assertEquals(K, hits.size());
+        for (int i = 1; i < hits.size(); i++) {
+            // L2 得分即距离，与 Milvus 一致，越小越相似
+            assertTrue(hits.get(i - 1).getScore() <= hits.get(i).getScore());
+        }
+        assertEquals(VectorMetric.L2.distance(query, vectors.get(hits.get(0).getId())), hits.get(0).getScore(), 1e-4);
+    }
+
+    @Test
+    void removedAndOverwrittenVectorsAreNotReturned() {
+        Random random = new Random(3);
+        HnswIndex index = new HnswIndex(DIMENSION, VectorMetric.L2, 16, 100, 64);
+        List<float[]> vectors = new ArrayList<>();
+        for (long id = 0; id < 200; id++) {
+            float[] vector = randomVector(random);
+            vectors.add(vector);
+            index.add(id, vector);
+        }
+
+        index.remove(5);
+        float[] moved = randomVector(random);
+        index.add(6, moved);
+
+        assertTrue(index.search(vectors.get(5), K).stream().noneMatch(hit -> hit.getId() == 5));
+        assertEquals(6, index.search(moved, 1).get(0).getId());
+        assertEquals(199, index.size());
+        // 删除和覆盖各留下一个墓碑
+        assertEquals(2, index.deletedCount());
+    }
+
+    @Test
+    void forEachVisitsOnlyLiveVectors() {
+        Random random = new Random(11);
+        HnswIndex index = new HnswIndex(DIMENSION, VectorMetric.L2, 16, 100, 64);
+        for (long id = 0; id < 100; id++) {
+            index.add(id, randomVector(random));
+        }
+        float[] latest = randomVector(random);
+        index.add(1, latest);
+        index.remove(2);
+
+        Map<Long, float[]> visited = new HashMap<>();
+        index.forEach(visited::put);
+
+        assertEquals(99, visited.size());
+        assertFalse(visited.containsKey(2L));
+        assertSame(latest, visited.get(1L));
+    }
+
+    @Test
+    void rejectsWrongDimension() {
+        HnswIndex index = new HnswIndex(DIMENSION, VectorMetric.L2, 16, 100, 64);
+
+        assertThrows(IllegalArgumentException.class, () -> index.add(1, new float[DIMENSION + 1]));
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,155 @@
+package com.searchserver.vector;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedVectorIndexTest {
+
+    private static final int DIMENSION = 16;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void reopensWithVectorsAndWatermark() throws Exception {
+        Path path = directory.resolve("vectors.seg");
+        Random random = new Random(1);
+        Map<Long, float[]> vectors = new HashMap<>();
+        try (MappedVectorIndex index = open(path)) {
+            assertEquals(VectorSegment.NO_WATERMARK, index.watermark());
+            for (long id = 0; id < 100; id++) {
+                float[] vector = randomVector(random);
+                vectors.put(id, vector);
+                index.add(id, vector);
+            }
+            index.remove(3);
+            vectors.remove(3L);
+            float[] moved = randomVector(random);
+            index.add(4, moved);
+            vectors.put(4L, moved);
+            index.setWatermark(42);
+        }
+
+        try (MappedVectorIndex reopened = open(path)) {
+            assertEquals(42, reopened.watermark());
+            assertEquals(99, reopened.size());
+            assertEquals(vectors.keySet(), reopened.ids());
+            Map<Long, float[]> stored = new HashMap<>();
+            reopened.forEach(stored::put);
+            for (Map.Entry<Long, float[]> entry : vectors.entrySet()) {
+                assertArrayEquals(entry.getValue(), stored.get(entry.getKey()));
+            }
+            assertEquals(4L, reopened.search(vectors.get(4L), 1).get(0).getId());
+        }
+    }
+
+    @Test
+    void keepsLastRowWhenOldRowWasNotMarked() throws Exception {
+        // 模拟追加新行后、标记旧行前进程退出
+        Path path = directory.resolve("vectors.seg");
+        VectorSegment segment = VectorSegment.create(path, 2, 8);
+        segment.append(1, new float[]{1, 1});
+        segment.append(1, new float[]{2, 2});
+        segment.force();
+        segment.close();
+
+        try (MappedVectorIndex index = new MappedVectorIndex(path, 2, VectorMetric.L2, 0.3)) {
+            assertEquals(1, index.size());
+            assertEquals(1, index.deletedCount());
+            Map<Long, float[]> stored = new HashMap<>();
+            index.forEach(stored::put);
+            assertArrayEquals(new float[]{2, 2}, stored.get(1L));
+        }
+    }
+
+    @Test
+    void startsEmptyOnDimensionMismatchOrCorruptFile() throws Exception {
+        Path path = directory.resolve("vectors.seg");
+        try (MappedVectorIndex index = open(path)) {
+            index.add(1, randomVector(new Random(2)));
+            index.setWatermark(7);
+        }
+
+        try (MappedVectorIndex index = new MappedVectorIndex(path, DIMENSION * 2, VectorMetric.L2, 0.3)) {
+            assertEquals(0, index.size());
+            assertEquals(VectorSegment.NO_WATERMARK, index.watermark());
+        }
+
+        Files.write(path, "not a segment".getBytes(StandardCharsets.UTF_8));
+        try (MappedVectorIndex index = open(path)) {
+            assertEquals(0, index.size());
+            assertEquals(VectorSegment.NO_WATERMARK, index.watermark());
+        }
+    }
+
+    @Test
+    void compactionDropsTombstonesAndKeepsWatermark() throws Exception {
+        Path path = directory.resolve("vectors.seg");
+        Random random = new Random(3);
+        try (MappedVectorIndex index = open(path)) {
+            for (long id = 0; id < 3000; id++) {
+                index.add(id, randomVector(random));
+            }
+            index.setWatermark(9);
+            for (long id = 0; id < 3000; id += 2) {
+                index.remove(id);
+            }
+            // 超过 compact-ratio 时自动压缩，压缩后的墓碑数低于阈值
+            assertTrue(index.deletedCount() <= 3000 * 0.3, "deleted " + index.deletedCount());
+            index.compact();
+            assertEquals(0, index.deletedCount());
+            assertEquals(1500, index.size());
+            assertEquals(9, index.watermark());
+        }
+
+        try (MappedVectorIndex reopened = open(path)) {
+            assertEquals(1500, reopened.size());
+            assertEquals(9, reopened.watermark());
+            assertTrue(reopened.ids().stream().allMatch(id -> id % 2 == 1));
+        }
+    }
+
+    @Test
+    void searchMatchesExactIndex() throws Exception {
+        Random random = new Random(4);
+        ExactKnnIndex exact = new ExactKnnIndex(DIMENSION, VectorMetric.IP);
+        try (MappedVectorIndex index = new MappedVectorIndex(directory.resolve("vectors.seg"), DIMENSION,
+                VectorMetric.IP, 0.3)) {
+            for (long id = 0; id < 10_000; id++) {
+                float[] vector = randomVector(random);
+                index.add(id, vector);
+                exact.add(id, vector);
+            }
+            float[] query = randomVector(random);
+
+            assertEquals(ids(exact.search(query, 10)), ids(index.search(query, 10)));
+        }
+    }
+
+    private MappedVectorIndex open(Path path) throws Exception {
+        return new MappedVectorIndex(path, DIMENSION, VectorMetric.L2, 0.3);
+    }
+
+    private static List<Long> ids(List<VectorHit> hits) {
+        return hits.stream().map(VectorHit::getId).collect(Collectors.toList());
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,77 @@
+package com.searchserver.vector;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopKCollectorTest {
+
+    @Test
+    void keepsSmallestDistancesInAscendingOrder() {
+        TopKCollector top = new TopKCollector(3);
+        float[] distances = {5f, 1f, 9f, 3f, 7f, 2f, 8f};
+        for (int i = 0; i < distances.length; i++) {
+            top.offer(i, distances[i]);
+        }
+
+        List<VectorHit> hits = top.toHits(VectorMetric.L2);
+
+        assertEquals(List.of(1L, 5L, 3L), ids(hits));
+        assertEquals(1f, hits.get(0).getScore(), 0f);
+        assertEquals(3f, hits.get(2).getScore(), 0f);
+    }
+
+    @Test
+    void thresholdIsKthDistanceOnceFull() {
+        TopKCollector top = new TopKCollector(2);
+        assertEquals(Float.POSITIVE_INFINITY, top.threshold(), 0f);
+
+        top.offer(1, 4f);
+        assertEquals(Float.POSITIVE_INFINITY, top.threshold(), 0f);
+        top.offer(2, 6f);
+        assertEquals(6f, top.threshold(), 0f);
+        top.offer(3, 5f);
+        assertEquals(5f, top.threshold(), 0f);
+    }
+
+    @Test
+    void mergeKeepsOverallTopK() {
+        TopKCollector left = new TopKCollector(2);
+        left.offer(1, 4f);
+        left.offer(2, 1f);
+        TopKCollector right = new TopKCollector(2);
+        right.offer(3, 2f);
+        right.offer(4, 8f);
+
+        left.merge(right);
+
+        assertEquals(List.of(2L, 3L), ids(left.toHits(VectorMetric.L2)));
+    }
+
+    @Test
+    void convertsInnerProductDistanceBackToScore() {
+        TopKCollector top = new TopKCollector(2);
+        top.offer(1, -0.5f);
+        top.offer(2, -0.9f);
+
+        List<VectorHit> hits = top.toHits(VectorMetric.IP);
+
+        assertEquals(List.of(2L, 1L), ids(hits));
+        assertEquals(0.9f, hits.get(0).getScore(), 1e-6f);
+    }
+
+    @Test
+    void returnsFewerHitsThanKWhenUnderfilled() {
+        TopKCollector top = new TopKCollector(5);
+        top.offer(7, 1f);
+
+        assertEquals(List.of(7L), ids(top.toHits(VectorMetric.L2)));
+    }
+
+    private static List<Long> ids(List<VectorHit> hits) {
+        return hits.stream().map(VectorHit::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,139 @@
+package com.searchserver.vector;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VectorQuantizerTest {
+
+    private static final int DIMENSION = 32;
+
+    @Test
+    void scalarQuantizerKeepsDistancesWithinQuantizationError() {
+        for (VectorMetric metric : VectorMetric.values()) {
+            List<float[]> vectors = randomVectors(new Random(1), 2000);
+            ScalarQuantizer quantizer = new ScalarQuantizer(DIMENSION, metric);
+            quantizer.train(vectors);
+
+            double error = meanRelativeError(quantizer, metric, vectors, new Random(2));
+
+            assertTrue(error < 0.02, metric + " mean relative error " + error);
+        }
+    }
+
+    @Test
+    void scalarQuantizerClampsValuesOutsideTrainingRange() {
+        ScalarQuantizer quantizer = new ScalarQuantizer(2, VectorMetric.L2);
+        quantizer.train(List.of(new float[]{0, 0}, new float[]{1, 1}));
+        byte[] codes = new byte[2];
+
+        quantizer.encode(new float[]{-5, 7}, codes, 0);
+
+        assertEquals(0, codes[0] & 0xFF);
+        assertEquals(255, codes[1] & 0xFF);
+        // 截断后等价于 (0, 1)
+        assertEquals(0f, quantizer.prepare(new float[]{0, 1}).distance(codes, 0), 1e-6f);
+    }
+
+    @Test
+    void productQuantizerApproximatesDistances() {
+        for (VectorMetric metric : VectorMetric.values()) {
+            List<float[]> vectors = randomVectors(new Random(3), 4000);
+            ProductQuantizer quantizer = new ProductQuantizer(DIMENSION, 8, metric);
+            quantizer.train(vectors);
+
+            double error = meanRelativeError(quantizer, metric, vectors, new Random(4));
+
+            assertTrue(error < 0.15, metric + " mean relative error " + error);
+            assertEquals(8, quantizer.codeSize());
+        }
+    }
+
+    @Test
+    void productQuantizerRejectsIndivisibleDimension() {
+        assertThrows(IllegalArgumentException.class, () -> new ProductQuantizer(30, 8, VectorMetric.L2));
+    }
+
+    @Test
+    void rerankedQuantizedSearchMatchesExactSearch() {
+        Random random = new Random(5);
+        Map<Long, float[]> vectors = new HashMap<>();
+        ExactKnnIndex exact = new ExactKnnIndex(DIMENSION, VectorMetric.L2);
+        List<VectorQuantizer> quantizers = List.of(new ScalarQuantizer(DIMENSION, VectorMetric.L2),
+                new ProductQuantizer(DIMENSION, 8, VectorMetric.L2));
+        List<QuantizedVectorIndex> indexes = new ArrayList<>();
+        for (VectorQuantizer quantizer : quantizers) {
+            indexes.add(new QuantizedVectorIndex(DIMENSION, VectorMetric.L2, quantizer, 10, 1000,
+                    ids -> {
+                        Map<Long, float[]> found = new HashMap<>();
+                        ids.forEach(id -> found.put(id, vectors.get(id)));
+                        return found;
+                    }));
+        }
+        for (long id = 0; id < 3000; id++) {
+            float[] vector = randomVector(random);
+            vectors.put(id, vector);
+            exact.add(id, vector);
+            for (QuantizedVectorIndex index : indexes) {
+                index.add(id, vector);
+            }
+        }
+
+        for (QuantizedVectorIndex index : indexes) {
+            // 攒够 minTrainingSize 后自动训练并编码
+            assertTrue(index.getQuantizer().isTrained());
+            double recall = 0;
+            int queries = 30;
+            for (int i = 0; i < queries; i++) {
+                float[] query = randomVector(random);
+                recall += GroundTruth.recall(exact.search(query, 10), index.search(query, 10));
+            }
+            assertTrue(recall / queries >= 0.9, index.getQuantizer() + " recall " + recall / queries);
+        }
+    }
+
+    /**
+     * 查询到码字的 ADC 距离与查询到原始向量的精确距离之间的平均相对误差
+     */
+    private static double meanRelativeError(VectorQuantizer quantizer, VectorMetric metric,
+                                            List<float[]> vectors, Random random) {
+        byte[] codes = new byte[quantizer.codeSize()];
+        double total = 0;
+        int pairs = 500;
+        for (int i = 0; i < pairs; i++) {
+            float[] query = randomVector(random);
+            float[] vector = vectors.get(random.nextInt(vectors.size()));
+            quantizer.encode(vector, codes, 0);
+            float exact = metric.distance(query, vector);
+            float approximate = quantizer.prepare(query).distance(codes, 0);
+            // 内积可正可负，按两者模长的乘积归一化
+            double norm = metric == VectorMetric.IP
+                    ? Math.sqrt(-VectorMetric.IP.distance(query, query) * -VectorMetric.IP.distance(vector, vector))
+                    : Math.abs(exact);
+            total += Math.abs(approximate - exact) / norm;
+        }
+        return total / pairs;
+    }
+
+    private static List<float[]> randomVectors(Random random, int count) {
+        List<float[]> vectors = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            vectors.add(randomVector(random));
+        }
+        return vectors;
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}